@@ -0,0 +1,21 @@
+package com.tranan.cartservice.application.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Các item của giỏ hàng khách (guest) cần gộp vào giỏ hàng sau khi đăng nhập
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MergeCartRequest {
+    @NotEmpty
+    @Size(max = 200)
+    private List<AddToCartRequest> items;
+}
@@ -0,0 +1,87 @@
+package com.tranan.cartservice.application.usecase;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Chạy các thao tác đọc-sửa-ghi giỏ hàng của một user.
+ *
+ * Trong cùng một instance, các request của cùng user (nhiều tab, double click)
+ * xếp hàng trên một lock theo userId (striped lock: userId được băm vào một
+ * trong lock-stripes lock cố định, user khác nhau hầu như không chờ nhau).
+ * Giữa các instance, CartEntity có @Version: bản ghi bị ghi đè trong lúc đang
+ * sửa thì save ném OptimisticLockingFailureException và thao tác được chạy lại
+ * trong transaction mới với giỏ hàng đọc lại, tối đa max-attempts lần.
+ *
+ * Thao tác truyền vào phải đọc lại giỏ hàng bên trong và không gọi service
+ * khác (Product / Inventory) để không giữ lock lâu.
+ */
+@Slf4j
+@Component
+public class CartMutationExecutor {
+
+    private final ReentrantLock[] stripes;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long backoffMs;
+
+    public CartMutationExecutor(PlatformTransactionManager transactionManager,
+            @Value("${cart.concurrency.lock-stripes:256}") int lockStripes,
+            @Value("${cart.concurrency.max-attempts:3}") int maxAttempts,
+            @Value("${cart.concurrency.backoff-ms:20}") long backoffMs) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.stripes = new ReentrantLock[lockStripes];
+        for (int i = 0; i < lockStripes; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.maxAttempts = maxAttempts;
+        this.backoffMs = backoffMs;
+    }
+
+    public <T> T execute(Long userId, Supplier<T> mutation) {
+        ReentrantLock lock = stripes[Math.floorMod(userId.hashCode(), stripes.length)];
+        lock.lock();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return transactionTemplate.execute(status -> mutation.get());
+                } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                    // DataIntegrityViolation: instance khác vừa tạo giỏ hàng của user (userId unique)
+                    if (attempt >= maxAttempts) {
+                        log.warn("Cart of user {} still conflicting after {} attempts", userId, attempt);
+                        throw e;
+                    }
+                    log.debug("Concurrent update on cart of user {}, retrying ({}/{})", userId, attempt, maxAttempts);
+                    backoff(attempt);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void run(Long userId, Runnable mutation) {
+        execute(userId, () -> {
+            mutation.run();
+            return null;
+        });
+    }
+
+    private void backoff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(backoffMs * attempt + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying cart update", e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.tranan.cartservice.application.usecase;
 
 import com.tranan.cartservice.application.dto.request.AddToCartRequest;
+import com.tranan.cartservice.application.dto.request.MergeCartRequest;
 import com.tranan.cartservice.application.dto.request.UpdateCartItemRequest;
 import com.tranan.cartservice.application.dto.response.CartItemResponse;
 import com.tranan.cartservice.application.dto.response.CartResponse;
@@ -20,15 +21,22 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
-@Transactional
 public class CartService {
 
     private final CartRepository cartRepository;
+    private final CartMutationExecutor cartMutationExecutor;
+    private final ProductEnrichmentService productEnrichmentService;
+    private final ProductSnapshotCache productSnapshotCache;
     private final ProductServiceClient productServiceClient;
     private final InventoryServiceClient inventoryServiceClient;
     private final KafkaTemplate<String, CartAnalyticsEvent> kafkaTemplate;
@@ -50,7 +58,8 @@ public class CartService {
 
     /**
      * Map Cart to CartResponse với enrichment từ Product Service
-     * Lấy description và thumbnail từ Product Service cho mỗi item
+     * Lấy description và thumbnail từ Product Service bằng 1 lời gọi batch cho
+     * cả giỏ hàng
      */
     private CartResponse mapToCartResponseWithEnrichment(Cart cart) {
         if (cart.getItems() == null || cart.getItems().isEmpty()) {
@@ -68,18 +77,8 @@ public class CartService {
                 .map(CartItem::getProductId)
                 .collect(java.util.stream.Collectors.toList());
 
-        // Gọi Product Service để lấy thông tin mới nhất (từng product một vì chưa có batch API)
-        java.util.Map<Long, ProductDTO> productMap = new java.util.HashMap<>();
-        for (Long productId : productIds) {
-            try {
-                ProductDTO product = productServiceClient.getProduct(productId);
-                if (product != null) {
-                    productMap.put(productId, product);
-                }
-            } catch (Exception e) {
-                log.warn("Failed to get product {} for enrichment: {}", productId, e.getMessage());
-            }
-        }
+        // Gọi Product Service 1 lần cho cả giỏ (lỗi một phần thì lấy song song phần còn thiếu)
+        java.util.Map<Long, ProductDTO> productMap = productEnrichmentService.getProducts(productIds);
 
         // Map items với enrichment
         List<CartItemResponse> itemResponses = cart.getItems().stream()
@@ -117,56 +116,57 @@ public class CartService {
         Long productId = request.getProductId();
         int requestedQuantity = request.getQuantity();
 
-        // 1. Lấy thông tin sản phẩm mới nhất từ Product Service
-        ProductDTO product = productServiceClient.getProduct(productId);
+        // 1. Lấy thông tin sản phẩm (snapshot local, cache miss mới gọi Product Service)
+        ProductDTO product = productSnapshotCache.getProduct(productId);
 
         if (product.getAvailable() == null || !product.getAvailable()) {
             throw new IllegalArgumentException("Sản phẩm không khả dụng để bán.");
         }
 
-        // 2. Kiểm tra tồn kho từ Inventory Service
-        InventoryQuantityResponse inventoryResp = inventoryServiceClient.getQuantity(productId);
-        int availableStock = inventoryResp.getQuantity() != null ? inventoryResp.getQuantity() : 0;
+        // 2. Kiểm tra tồn kho (snapshot local, checkout vẫn giữ tồn kho thật)
+        int availableStock = productSnapshotCache.getStock(productId);
 
         if (availableStock <= 0) {
             throw new IllegalArgumentException("Sản phẩm đã hết hàng.");
         }
 
-        // 3. Lấy giỏ hàng hiện tại
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseGet(() -> new Cart(userId));
+        CartItem item = CartItem.builder()
+                .productId(product.getId())
+                .productName(product.getName())
+                .productDescription(product.getDescription())
+                .productImage(product.getThumbnail())
+                .price(product.getPrice())
+                .discountPrice(product.getDiscountPrice())
+                .quantity(requestedQuantity)
+                .createAt(Instant.now())
+                .build();
 
-        // 4. Tính số lượng hiện có trong giỏ
-        int currentInCart = cart.getItems().stream()
-                .filter(item -> item.isSameProduct(productId))
-                .mapToInt(CartItem::getQuantity)
-                .sum();
+        Cart cart = cartMutationExecutor.execute(userId, () -> {
+            // 3. Lấy giỏ hàng hiện tại (đọc lại mỗi lần thử)
+            Cart current = cartRepository.findByUserId(userId)
+                    .orElseGet(() -> new Cart(userId));
 
-        int totalRequested = currentInCart + requestedQuantity;
+            // 4. Tính số lượng hiện có trong giỏ
+            int currentInCart = current.getItems().stream()
+                    .filter(cartItem -> cartItem.isSameProduct(productId))
+                    .mapToInt(CartItem::getQuantity)
+                    .sum();
 
-        if (totalRequested > availableStock) {
-            throw new IllegalArgumentException(
-                    String.format("Không đủ hàng. Chỉ còn %d sản phẩm trong kho (bạn đang có %d trong giỏ).",
-                            availableStock, currentInCart)
-            );
-        }
+            int totalRequested = currentInCart + requestedQuantity;
+
+            if (totalRequested > availableStock) {
+                throw new IllegalArgumentException(
+                        String.format("Không đủ hàng. Chỉ còn %d sản phẩm trong kho (bạn đang có %d trong giỏ).",
+                                availableStock, currentInCart)
+                );
+            }
 
-        // 5. Thêm vào giỏ (luôn cập nhật giá & tên mới nhất)
-        cart.addItem(
-                product.getId(),
-                product.getName(),
-                product.getDescription(),
-                product.getThumbnail(),
-                product.getPrice(),
-                product.getDiscountPrice(),
-                requestedQuantity
-        );
-
-        // 6. Lưu giỏ hàng và gán ID trở lại
-        cart = cartRepository.save(cart);
+            // 5. Thêm vào giỏ (chỉ ghi item này, giỏ hàng trả về đã có ID)
+            return cartRepository.addItem(userId, item);
+        });
         log.info("Added {} units of product {} to cart of user {}", requestedQuantity, productId, userId);
 
-        // 7. Publish analytics event asynchronously (fire-and-forget)
+        // 6. Publish analytics event asynchronously (fire-and-forget)
         publishAddToCartEvent(userId, product, requestedQuantity);
 
         return mapToCartResponseWithEnrichment(cart);
@@ -177,30 +177,30 @@ public class CartService {
     // ==========================================
     public CartResponse updateCartItem(Long userId, UpdateCartItemRequest request) {
         Long productId = request.getProductId();
-        
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy giỏ hàng của người dùng."));
 
-        // Kiểm tra sản phẩm có trong giỏ không
-        boolean existsInCart = cart.getItems().stream()
-                .anyMatch(item -> item.isSameProduct(productId));
+        // Kiểm tra tồn kho (ngoài lock)
+        int availableStock = productSnapshotCache.getStock(productId);
 
-        if (!existsInCart) {
-            throw new IllegalArgumentException("Sản phẩm không tồn tại trong giỏ hàng.");
-        }
+        Cart cart = cartMutationExecutor.execute(userId, () -> {
+            Cart current = cartRepository.findByUserId(userId)
+                    .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy giỏ hàng của người dùng."));
 
-        // Kiểm tra tồn kho mới nhất
-        InventoryQuantityResponse inventoryResp = inventoryServiceClient.getQuantity(productId);
-        int availableStock = inventoryResp.getQuantity() != null ? inventoryResp.getQuantity() : 0;
+            // Kiểm tra sản phẩm có trong giỏ không
+            boolean existsInCart = current.getItems().stream()
+                    .anyMatch(item -> item.isSameProduct(productId));
 
-        if (request.getQuantity() > availableStock) {
-            throw new IllegalArgumentException(
-                    String.format("Không đủ hàng. Chỉ còn %d sản phẩm trong kho.", availableStock)
-            );
-        }
+            if (!existsInCart) {
+                throw new IllegalArgumentException("Sản phẩm không tồn tại trong giỏ hàng.");
+            }
+
+            if (request.getQuantity() > availableStock) {
+                throw new IllegalArgumentException(
+                        String.format("Không đủ hàng. Chỉ còn %d sản phẩm trong kho.", availableStock)
+                );
+            }
 
-        cart.updateItemQuantity(productId, request.getQuantity());
-        cart = cartRepository.save(cart);
+            return cartRepository.updateItemQuantity(userId, productId, request.getQuantity());
+        });
 
         log.info("Updated quantity of product {} to {} in cart of user {}", productId, request.getQuantity(), userId);
 
@@ -212,12 +212,14 @@ public class CartService {
     // ==========================================
     public CartResponse removeFromCart(Long userId, UpdateCartItemRequest request) {
         Long productId = request.getProductId();
-        
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy giỏ hàng."));
 
-        cart.removeItem(productId);
-        cart = cartRepository.save(cart);
+        Cart cart = cartMutationExecutor.execute(userId, () -> {
+            Cart current = cartRepository.findByUserId(userId)
+                    .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy giỏ hàng."));
+
+            requireItems(current, List.of(productId));
+            return cartRepository.removeItems(userId, List.of(productId));
+        });
 
         log.info("Removed product {} from cart of user {}", productId, userId);
 
@@ -228,11 +230,13 @@ public class CartService {
     // 5. XÓA TOÀN BỘ GIỎ HÀNG
     // ==========================================
     public void clearCart(Long userId) {
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy giỏ hàng."));
-
-        cart.clear();
-        cartRepository.save(cart);
+        cartMutationExecutor.run(userId, () -> {
+            if (!cartRepository.existsByUserId(userId)) {
+                throw new IllegalArgumentException("Không tìm thấy giỏ hàng.");
+            }
+            cartRepository.clear(userId);
+            cartRepository.flush(userId);
+        });
 
         log.info("Cleared cart for user {}", userId);
     }
@@ -241,14 +245,13 @@ public class CartService {
     // 6. XÓA NHIỀU ITEMS KHỎI GIỎ HÀNG
     // ==========================================
     public void removeCartItems(Long userId, List<Long> productIds) {
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy giỏ hàng."));
-
-        for (Long productId : productIds) {
-            cart.removeItem(productId);
-        }
+        cartMutationExecutor.run(userId, () -> {
+            Cart cart = cartRepository.findByUserId(userId)
+                    .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy giỏ hàng."));
 
-        cartRepository.save(cart);
+            requireItems(cart, productIds);
+            cartRepository.removeItems(userId, productIds);
+        });
         log.info("Removed {} items from cart of user {}", productIds.size(), userId);
     }
 
@@ -256,15 +259,109 @@ public class CartService {
     // 7. XÓA ITEMS THEO PRODUCT IDS
     // ==========================================
     public void removeCartItemsByProductIds(Long userId, List<Long> productIds) {
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy giỏ hàng."));
+        cartMutationExecutor.run(userId, () -> {
+            Cart cart = cartRepository.findByUserId(userId)
+                    .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy giỏ hàng."));
+
+            requireItems(cart, productIds);
+            cartRepository.removeItems(userId, productIds);
+            // Checkout: ghi giỏ hàng xuống Postgres ngay khi lưu trên Redis
+            cartRepository.flush(userId);
+        });
+        log.info("Removed {} items by productIds from cart of user {}", productIds.size(), userId);
+    }
 
-        for (Long productId : productIds) {
-            cart.removeItem(productId);
+    // ==========================================
+    // 8. GỘP GIỎ HÀNG KHÁCH SAU KHI ĐĂNG NHẬP
+    // ==========================================
+    /**
+     * Gộp giỏ hàng khách vào giỏ hàng của user: 1 lời gọi batch tới Product
+     * Service, 1 tới Inventory Service, rồi cộng dồn tất cả item trong 1 lần ghi
+     * (addItems, không ghi đè cả giỏ hàng nên không làm mất thay đổi đồng thời
+     * trên Redis). Sản phẩm không còn bán / hết hàng bị bỏ qua, số lượng vượt tồn
+     * kho được giảm xuống phần còn lại (giỏ hàng khách có thể đã cũ).
+     */
+    public CartResponse mergeCart(Long userId, MergeCartRequest request) {
+        // Gộp các dòng trùng productId
+        Map<Long, Integer> requested = new LinkedHashMap<>();
+        for (AddToCartRequest item : request.getItems()) {
+            if (item.getProductId() == null || item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Sản phẩm hoặc số lượng không hợp lệ.");
+            }
+            requested.merge(item.getProductId(), item.getQuantity(), Integer::sum);
         }
+        List<Long> productIds = new ArrayList<>(requested.keySet());
+
+        List<ProductDTO> batch = productServiceClient.getProductsByIds(productIds);
+        Map<Long, ProductDTO> products = batch == null ? Map.of() : batch.stream()
+                .filter(product -> product != null && product.getId() != null)
+                .collect(Collectors.toMap(ProductDTO::getId, Function.identity(), (first, second) -> first));
+        if (products.isEmpty()) {
+            // Fallback của lời gọi batch trả về null
+            throw new IllegalArgumentException("Không thể lấy thông tin sản phẩm. Vui lòng thử lại.");
+        }
+        List<InventoryQuantityResponse> quantities = inventoryServiceClient.getQuantities(productIds);
+        if (quantities == null) {
+            // Fallback của Inventory Service trả về null
+            throw new IllegalArgumentException("Không thể kiểm tra tồn kho. Vui lòng thử lại.");
+        }
+        Map<Long, Integer> stock = quantities.stream()
+                .filter(quantity -> quantity.getQuantity() != null)
+                .collect(Collectors.toMap(InventoryQuantityResponse::getProductId,
+                        InventoryQuantityResponse::getQuantity, (first, second) -> first));
+
+        Map<Long, Integer> merged = new LinkedHashMap<>();
+        Cart cart = cartMutationExecutor.execute(userId, () -> {
+            merged.clear();
+            List<CartItem> items = new ArrayList<>();
+            Cart current = cartRepository.findByUserId(userId)
+                    .orElseGet(() -> new Cart(userId));
+
+            requested.forEach((productId, quantity) -> {
+                ProductDTO product = products.get(productId);
+                if (product == null || !Boolean.TRUE.equals(product.getAvailable())) {
+                    return;
+                }
+                int currentInCart = current.getItems().stream()
+                        .filter(item -> item.isSameProduct(productId))
+                        .mapToInt(CartItem::getQuantity)
+                        .sum();
+                int toAdd = Math.min(quantity, stock.getOrDefault(productId, 0) - currentInCart);
+                if (toAdd <= 0) {
+                    return;
+                }
+                items.add(CartItem.builder()
+                        .productId(product.getId())
+                        .productName(product.getName())
+                        .productDescription(product.getDescription())
+                        .productImage(product.getThumbnail())
+                        .price(product.getPrice())
+                        .discountPrice(product.getDiscountPrice())
+                        .quantity(toAdd)
+                        .createAt(Instant.now())
+                        .build());
+                merged.put(productId, toAdd);
+            });
+
+            // Ghi 1 lần cho cả giỏ hàng
+            return items.isEmpty() ? current : cartRepository.addItems(userId, items);
+        });
+        log.info("Merged {}/{} guest cart products into cart of user {}", merged.size(), requested.size(), userId);
+
+        merged.forEach((productId, quantity) -> publishAddToCartEvent(userId, products.get(productId), quantity));
 
-        cartRepository.save(cart);
-        log.info("Removed {} items by productIds from cart of user {}", productIds.size(), userId);
+        return mapToCartResponseWithEnrichment(cart);
+    }
+
+    // Mọi sản phẩm cần xóa phải có trong giỏ (giống Cart.removeItem)
+    private void requireItems(Cart cart, List<Long> productIds) {
+        for (Long productId : productIds) {
+            boolean existsInCart = cart.getItems().stream()
+                    .anyMatch(item -> item.isSameProduct(productId));
+            if (!existsInCart) {
+                throw new IllegalArgumentException("Product not found in cart");
+            }
+        }
     }
 
     // ==========================================
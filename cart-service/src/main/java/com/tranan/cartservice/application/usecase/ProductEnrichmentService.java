@@ -0,0 +1,107 @@
+package com.tranan.cartservice.application.usecase;
+
+import com.tranan.cartservice.infrastructure.client.client.ProductServiceClient;
+import com.tranan.cartservice.infrastructure.client.dto.ProductDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lấy thông tin sản phẩm để enrich giỏ hàng.
+ *
+ * Mỗi response giỏ hàng chỉ gọi /api/internal/products/batch một lần. Nếu batch
+ * thiếu sản phẩm, các sản phẩm còn thiếu được lấy song song (tối đa
+ * fallback-concurrency lời gọi cùng lúc, chờ không quá fallback-timeout-ms) nên
+ * thời gian phản hồi không tăng theo số item. Nếu chính lời gọi batch lỗi
+ * (product-service đang quá tải / không phản hồi) thì không gọi từng sản phẩm:
+ * N lời gọi lẻ chỉ làm service đó quá tải thêm, giỏ hàng trả về không enrich.
+ */
+@Slf4j
+@Service
+public class ProductEnrichmentService {
+
+    private final ProductServiceClient productServiceClient;
+    private final ExecutorService fallbackExecutor;
+    private final long fallbackTimeoutMs;
+
+    public ProductEnrichmentService(ProductServiceClient productServiceClient,
+            @Value("${cart.enrichment.fallback-concurrency:8}") int fallbackConcurrency,
+            @Value("${cart.enrichment.fallback-timeout-ms:2000}") long fallbackTimeoutMs) {
+        this.productServiceClient = productServiceClient;
+        this.fallbackExecutor = Executors.newFixedThreadPool(fallbackConcurrency);
+        this.fallbackTimeoutMs = fallbackTimeoutMs;
+    }
+
+    /**
+     * productId -> sản phẩm, sản phẩm không lấy được bị bỏ qua
+     */
+    public Map<Long, ProductDTO> getProducts(Collection<Long> productIds) {
+        Map<Long, ProductDTO> products = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return products;
+        }
+        List<Long> ids = List.copyOf(new LinkedHashSet<>(productIds));
+
+        List<ProductDTO> batch;
+        try {
+            batch = productServiceClient.getProductsByIds(ids);
+        } catch (Exception e) {
+            batch = null;
+            log.warn("Batch product lookup failed for {} products: {}", ids.size(), e.getMessage());
+        }
+        if (batch == null) {
+            // Fallback của lời gọi batch trả về null khi lỗi
+            return products;
+        }
+        for (ProductDTO product : batch) {
+            if (product != null && product.getId() != null) {
+                products.put(product.getId(), product);
+            }
+        }
+
+        List<Long> missing = ids.stream().filter(id -> !products.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            products.putAll(fetchConcurrently(missing));
+        }
+        return products;
+    }
+
+    private Map<Long, ProductDTO> fetchConcurrently(List<Long> productIds) {
+        Map<Long, CompletableFuture<ProductDTO>> futures = new HashMap<>();
+        for (Long productId : productIds) {
+            futures.put(productId, CompletableFuture
+                    .supplyAsync(() -> productServiceClient.getProduct(productId), fallbackExecutor)
+                    .completeOnTimeout(null, fallbackTimeoutMs, TimeUnit.MILLISECONDS)
+                    .exceptionally(e -> {
+                        log.warn("Failed to get product {} for enrichment: {}", productId, e.getMessage());
+                        return null;
+                    }));
+        }
+
+        Map<Long, ProductDTO> products = new HashMap<>();
+        futures.forEach((productId, future) -> {
+            ProductDTO product = future.join();
+            // Fallback của Feign trả về DTO rỗng (không có id) khi lỗi
+            if (product != null && product.getId() != null) {
+                products.put(productId, product);
+            }
+        });
+        return products;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fallbackExecutor.shutdown();
+    }
+}
@@ -0,0 +1,98 @@
+package com.tranan.cartservice.application.usecase;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tranan.cartservice.infrastructure.client.client.InventoryServiceClient;
+import com.tranan.cartservice.infrastructure.client.client.ProductServiceClient;
+import com.tranan.cartservice.infrastructure.client.dto.InventoryQuantityResponse;
+import com.tranan.cartservice.infrastructure.client.dto.ProductDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * Snapshot local (Caffeine) của sản phẩm (tên, giá, giá giảm, khả dụng) và tồn
+ * kho, dùng cho kiểm tra khi thêm / cập nhật giỏ hàng.
+ *
+ * Entry được nạp khi cần (cache miss mới gọi Product / Inventory Service) và
+ * bị xóa khi nhận product-events / inventory-events. TTL chặn trên độ trễ khi
+ * mất event; tồn kho có TTL ngắn hơn vì hàng đang được giữ cho đơn hàng không
+ * phát event. Snapshot chỉ dùng để chặn sớm: checkout vẫn giữ tồn kho và lấy
+ * giá từ Inventory / Product Service.
+ *
+ * Kết quả từ fallback (Product / Inventory Service lỗi, client trả về null)
+ * không được cache: lời gọi báo lỗi để client thử lại thay vì nhận "không khả
+ * dụng" / "hết hàng" trong suốt TTL.
+ */
+@Service
+public class ProductSnapshotCache {
+
+    private final ProductServiceClient productServiceClient;
+    private final InventoryServiceClient inventoryServiceClient;
+    private final Cache<Long, ProductDTO> products;
+    private final Cache<Long, Integer> stock;
+
+    public ProductSnapshotCache(ProductServiceClient productServiceClient,
+            InventoryServiceClient inventoryServiceClient,
+            MeterRegistry meterRegistry,
+            @Value("${cart.snapshot.product-ttl-seconds:600}") long productTtlSeconds,
+            @Value("${cart.snapshot.stock-ttl-seconds:30}") long stockTtlSeconds,
+            @Value("${cart.snapshot.max-size:50000}") long maxSize) {
+        this.productServiceClient = productServiceClient;
+        this.inventoryServiceClient = inventoryServiceClient;
+        this.products = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(productTtlSeconds))
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        this.stock = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(stockTtlSeconds))
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, products, "cart.snapshot.product");
+        CaffeineCacheMetrics.monitor(meterRegistry, stock, "cart.snapshot.stock");
+    }
+
+    public ProductDTO getProduct(Long productId) {
+        ProductDTO product = products.get(productId, id -> {
+            ProductDTO loaded = productServiceClient.getProduct(id);
+            // Fallback trả về null (hoặc sản phẩm không có id): không cache
+            return loaded != null && loaded.getId() != null ? loaded : null;
+        });
+        if (product == null) {
+            throw new IllegalArgumentException("Không thể lấy thông tin sản phẩm. Vui lòng thử lại.");
+        }
+        return product;
+    }
+
+    /**
+     * Tồn kho hiện có của sản phẩm (0 nếu chưa có inventory)
+     */
+    public int getStock(Long productId) {
+        Integer quantity = stock.get(productId, id -> {
+            InventoryQuantityResponse response = inventoryServiceClient.getQuantity(id);
+            if (response == null) {
+                // Fallback: không cache
+                return null;
+            }
+            return response.getQuantity() != null ? response.getQuantity() : 0;
+        });
+        if (quantity == null) {
+            throw new IllegalArgumentException("Không thể kiểm tra tồn kho. Vui lòng thử lại.");
+        }
+        return quantity;
+    }
+
+    public void evictProducts(Collection<Long> productIds) {
+        products.invalidateAll(productIds);
+    }
+
+    public void evictStock(Collection<Long> productIds) {
+        stock.invalidateAll(productIds);
+    }
+}
@@ -15,6 +15,7 @@ public class Cart {
     private List<CartItem> items;
     private Instant createdAt;
     private Instant updatedAt;
+    private Long version;          // Optimistic locking
 
     // Constructor cho cart mới
     public Cart(Long userId) {
@@ -27,11 +28,17 @@ public class Cart {
     // Constructor từ DB
     public Cart(Long id, Long userId, List<CartItem> items,
                 Instant createdAt, Instant updatedAt) {
+        this(id, userId, items, createdAt, updatedAt, null);
+    }
+
+    public Cart(Long id, Long userId, List<CartItem> items,
+                Instant createdAt, Instant updatedAt, Long version) {
         this.id = id;
         this.userId = userId;
         this.items = items != null ? items : new ArrayList<>();
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
+        this.version = version;
     }
 
     // ========== BUSINESS LOGIC ==========
@@ -1,7 +1,9 @@
 package com.tranan.cartservice.domain.repository;
 
 import com.tranan.cartservice.domain.model.Cart;
+import com.tranan.cartservice.domain.model.CartItem;
 
+import java.util.Collection;
 import java.util.Optional;
 
 public interface CartRepository {
@@ -10,4 +12,20 @@ public interface CartRepository {
     Optional<Cart> findById(Long cartId);
     void delete(Cart cart);
     boolean existsByUserId(Long userId);
+
+    // Thêm item (đã có thì cộng dồn quantity), trả về giỏ hàng sau khi cập nhật
+    Cart addItem(Long userId, CartItem item);
+
+    // Thêm nhiều item trong một lần ghi (đã có thì cộng dồn quantity)
+    Cart addItems(Long userId, Collection<CartItem> items);
+
+    Cart updateItemQuantity(Long userId, Long productId, int quantity);
+
+    Cart removeItems(Long userId, Collection<Long> productIds);
+
+    void clear(Long userId);
+
+    // Ghi giỏ hàng xuống Postgres ngay (no-op khi giỏ hàng lưu trực tiếp trên Postgres)
+    default void flush(Long userId) {
+    }
 }
@@ -5,7 +5,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.openfeign.FallbackFactory;
 import org.springframework.stereotype.Component;
 
-import java.util.Collections;
 import java.util.List;
 
 @Slf4j
@@ -16,26 +15,21 @@ public class InventoryServiceFallbackFactory implements FallbackFactory<Inventor
     public InventoryServiceClient create(Throwable cause) {
         log.error("Inventory Service call failed. Entering fallback mode. Cause: {}", cause.getMessage(), cause);
 
+        // Trả về null (không phải số lượng 0) để caller phân biệt "không biết tồn
+        // kho" với "hết hàng" và không cache kết quả này
         return new InventoryServiceClient() {
 
             @Override
             public InventoryQuantityResponse getQuantity(Long productId) {
-                log.warn("Fallback: Returning quantity 0 for productId {} because Inventory Service is unavailable", productId);
-                return new InventoryQuantityResponse(productId, 0); // Giả lập hết hàng
+                log.warn("Fallback: No quantity for productId {} because Inventory Service is unavailable", productId);
+                return null;
             }
 
             @Override
             public List<InventoryQuantityResponse> getQuantities(List<Long> productIds) {
-                log.warn("Fallback: Returning quantity 0 for {} productIds because Inventory Service is unavailable",
+                log.warn("Fallback: No quantities for {} productIds because Inventory Service is unavailable",
                         productIds != null ? productIds.size() : 0);
-
-                if (productIds == null || productIds.isEmpty()) {
-                    return Collections.emptyList();
-                }
-
-                return productIds.stream()
-                        .map(id -> new InventoryQuantityResponse(id, 0))
-                        .toList();
+                return null;
             }
         };
     }
@@ -4,14 +4,21 @@ import com.tranan.cartservice.infrastructure.client.dto.ProductDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable; // Nhớ import PathVariable
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
 
 @FeignClient(
         name = "product-service",
-        fallback = ProductServiceClientFallbackFactory.class // Thêm dòng này
+        fallbackFactory = ProductServiceClientFallbackFactory.class
 )
 public interface ProductServiceClient {
 
     @GetMapping("/api/internal/products/{productId}")
         // Lưu ý: Feign cần @PathVariable("tên_tham_số") rõ ràng
     ProductDTO getProduct(@PathVariable("productId") Long productId);
-}
\ No newline at end of file
+
+    // Lấy nhiều sản phẩm trong 1 lần gọi (sản phẩm không tồn tại bị bỏ qua)
+    @GetMapping("/api/internal/products/batch")
+    List<ProductDTO> getProductsByIds(@RequestParam("ids") List<Long> ids);
+}
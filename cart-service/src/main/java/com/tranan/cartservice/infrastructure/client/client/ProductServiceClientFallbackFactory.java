@@ -5,6 +5,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.openfeign.FallbackFactory;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 @Slf4j // Lombok log
 public class ProductServiceClientFallbackFactory implements FallbackFactory<ProductServiceClient> {
@@ -14,7 +16,16 @@ public class ProductServiceClientFallbackFactory implements FallbackFactory<Prod
             @Override
             public ProductDTO getProduct(Long productId) {
                 log.error("Error calling product-service for id {}: {}", productId, cause.getMessage());
-                return ProductDTO.builder().available(false).build();
+                // null: caller phân biệt với sản phẩm không khả dụng và không cache
+                return null;
+            }
+
+            @Override
+            public List<ProductDTO> getProductsByIds(List<Long> ids) {
+                log.error("Error calling product-service batch for {} ids: {}",
+                        ids != null ? ids.size() : 0, cause.getMessage());
+                // null: caller phân biệt lời gọi batch lỗi với batch không có sản phẩm nào
+                return null;
             }
         };
     }
@@ -0,0 +1,32 @@
+package com.tranan.cartservice.infrastructure.config.kafka;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.springframework.kafka.core.ConsumerFactory;
+
+import java.util.List;
+
+/**
+ * Liệt kê partition của topic để listener snapshot tự gán toàn bộ partition
+ * (manual assignment, không dùng consumer group). Partition thêm sau khi
+ * khởi động chỉ được đọc từ lần khởi động kế tiếp.
+ */
+@RequiredArgsConstructor
+public class SnapshotPartitionFinder {
+
+    private final ConsumerFactory<String, ?> consumerFactory;
+
+    public String[] partitions(String topic) {
+        try (Consumer<String, ?> consumer = consumerFactory.createConsumer()) {
+            List<PartitionInfo> partitions = consumer.partitionsFor(topic);
+            if (partitions == null || partitions.isEmpty()) {
+                // Topic chưa tồn tại: sẽ được tạo với 1 partition
+                return new String[] { "0" };
+            }
+            return partitions.stream()
+                    .map(partition -> String.valueOf(partition.partition()))
+                    .toArray(String[]::new);
+        }
+    }
+}
@@ -19,4 +19,9 @@ public class CartEntity extends BaseEntity {
 
     @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
     private List<CartItemEntity> items = new ArrayList<>();
+
+    // Optimistic Locking (default 0 cho các giỏ hàng có sẵn trước khi thêm cột)
+    @Version
+    @Column(name = "version", columnDefinition = "bigint default 0")
+    private Long version;
 }
@@ -0,0 +1,27 @@
+package com.tranan.cartservice.infrastructure.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Event tồn kho thay đổi do Inventory Service publish (topic inventory-events)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryEvent implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final String STOCK_CHANGED = "STOCK_CHANGED";
+
+    private String eventType;
+    private List<Long> productIds;
+    private Instant timestamp;
+}
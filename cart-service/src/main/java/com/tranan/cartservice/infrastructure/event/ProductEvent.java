@@ -0,0 +1,32 @@
+package com.tranan.cartservice.infrastructure.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Event thay đổi sản phẩm do Product Service publish (topic product-events)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductEvent implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final String PRODUCT_UPSERTED = "PRODUCT_UPSERTED";
+    public static final String PRODUCT_DELETED = "PRODUCT_DELETED";
+
+    private String eventType;
+    private Long productId;
+    private String name;
+    private BigDecimal price;
+    private BigDecimal discountPrice;
+    private String thumbnail;
+    private Instant timestamp;
+}
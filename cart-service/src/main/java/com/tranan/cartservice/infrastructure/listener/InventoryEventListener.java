@@ -0,0 +1,31 @@
+package com.tranan.cartservice.infrastructure.listener;
+
+import com.tranan.cartservice.application.usecase.ProductSnapshotCache;
+import com.tranan.cartservice.infrastructure.event.InventoryEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.stereotype.Service;
+
+/**
+ * Xóa snapshot tồn kho khi tồn kho thay đổi (inventory-events)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InventoryEventListener {
+
+    private final ProductSnapshotCache productSnapshotCache;
+
+    @KafkaListener(topicPartitions = @TopicPartition(topic = "inventory-events",
+            partitions = "#{@snapshotPartitionFinder.partitions('inventory-events')}"),
+            containerFactory = "inventoryEventListenerContainerFactory")
+    public void handle(InventoryEvent event) {
+        if (event.getProductIds() == null) {
+            return;
+        }
+        log.debug("Received inventory event: type={}, {} products", event.getEventType(), event.getProductIds().size());
+        productSnapshotCache.evictStock(event.getProductIds());
+    }
+}
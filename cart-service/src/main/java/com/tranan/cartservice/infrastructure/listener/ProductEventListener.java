@@ -0,0 +1,32 @@
+package com.tranan.cartservice.infrastructure.listener;
+
+import com.tranan.cartservice.application.usecase.ProductSnapshotCache;
+import com.tranan.cartservice.infrastructure.event.ProductEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Xóa snapshot sản phẩm khi sản phẩm được cập nhật / xóa (product-events)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductEventListener {
+
+    private final ProductSnapshotCache productSnapshotCache;
+
+    @KafkaListener(topicPartitions = @TopicPartition(topic = "product-events",
+            partitions = "#{@snapshotPartitionFinder.partitions('product-events')}"),
+            containerFactory = "productEventListenerContainerFactory")
+    public void handle(ProductEvent event) {
+        log.debug("Received product event: type={}, productId={}", event.getEventType(), event.getProductId());
+        if (event.getProductId() != null) {
+            productSnapshotCache.evictProducts(List.of(event.getProductId()));
+        }
+    }
+}
@@ -22,6 +22,7 @@ public class CartMapper {
         jpaEntity.setUserId(cart.getUserId());
         jpaEntity.setCreatedAt(cart.getCreatedAt());
         jpaEntity.setUpdatedAt(cart.getUpdatedAt());
+        jpaEntity.setVersion(cart.getVersion());
 
         // Map items
         if (cart.getItems() != null) {
@@ -72,7 +73,8 @@ public class CartMapper {
                 jpaEntity.getUserId(),
                 items,
                 jpaEntity.getCreatedAt(),
-                jpaEntity.getUpdatedAt()
+                jpaEntity.getUpdatedAt(),
+                jpaEntity.getVersion()
         );
     }
 
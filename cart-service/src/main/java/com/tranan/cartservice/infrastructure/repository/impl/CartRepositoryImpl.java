@@ -1,17 +1,24 @@
 package com.tranan.cartservice.infrastructure.repository.impl;
 
 import com.tranan.cartservice.domain.model.Cart;
+import com.tranan.cartservice.domain.model.CartItem;
 import com.tranan.cartservice.domain.repository.CartRepository;
 import com.tranan.cartservice.infrastructure.entity.CartEntity;
 import com.tranan.cartservice.infrastructure.mapper.CartMapper;
 import com.tranan.cartservice.infrastructure.repository.jpa.CartJpaRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
 
+/**
+ * Lưu giỏ hàng trên Postgres (cart.storage=jpa, mặc định)
+ */
 @Repository
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "cart.storage", havingValue = "jpa", matchIfMissing = true)
 public class CartRepositoryImpl implements CartRepository {
 
     private final CartJpaRepository jpaRepository;
@@ -48,6 +55,46 @@ public class CartRepositoryImpl implements CartRepository {
         return jpaRepository.existsByUserId(userId);
     }
 
+    @Override
+    public Cart addItem(Long userId, CartItem item) {
+        Cart cart = findByUserId(userId).orElseGet(() -> new Cart(userId));
+        cart.addItem(item.getProductId(), item.getProductName(), item.getProductDescription(),
+                item.getProductImage(), item.getPrice(), item.getDiscountPrice(), item.getQuantity());
+        return save(cart);
+    }
+
+    @Override
+    public Cart addItems(Long userId, Collection<CartItem> items) {
+        Cart cart = findByUserId(userId).orElseGet(() -> new Cart(userId));
+        items.forEach(item -> cart.addItem(item.getProductId(), item.getProductName(), item.getProductDescription(),
+                item.getProductImage(), item.getPrice(), item.getDiscountPrice(), item.getQuantity()));
+        return save(cart);
+    }
+
+    @Override
+    public Cart updateItemQuantity(Long userId, Long productId, int quantity) {
+        Cart cart = findByUserId(userId)
+                .orElseThrow(() -> new IllegalArgumentException("Product not found in cart"));
+        cart.updateItemQuantity(productId, quantity);
+        return save(cart);
+    }
+
+    @Override
+    public Cart removeItems(Long userId, Collection<Long> productIds) {
+        Cart cart = findByUserId(userId)
+                .orElseThrow(() -> new IllegalArgumentException("Product not found in cart"));
+        productIds.forEach(cart::removeItem);
+        return save(cart);
+    }
+
+    @Override
+    public void clear(Long userId) {
+        findByUserId(userId).ifPresent(cart -> {
+            cart.clear();
+            save(cart);
+        });
+    }
+
     // ========== MAPPING ==========
     private CartEntity toDomainToEntity(Cart cart) {
         return cartMapper.toJpaEntity(cart);
@@ -0,0 +1,449 @@
+package com.tranan.cartservice.infrastructure.repository.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tranan.cartservice.domain.model.Cart;
+import com.tranan.cartservice.domain.model.CartItem;
+import com.tranan.cartservice.domain.repository.CartRepository;
+import com.tranan.cartservice.infrastructure.entity.CartEntity;
+import com.tranan.cartservice.infrastructure.mapper.CartMapper;
+import com.tranan.cartservice.infrastructure.repository.jpa.CartJpaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Lưu giỏ hàng trên Redis (cart.storage=redis).
+ *
+ * Mỗi giỏ hàng là một hash cart:{userId}: với mỗi sản phẩm có field
+ * {productId}:q (quantity, cập nhật bằng HINCRBY / HSET) và {productId}:i
+ * (snapshot tên, giá... dạng JSON), cùng các field meta _id (id trên
+ * Postgres), _created, _updated. Mỗi thao tác chỉ ghi các field liên quan và
+ * đọc lại hash trong cùng một pipeline (1 round-trip), không đọc-sửa-ghi cả
+ * giỏ hàng. Key có TTL, được gia hạn mỗi lần ghi nên giỏ hàng bỏ dở tự bị xóa
+ * khỏi Redis.
+ *
+ * Thay cả giỏ hàng (save, clear) chạy bằng Lua script nên atomic: hash không
+ * bị xóa rồi ghi lại, request khác không thấy giỏ hàng rỗng hay xen được lệnh
+ * ghi vào giữa.
+ *
+ * Postgres vẫn là bản durable: userId của giỏ hàng vừa thay đổi được thêm vào
+ * set cart:dirty, job flush định kỳ (và flush khi checkout) ghi lại cả giỏ
+ * xuống carts / cart_items. userId đang flush nằm trong zset
+ * cart:dirty:processing và chỉ bị xóa sau khi ghi Postgres thành công; flush
+ * lỗi hoặc instance dừng giữa chừng thì sau flush-retry-ms userId được đưa lại
+ * vào cart:dirty. Khi hash không có trên Redis (hết TTL, khởi động lần đầu) giỏ
+ * hàng được nạp lại từ Postgres bằng HSETNX nên không ghi đè thay đổi mới hơn
+ * trên Redis.
+ */
+@Slf4j
+@Repository
+@ConditionalOnProperty(name = "cart.storage", havingValue = "redis")
+public class RedisCartRepository implements CartRepository {
+
+    private static final String KEY_PREFIX = "cart:";
+    private static final String DIRTY_KEY = "cart:dirty";
+    private static final String PROCESSING_KEY = "cart:dirty:processing";
+    private static final String ID_FIELD = "_id";
+    private static final String CREATED_FIELD = "_created";
+    private static final String UPDATED_FIELD = "_updated";
+    private static final String QUANTITY_SUFFIX = ":q";
+    private static final String ITEM_SUFFIX = ":i";
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> REPLACE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/cart_replace.lua"), List.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CLAIM_DIRTY_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/cart_claim_dirty.lua"), List.class);
+    private static final RedisScript<Long> ACK_FLUSH_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/cart_ack_flush.lua"), Long.class);
+
+    // Snapshot thông tin sản phẩm của một item
+    private record StoredItem(String name, String description, String image,
+            BigDecimal price, BigDecimal discountPrice, Instant createdAt) {
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final CartJpaRepository jpaRepository;
+    private final CartMapper cartMapper;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final int flushBatchSize;
+    private final long flushRetryMs;
+
+    public RedisCartRepository(StringRedisTemplate redisTemplate,
+            CartJpaRepository jpaRepository,
+            CartMapper cartMapper,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${cart.redis.ttl-days:30}") long ttlDays,
+            @Value("${cart.redis.flush-batch-size:200}") int flushBatchSize,
+            @Value("${cart.redis.flush-retry-ms:60000}") long flushRetryMs) {
+        this.redisTemplate = redisTemplate;
+        this.jpaRepository = jpaRepository;
+        this.cartMapper = cartMapper;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = Duration.ofDays(ttlDays);
+        this.flushBatchSize = flushBatchSize;
+        this.flushRetryMs = flushRetryMs;
+    }
+
+    @Override
+    public Cart save(Cart cart) {
+        Map<String, String> fields = new HashMap<>();
+        if (cart.getId() != null) {
+            fields.put(ID_FIELD, String.valueOf(cart.getId()));
+        }
+        if (cart.getCreatedAt() != null) {
+            fields.put(CREATED_FIELD, String.valueOf(cart.getCreatedAt()));
+        }
+        for (CartItem item : cart.getItems()) {
+            fields.put(item.getProductId() + QUANTITY_SUFFIX, String.valueOf(item.getQuantity()));
+            fields.put(item.getProductId() + ITEM_SUFFIX, toJson(item));
+        }
+        return replace(cart.getUserId(), fields);
+    }
+
+    @Override
+    public Optional<Cart> findByUserId(Long userId) {
+        Map<String, String> entries = entries(userId);
+        if (entries.containsKey(UPDATED_FIELD)) {
+            return Optional.of(toCart(userId, entries));
+        }
+
+        // Chưa có trên Redis: nạp từ Postgres
+        Optional<Cart> stored = jpaRepository.findByUserId(userId).map(cartMapper::toDomain);
+        stored.ifPresent(this::load);
+        return stored.map(cart -> toCart(userId, entries(userId)));
+    }
+
+    @Override
+    public Optional<Cart> findById(Long cartId) {
+        return jpaRepository.findById(cartId)
+                .flatMap(entity -> findByUserId(entity.getUserId()));
+    }
+
+    @Override
+    public void delete(Cart cart) {
+        redisTemplate.delete(key(cart.getUserId()));
+        redisTemplate.opsForSet().remove(DIRTY_KEY, String.valueOf(cart.getUserId()));
+        redisTemplate.opsForZSet().remove(PROCESSING_KEY, String.valueOf(cart.getUserId()));
+        // Giỏ hàng chưa flush lần nào thì chưa có _id
+        jpaRepository.findByUserId(cart.getUserId()).ifPresent(jpaRepository::delete);
+    }
+
+    @Override
+    public boolean existsByUserId(Long userId) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(key(userId))) || jpaRepository.existsByUserId(userId);
+    }
+
+    @Override
+    public Cart addItem(Long userId, CartItem item) {
+        if (item.getQuantity() <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        String key = key(userId);
+        String now = String.valueOf(Instant.now());
+        String itemJson = toJson(item);
+        return mutate(userId, ops -> {
+            HashOperations<String, String, String> hash = ops.opsForHash();
+            // Item đã có thì giữ snapshot cũ, chỉ cộng dồn quantity (giống Cart.addItem)
+            hash.putIfAbsent(key, item.getProductId() + ITEM_SUFFIX, itemJson);
+            hash.increment(key, item.getProductId() + QUANTITY_SUFFIX, item.getQuantity());
+            hash.putIfAbsent(key, CREATED_FIELD, now);
+        });
+    }
+
+    @Override
+    public Cart addItems(Long userId, Collection<CartItem> items) {
+        if (items.stream().anyMatch(item -> item.getQuantity() <= 0)) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        String key = key(userId);
+        String now = String.valueOf(Instant.now());
+        List<String> itemJson = items.stream().map(this::toJson).toList();
+        return mutate(userId, ops -> {
+            HashOperations<String, String, String> hash = ops.opsForHash();
+            int i = 0;
+            for (CartItem item : items) {
+                hash.putIfAbsent(key, item.getProductId() + ITEM_SUFFIX, itemJson.get(i++));
+                hash.increment(key, item.getProductId() + QUANTITY_SUFFIX, item.getQuantity());
+            }
+            hash.putIfAbsent(key, CREATED_FIELD, now);
+        });
+    }
+
+    @Override
+    public Cart updateItemQuantity(Long userId, Long productId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        String key = key(userId);
+        return mutate(userId, ops -> ops.opsForHash()
+                .put(key, productId + QUANTITY_SUFFIX, String.valueOf(quantity)));
+    }
+
+    @Override
+    public Cart removeItems(Long userId, Collection<Long> productIds) {
+        String key = key(userId);
+        Object[] fields = productIds.stream()
+                .flatMap(productId -> Stream.of(productId + QUANTITY_SUFFIX, productId + ITEM_SUFFIX))
+                .toArray();
+        return mutate(userId, ops -> ops.opsForHash().delete(key, fields));
+    }
+
+    @Override
+    public void clear(Long userId) {
+        // Nạp từ Postgres nếu Redis chưa có, để bản trên Postgres cũng được xóa khi flush
+        if (findByUserId(userId).isEmpty()) {
+            return;
+        }
+        replace(userId, Map.of());
+    }
+
+    /**
+     * Ghi ngay giỏ hàng xuống Postgres (checkout)
+     */
+    @Override
+    public void flush(Long userId) {
+        String member = String.valueOf(userId);
+        long claimedAt = System.currentTimeMillis();
+        // Đánh dấu đang flush trước khi bỏ khỏi cart:dirty: dừng giữa chừng thì job flush thử lại
+        redisTemplate.opsForZSet().add(PROCESSING_KEY, member, claimedAt);
+        redisTemplate.opsForSet().remove(DIRTY_KEY, member);
+        try {
+            persist(userId);
+        } catch (RuntimeException e) {
+            redisTemplate.opsForSet().add(DIRTY_KEY, member);
+            ackFlush(member, claimedAt);
+            throw e;
+        }
+        ackFlush(member, claimedAt);
+    }
+
+    /**
+     * Ghi các giỏ hàng đã thay đổi xuống Postgres. Script lấy userId ra khỏi
+     * cart:dirty (SPOP, nên nhiều instance chạy song song không ghi trùng) vào
+     * zset processing; userId chỉ bị xóa khỏi processing sau khi ghi thành công,
+     * giỏ hàng lỗi được script đưa lại vào cart:dirty sau flush-retry-ms.
+     */
+    @Scheduled(fixedDelayString = "${cart.redis.flush-interval-ms:5000}")
+    public void flushDirty() {
+        List<String> userIds;
+        int flushed = 0;
+        do {
+            long claimedAt = System.currentTimeMillis();
+            userIds = claimDirty(claimedAt);
+            for (String userId : userIds) {
+                try {
+                    persist(Long.valueOf(userId));
+                    ackFlush(userId, claimedAt);
+                    flushed++;
+                } catch (RuntimeException e) {
+                    log.warn("Failed to flush cart of user {}, retrying in {} ms: {}",
+                            userId, flushRetryMs, e.getMessage());
+                }
+            }
+        } while (userIds.size() == flushBatchSize);
+
+        if (flushed > 0) {
+            log.debug("Flushed {} carts from Redis to Postgres", flushed);
+        }
+    }
+
+    // ========== REDIS ==========
+
+    /**
+     * Thay toàn bộ items của giỏ hàng bằng fields (atomic, xem cart_replace.lua)
+     */
+    @SuppressWarnings("unchecked")
+    private Cart replace(Long userId, Map<String, String> fields) {
+        List<String> args = new ArrayList<>(fields.size() * 2 + 3);
+        args.add(String.valueOf(ttl.toSeconds()));
+        args.add(String.valueOf(userId));
+        args.add(String.valueOf(Instant.now()));
+        fields.forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        List<String> flat = redisTemplate.execute(REPLACE_SCRIPT, List.of(key(userId), DIRTY_KEY), args.toArray());
+        Map<String, String> entries = new HashMap<>();
+        for (int i = 0; flat != null && i + 1 < flat.size(); i += 2) {
+            entries.put(flat.get(i), flat.get(i + 1));
+        }
+        return toCart(userId, entries);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> claimDirty(long claimedAt) {
+        List<String> userIds = redisTemplate.execute(CLAIM_DIRTY_SCRIPT, List.of(DIRTY_KEY, PROCESSING_KEY),
+                String.valueOf(claimedAt), String.valueOf(claimedAt - flushRetryMs), String.valueOf(flushBatchSize));
+        return userIds != null ? userIds : List.of();
+    }
+
+    // Xác nhận flush xong (xem cart_ack_flush.lua)
+    private void ackFlush(String userId, long claimedAt) {
+        redisTemplate.execute(ACK_FLUSH_SCRIPT, List.of(PROCESSING_KEY), userId, String.valueOf(claimedAt));
+    }
+
+    /**
+     * Chạy các lệnh ghi, gia hạn TTL, đánh dấu dirty và đọc lại hash trong 1 pipeline
+     */
+    @SuppressWarnings("unchecked")
+    private Cart mutate(Long userId, Consumer<RedisOperations<String, String>> writes) {
+        String key = key(userId);
+        String now = String.valueOf(Instant.now());
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                writes.accept(ops);
+                ops.opsForHash().put(key, UPDATED_FIELD, now);
+                ops.expire(key, ttl);
+                ops.opsForSet().add(DIRTY_KEY, String.valueOf(userId));
+                ops.opsForHash().entries(key);
+                return null;
+            }
+        });
+        return toCart(userId, (Map<String, String>) results.get(results.size() - 1));
+    }
+
+    private Map<String, String> entries(Long userId) {
+        HashOperations<String, String, String> hash = redisTemplate.opsForHash();
+        return hash.entries(key(userId));
+    }
+
+    /**
+     * Nạp giỏ hàng từ Postgres, không ghi đè field đã có trên Redis
+     */
+    private void load(Cart cart) {
+        String key = key(cart.getUserId());
+        Map<String, String> fields = new HashMap<>();
+        fields.put(ID_FIELD, String.valueOf(cart.getId()));
+        fields.put(CREATED_FIELD, String.valueOf(cart.getCreatedAt()));
+        fields.put(UPDATED_FIELD, String.valueOf(cart.getUpdatedAt() != null ? cart.getUpdatedAt() : Instant.now()));
+        for (CartItem item : cart.getItems()) {
+            fields.put(item.getProductId() + QUANTITY_SUFFIX, String.valueOf(item.getQuantity()));
+            fields.put(item.getProductId() + ITEM_SUFFIX, toJson(item));
+        }
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                fields.forEach((field, value) -> ops.opsForHash().putIfAbsent(key, field, value));
+                ops.expire(key, ttl);
+                return null;
+            }
+        });
+    }
+
+    // ========== POSTGRES ==========
+
+    private void persist(Long userId) {
+        Map<String, String> entries = entries(userId);
+        if (!entries.containsKey(UPDATED_FIELD)) {
+            // Hết TTL trước khi flush: bản trên Postgres là bản mới nhất đã ghi
+            return;
+        }
+        Cart cart = toCart(userId, entries);
+        Long cartId = transactionTemplate.execute(status -> {
+            // Redis là bản mới nhất: ghi đè lên version hiện tại của dòng carts
+            Optional<CartEntity> current = jpaRepository.findByUserId(userId);
+            Cart durable = new Cart(current.map(CartEntity::getId).orElse(null), userId, cart.getItems(),
+                    cart.getCreatedAt(), cart.getUpdatedAt(), current.map(CartEntity::getVersion).orElse(null));
+            return jpaRepository.save(cartMapper.toJpaEntity(durable)).getId();
+        });
+        if (cart.getId() == null && Boolean.TRUE.equals(redisTemplate.hasKey(key(userId)))) {
+            redisTemplate.opsForHash().putIfAbsent(key(userId), ID_FIELD, String.valueOf(cartId));
+        }
+    }
+
+    // ========== MAPPING ==========
+
+    private Cart toCart(Long userId, Map<String, String> entries) {
+        List<CartItem> items = new ArrayList<>();
+        entries.forEach((field, value) -> {
+            if (!field.endsWith(QUANTITY_SUFFIX)) {
+                return;
+            }
+            String productId = field.substring(0, field.length() - QUANTITY_SUFFIX.length());
+            String itemJson = entries.get(productId + ITEM_SUFFIX);
+            int quantity = Integer.parseInt(value);
+            if (itemJson == null || quantity <= 0) {
+                return;
+            }
+            StoredItem stored = fromJson(itemJson);
+            items.add(CartItem.builder()
+                    .productId(Long.valueOf(productId))
+                    .productName(stored.name())
+                    .productDescription(stored.description())
+                    .productImage(stored.image())
+                    .price(stored.price())
+                    .discountPrice(stored.discountPrice())
+                    .quantity(quantity)
+                    .createAt(stored.createdAt())
+                    .build());
+        });
+        items.sort(Comparator.comparing(CartItem::getCreateAt, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        String id = entries.get(ID_FIELD);
+        String created = entries.get(CREATED_FIELD);
+        String updated = entries.get(UPDATED_FIELD);
+        return new Cart(
+                id != null ? Long.valueOf(id) : null,
+                userId,
+                items,
+                created != null ? Instant.parse(created) : null,
+                updated != null ? Instant.parse(updated) : null);
+    }
+
+    private String toJson(CartItem item) {
+        try {
+            return objectMapper.writeValueAsString(new StoredItem(item.getProductName(), item.getProductDescription(),
+                    item.getProductImage(), item.getPrice(), item.getDiscountPrice(),
+                    item.getCreateAt() != null ? item.getCreateAt() : Instant.now()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize cart item " + item.getProductId(), e);
+        }
+    }
+
+    private StoredItem fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, StoredItem.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot deserialize cart item", e);
+        }
+    }
+
+    private static String key(Long userId) {
+        return KEY_PREFIX + userId;
+    }
+}
@@ -2,6 +2,7 @@ package com.tranan.cartservice.presentation.controller;
 
 import com.tranan.cartservice.annotation.ApiMessage;
 import com.tranan.cartservice.application.dto.request.AddToCartRequest;
+import com.tranan.cartservice.application.dto.request.MergeCartRequest;
 import com.tranan.cartservice.application.dto.request.UpdateCartItemRequest;
 import com.tranan.cartservice.application.dto.response.CartResponse;
 import com.tranan.cartservice.application.usecase.CartService;
@@ -94,6 +95,26 @@ public class CartController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Gộp giỏ hàng khách (guest) vào giỏ hàng sau khi đăng nhập
+     * POST /api/carts/my/merge
+     * Body: { "items": [{ "productId": 1, "quantity": 2 }, { "productId": 5, "quantity": 1 }] }
+     */
+    @PostMapping("/my/merge")
+    @ApiMessage("Gộp giỏ hàng khách vào giỏ hàng của người dùng hiện tại")
+    @Operation(
+            summary = "Gộp giỏ hàng khách vào giỏ hàng của người dùng hiện tại"
+    )
+    public ResponseEntity<CartResponse> mergeCart(
+            @Valid @RequestBody MergeCartRequest request) {
+
+        Long userId = getCurrentUserId();
+        log.info("Request: MERGE cart - userId: {}, items: {}", userId, request.getItems().size());
+
+        CartResponse response = cartService.mergeCart(userId, request);
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Cập nhật số lượng của một sản phẩm trong giỏ
      * PUT /api/carts/my/items
@@ -0,0 +1,10 @@
+-- Xóa userId khỏi zset cart:dirty:processing sau khi flush thành công
+-- KEYS[1] = zset cart:dirty:processing
+-- ARGV[1] = userId, ARGV[2] = thời điểm lấy (score lúc claim)
+-- Chỉ xóa nếu score chưa đổi: instance khác đã lấy lại userId (giỏ hàng thay
+-- đổi tiếp) thì để instance đó tự xác nhận.
+local score = redis.call('ZSCORE', KEYS[1], ARGV[1])
+if score and tonumber(score) == tonumber(ARGV[2]) then
+    return redis.call('ZREM', KEYS[1], ARGV[1])
+end
+return 0
@@ -0,0 +1,16 @@
+-- Lấy một batch giỏ hàng cần flush xuống Postgres
+-- KEYS[1] = set cart:dirty, KEYS[2] = zset cart:dirty:processing (score: lúc lấy)
+-- ARGV[1] = now (ms), ARGV[2] = lấy trước thời điểm này là quá hạn (ms), ARGV[3] = batch size
+-- userId chỉ bị xóa khỏi zset processing khi flush thành công; instance chết
+-- giữa chừng hoặc flush lỗi thì userId quá hạn được đưa lại vào cart:dirty.
+local stale = redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', ARGV[2])
+for _, userId in ipairs(stale) do
+    redis.call('SADD', KEYS[1], userId)
+    redis.call('ZREM', KEYS[2], userId)
+end
+
+local userIds = redis.call('SPOP', KEYS[1], tonumber(ARGV[3]))
+for _, userId in ipairs(userIds) do
+    redis.call('ZADD', KEYS[2], ARGV[1], userId)
+end
+return userIds
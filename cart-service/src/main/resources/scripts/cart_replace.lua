@@ -0,0 +1,19 @@
+-- Thay toàn bộ items của giỏ hàng trong một bước (save / clear)
+-- KEYS[1] = hash cart:{userId}, KEYS[2] = set cart:dirty
+-- ARGV[1] = TTL (giây), ARGV[2] = userId, ARGV[3] = _updated, ARGV[4..] = cặp field, value
+-- Field meta (_id, _created) không truyền thì giữ nguyên. Chạy atomic nên không
+-- có lúc hash bị xóa (request khác không nạp lại bản cũ từ Postgres) và không
+-- xen giữa được HINCRBY của request khác.
+local fields = redis.call('HKEYS', KEYS[1])
+for _, field in ipairs(fields) do
+    if string.sub(field, 1, 1) ~= '_' then
+        redis.call('HDEL', KEYS[1], field)
+    end
+end
+for i = 4, #ARGV, 2 do
+    redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+end
+redis.call('HSET', KEYS[1], '_updated', ARGV[3])
+redis.call('EXPIRE', KEYS[1], ARGV[1])
+redis.call('SADD', KEYS[2], ARGV[2])
+return redis.call('HGETALL', KEYS[1])
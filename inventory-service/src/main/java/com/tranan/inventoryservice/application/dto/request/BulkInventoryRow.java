@@ -0,0 +1,26 @@
+package com.tranan.inventoryservice.application.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Một dòng của file import tồn kho hàng loạt (CSV / NDJSON). Các trường chỉ đọc
+ * của file export (stockStatus, shardCount) bị bỏ qua khi import lại.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkInventoryRow {
+
+    private Long productId;
+
+    private Integer quantity;
+
+    // Bỏ trống: giữ nguyên ngưỡng hiện tại (sản phẩm mới dùng mặc định)
+    private Integer lowStockThreshold;
+}
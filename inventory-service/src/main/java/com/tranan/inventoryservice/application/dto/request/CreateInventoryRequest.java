@@ -18,4 +18,8 @@ public class CreateInventoryRequest {
     @NotNull(message = "Initial quantity is required")
     @Min(value = 0, message = "Quantity must be >= 0")
     private Integer quantity;
+
+    // Ngưỡng sắp hết hàng của sản phẩm (bỏ trống: giữ nguyên / mặc định 10)
+    @Min(value = 0, message = "Low stock threshold must be >= 0")
+    private Integer lowStockThreshold;
 }
\ No newline at end of file
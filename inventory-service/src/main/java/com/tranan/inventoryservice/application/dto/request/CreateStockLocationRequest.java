@@ -0,0 +1,33 @@
+package com.tranan.inventoryservice.application.dto.request;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateStockLocationRequest {
+
+    @NotBlank(message = "Location code is required")
+    @Size(max = 50, message = "Location code must be at most 50 characters")
+    private String code;
+
+    @NotBlank(message = "Location name is required")
+    private String name;
+
+    // Khu vực giao hàng mà kho phục vụ (vd: HN, HCM)
+    @Size(max = 50, message = "Region must be at most 50 characters")
+    private String region;
+
+    // Nhỏ hơn được ưu tiên lấy hàng trước
+    @NotNull(message = "Priority is required")
+    @Min(value = 0, message = "Priority must be >= 0")
+    private Integer priority;
+}
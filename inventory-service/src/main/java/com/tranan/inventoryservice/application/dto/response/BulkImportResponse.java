@@ -0,0 +1,29 @@
+package com.tranan.inventoryservice.application.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportResponse {
+    private long totalRows;
+    private long applied;
+    private long errorCount;
+    // Tối đa BulkInventoryService.MAX_REPORTED_ERRORS lỗi đầu tiên
+    private List<BulkRowError> errors;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class BulkRowError {
+        private long line;
+        private Long productId;
+        private String message;
+    }
+}
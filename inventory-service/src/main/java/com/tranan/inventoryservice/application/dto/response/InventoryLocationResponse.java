@@ -0,0 +1,18 @@
+package com.tranan.inventoryservice.application.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryLocationResponse {
+    private Long productId;
+    private Long locationId;
+    private String locationCode;
+    private String region;
+    private Integer quantity;
+}
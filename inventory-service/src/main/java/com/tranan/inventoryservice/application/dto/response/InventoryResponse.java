@@ -16,6 +16,9 @@ public class InventoryResponse {
     private Long productId;
     private String productName;
     private Integer quantity;
+    private Integer shardCount;
+    private Integer lowStockThreshold;
+    private String stockStatus;
     private Instant createdAt;
     private Instant updatedAt;
 }
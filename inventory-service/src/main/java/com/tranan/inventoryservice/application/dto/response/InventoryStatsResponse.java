@@ -13,4 +13,5 @@ public class InventoryStatsResponse {
     private long total;
     private long lowStock;
     private long outOfStock;
+    private long inStock;
 }
@@ -0,0 +1,18 @@
+package com.tranan.inventoryservice.application.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLocationResponse {
+    private Long id;
+    private String code;
+    private String name;
+    private String region;
+    private Integer priority;
+}
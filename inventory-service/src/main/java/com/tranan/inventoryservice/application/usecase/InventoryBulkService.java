@@ -0,0 +1,355 @@
+package com.tranan.inventoryservice.application.usecase;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tranan.inventoryservice.application.dto.request.BulkInventoryRow;
+import com.tranan.inventoryservice.application.dto.request.UpdateInventoryRequest;
+import com.tranan.inventoryservice.application.dto.response.BulkImportResponse;
+import com.tranan.inventoryservice.application.dto.response.BulkImportResponse.BulkRowError;
+import com.tranan.inventoryservice.domain.model.Inventory;
+import com.tranan.inventoryservice.domain.model.MovementType;
+import com.tranan.inventoryservice.domain.repository.InventoryRepository;
+import com.tranan.inventoryservice.infrastructure.client.client.ProductClient;
+import com.tranan.inventoryservice.infrastructure.client.dto.ProductDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Import / export tồn kho hàng loạt (đồng bộ kho hằng đêm).
+ *
+ * Import đọc request body từng dòng (CSV hoặc NDJSON), không nạp cả file vào
+ * bộ nhớ. Các dòng hợp lệ được gom thành chunk CHUNK_SIZE dòng, mỗi chunk là
+ * một transaction: khóa các dòng đã có, upsert bằng JDBC batch, đồng bộ số
+ * lượng có thể giữ trên Redis theo chênh lệch và xóa near-cache. Lỗi được báo
+ * theo số dòng; chunk lỗi không ảnh hưởng các chunk đã commit.
+ *
+ * Sản phẩm đang chia shard đi qua updateInventory từng dòng để chia lại shard;
+ * sản phẩm quản lý theo kho hàng cũng đi qua updateInventory (chỉ nhận dòng
+ * không đổi tổng số lượng, số lượng phải cập nhật theo từng kho).
+ */
+@Slf4j
+@Service
+public class InventoryBulkService {
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    static final int CHUNK_SIZE = 1000;
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final String CSV_HEADER = "productId,quantity,lowStockThreshold,stockStatus,shardCount";
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryService inventoryService;
+    private final StockLocationService stockLocationService;
+    private final ProductClient productClient;
+    private final StockReservationService stockReservationService;
+    private final InventoryQuantityCache quantityCache;
+    private final InventoryLedgerService ledgerService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    public InventoryBulkService(InventoryRepository inventoryRepository,
+            InventoryService inventoryService,
+            StockLocationService stockLocationService,
+            ProductClient productClient,
+            StockReservationService stockReservationService,
+            InventoryQuantityCache quantityCache,
+            InventoryLedgerService ledgerService,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager) {
+        this.inventoryRepository = inventoryRepository;
+        this.inventoryService = inventoryService;
+        this.stockLocationService = stockLocationService;
+        this.productClient = productClient;
+        this.stockReservationService = stockReservationService;
+        this.quantityCache = quantityCache;
+        this.ledgerService = ledgerService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // ═════════════════════════════════════════════════════════════════════
+    // IMPORT
+    // ═════════════════════════════════════════════════════════════════════
+
+    public BulkImportResponse importInventories(InputStream input, Format format) throws IOException {
+        ImportReport report = new ImportReport();
+        // line -> row, theo thứ tự trong file
+        Map<Long, BulkInventoryRow> chunk = new LinkedHashMap<>();
+        CsvLayout csvLayout = CsvLayout.POSITIONAL;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            long lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && lineNo == 1 && isCsvHeader(line)) {
+                    csvLayout = CsvLayout.fromHeader(line);
+                    continue;
+                }
+                report.totalRows++;
+                BulkInventoryRow row;
+                try {
+                    row = format == Format.CSV
+                            ? csvLayout.parse(line)
+                            : objectMapper.readValue(line, BulkInventoryRow.class);
+                    validate(row);
+                } catch (Exception e) {
+                    report.error(lineNo, null, "Invalid row: " + e.getMessage());
+                    continue;
+                }
+                chunk.put(lineNo, row);
+                if (chunk.size() >= CHUNK_SIZE) {
+                    applyChunk(chunk, report);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            applyChunk(chunk, report);
+        }
+
+        log.info("Bulk inventory import finished: {} rows, {} applied, {} errors",
+                report.totalRows, report.applied, report.errorCount);
+        return BulkImportResponse.builder()
+                .totalRows(report.totalRows)
+                .applied(report.applied)
+                .errorCount(report.errorCount)
+                .errors(report.errors)
+                .build();
+    }
+
+    private void applyChunk(Map<Long, BulkInventoryRow> chunk, ImportReport report) {
+        // Trùng productId trong cùng chunk: dòng sau thắng
+        Map<Long, Long> lineByProduct = new LinkedHashMap<>();
+        chunk.forEach((lineNo, row) -> lineByProduct.put(row.getProductId(), lineNo));
+        List<Long> productIds = new ArrayList<>(lineByProduct.keySet());
+
+        // Sản phẩm mới phải tồn tại bên Product Service (gọi ngoài transaction)
+        Set<Long> existing = inventoryRepository.findByProductIdIn(productIds).stream()
+                .map(Inventory::getProductId)
+                .collect(Collectors.toSet());
+        List<Long> newIds = productIds.stream().filter(id -> !existing.contains(id)).toList();
+        Set<Long> validNewIds = newIds.isEmpty() ? Set.of() : productClient.getProductsByIds(newIds).stream()
+                .map(ProductDTO::getId)
+                .collect(Collectors.toCollection(HashSet::new));
+        for (Long productId : newIds) {
+            if (!validNewIds.contains(productId)) {
+                report.error(lineByProduct.remove(productId), productId,
+                        "Product not found or product service unavailable");
+            }
+        }
+        if (lineByProduct.isEmpty()) {
+            return;
+        }
+
+        List<Long> perRowIds;
+        try {
+            perRowIds = transactionTemplate.execute(status -> upsert(chunk, lineByProduct));
+        } catch (Exception e) {
+            log.error("Bulk inventory chunk failed: {}", e.getMessage(), e);
+            lineByProduct.forEach((productId, lineNo) ->
+                    report.error(lineNo, productId, "Chunk failed: " + e.getMessage()));
+            return;
+        }
+        report.applied += lineByProduct.size() - perRowIds.size();
+
+        for (Long productId : perRowIds) {
+            BulkInventoryRow row = chunk.get(lineByProduct.get(productId));
+            try {
+                inventoryService.updateInventory(productId, UpdateInventoryRequest.builder()
+                        .quantity(row.getQuantity())
+                        .lowStockThreshold(row.getLowStockThreshold())
+                        .build());
+                report.applied++;
+            } catch (Exception e) {
+                report.error(lineByProduct.get(productId), productId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return productId đang chia shard / quản lý theo kho (chưa được áp dụng)
+     */
+    private List<Long> upsert(Map<Long, BulkInventoryRow> chunk, Map<Long, Long> lineByProduct) {
+        Map<Long, Inventory> locked = inventoryRepository
+                .findByProductIdInForUpdate(new ArrayList<>(lineByProduct.keySet())).stream()
+                .collect(Collectors.toMap(Inventory::getProductId, inventory -> inventory));
+
+        List<Inventory> upserts = new ArrayList<>(lineByProduct.size());
+        Set<Long> withLocations = stockLocationService.productsWithLocations(new ArrayList<>(locked.keySet()));
+        List<Long> perRow = new ArrayList<>();
+        Map<Long, Integer> deltas = new HashMap<>();
+        // Ledger: sản phẩm mới ghi toàn bộ quantity ban đầu
+        Map<Long, Integer> movements = new HashMap<>();
+        lineByProduct.forEach((productId, lineNo) -> {
+            BulkInventoryRow row = chunk.get(lineNo);
+            Inventory current = locked.get(productId);
+            if (current != null && (current.isSharded() || withLocations.contains(productId))) {
+                perRow.add(productId);
+                return;
+            }
+            Integer threshold = row.getLowStockThreshold();
+            if (threshold == null) {
+                threshold = current != null ? current.getLowStockThreshold() : Inventory.DEFAULT_LOW_STOCK_THRESHOLD;
+            }
+            upserts.add(Inventory.builder()
+                    .productId(productId)
+                    .quantity(row.getQuantity())
+                    .lowStockThreshold(threshold)
+                    .build());
+            if (current != null) {
+                deltas.put(productId, row.getQuantity() - current.getQuantity());
+            }
+            movements.put(productId, row.getQuantity() - (current != null ? current.getQuantity() : 0));
+        });
+
+        if (!upserts.isEmpty()) {
+            inventoryRepository.upsertBatch(upserts);
+            ledgerService.record(MovementType.ADJUST, movements, null);
+            stockReservationService.adjustAvailable(deltas);
+            quantityCache.invalidate(upserts.stream().map(Inventory::getProductId).toList());
+        }
+        return perRow;
+    }
+
+    private static boolean isCsvHeader(String line) {
+        return !Character.isDigit(line.trim().charAt(0));
+    }
+
+    /**
+     * Vị trí các cột import trong dòng CSV. Có header thì lấy cột theo tên và bỏ
+     * qua các cột chỉ đọc (stockStatus, shardCount của file export), nên file
+     * export có thể import lại nguyên dạng; không có header thì đọc theo vị trí
+     * productId,quantity[,lowStockThreshold].
+     */
+    private record CsvLayout(int productId, int quantity, int lowStockThreshold, int columnCount) {
+
+        private static final CsvLayout POSITIONAL = new CsvLayout(0, 1, 2, -1);
+
+        private static CsvLayout fromHeader(String header) {
+            List<String> names = Arrays.stream(header.split(",", -1)).map(String::trim).toList();
+            int productId = names.indexOf("productId");
+            int quantity = names.indexOf("quantity");
+            if (productId < 0 || quantity < 0) {
+                throw new IllegalArgumentException("CSV header must contain productId and quantity: " + header);
+            }
+            return new CsvLayout(productId, quantity, names.indexOf("lowStockThreshold"), names.size());
+        }
+
+        private BulkInventoryRow parse(String line) {
+            String[] columns = line.split(",", -1);
+            if (columnCount < 0 ? columns.length < 2 || columns.length > 3 : columns.length != columnCount) {
+                throw new IllegalArgumentException(columnCount < 0
+                        ? "expected productId,quantity[,lowStockThreshold]"
+                        : "expected " + columnCount + " columns as in header");
+            }
+            String threshold = lowStockThreshold >= 0 && lowStockThreshold < columns.length
+                    ? columns[lowStockThreshold].trim()
+                    : "";
+            return BulkInventoryRow.builder()
+                    .productId(Long.valueOf(columns[productId].trim()))
+                    .quantity(Integer.valueOf(columns[quantity].trim()))
+                    .lowStockThreshold(threshold.isEmpty() || "null".equals(threshold)
+                            ? null
+                            : Integer.valueOf(threshold))
+                    .build();
+        }
+    }
+
+    private static void validate(BulkInventoryRow row) {
+        if (row.getProductId() == null || row.getQuantity() == null) {
+            throw new IllegalArgumentException("productId and quantity are required");
+        }
+        if (row.getQuantity() < 0) {
+            throw new IllegalArgumentException("quantity must be >= 0");
+        }
+        if (row.getLowStockThreshold() != null && row.getLowStockThreshold() < 0) {
+            throw new IllegalArgumentException("lowStockThreshold must be >= 0");
+        }
+    }
+
+    private static final class ImportReport {
+        private long totalRows;
+        private long applied;
+        private long errorCount;
+        private final List<BulkRowError> errors = new ArrayList<>();
+
+        private void error(long line, Long productId, String message) {
+            errorCount++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new BulkRowError(line, productId, message));
+            }
+        }
+    }
+
+    // ═════════════════════════════════════════════════════════════════════
+    // EXPORT
+    // ═════════════════════════════════════════════════════════════════════
+
+    /**
+     * Ghi toàn bộ tồn kho ra output theo từng dòng (sản phẩm hot: quantity là
+     * snapshot tổng shard)
+     */
+    public void exportInventories(OutputStream output, Format format) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.newLine();
+        }
+        try {
+            inventoryRepository.streamAll(inventory -> {
+                try {
+                    writer.write(format == Format.CSV ? toCsv(inventory) : toJson(inventory));
+                    writer.newLine();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private static String toCsv(Inventory inventory) {
+        return inventory.getProductId() + "," + inventory.getQuantity() + "," + inventory.getLowStockThreshold()
+                + "," + inventory.getStockStatus() + "," + inventory.getShardCount();
+    }
+
+    private String toJson(Inventory inventory) throws IOException {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("productId", inventory.getProductId());
+        row.put("quantity", inventory.getQuantity());
+        row.put("lowStockThreshold", inventory.getLowStockThreshold());
+        row.put("stockStatus", inventory.getStockStatus());
+        row.put("shardCount", inventory.getShardCount());
+        return objectMapper.writeValueAsString(row);
+    }
+}
@@ -0,0 +1,112 @@
+package com.tranan.inventoryservice.application.usecase;
+
+import com.tranan.inventoryservice.domain.model.InventoryDrift;
+import com.tranan.inventoryservice.domain.model.InventoryMovement;
+import com.tranan.inventoryservice.domain.model.MovementType;
+import com.tranan.inventoryservice.domain.repository.InventoryMovementRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ledger tồn kho (inventory_movements, append-only).
+ *
+ * Mọi thay đổi quantity (trừ kho, hoàn kho, admin điều chỉnh) ghi thêm
+ * movement bằng 1 JDBC batch insert trong cùng transaction với câu UPDATE, nên
+ * ledger và inventories luôn commit cùng nhau. Job snapshot định kỳ gộp các
+ * movement mới vào inventory_snapshots; job đối soát so sánh quantity thực với
+ * snapshot + tổng delta sau snapshot, chỉ quét phần movement phát sinh sau
+ * snapshot.
+ */
+@Slf4j
+@Service
+public class InventoryLedgerService {
+
+    private final InventoryMovementRepository movementRepository;
+    private final Duration settleDelay;
+    private final AtomicInteger driftedProducts = new AtomicInteger();
+
+    public InventoryLedgerService(InventoryMovementRepository movementRepository, MeterRegistry meterRegistry,
+            @Value("${inventory.ledger.snapshot-settle-seconds:60}") long settleSeconds) {
+        this.movementRepository = movementRepository;
+        this.settleDelay = Duration.ofSeconds(settleSeconds);
+        Gauge.builder("inventory.ledger.drift.products", driftedProducts, AtomicInteger::get)
+                .description("Products whose quantity differs from the ledger at the last reconciliation")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ghi movement cho các sản phẩm (productId -> delta có dấu), bỏ qua delta 0.
+     * Chạy trong transaction của caller.
+     */
+    public void record(MovementType type, Map<Long, Integer> deltas, Long orderId) {
+        List<InventoryMovement> movements = new ArrayList<>(deltas.size());
+        deltas.forEach((productId, delta) -> {
+            if (delta != null && delta != 0) {
+                movements.add(InventoryMovement.builder()
+                        .productId(productId)
+                        .type(type)
+                        .delta(delta)
+                        .orderId(orderId)
+                        .build());
+            }
+        });
+        movementRepository.appendAll(movements);
+    }
+
+    /**
+     * Ghi các movement đã dựng sẵn (mỗi dòng một đơn hàng / sản phẩm) trong 1
+     * batch. Chạy trong transaction của caller.
+     */
+    public void recordAll(List<InventoryMovement> movements) {
+        movementRepository.appendAll(movements);
+    }
+
+    public List<InventoryMovement> findByOrderId(Long orderId) {
+        return movementRepository.findByOrderId(orderId);
+    }
+
+    /**
+     * Sản phẩm tạo trước khi có ledger: lấy quantity hiện tại làm snapshot đầu
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedSnapshots() {
+        int seeded = movementRepository.seedMissingSnapshots();
+        if (seeded > 0) {
+            log.info("Seeded {} inventory snapshots", seeded);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.ledger.snapshot-interval-ms:300000}")
+    public void takeSnapshots() {
+        int updated = movementRepository.takeSnapshots(settleDelay);
+        if (updated > 0) {
+            log.info("Updated {} inventory snapshots from ledger", updated);
+        }
+    }
+
+    /**
+     * Đối soát quantity với ledger, chỉ báo cáo (log + metric), không tự sửa
+     */
+    @Scheduled(fixedDelayString = "${inventory.ledger.reconcile-interval-ms:900000}")
+    public List<InventoryDrift> reconcile() {
+        List<InventoryDrift> drifts = movementRepository.findDrift();
+        driftedProducts.set(drifts.size());
+        if (!drifts.isEmpty()) {
+            log.warn("Inventory ledger drift detected for {} products: {}", drifts.size(),
+                    drifts.subList(0, Math.min(drifts.size(), 50)));
+        }
+        return drifts;
+    }
+}
@@ -0,0 +1,163 @@
+package com.tranan.inventoryservice.application.usecase;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import com.tranan.inventoryservice.infrastructure.event.InventoryEventPublisher;
+import com.tranan.inventoryservice.infrastructure.transaction.AfterCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Near-cache (Caffeine) cho số lượng tồn kho trong DB (đã cộng shard với sản
+ * phẩm hot), dùng cho các API đọc quantity mà cart / order gọi liên tục.
+ *
+ * Mỗi lần tồn kho trong DB thay đổi (tạo, cập nhật, xóa, giảm, hoàn kho) sau
+ * khi transaction commit sẽ publish productId lên kênh Redis inventory-changed;
+ * mọi replica (kể cả replica hiện tại) nhận được thì xóa entry tương ứng. TTL
+ * ngắn chặn trên độ trễ trong trường hợp mất message. Cùng lúc đó publish
+ * InventoryEvent lên Kafka cho cache tồn kho của các service khác (Cart Service).
+ *
+ * Metrics: cache.gets / cache.size... (tag cache=inventory.quantity), tỉ lệ hit
+ * inventory.quantity.cache.hit.ratio, độ trễ từ lúc publish tới lúc replica xóa
+ * entry inventory.quantity.cache.invalidation.lag và tuổi của entry lúc bị xóa
+ * inventory.quantity.cache.entry.age.
+ */
+@Slf4j
+@Service
+public class InventoryQuantityCache {
+
+    public static final String CHANNEL = "inventory-changed";
+
+    // quantity null: sản phẩm chưa có inventory
+    private record CachedQuantity(Integer quantity, long loadedAtMillis) {
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final InventoryEventPublisher inventoryEventPublisher;
+    private final Cache<Long, CachedQuantity> cache;
+    private final Timer invalidationLag;
+    private final Timer entryAge;
+
+    public InventoryQuantityCache(StringRedisTemplate redisTemplate, InventoryEventPublisher inventoryEventPublisher,
+            MeterRegistry meterRegistry,
+            @Value("${inventory.quantity-cache.ttl-seconds:30}") long ttlSeconds,
+            @Value("${inventory.quantity-cache.max-size:100000}") long maxSize) {
+        this.redisTemplate = redisTemplate;
+        this.inventoryEventPublisher = inventoryEventPublisher;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "inventory.quantity");
+        Gauge.builder("inventory.quantity.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .register(meterRegistry);
+        this.invalidationLag = Timer.builder("inventory.quantity.cache.invalidation.lag")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.entryAge = Timer.builder("inventory.quantity.cache.entry.age")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Số lượng tồn kho của các sản phẩm, chỉ gọi loader cho sản phẩm chưa có
+     * trong cache. Sản phẩm không có inventory không có trong kết quả.
+     */
+    public Map<Long, Integer> getAll(Collection<Long> productIds,
+            Function<List<Long>, Map<Long, Integer>> loader) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return quantities;
+        }
+        Map<Long, CachedQuantity> cached = cache.getAll(productIds, missing -> {
+            Map<Long, Integer> loaded = loader.apply(new ArrayList<>(missing));
+            long now = System.currentTimeMillis();
+            Map<Long, CachedQuantity> entries = new HashMap<>();
+            for (Long productId : missing) {
+                entries.put(productId, new CachedQuantity(loaded.get(productId), now));
+            }
+            return entries;
+        });
+        cached.forEach((productId, entry) -> {
+            if (entry.quantity() != null) {
+                quantities.put(productId, entry.quantity());
+            }
+        });
+        return quantities;
+    }
+
+    /**
+     * Báo tồn kho của các sản phẩm đã thay đổi: sau khi transaction commit xóa
+     * entry local và publish cho các replica khác
+     */
+    public void invalidate(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(productIds);
+        Runnable publish = () -> {
+            evict(ids);
+            StringJoiner message = new StringJoiner(",", System.currentTimeMillis() + ":", "");
+            ids.forEach(productId -> message.add(String.valueOf(productId)));
+            try {
+                redisTemplate.convertAndSend(CHANNEL, message.toString());
+            } catch (Exception e) {
+                log.warn("Failed to publish inventory-changed for products {}: {}", ids, e.getMessage());
+            }
+            try {
+                inventoryEventPublisher.publishStockChanged(ids);
+            } catch (Exception e) {
+                log.warn("Failed to publish inventory event for products {}: {}", ids, e.getMessage());
+            }
+        };
+        AfterCommit.run(publish);
+    }
+
+    /**
+     * Nhận message inventory-changed ({publishedAtMillis}:{productId},...)
+     */
+    public void onChanged(String message) {
+        int separator = message.indexOf(':');
+        if (separator < 0) {
+            log.warn("Ignoring malformed inventory-changed message: {}", message);
+            return;
+        }
+        long publishedAt = Long.parseLong(message.substring(0, separator));
+        invalidationLag.record(Math.max(0, System.currentTimeMillis() - publishedAt), TimeUnit.MILLISECONDS);
+
+        List<Long> productIds = new ArrayList<>();
+        for (String productId : message.substring(separator + 1).split(",")) {
+            if (!productId.isBlank()) {
+                productIds.add(Long.valueOf(productId.trim()));
+            }
+        }
+        evict(productIds);
+    }
+
+    private void evict(List<Long> productIds) {
+        long now = System.currentTimeMillis();
+        for (Long productId : productIds) {
+            CachedQuantity removed = cache.asMap().remove(productId);
+            if (removed != null) {
+                entryAge.record(now - removed.loadedAtMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+}
@@ -1,25 +1,44 @@
 package com.tranan.inventoryservice.application.usecase;
 
 import com.tranan.inventoryservice.application.dto.request.CreateInventoryRequest;
+import com.tranan.inventoryservice.application.dto.request.CreateStockLocationRequest;
 import com.tranan.inventoryservice.application.dto.request.UpdateInventoryRequest;
+import com.tranan.inventoryservice.application.dto.response.InventoryLocationResponse;
 import com.tranan.inventoryservice.application.dto.response.InventoryResponse;
 import com.tranan.inventoryservice.application.dto.response.StockCheckResponse;
+import com.tranan.inventoryservice.application.dto.response.StockLocationResponse;
 import com.tranan.inventoryservice.domain.model.Inventory;
+import com.tranan.inventoryservice.domain.model.MovementType;
+import com.tranan.inventoryservice.domain.model.StockLocation;
+import com.tranan.inventoryservice.domain.model.StockRestoreEntry;
+import com.tranan.inventoryservice.domain.model.StockStatus;
 import com.tranan.inventoryservice.domain.repository.InventoryRepository;
 import com.tranan.inventoryservice.infrastructure.client.client.ProductClient;
 import com.tranan.inventoryservice.infrastructure.client.dto.InventoryQuantityResponse;
+import com.tranan.inventoryservice.presentation.advice.exception.InsufficientStockException;
 import com.tranan.inventoryservice.presentation.advice.exception.InventoryNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Inventory Application Service
@@ -32,6 +51,13 @@ public class InventoryService {
 
     private final InventoryRepository inventoryRepository;
     private final ProductClient productClient;
+    private final StockShardService stockShardService;
+    private final StockReservationService stockReservationService;
+    private final StockRestoreBuffer stockRestoreBuffer;
+    private final InventoryQuantityCache quantityCache;
+    private final InventoryLedgerService ledgerService;
+    private final ProductNameProjection productNameProjection;
+    private final StockLocationService stockLocationService;
 
     // ═════════════════════════════════════════════════════════════════════
     // 1. CRUD OPERATIONS (QUẢN LÝ KHO)
@@ -69,9 +95,14 @@ public class InventoryService {
         Inventory inventory = Inventory.builder()
                 .productId(productId) // Lấy từ tham số hàm
                 .quantity(request.getQuantity()) // Lấy từ Body request
+                .lowStockThreshold(request.getLowStockThreshold() != null
+                        ? request.getLowStockThreshold()
+                        : Inventory.DEFAULT_LOW_STOCK_THRESHOLD)
                 .build();
 
         inventory = inventoryRepository.save(inventory);
+        ledgerService.record(MovementType.ADJUST, Map.of(productId, request.getQuantity()), null);
+        quantityCache.invalidate(List.of(productId));
         log.info("Created inventory for product {}: {} units", productId, request.getQuantity());
 
         return toResponse(inventory);
@@ -86,17 +117,19 @@ public class InventoryService {
                 .orElseThrow(() -> new InventoryNotFoundException(
                         "Inventory not found for product: " + productId));
 
+        applyShardTotals(List.of(inventory));
         return toResponse(inventory);
     }
 
     /**
      * Lấy danh sách inventory (Dùng cho Admin quản lý)
-     * FIX N+1: Batch fetch tên sản phẩm thay vì loop gọi ProductClient N lần
+     * Tên sản phẩm (lọc theo keyword và hiển thị) lấy từ projection
+     * product_names, không gọi Product Service
      * HỖ TRỢ: Tìm kiếm theo productId, keyword (tên sản phẩm), hoặc stockStatus
      * (trạng thái tồn kho)
      * 
-     * @param stockStatus: OUT_OF_STOCK (hết hàng), LOW_STOCK (sắp hết), IN_STOCK
-     *                     (còn hàng)
+     * @param stockStatus: OUT_OF_STOCK (hết hàng), LOW_STOCK (sắp hết, dưới ngưỡng
+     *                     lowStockThreshold của sản phẩm), IN_STOCK (còn hàng)
      */
     @Transactional(readOnly = true)
     public Page<InventoryResponse> getAllInventories(Long productId, String keyword, String stockStatus,
@@ -105,49 +138,24 @@ public class InventoryService {
 
         // Filter theo trạng thái tồn kho (ưu tiên cao nhất)
         if (stockStatus != null && !stockStatus.trim().isEmpty()) {
-            switch (stockStatus.trim().toUpperCase()) {
-                case "OUT_OF_STOCK":
-                    inventoryPage = inventoryRepository.findOutOfStock(pageable);
-                    break;
-                case "LOW_STOCK":
-                    inventoryPage = inventoryRepository.findLowStock(pageable);
-                    break;
-                case "IN_STOCK":
-                    inventoryPage = inventoryRepository.findInStock(pageable);
-                    break;
-                default:
-                    inventoryPage = inventoryRepository.findAll(pageable);
-            }
+            StockStatus status = parseStockStatus(stockStatus);
+            inventoryPage = status != null
+                    ? inventoryRepository.findByStockStatus(status, pageable)
+                    : inventoryRepository.findAll(pageable);
         } else if (productId != null) {
             // Tìm theo productId cụ thể
             inventoryPage = inventoryRepository.findAllByProductId(productId, pageable);
         } else if (keyword != null && !keyword.trim().isEmpty()) {
-            // Tìm theo keyword - gọi Product Service để lấy danh sách productIds khớp với
-            // tên
-            List<Long> matchingProductIds = productClient.searchProductIdsByName(keyword.trim());
-            if (matchingProductIds.isEmpty()) {
-                return Page.empty(pageable);
-            }
-            inventoryPage = inventoryRepository.findAllByProductIdIn(matchingProductIds, pageable);
+            // Tìm theo keyword trên index tên sản phẩm local (join product_names)
+            inventoryPage = inventoryRepository.searchByProductName(keyword.trim(), pageable);
         } else {
             inventoryPage = inventoryRepository.findAll(pageable);
         }
 
-        // FIX N+1: Batch fetch tên sản phẩm 1 lần thay vì N lần
         List<Long> productIds = inventoryPage.getContent().stream()
                 .map(Inventory::getProductId)
                 .toList();
-
-        Map<Long, String> productNameMap = new java.util.HashMap<>();
-        try {
-            List<com.tranan.inventoryservice.infrastructure.client.dto.ProductDTO> products = productClient
-                    .getProductsByIds(productIds);
-            for (com.tranan.inventoryservice.infrastructure.client.dto.ProductDTO product : products) {
-                productNameMap.put(product.getId(), product.getName());
-            }
-        } catch (Exception e) {
-            log.warn("Failed to fetch product names: {}", e.getMessage());
-        }
+        Map<Long, String> productNameMap = productNameProjection.findNames(productIds);
 
         // Map responses với tên sản phẩm
         return inventoryPage.map(inventory -> {
@@ -157,6 +165,9 @@ public class InventoryService {
                     .productId(inventory.getProductId())
                     .productName(productName)
                     .quantity(inventory.getQuantity())
+                    .shardCount(inventory.getShardCount())
+                    .lowStockThreshold(inventory.getLowStockThreshold())
+                    .stockStatus(inventory.getStockStatus().name())
                     .createdAt(inventory.getCreatedAt())
                     .updatedAt(inventory.getUpdatedAt())
                     .build();
@@ -168,11 +179,29 @@ public class InventoryService {
      */
     @Transactional
     public InventoryResponse updateInventory(Long productId, UpdateInventoryRequest request) {
-        Inventory inventory = inventoryRepository.findByProductId(productId)
+        // Khóa dòng để tính đúng chênh lệch so với số lượng hiện tại
+        Inventory inventory = inventoryRepository.findByProductIdWithLock(productId)
                 .orElseThrow(() -> new InventoryNotFoundException(
                         "Inventory not found for product: " + productId));
 
+        int previousQuantity = inventory.isSharded()
+                ? stockShardService.lockTotal(productId)
+                : inventory.getQuantity();
+        if (request.getQuantity() != previousQuantity && stockLocationService.hasLocations(productId)) {
+            throw new IllegalArgumentException(
+                    "Sản phẩm quản lý tồn kho theo kho hàng, hãy cập nhật số lượng từng kho");
+        }
         inventory.setQuantity(request.getQuantity());
+        if (request.getLowStockThreshold() != null) {
+            inventory.setLowStockThreshold(request.getLowStockThreshold());
+        }
+        if (inventory.isSharded()) {
+            // Sản phẩm hot: chia lại số lượng mới vào các shard
+            stockShardService.reset(productId, inventory.getShardCount(), request.getQuantity());
+        }
+        stockReservationService.adjustAvailable(Map.of(productId, request.getQuantity() - previousQuantity));
+        ledgerService.record(MovementType.ADJUST, Map.of(productId, request.getQuantity() - previousQuantity), null);
+        quantityCache.invalidate(List.of(productId));
 
         inventory = inventoryRepository.save(inventory);
         log.info("Updated inventory for product {}: {} units", productId, request.getQuantity());
@@ -185,15 +214,121 @@ public class InventoryService {
      */
     @Transactional
     public void deleteInventory(Long productId) {
-        if (!inventoryRepository.existsByProductId(productId)) {
-            throw new InventoryNotFoundException(
-                    "Inventory not found for product: " + productId);
-        }
-
+        Inventory inventory = inventoryRepository.findByProductIdWithLock(productId)
+                .orElseThrow(() -> new InventoryNotFoundException(
+                        "Inventory not found for product: " + productId));
+        int quantity = inventory.isSharded() ? stockShardService.lockTotal(productId) : inventory.getQuantity();
+
+        // Ledger về 0 để sản phẩm tạo lại sau này không bị lệch
+        ledgerService.record(MovementType.ADJUST, Map.of(productId, -quantity), null);
+        stockShardService.reset(productId, 0, 0);
+        stockLocationService.deleteByProductId(productId);
+        stockReservationService.evictAvailable(productId);
+        quantityCache.invalidate(List.of(productId));
         inventoryRepository.deleteByProductId(productId);
         log.info("Deleted inventory for product {}", productId);
     }
 
+    /**
+     * Bật/tắt chế độ chia shard tồn kho cho sản phẩm hot (flash sale).
+     * shardCount = 0 để gộp tồn kho về lại 1 dòng.
+     */
+    @Transactional
+    public InventoryResponse configureShards(Long productId, int shardCount) {
+        if (shardCount < 0 || shardCount > stockShardService.getMaxShards()) {
+            throw new IllegalArgumentException(
+                    "Số shard phải nằm trong khoảng 0.." + stockShardService.getMaxShards());
+        }
+
+        Inventory inventory = inventoryRepository.findByProductIdWithLock(productId)
+                .orElseThrow(() -> new InventoryNotFoundException(
+                        "Inventory not found for product: " + productId));
+        if (shardCount > 0 && stockLocationService.hasLocations(productId)) {
+            throw new IllegalArgumentException("Sản phẩm quản lý tồn kho theo kho hàng không thể chia shard");
+        }
+
+        int total = inventory.isSharded() ? stockShardService.lockTotal(productId) : inventory.getQuantity();
+        stockShardService.reset(productId, shardCount, total);
+        inventory.setShardCount(shardCount);
+        inventory.setQuantity(total);
+
+        inventory = inventoryRepository.save(inventory);
+        log.info("Configured {} stock shards for product {} ({} units)", shardCount, productId, total);
+
+        return toResponse(inventory);
+    }
+
+    /**
+     * Tạo kho hàng mới
+     */
+    @Transactional
+    public StockLocationResponse createLocation(CreateStockLocationRequest request) {
+        StockLocation location = stockLocationService.createLocation(StockLocation.builder()
+                .code(request.getCode().trim())
+                .name(request.getName())
+                .region(request.getRegion())
+                .priority(request.getPriority())
+                .build());
+        log.info("Created stock location {} ({})", location.getCode(), location.getId());
+        return toLocationResponse(location);
+    }
+
+    @Transactional(readOnly = true)
+    public List<StockLocationResponse> getLocations() {
+        return stockLocationService.getLocations().stream()
+                .map(this::toLocationResponse)
+                .toList();
+    }
+
+    /**
+     * Tồn kho của sản phẩm theo từng kho hàng
+     */
+    @Transactional(readOnly = true)
+    public List<InventoryLocationResponse> getInventoryLocations(Long productId) {
+        Map<Long, StockLocation> locations = stockLocationService.getLocations().stream()
+                .collect(Collectors.toMap(StockLocation::getId, location -> location));
+        return stockLocationService.getStock(productId).stream()
+                .map(stock -> {
+                    StockLocation location = locations.get(stock.getLocationId());
+                    return InventoryLocationResponse.builder()
+                            .productId(productId)
+                            .locationId(stock.getLocationId())
+                            .locationCode(location != null ? location.getCode() : null)
+                            .region(location != null ? location.getRegion() : null)
+                            .quantity(stock.getQuantity())
+                            .build();
+                })
+                .toList();
+    }
+
+    /**
+     * Đặt số lượng của sản phẩm tại một kho. Lần đầu gán kho, tồn kho của sản
+     * phẩm chuyển sang quản lý theo kho: tổng = tổng số lượng các kho.
+     */
+    @Transactional
+    public InventoryResponse setLocationQuantity(Long productId, Long locationId, Integer quantity) {
+        Inventory inventory = inventoryRepository.findByProductIdWithLock(productId)
+                .orElseThrow(() -> new InventoryNotFoundException(
+                        "Inventory not found for product: " + productId));
+        if (inventory.isSharded()) {
+            throw new IllegalArgumentException("Sản phẩm đang chia shard không thể quản lý theo kho hàng");
+        }
+
+        int previousQuantity = inventory.getQuantity();
+        int total = stockLocationService.setQuantity(productId, locationId, quantity);
+        inventory.setQuantity(total);
+
+        stockReservationService.adjustAvailable(Map.of(productId, total - previousQuantity));
+        ledgerService.record(MovementType.ADJUST, Map.of(productId, total - previousQuantity), null);
+        quantityCache.invalidate(List.of(productId));
+
+        inventory = inventoryRepository.save(inventory);
+        log.info("Set stock of product {} at location {} to {} units ({} in total)",
+                productId, locationId, quantity, total);
+
+        return toResponse(inventory);
+    }
+
     // ═════════════════════════════════════════════════════════════════════
     // 2. BUSINESS OPERATIONS (XỬ LÝ ĐẶT HÀNG/CHECK KHO)
     // ═════════════════════════════════════════════════════════════════════
@@ -202,6 +337,7 @@ public class InventoryService {
     public StockCheckResponse checkStock(Long productId, Integer quantity) {
         Inventory inventory = inventoryRepository.findByProductId(productId)
                 .orElseThrow(() -> new InventoryNotFoundException("Inventory not found: " + productId));
+        applyShardTotals(List.of(inventory));
 
         boolean available = inventory.hasStock(quantity);
 
@@ -220,6 +356,7 @@ public class InventoryService {
     public Map<Long, StockCheckResponse> checkMultipleStock(Map<Long, Integer> productQuantities) {
         List<Long> productIds = productQuantities.keySet().stream().toList();
         List<Inventory> inventories = inventoryRepository.findByProductIdIn(productIds);
+        applyShardTotals(inventories);
 
         Map<Long, Inventory> inventoryMap = inventories.stream()
                 .collect(Collectors.toMap(Inventory::getProductId, inv -> inv));
@@ -255,61 +392,228 @@ public class InventoryService {
                         }));
     }
 
+    /**
+     * Giảm tồn kho bằng 1 câu UPDATE có điều kiện (quantity >= yêu cầu), không
+     * đọc trước. Chỉ khi thất bại mới đọc lại để phân biệt không tồn tại / không
+     * đủ hàng / sản phẩm đã chuyển sang chia shard.
+     */
     @Transactional
+    @Retryable(retryFor = PessimisticLockingFailureException.class, maxAttempts = 3, backoff = @Backoff(delay = 50))
     public void reduceStock(Long productId, Integer quantity) {
-        // Validate product exists
-        if (!inventoryRepository.findByProductId(productId).isPresent()) {
-            throw new InventoryNotFoundException(
-                    "Inventory not found for product: " + productId);
+        boolean reduced = stockShardService.isSharded(productId)
+                ? reduceSharded(productId, quantity)
+                : inventoryRepository.reduceStockByProductId(productId, quantity);
+
+        if (!reduced) {
+            Inventory inventory = inventoryRepository.findByProductId(productId)
+                    .orElseThrow(() -> new InventoryNotFoundException(
+                            "Inventory not found for product: " + productId));
+            reduced = inventory.isSharded()
+                    ? reduceSharded(productId, quantity)
+                    : inventoryRepository.reduceStockByProductId(productId, quantity);
+            if (!reduced) {
+                throw new InsufficientStockException(
+                        "Insufficient stock for product: " + productId, List.of(productId));
+            }
         }
-
-        // Use batch update query instead of fetch + update
-        inventoryRepository.reduceStockByProductId(productId, quantity);
+        stockLocationService.allocate(Map.of(productId, quantity), null);
+        stockReservationService.adjustAvailable(Map.of(productId, -quantity));
+        ledgerService.record(MovementType.REDUCE, Map.of(productId, -quantity), null);
+        quantityCache.invalidate(List.of(productId));
         log.info("Reduced stock for product {}: -{} units", productId, quantity);
     }
 
+    /**
+     * Giảm tồn kho cho nhiều sản phẩm theo kiểu all-or-nothing: trừ cả batch
+     * bằng một câu UPDATE có điều kiện (quantity >= yêu cầu, không đọc trước).
+     * Chỉ khi số dòng cập nhật thiếu mới đọc lại để phân loại; có sản phẩm không
+     * đủ hàng (hoặc không tồn tại) thì ném InsufficientStockException kèm danh
+     * sách productId lỗi và transaction rollback toàn bộ batch. Sản phẩm hot
+     * được giảm trên shard, sản phẩm quản lý theo kho được chia cho các kho gần
+     * region nhất.
+     *
+     * @param region khu vực giao hàng để chọn kho (null: theo priority của kho)
+     */
     @Transactional
-    public void reduceMultipleStock(Map<Long, Integer> productQuantities) {
+    @Retryable(retryFor = PessimisticLockingFailureException.class, maxAttempts = 3, backoff = @Backoff(delay = 50))
+    public void reduceMultipleStock(Map<Long, Integer> productQuantities, String region) {
         log.info("Reducing stock for {} products", productQuantities.size());
+        if (productQuantities.isEmpty()) {
+            return;
+        }
 
-        // FIX N+1: Batch fetch tất cả inventories để validate
-        List<Long> productIds = new java.util.ArrayList<>(productQuantities.keySet());
-        List<Inventory> inventories = inventoryRepository.findByProductIdIn(productIds);
+        decrementStock(productQuantities, region);
+        stockReservationService.adjustAvailable(negate(productQuantities));
+        ledgerService.record(MovementType.REDUCE, negate(productQuantities), null);
+        quantityCache.invalidate(productQuantities.keySet());
+        log.info("Successfully reduced stock for all products");
+    }
 
-        // Validate tất cả products tồn tại
-        if (inventories.size() != productIds.size()) {
-            throw new InventoryNotFoundException(
-                    "Some products not found in inventory");
+    private void decrementStock(Map<Long, Integer> productQuantities, String region) {
+        Map<Long, Integer> regular = new LinkedHashMap<>();
+        Map<Long, Integer> sharded = new LinkedHashMap<>();
+        productQuantities.forEach((productId, quantity) ->
+                (stockShardService.isSharded(productId) ? sharded : regular).put(productId, quantity));
+
+        Set<Long> failed = new TreeSet<>();
+        if (!regular.isEmpty()) {
+            List<Long> productIds = new ArrayList<>(regular.keySet());
+            // Mốc riêng của câu UPDATE này (độ chính xác micro giây như cột updated_at)
+            Instant updatedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+            int updated = inventoryRepository.reduceStockBatch(regular, updatedAt);
+
+            if (updated != productIds.size()) {
+                // Chỉ đọc lại khi có sản phẩm không đủ hàng, không tồn tại hoặc vừa chuyển
+                // sang chia shard. Dòng đã bị trừ đang bị khóa và mang updated_at của câu UPDATE
+                Map<Long, Inventory> existing = inventoryRepository.findByProductIdIn(productIds).stream()
+                        .collect(Collectors.toMap(Inventory::getProductId, inventory -> inventory));
+                for (Long productId : productIds) {
+                    Inventory inventory = existing.get(productId);
+                    if (inventory == null) {
+                        failed.add(productId);
+                    } else if (inventory.isSharded()) {
+                        sharded.put(productId, regular.get(productId));
+                    } else if (!updatedAt.equals(inventory.getUpdatedAt())) {
+                        failed.add(productId);
+                    }
+                }
+            }
         }
 
-        // Batch update sử dụng native query (1 query thay vì N queries)
-        for (Map.Entry<Long, Integer> entry : productQuantities.entrySet()) {
-            inventoryRepository.reduceStockByProductId(entry.getKey(), entry.getValue());
-            log.info("Reduced stock for product {}: -{} units", entry.getKey(), entry.getValue());
+        if (failed.isEmpty()) {
+            sharded.forEach((productId, quantity) -> {
+                if (!reduceSharded(productId, quantity)
+                        && !inventoryRepository.reduceStockByProductId(productId, quantity)) {
+                    failed.add(productId);
+                }
+            });
         }
 
-        log.info("Successfully reduced stock for all products");
+        if (!failed.isEmpty()) {
+            List<Long> failedProductIds = List.copyOf(failed);
+            log.warn("Stock reduction rejected, insufficient stock for products {}", failedProductIds);
+            throw new InsufficientStockException(
+                    "Insufficient stock for products: " + failedProductIds, failedProductIds);
+        }
+        stockLocationService.allocate(productQuantities, region);
     }
 
+    // ═════════════════════════════════════════════════════════════════════
+    // 2.1. RESERVATION (GIỮ HÀNG TRÊN REDIS)
+    // ═════════════════════════════════════════════════════════════════════
+
+    /**
+     * Giữ tồn kho cho đơn hàng (Redis + Lua, không khóa dòng inventories).
+     * Tồn kho trong DB chỉ bị trừ khi commit; hold không được commit sẽ tự trả
+     * lại khi hết hạn (sau holdTtl, null thì dùng thời gian giữ mặc định).
+     */
+    public void reserveStock(Long orderId, Map<Long, Integer> productQuantities, Duration holdTtl) {
+        if (productQuantities.isEmpty()) {
+            return;
+        }
+        List<Long> failed = stockReservationService.reserve(orderId, productQuantities, holdTtl, this::loadStock);
+        if (!failed.isEmpty()) {
+            log.warn("Stock reservation for order {} rejected, insufficient stock for products {}", orderId, failed);
+            throw new InsufficientStockException("Insufficient stock for products: " + failed, failed);
+        }
+    }
+
+    /**
+     * Commit hold của đơn hàng (thanh toán thành công): trừ tồn kho trong DB.
+     * Gọi lại nhiều lần chỉ trừ một lần. Nếu hold đã hết hạn và bị trả lại thì
+     * trừ trực tiếp theo productQuantities như API reduce.
+     */
+    @Transactional
+    @Retryable(retryFor = PessimisticLockingFailureException.class, maxAttempts = 3, backoff = @Backoff(delay = 50))
+    public void commitReservation(Long orderId, Map<Long, Integer> productQuantities, String region) {
+        Map<Long, Integer> held = stockReservationService.beginCommit(orderId);
+        if (held == null) {
+            log.info("Stock reservation for order {} already committed", orderId);
+            return;
+        }
+
+        if (held.isEmpty()) {
+            log.warn("No active stock reservation for order {}, reducing stock directly", orderId);
+            decrementStock(productQuantities, region);
+            stockReservationService.adjustAvailable(negate(productQuantities));
+            ledgerService.record(MovementType.REDUCE, negate(productQuantities), orderId);
+            quantityCache.invalidate(productQuantities.keySet());
+        } else {
+            decrementStock(held, region);
+            ledgerService.record(MovementType.REDUCE, negate(held), orderId);
+            quantityCache.invalidate(held.keySet());
+        }
+        stockReservationService.completeCommitAfterTransaction(orderId);
+        log.info("Committed stock reservation for order {}", orderId);
+    }
+
+    /**
+     * Trả lại tồn kho đang giữ của các đơn hàng (hủy đơn / đơn hết hạn)
+     */
+    public void releaseReservations(List<Long> orderIds) {
+        orderIds.forEach(stockReservationService::release);
+    }
+
+    /**
+     * Đồng bộ định kỳ số lượng có thể giữ trên Redis với tồn kho DB
+     */
+    @Scheduled(fixedDelayString = "${inventory.reservation.resync-interval-ms:300000}")
+    public void resyncAvailable() {
+        stockReservationService.resyncAvailable(this::loadStock);
+    }
+
+    /**
+     * Tồn kho trong DB (cộng shard với sản phẩm hot), dùng để nạp Redis
+     */
+    private Map<Long, Integer> loadStock(List<Long> productIds) {
+        List<Inventory> inventories = inventoryRepository.findByProductIdIn(productIds);
+        applyShardTotals(inventories);
+        return inventories.stream()
+                .collect(Collectors.toMap(Inventory::getProductId, Inventory::getQuantity));
+    }
+
+    private static Map<Long, Integer> negate(Map<Long, Integer> productQuantities) {
+        Map<Long, Integer> deltas = new HashMap<>();
+        productQuantities.forEach((productId, quantity) -> deltas.put(productId, -quantity));
+        return deltas;
+    }
+
+    /**
+     * @return false nếu không đủ hàng hoặc sản phẩm không còn chia shard
+     */
+    private boolean reduceSharded(Long productId, Integer quantity) {
+        return stockShardService.reduce(productId, quantity) == StockShardService.ShardResult.REDUCED;
+    }
+
+    /**
+     * Hoàn tồn kho: chỉ ghi log, job flush của StockRestoreBuffer gộp và cộng
+     * vào inventories theo batch
+     */
     @Transactional
-    public void restoreStock(Long productId, Integer quantity) {
+    public void restoreStock(Long productId, Integer quantity, Long orderId) {
         // Validate product exists
-        if (!inventoryRepository.findByProductId(productId).isPresent()) {
-            throw new InventoryNotFoundException(
-                    "Inventory not found for product: " + productId);
+        if (!inventoryRepository.existsByProductId(productId)) {
+            throw new InventoryNotFoundException("Inventory not found for product: " + productId);
         }
 
-        // Use batch update query instead of fetch + update
-        inventoryRepository.restoreStockByProductId(productId, quantity);
-        log.info("Restored stock for product {}: +{} units", productId, quantity);
+        stockRestoreBuffer.append(List.of(StockRestoreEntry.builder()
+                .productId(productId)
+                .quantity(quantity)
+                .orderId(orderId)
+                .build()));
+        log.info("Queued stock restore for product {}: +{} units", productId, quantity);
     }
 
+    /**
+     * Hoàn tồn kho cho nhiều dòng (productId, quantity, orderId); mỗi dòng được
+     * ghi ledger riêng theo orderId, phần cộng vào inventories được gộp khi flush
+     */
     @Transactional
-    public void restoreMultipleStock(Map<Long, Integer> productQuantities) {
-        log.info("Restoring stock for {} products", productQuantities.size());
+    public void restoreMultipleStock(List<StockRestoreEntry> entries) {
+        log.info("Restoring stock for {} entries", entries.size());
 
         // FIX N+1: Batch fetch tất cả inventories để validate
-        List<Long> productIds = new java.util.ArrayList<>(productQuantities.keySet());
+        List<Long> productIds = entries.stream().map(StockRestoreEntry::getProductId).distinct().toList();
         List<Inventory> inventories = inventoryRepository.findByProductIdIn(productIds);
 
         // Validate tất cả products tồn tại
@@ -318,59 +622,102 @@ public class InventoryService {
                     "Some products not found in inventory");
         }
 
-        // Batch update sử dụng native query (1 query thay vì N queries)
-        for (Map.Entry<Long, Integer> entry : productQuantities.entrySet()) {
-            inventoryRepository.restoreStockByProductId(entry.getKey(), entry.getValue());
-            log.info("Restored stock for product {}: +{} units", entry.getKey(), entry.getValue());
-        }
-
-        log.info("Successfully restored stock for all products");
+        stockRestoreBuffer.append(entries);
+        log.info("Queued stock restore for {} products", productIds.size());
     }
 
     // ═════════════════════════════════════════════════════════════════════
     // 3. HELPER METHOD
     // ═════════════════════════════════════════════════════════════════════
 
-    private InventoryResponse toResponse(Inventory inventory) {
+    // null nếu không phải trạng thái hợp lệ (trả về toàn bộ như trước)
+    private static StockStatus parseStockStatus(String stockStatus) {
         try {
-            // Lấy tên sản phẩm từ Product Service
-            String productName = productClient.getProductName(inventory.getProductId());
-
-            return InventoryResponse.builder()
-                    .id(inventory.getId())
-                    .productId(inventory.getProductId())
-                    .productName(productName) // Thêm tên sản phẩm
-                    .quantity(inventory.getQuantity())
-                    .createdAt(inventory.getCreatedAt())
-                    .updatedAt(inventory.getUpdatedAt())
-                    .build();
-        } catch (Exception e) {
-            log.error("Error getting product name for productId {}: {}",
-                    inventory.getProductId(), e.getMessage());
+            return StockStatus.valueOf(stockStatus.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 
-            // Fallback: vẫn trả về response nhưng productName là rỗng
-            return InventoryResponse.builder()
-                    .id(inventory.getId())
-                    .productId(inventory.getProductId())
-                    .productName("Unknown") // Hoặc có thể để "" tùy bạn
-                    .quantity(inventory.getQuantity())
-                    .createdAt(inventory.getCreatedAt())
-                    .updatedAt(inventory.getUpdatedAt())
-                    .build();
+    /**
+     * Thay snapshot quantity của sản phẩm hot bằng tổng các shard
+     */
+    private void applyShardTotals(List<Inventory> inventories) {
+        List<Long> shardedIds = inventories.stream()
+                .filter(Inventory::isSharded)
+                .map(Inventory::getProductId)
+                .toList();
+        if (shardedIds.isEmpty()) {
+            return;
         }
+        Map<Long, Integer> totals = stockShardService.totalQuantities(shardedIds);
+        for (Inventory inventory : inventories) {
+            Integer total = totals.get(inventory.getProductId());
+            if (total != null) {
+                inventory.setQuantity(total);
+            }
+        }
+    }
+
+    private StockLocationResponse toLocationResponse(StockLocation location) {
+        return StockLocationResponse.builder()
+                .id(location.getId())
+                .code(location.getCode())
+                .name(location.getName())
+                .region(location.getRegion())
+                .priority(location.getPriority())
+                .build();
+    }
+
+    private InventoryResponse toResponse(Inventory inventory) {
+        // Tên sản phẩm từ projection local, "Unknown" nếu chưa có
+        String productName = productNameProjection.findNames(List.of(inventory.getProductId()))
+                .getOrDefault(inventory.getProductId(), "Unknown");
+
+        return InventoryResponse.builder()
+                .id(inventory.getId())
+                .productId(inventory.getProductId())
+                .productName(productName)
+                .quantity(inventory.getQuantity())
+                .shardCount(inventory.getShardCount())
+                .lowStockThreshold(inventory.getLowStockThreshold())
+                .stockStatus(inventory.getStockStatus().name())
+                .createdAt(inventory.getCreatedAt())
+                .updatedAt(inventory.getUpdatedAt())
+                .build();
     }
 
     @Transactional(readOnly = true)
     public Integer getQuantityByProductId(Long productId) {
-        return inventoryRepository.getQuantityByProductId(productId);
+        Integer available = stockReservationService.availableQuantities(List.of(productId)).get(productId);
+        if (available != null) {
+            return available;
+        }
+        return quantityCache.getAll(List.of(productId), this::loadStock).getOrDefault(productId, 0);
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Ưu tiên số lượng còn có thể giữ trên Redis (đã trừ các hold), sau đó tới
+     * tồn kho trong DB qua near-cache. Sản phẩm chưa có inventory bị bỏ qua.
+     */
     public List<InventoryQuantityResponse> getQuantitiesByProductIds(List<Long> productIds) {
         if (productIds == null || productIds.isEmpty()) {
             return List.of();
         }
-        return inventoryRepository.getQuantitiesByProductIds(productIds);
+        List<Long> distinctIds = productIds.stream().distinct().toList();
+        Map<Long, Integer> available = stockReservationService.availableQuantities(distinctIds);
+        Map<Long, Integer> stored = quantityCache.getAll(
+                distinctIds.stream().filter(productId -> !available.containsKey(productId)).toList(),
+                this::loadStock);
+
+        List<InventoryQuantityResponse> quantities = new ArrayList<>(distinctIds.size());
+        for (Long productId : distinctIds) {
+            Integer quantity = available.getOrDefault(productId, stored.get(productId));
+            if (quantity != null) {
+                quantities.add(new InventoryQuantityResponse(productId, quantity));
+            }
+        }
+        return quantities;
     }
 
     /**
@@ -378,14 +725,14 @@ public class InventoryService {
      */
     @Transactional(readOnly = true)
     public com.tranan.inventoryservice.application.dto.response.InventoryStatsResponse getStats() {
-        long total = inventoryRepository.countTotal();
-        long lowStock = inventoryRepository.countLowStock();
-        long outOfStock = inventoryRepository.countOutOfStock();
+        Map<StockStatus, Long> counts = inventoryRepository.countByStockStatus();
+        long total = counts.values().stream().mapToLong(Long::longValue).sum();
 
         return com.tranan.inventoryservice.application.dto.response.InventoryStatsResponse.builder()
                 .total(total)
-                .lowStock(lowStock)
-                .outOfStock(outOfStock)
+                .lowStock(counts.getOrDefault(StockStatus.LOW_STOCK, 0L))
+                .outOfStock(counts.getOrDefault(StockStatus.OUT_OF_STOCK, 0L))
+                .inStock(counts.getOrDefault(StockStatus.IN_STOCK, 0L))
                 .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.tranan.inventoryservice.application.usecase;
+
+import com.tranan.inventoryservice.domain.model.InventoryLocation;
+import com.tranan.inventoryservice.domain.model.StockLocation;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lấy hàng từ kho gần nhất trước: kho cùng region với địa chỉ giao hàng, sau
+ * đó theo priority của kho; cùng mức ưu tiên thì kho còn nhiều hàng hơn trước
+ * để hạn chế tách đơn ra nhiều kho.
+ *
+ * Order Service chưa lưu địa chỉ giao hàng nên hiện không truyền region: mọi
+ * lần trừ kho đều rơi vào nhánh priority cho đến khi đơn hàng có region.
+ */
+@Component
+public class NearestLocationAllocationStrategy implements StockAllocationStrategy {
+
+    @Override
+    public Map<Long, Integer> allocate(int quantity, List<InventoryLocation> stock,
+            Map<Long, StockLocation> locations, String region) {
+        Comparator<InventoryLocation> nearestFirst = Comparator
+                .comparing((InventoryLocation il) -> !sameRegion(locations.get(il.getLocationId()), region))
+                .thenComparing(il -> priorityOf(locations.get(il.getLocationId())))
+                .thenComparing(InventoryLocation::getQuantity, Comparator.reverseOrder())
+                .thenComparing(InventoryLocation::getLocationId);
+
+        Map<Long, Integer> allocation = new LinkedHashMap<>();
+        int remaining = quantity;
+        for (InventoryLocation il : stock.stream().sorted(nearestFirst).toList()) {
+            if (remaining == 0) {
+                break;
+            }
+            int taken = Math.min(remaining, il.getQuantity());
+            if (taken > 0) {
+                allocation.put(il.getLocationId(), taken);
+                remaining -= taken;
+            }
+        }
+        return remaining == 0 ? allocation : Map.of();
+    }
+
+    private static boolean sameRegion(StockLocation location, String region) {
+        return region != null && location != null && region.equalsIgnoreCase(location.getRegion());
+    }
+
+    private static int priorityOf(StockLocation location) {
+        return location != null ? location.getPriority() : Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,114 @@
+package com.tranan.inventoryservice.application.usecase;
+
+import com.tranan.inventoryservice.domain.repository.ProductNameRepository;
+import com.tranan.inventoryservice.infrastructure.client.client.ProductClient;
+import com.tranan.inventoryservice.infrastructure.client.dto.ProductDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Projection tên sản phẩm trong DB của Inventory Service.
+ *
+ * Được cập nhật từ product-events (ProductEventListener) nên tìm kiếm theo tên
+ * và hiển thị tên trong danh sách tồn kho không phải gọi Product Service. Lúc
+ * khởi động, các sản phẩm có inventory nhưng chưa có tên (tạo trước khi có
+ * projection) được nạp bù theo lô với updated_at = epoch để mọi event sau đó
+ * luôn được ưu tiên.
+ */
+@Slf4j
+@Service
+public class ProductNameProjection {
+
+    private final ProductNameRepository productNameRepository;
+    private final ProductClient productClient;
+    private final int backfillBatchSize;
+
+    public ProductNameProjection(ProductNameRepository productNameRepository, ProductClient productClient,
+            @Value("${inventory.product-names.backfill-batch-size:500}") int backfillBatchSize) {
+        this.productNameRepository = productNameRepository;
+        this.productClient = productClient;
+        this.backfillBatchSize = backfillBatchSize;
+    }
+
+    public void upsert(Long productId, String name, Instant changedAt) {
+        if (name == null) {
+            return;
+        }
+        productNameRepository.upsertIfNewer(productId, name, changedAt);
+    }
+
+    public void delete(Long productId) {
+        productNameRepository.deleteByProductId(productId);
+    }
+
+    /**
+     * Tên sản phẩm theo productId. Chỉ gọi Product Service cho các sản phẩm
+     * chưa có trong projection (chưa backfill xong), lỗi thì bỏ qua.
+     */
+    public Map<Long, String> findNames(Collection<Long> productIds) {
+        Map<Long, String> names = new HashMap<>(productNameRepository.findNamesByProductIds(productIds));
+        List<Long> missing = productIds.stream()
+                .filter(productId -> !names.containsKey(productId))
+                .distinct()
+                .toList();
+        if (!missing.isEmpty()) {
+            try {
+                for (ProductDTO product : productClient.getProductsByIds(missing)) {
+                    names.put(product.getId(), product.getName());
+                }
+            } catch (Exception e) {
+                log.warn("Failed to fetch names for {} products missing from projection: {}",
+                        missing.size(), e.getMessage());
+            }
+        }
+        return names;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            productNameRepository.ensureFullTextIndex();
+        } catch (Exception e) {
+            log.error("Failed to create product name FULLTEXT index", e);
+        }
+        backfill();
+    }
+
+    private void backfill() {
+        long afterProductId = 0;
+        int filled = 0;
+        List<Long> productIds;
+        do {
+            productIds = productNameRepository.findInventoryProductIdsWithoutName(afterProductId, backfillBatchSize);
+            if (productIds.isEmpty()) {
+                break;
+            }
+            afterProductId = productIds.get(productIds.size() - 1);
+            try {
+                Map<Long, String> names = new HashMap<>();
+                for (ProductDTO product : productClient.getProductsByIds(productIds)) {
+                    if (product.getName() != null) {
+                        names.put(product.getId(), product.getName());
+                    }
+                }
+                productNameRepository.insertIfAbsent(names, Instant.EPOCH);
+                filled += names.size();
+            } catch (Exception e) {
+                log.warn("Failed to backfill product names after productId {}: {}", afterProductId, e.getMessage());
+            }
+        } while (productIds.size() == backfillBatchSize);
+
+        if (filled > 0) {
+            log.info("Backfilled {} product names", filled);
+        }
+    }
+}
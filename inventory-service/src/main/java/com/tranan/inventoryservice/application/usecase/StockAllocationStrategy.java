@@ -0,0 +1,21 @@
+package com.tranan.inventoryservice.application.usecase;
+
+import com.tranan.inventoryservice.domain.model.InventoryLocation;
+import com.tranan.inventoryservice.domain.model.StockLocation;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chia số lượng cần lấy của một sản phẩm cho các kho đang có hàng
+ */
+public interface StockAllocationStrategy {
+
+    /**
+     * @param stock    tồn kho của sản phẩm tại từng kho
+     * @param region   khu vực giao hàng (null nếu không có)
+     * @return locationId -> số lượng lấy từ kho đó, rỗng nếu tổng các kho không đủ
+     */
+    Map<Long, Integer> allocate(int quantity, List<InventoryLocation> stock,
+            Map<Long, StockLocation> locations, String region);
+}
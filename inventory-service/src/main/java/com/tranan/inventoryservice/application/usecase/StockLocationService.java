@@ -0,0 +1,216 @@
+package com.tranan.inventoryservice.application.usecase;
+
+import com.tranan.inventoryservice.domain.model.InventoryLocation;
+import com.tranan.inventoryservice.domain.model.StockLocation;
+import com.tranan.inventoryservice.domain.repository.InventoryLocationRepository;
+import com.tranan.inventoryservice.domain.repository.StockLocationRepository;
+import com.tranan.inventoryservice.infrastructure.transaction.AfterCommit;
+import com.tranan.inventoryservice.presentation.advice.exception.InsufficientStockException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Tồn kho theo nhiều kho hàng (inventory_locations).
+ *
+ * Sản phẩm không có dòng nào trong inventory_locations quản lý tồn kho trên 1
+ * dòng inventories như trước. Với sản phẩm quản lý theo kho,
+ * inventories.quantity là tổng được duy trì cùng transaction với các dòng theo
+ * kho: câu UPDATE có điều kiện trên inventories vẫn quyết định đủ / không đủ
+ * hàng (và khóa dòng), sau đó số lượng được chia cho các kho theo
+ * StockAllocationStrategy. Nhờ vậy các API đọc tồn kho (giỏ hàng, checkout)
+ * không phải SUM theo kho và không chậm đi khi thêm kho.
+ *
+ * Thứ tự khóa luôn là inventories rồi inventory_locations. Sản phẩm chia shard
+ * không quản lý theo kho.
+ *
+ * Phần lớn sản phẩm không quản lý theo kho, nên allocate / restore chỉ khóa
+ * inventory_locations cho các productId có trong tập cache (làm mới định kỳ
+ * như StockShardService.shardCounts) thay vì SELECT FOR UPDATE ở mỗi lần trừ kho.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockLocationService {
+
+    private final StockLocationRepository locationRepository;
+    private final InventoryLocationRepository inventoryLocationRepository;
+    private final StockAllocationStrategy allocationStrategy;
+
+    // productId quản lý theo kho. Instance này cập nhật ngay sau commit; instance
+    // khác có thể trễ tối đa 1 chu kỳ refresh sau khi sản phẩm vừa được thêm kho,
+    // trong khoảng đó lần trừ kho chỉ trừ tổng trên inventories.
+    private volatile Set<Long> managedProductIds = Set.of();
+
+    public StockLocation createLocation(StockLocation location) {
+        if (locationRepository.existsByCode(location.getCode())) {
+            throw new IllegalArgumentException("Mã kho đã tồn tại: " + location.getCode());
+        }
+        return locationRepository.save(location);
+    }
+
+    public List<StockLocation> getLocations() {
+        return locationRepository.findAll().stream()
+                .sorted(Comparator.comparing(StockLocation::getPriority).thenComparing(StockLocation::getId))
+                .toList();
+    }
+
+    public StockLocation getLocation(Long locationId) {
+        return locationRepository.findById(locationId)
+                .orElseThrow(() -> new IllegalArgumentException("Kho không tồn tại: " + locationId));
+    }
+
+    public List<InventoryLocation> getStock(Long productId) {
+        return inventoryLocationRepository.findByProductId(productId);
+    }
+
+    public boolean hasLocations(Long productId) {
+        return !inventoryLocationRepository.findProductIdsWithLocations(List.of(productId)).isEmpty();
+    }
+
+    public Set<Long> productsWithLocations(List<Long> productIds) {
+        return new HashSet<>(inventoryLocationRepository.findProductIdsWithLocations(productIds));
+    }
+
+    /**
+     * Chia phần đã trừ trên inventories cho các kho (chạy trong transaction của
+     * caller, sau khi tổng đã được trừ). Sản phẩm không quản lý theo kho bị bỏ qua.
+     */
+    public void allocate(Map<Long, Integer> productQuantities, String region) {
+        List<Long> managed = managed(productQuantities);
+        if (managed.isEmpty()) {
+            return;
+        }
+        List<InventoryLocation> stock = inventoryLocationRepository.findByProductIdInForUpdate(managed);
+        if (stock.isEmpty()) {
+            return;
+        }
+        Map<Long, List<InventoryLocation>> stockByProduct = stock.stream()
+                .collect(Collectors.groupingBy(InventoryLocation::getProductId, LinkedHashMap::new,
+                        Collectors.toList()));
+        Map<Long, StockLocation> locations = loadLocations(stock);
+
+        List<InventoryLocation> deltas = new ArrayList<>();
+        List<Long> failed = new ArrayList<>();
+        stockByProduct.forEach((productId, productStock) -> {
+            Map<Long, Integer> allocation = allocationStrategy.allocate(
+                    productQuantities.get(productId), productStock, locations, region);
+            if (allocation.isEmpty()) {
+                failed.add(productId);
+                return;
+            }
+            allocation.forEach((locationId, quantity) -> deltas.add(InventoryLocation.builder()
+                    .productId(productId)
+                    .locationId(locationId)
+                    .quantity(-quantity)
+                    .build()));
+        });
+
+        if (!failed.isEmpty()) {
+            // Tổng trên inventories đủ nhưng các kho không đủ: tổng đã lệch, rollback
+            log.error("Location stock does not cover reduced total for products {}", failed);
+            throw new InsufficientStockException("Insufficient stock for products: " + failed, failed);
+        }
+        inventoryLocationRepository.addQuantities(deltas);
+    }
+
+    /**
+     * Hoàn tồn kho vào kho ưu tiên nhất của mỗi sản phẩm (chạy trong transaction
+     * của caller, cùng lúc cộng tổng trên inventories)
+     */
+    public void restore(Map<Long, Integer> productQuantities) {
+        List<Long> managed = managed(productQuantities);
+        if (managed.isEmpty()) {
+            return;
+        }
+        List<InventoryLocation> stock = inventoryLocationRepository.findByProductIdInForUpdate(managed);
+        if (stock.isEmpty()) {
+            return;
+        }
+        Map<Long, StockLocation> locations = loadLocations(stock);
+        Comparator<InventoryLocation> primaryFirst = Comparator
+                .comparing((InventoryLocation il) -> {
+                    StockLocation location = locations.get(il.getLocationId());
+                    return location != null ? location.getPriority() : Integer.MAX_VALUE;
+                })
+                .thenComparing(InventoryLocation::getLocationId);
+
+        Map<Long, InventoryLocation> primary = new LinkedHashMap<>();
+        for (InventoryLocation il : stock) {
+            primary.merge(il.getProductId(), il,
+                    (current, candidate) -> primaryFirst.compare(candidate, current) < 0 ? candidate : current);
+        }
+        inventoryLocationRepository.addQuantities(primary.values().stream()
+                .map(il -> InventoryLocation.builder()
+                        .productId(il.getProductId())
+                        .locationId(il.getLocationId())
+                        .quantity(productQuantities.get(il.getProductId()))
+                        .build())
+                .toList());
+    }
+
+    /**
+     * Đặt số lượng của sản phẩm tại một kho (caller giữ lock dòng inventories)
+     *
+     * @return tổng tồn kho mới của sản phẩm trên mọi kho
+     */
+    public int setQuantity(Long productId, Long locationId, int quantity) {
+        getLocation(locationId);
+        List<InventoryLocation> stock = inventoryLocationRepository.findByProductIdInForUpdate(List.of(productId));
+        inventoryLocationRepository.upsert(InventoryLocation.builder()
+                .productId(productId)
+                .locationId(locationId)
+                .quantity(quantity)
+                .build());
+        AfterCommit.run(() -> register(productId, true));
+        return stock.stream()
+                .filter(il -> !il.getLocationId().equals(locationId))
+                .mapToInt(InventoryLocation::getQuantity)
+                .sum() + quantity;
+    }
+
+    public void deleteByProductId(Long productId) {
+        inventoryLocationRepository.deleteByProductId(productId);
+        AfterCommit.run(() -> register(productId, false));
+    }
+
+    /**
+     * Làm mới tập sản phẩm quản lý theo kho
+     */
+    @Scheduled(fixedDelayString = "${inventory.location.refresh-ms:5000}")
+    public void refresh() {
+        managedProductIds = Set.copyOf(inventoryLocationRepository.findAllProductIds());
+    }
+
+    private List<Long> managed(Map<Long, Integer> productQuantities) {
+        Set<Long> managed = managedProductIds;
+        return productQuantities.keySet().stream().filter(managed::contains).toList();
+    }
+
+    private synchronized void register(Long productId, boolean managed) {
+        Set<Long> updated = new HashSet<>(managedProductIds);
+        if (managed) {
+            updated.add(productId);
+        } else {
+            updated.remove(productId);
+        }
+        managedProductIds = Set.copyOf(updated);
+    }
+
+    private Map<Long, StockLocation> loadLocations(List<InventoryLocation> stock) {
+        Set<Long> locationIds = stock.stream().map(InventoryLocation::getLocationId).collect(Collectors.toSet());
+        return locationRepository.findAllById(locationIds).stream()
+                .collect(Collectors.toMap(StockLocation::getId, Function.identity()));
+    }
+}
@@ -0,0 +1,343 @@
+package com.tranan.inventoryservice.application.usecase;
+
+import com.tranan.inventoryservice.infrastructure.transaction.AfterCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Giữ tồn kho (reservation) cho đơn hàng trên Redis.
+ *
+ * inventory:available:{productId} là số lượng còn có thể giữ (tồn kho trong DB
+ * trừ các hold đang hiệu lực). Mỗi đơn hàng có một hold hash
+ * inventory:hold:{orderId} (productId -> quantity) và một entry trong zset
+ * inventory:hold:expiry với score là thời điểm hết hạn. Các thao tác giữ / trả /
+ * commit đều chạy bằng Lua script nên atomic, checkout không còn tranh lock
+ * dòng inventories trong DB.
+ *
+ * Vòng đời hold: reserve (checkout) → commit khi thanh toán thành công (trừ
+ * tồn kho thật trong DB) hoặc release khi hủy đơn / hết hạn (job quét zset).
+ * Hash inventory:held (productId -> tổng số lượng đang giữ) được cập nhật trong
+ * cùng script, nên khi nạp lại available từ DB (key bị xóa, Redis khởi động lại)
+ * giá trị là tồn kho DB trừ các hold đang hiệu lực.
+ *
+ * Số lượng có thể giữ có thể lệch khỏi DB (lệnh điều chỉnh sau commit bị lỗi,
+ * key bị xóa giữa chừng...): điều chỉnh lỗi thì key bị xóa để nạp lại, và job
+ * resync định kỳ tính lại inventory:held từ các hold rồi đặt lại available =
+ * tồn kho DB - held cho mọi key đang có. Commit / hoàn kho chạy xen giữa lúc
+ * đọc DB và lúc ghi Redis có thể để lại lệch tạm thời tới lần resync sau.
+ *
+ * Các script tự ghép key available từ productId nên chỉ dùng với Redis
+ * standalone (như RedisConfig hiện tại).
+ */
+@Slf4j
+@Service
+public class StockReservationService {
+
+    private static final String AVAILABLE_KEY_PREFIX = "inventory:available:";
+    private static final String HOLD_KEY_PREFIX = "inventory:hold:";
+    private static final String EXPIRY_KEY = "inventory:hold:expiry";
+    private static final String COMMITTED_KEY_PREFIX = "inventory:hold:committed:";
+    private static final String COMMITTING_KEY = "inventory:hold:committing";
+    private static final String HELD_KEY = "inventory:held";
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> RESERVE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/reserve_stock.lua"), List.class);
+    private static final RedisScript<Long> RELEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/release_reservation.lua"), Long.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> BEGIN_COMMIT_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/begin_commit_reservation.lua"), List.class);
+    private static final RedisScript<Long> COMPLETE_COMMIT_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/complete_commit_reservation.lua"), Long.class);
+    private static final RedisScript<Long> ADJUST_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/adjust_available.lua"), Long.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> SYNC_AVAILABLE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/sync_available.lua"), List.class);
+    private static final RedisScript<Long> REBUILD_HELD_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/rebuild_held.lua"), Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+    private final Duration committedRetention;
+    private final int sweepBatchSize;
+
+    public StockReservationService(StringRedisTemplate redisTemplate,
+            @Value("${inventory.reservation.ttl-minutes:1500}") long ttlMinutes,
+            @Value("${inventory.reservation.sweep-batch-size:500}") int sweepBatchSize) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.committedRetention = Duration.ofDays(1);
+        this.sweepBatchSize = sweepBatchSize;
+    }
+
+    /**
+     * Giữ tồn kho cho đơn hàng (all-or-nothing, idempotent theo orderId).
+     *
+     * @param holdTtl     thời gian giữ, null thì dùng inventory.reservation.ttl-minutes.
+     *                    Order Service truyền hạn thanh toán của đơn (cộng thêm thời
+     *                    gian dự phòng) để hold không hết hạn khi đơn còn thanh toán được
+     * @param stockLoader nạp tồn kho từ DB cho các sản phẩm chưa có trong Redis
+     *                    (được trừ số lượng đang giữ trước khi ghi vào Redis)
+     * @return productId không đủ hàng (rỗng nếu giữ thành công)
+     */
+    public List<Long> reserve(Long orderId, Map<Long, Integer> productQuantities, Duration holdTtl,
+            Function<List<Long>, Map<Long, Integer>> stockLoader) {
+        Duration holdFor = holdTtl != null ? holdTtl : ttl;
+        // Hold hash sống lâu hơn hạn giữ để job quét (hoặc commit đang dở) vẫn đọc được
+        Duration holdRetention = holdFor.plusHours(1);
+        List<Long> productIds = new ArrayList<>(productQuantities.keySet());
+        List<String> keys = new ArrayList<>(productIds.size() + 2);
+        keys.add(holdKey(orderId));
+        keys.add(EXPIRY_KEY);
+        List<String> args = new ArrayList<>(productIds.size() + 3);
+        args.add(String.valueOf(orderId));
+        args.add(String.valueOf(System.currentTimeMillis() + holdFor.toMillis()));
+        args.add(String.valueOf(holdRetention.toSeconds()));
+        for (Long productId : productIds) {
+            keys.add(availableKey(productId));
+            args.add(String.valueOf(productQuantities.get(productId)));
+        }
+
+        List<String> result = execute(RESERVE_SCRIPT, keys, args);
+        if ("MISSING".equals(result.get(0))) {
+            List<Long> missing = toProductIds(result, productIds);
+            syncAvailable("SEED", stockLoader.apply(missing));
+            result = execute(RESERVE_SCRIPT, keys, args);
+        }
+
+        if ("OK".equals(result.get(0))) {
+            log.info("Reserved stock for order {}: {}", orderId, productQuantities);
+            return List.of();
+        }
+        // MISSING lần 2: sản phẩm không có trong kho
+        return toProductIds(result, productIds);
+    }
+
+    /**
+     * Trả lại tồn kho đang giữ, false nếu đơn không còn hold (đã commit / đã hết
+     * hạn)
+     */
+    public boolean release(Long orderId) {
+        Long released = redisTemplate.execute(RELEASE_SCRIPT,
+                List.of(holdKey(orderId), EXPIRY_KEY), String.valueOf(orderId));
+        boolean wasHeld = released != null && released > 0;
+        if (wasHeld) {
+            log.info("Released stock reservation for order {}", orderId);
+        }
+        return wasHeld;
+    }
+
+    /**
+     * Lấy hold ra khỏi hàng đợi hết hạn để commit vào DB.
+     *
+     * @return null nếu đơn đã commit trước đó (gọi lại), ngược lại productId ->
+     *         quantity đang giữ (rỗng nếu đơn không còn hold)
+     */
+    public Map<Long, Integer> beginCommit(Long orderId) {
+        List<String> result = execute(BEGIN_COMMIT_SCRIPT,
+                List.of(holdKey(orderId), EXPIRY_KEY, committedKey(orderId), COMMITTING_KEY),
+                List.of(String.valueOf(orderId)));
+        if (result.isEmpty() || "COMMITTED".equals(result.get(0))) {
+            return null;
+        }
+        Map<Long, Integer> items = new LinkedHashMap<>();
+        for (int i = 1; i + 1 < result.size(); i += 2) {
+            items.put(Long.valueOf(result.get(i)), Integer.valueOf(result.get(i + 1)));
+        }
+        return items;
+    }
+
+    /**
+     * Kết thúc commit theo kết quả transaction DB: commit thành công thì xóa
+     * hold (bỏ khỏi inventory:held) và đánh dấu đơn đã commit (gọi lại sẽ bỏ
+     * qua), rollback thì đưa hold về hàng đợi hết hạn để job quét trả lại.
+     */
+    public void completeCommitAfterTransaction(Long orderId) {
+        Runnable onCommit = () -> redisTemplate.execute(COMPLETE_COMMIT_SCRIPT,
+                List.of(holdKey(orderId), committedKey(orderId), COMMITTING_KEY),
+                String.valueOf(orderId), String.valueOf(committedRetention.toSeconds()));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            onCommit.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    onCommit.run();
+                } else {
+                    // Đưa vào zset trước khi bỏ khỏi set đang commit: hold luôn được tính trong held
+                    redisTemplate.opsForZSet().add(EXPIRY_KEY, String.valueOf(orderId), System.currentTimeMillis());
+                    redisTemplate.opsForSet().remove(COMMITTING_KEY, String.valueOf(orderId));
+                }
+            }
+        });
+    }
+
+    /**
+     * Đồng bộ số lượng có thể giữ khi tồn kho DB thay đổi ngoài luồng giữ hàng
+     * (admin cập nhật, hoàn kho, API giảm kho trực tiếp). Chạy sau khi
+     * transaction commit; lỗi thì xóa key của các sản phẩm để lần giữ tiếp theo
+     * nạp lại từ DB (Redis không ghi được thì job resync sửa sau).
+     */
+    public void adjustAvailable(Map<Long, Integer> deltas) {
+        AfterCommit.run(() -> deltas.forEach((productId, delta) -> {
+            if (delta != 0) {
+                redisTemplate.execute(ADJUST_SCRIPT, List.of(availableKey(productId)), String.valueOf(delta));
+            }
+        }), () -> redisTemplate.delete(deltas.keySet().stream().map(StockReservationService::availableKey).toList()));
+    }
+
+    /**
+     * Xóa số lượng có thể giữ của sản phẩm (nạp lại từ DB ở lần giữ tiếp theo)
+     */
+    public void evictAvailable(Long productId) {
+        AfterCommit.run(() -> redisTemplate.delete(availableKey(productId)));
+    }
+
+    /**
+     * Số lượng còn có thể giữ của các sản phẩm đã có trong Redis
+     */
+    public Map<Long, Integer> availableQuantities(List<Long> productIds) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return quantities;
+        }
+        List<String> values = redisTemplate.opsForValue()
+                .multiGet(productIds.stream().map(StockReservationService::availableKey).toList());
+        if (values == null) {
+            return quantities;
+        }
+        for (int i = 0; i < productIds.size(); i++) {
+            if (values.get(i) != null) {
+                quantities.put(productIds.get(i), Math.max(0, Integer.parseInt(values.get(i))));
+            }
+        }
+        return quantities;
+    }
+
+    /**
+     * Trả lại tồn kho của các hold đã hết hạn (giỏ hàng / đơn bị bỏ dở)
+     */
+    @Scheduled(fixedDelayString = "${inventory.reservation.sweep-interval-ms:10000}")
+    public void releaseExpired() {
+        Set<String> expired;
+        int released = 0;
+        do {
+            expired = redisTemplate.opsForZSet()
+                    .rangeByScore(EXPIRY_KEY, 0, System.currentTimeMillis(), 0, sweepBatchSize);
+            if (expired == null || expired.isEmpty()) {
+                break;
+            }
+            for (String orderId : expired) {
+                if (release(Long.valueOf(orderId))) {
+                    released++;
+                }
+            }
+        } while (expired.size() == sweepBatchSize);
+
+        if (released > 0) {
+            log.info("Released {} expired stock reservations", released);
+        }
+    }
+
+    /**
+     * Đồng bộ lại số lượng có thể giữ với DB: tính lại inventory:held từ các
+     * hold rồi đặt available = tồn kho DB - held cho mọi sản phẩm đang có key.
+     * Sản phẩm không còn inventory thì xóa key.
+     *
+     * @param stockLoader tồn kho DB theo productId (như reserve)
+     */
+    public void resyncAvailable(Function<List<Long>, Map<Long, Integer>> stockLoader) {
+        redisTemplate.execute(REBUILD_HELD_SCRIPT, List.of(EXPIRY_KEY, COMMITTING_KEY, HELD_KEY));
+
+        ScanOptions options = ScanOptions.scanOptions().match(AVAILABLE_KEY_PREFIX + "*").count(sweepBatchSize).build();
+        List<Long> batch = new ArrayList<>(sweepBatchSize);
+        int drifted = 0;
+        try (Cursor<String> keys = redisTemplate.scan(options)) {
+            while (keys.hasNext()) {
+                batch.add(Long.valueOf(keys.next().substring(AVAILABLE_KEY_PREFIX.length())));
+                if (batch.size() == sweepBatchSize || !keys.hasNext()) {
+                    drifted += resyncBatch(batch, stockLoader);
+                    batch.clear();
+                }
+            }
+        }
+        if (drifted > 0) {
+            log.warn("Resynced available stock of {} products that drifted from the database", drifted);
+        }
+    }
+
+    private int resyncBatch(List<Long> productIds, Function<List<Long>, Map<Long, Integer>> stockLoader) {
+        Map<Long, Integer> stock = stockLoader.apply(productIds);
+        List<String> deleted = productIds.stream()
+                .filter(productId -> !stock.containsKey(productId))
+                .map(StockReservationService::availableKey)
+                .toList();
+        if (!deleted.isEmpty()) {
+            redisTemplate.delete(deleted);
+        }
+        return syncAvailable("RESET", stock).size();
+    }
+
+    /**
+     * Đặt available = tồn kho DB - held (xem sync_available.lua)
+     */
+    @SuppressWarnings("unchecked")
+    private List<String> syncAvailable(String mode, Map<Long, Integer> stock) {
+        if (stock.isEmpty()) {
+            return List.of();
+        }
+        List<String> args = new ArrayList<>(stock.size() * 2 + 1);
+        args.add(mode);
+        stock.forEach((productId, quantity) -> {
+            args.add(String.valueOf(productId));
+            args.add(String.valueOf(quantity));
+        });
+        return execute(SYNC_AVAILABLE_SCRIPT, List.of(HELD_KEY), args);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<String> execute(RedisScript<List> script, List<String> keys, List<String> args) {
+        List<String> result = redisTemplate.execute(script, keys, args.toArray());
+        return result != null ? result : List.of();
+    }
+
+    private static List<Long> toProductIds(List<String> result, List<Long> productIds) {
+        return result.subList(1, result.size()).stream()
+                .map(index -> productIds.get(Integer.parseInt(index) - 1))
+                .toList();
+    }
+
+    private static String availableKey(Long productId) {
+        return AVAILABLE_KEY_PREFIX + productId;
+    }
+
+    private static String holdKey(Long orderId) {
+        return HOLD_KEY_PREFIX + orderId;
+    }
+
+    private static String committedKey(Long orderId) {
+        return COMMITTED_KEY_PREFIX + orderId;
+    }
+}
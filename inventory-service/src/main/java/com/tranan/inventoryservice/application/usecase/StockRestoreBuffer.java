@@ -0,0 +1,154 @@
+package com.tranan.inventoryservice.application.usecase;
+
+import com.tranan.inventoryservice.domain.model.Inventory;
+import com.tranan.inventoryservice.domain.model.InventoryMovement;
+import com.tranan.inventoryservice.domain.model.MovementType;
+import com.tranan.inventoryservice.domain.model.StockRestoreEntry;
+import com.tranan.inventoryservice.domain.repository.InventoryRepository;
+import com.tranan.inventoryservice.domain.repository.StockRestoreLogRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hoàn tồn kho kiểu write-behind.
+ *
+ * Hủy đơn / hết hạn / thanh toán thất bại hàng loạt tạo ra rất nhiều lần hoàn
+ * kho nhỏ, mỗi lần UPDATE khóa dòng inventories của sản phẩm hot. Thay vào đó
+ * mỗi lần hoàn kho chỉ INSERT vào stock_restore_log (cùng transaction với
+ * request nên không mất khi crash). Job flush chạy mỗi vài chục ms gộp các
+ * entry theo productId, cộng vào inventories bằng 1 câu UPDATE batch và xóa
+ * các entry đã áp dụng trong cùng transaction. Ledger vẫn ghi mỗi entry một
+ * movement RESTORE kèm orderId để đối soát theo đơn hàng.
+ *
+ * Tồn kho đọc từ DB có thể trễ tối đa 1 chu kỳ flush so với lần hoàn kho.
+ * Sản phẩm chưa áp dụng được (đang đổi cấu hình shard) không làm hỏng cả batch:
+ * entry của nó được ghi lại xuống cuối log để lần flush sau thử lại, phần còn
+ * lại vẫn được áp dụng.
+ */
+@Slf4j
+@Service
+public class StockRestoreBuffer {
+
+    private final StockRestoreLogRepository logRepository;
+    private final InventoryRepository inventoryRepository;
+    private final StockShardService stockShardService;
+    private final StockLocationService stockLocationService;
+    private final StockReservationService stockReservationService;
+    private final InventoryQuantityCache quantityCache;
+    private final InventoryLedgerService ledgerService;
+    private final int batchSize;
+
+    public StockRestoreBuffer(StockRestoreLogRepository logRepository,
+            InventoryRepository inventoryRepository,
+            StockShardService stockShardService,
+            StockLocationService stockLocationService,
+            StockReservationService stockReservationService,
+            InventoryQuantityCache quantityCache,
+            InventoryLedgerService ledgerService,
+            @Value("${inventory.restore-buffer.batch-size:1000}") int batchSize) {
+        this.logRepository = logRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.stockShardService = stockShardService;
+        this.stockLocationService = stockLocationService;
+        this.stockReservationService = stockReservationService;
+        this.quantityCache = quantityCache;
+        this.ledgerService = ledgerService;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Ghi nhận hoàn kho (chạy trong transaction của caller)
+     */
+    public void append(List<StockRestoreEntry> entries) {
+        logRepository.append(entries);
+    }
+
+    /**
+     * Áp dụng các entry đang chờ. Nhiều instance có thể chạy song song vì
+     * entry được khóa bằng SKIP LOCKED.
+     */
+    @Scheduled(fixedDelayString = "${inventory.restore-buffer.flush-interval-ms:50}")
+    @Transactional
+    public void flush() {
+        List<StockRestoreEntry> entries = logRepository.lockPending(batchSize);
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Integer> totals = new LinkedHashMap<>();
+        for (StockRestoreEntry entry : entries) {
+            totals.merge(entry.getProductId(), entry.getQuantity(), Integer::sum);
+        }
+
+        Map<Long, Integer> plain = new LinkedHashMap<>();
+        Map<Long, Integer> sharded = new LinkedHashMap<>();
+        for (Inventory inventory : inventoryRepository.findByProductIdIn(new ArrayList<>(totals.keySet()))) {
+            Integer quantity = totals.remove(inventory.getProductId());
+            (inventory.isSharded() ? sharded : plain).put(inventory.getProductId(), quantity);
+        }
+        if (!totals.isEmpty()) {
+            log.warn("Dropping stock restores for deleted inventories: {}", totals);
+        }
+
+        if (!plain.isEmpty() && inventoryRepository.restoreStockBatch(plain) != plain.size()) {
+            // Có sản phẩm vừa chuyển sang chia shard (hoặc bị xóa) sau lần đọc trên. Dòng đã
+            // cộng đang bị khóa nên vẫn không chia shard; đọc lại để tách phần chưa cộng
+            Map<Long, Inventory> current = new LinkedHashMap<>();
+            inventoryRepository.findByProductIdIn(new ArrayList<>(plain.keySet()))
+                    .forEach(inventory -> current.put(inventory.getProductId(), inventory));
+            for (Long productId : new ArrayList<>(plain.keySet())) {
+                Inventory inventory = current.get(productId);
+                if (inventory == null) {
+                    log.warn("Dropping stock restore for deleted inventory {}: {}", productId, plain.remove(productId));
+                } else if (inventory.isSharded()) {
+                    sharded.put(productId, plain.remove(productId));
+                }
+            }
+        }
+
+        Map<Long, Integer> deferred = new LinkedHashMap<>();
+        sharded.forEach((productId, quantity) -> {
+            if (stockShardService.restore(productId, quantity)) {
+                return;
+            }
+            // Shard vừa bị gộp về 1 dòng: cộng thẳng vào inventories
+            if (inventoryRepository.restoreStockByProductId(productId, quantity)) {
+                plain.put(productId, quantity);
+            } else {
+                deferred.put(productId, quantity);
+            }
+        });
+        deferred.keySet().forEach(sharded::remove);
+        // Sản phẩm quản lý theo kho: hoàn vào kho ưu tiên nhất
+        stockLocationService.restore(plain);
+
+        logRepository.deleteByIds(entries.stream().map(StockRestoreEntry::getId).toList());
+        if (!deferred.isEmpty()) {
+            log.warn("Deferring stock restores while shard configuration changes: {}", deferred);
+            logRepository.append(entries.stream()
+                    .filter(entry -> deferred.containsKey(entry.getProductId()))
+                    .toList());
+        }
+        plain.putAll(sharded);
+        ledgerService.recordAll(entries.stream()
+                .filter(entry -> plain.containsKey(entry.getProductId()))
+                .map(entry -> InventoryMovement.builder()
+                        .productId(entry.getProductId())
+                        .type(MovementType.RESTORE)
+                        .delta(entry.getQuantity())
+                        .orderId(entry.getOrderId())
+                        .build())
+                .toList());
+        stockReservationService.adjustAvailable(plain);
+        quantityCache.invalidate(plain.keySet());
+        log.debug("Flushed {} stock restore entries into {} products", entries.size(), plain.size());
+    }
+}
@@ -0,0 +1,177 @@
+package com.tranan.inventoryservice.application.usecase;
+
+import com.tranan.inventoryservice.domain.model.InventoryShard;
+import com.tranan.inventoryservice.domain.repository.InventoryRepository;
+import com.tranan.inventoryservice.domain.repository.InventoryShardRepository;
+import com.tranan.inventoryservice.infrastructure.transaction.AfterCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Tồn kho chia shard cho sản phẩm hot (flash sale).
+ *
+ * Với sản phẩm bình thường mọi lần giảm kho đều khóa cùng một dòng inventories,
+ * nên throughput bị giới hạn bởi thời gian giữ lock. Sản phẩm hot được chia tồn
+ * kho ra N dòng inventory_shards: mỗi lần giảm chọn ngẫu nhiên 1 shard và chỉ
+ * khóa dòng đó. Khi shard được chọn không đủ hàng thì khóa toàn bộ shard, kiểm
+ * tra tổng và chia đều lại (rebalance).
+ *
+ * inventories.quantity của sản phẩm hot chỉ là snapshot (dùng cho danh sách /
+ * thống kê), được cập nhật định kỳ; các API đọc tồn kho theo productId dùng
+ * tổng các shard.
+ */
+@Slf4j
+@Service
+public class StockShardService {
+
+    public enum ShardResult {
+        REDUCED,
+        INSUFFICIENT,
+        NOT_SHARDED
+    }
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryShardRepository shardRepository;
+    private final int maxShards;
+
+    // productId -> shardCount, làm mới định kỳ. Có thể trễ: các câu UPDATE trên
+    // inventories đều có điều kiện shard_count = 0 nên đi sai nhánh chỉ dẫn tới
+    // fallback, không làm sai tồn kho.
+    private volatile Map<Long, Integer> shardCounts = Map.of();
+
+    public StockShardService(InventoryRepository inventoryRepository,
+            InventoryShardRepository shardRepository,
+            @Value("${inventory.hot-sku.max-shards:32}") int maxShards) {
+        this.inventoryRepository = inventoryRepository;
+        this.shardRepository = shardRepository;
+        this.maxShards = maxShards;
+    }
+
+    public boolean isSharded(Long productId) {
+        return shardCounts.containsKey(productId);
+    }
+
+    public int getMaxShards() {
+        return maxShards;
+    }
+
+    /**
+     * Giảm tồn kho của sản phẩm hot (chạy trong transaction của caller)
+     */
+    public ShardResult reduce(Long productId, int quantity) {
+        Integer shardCount = shardCounts.get(productId);
+        if (shardCount != null) {
+            int shardNo = ThreadLocalRandom.current().nextInt(shardCount);
+            if (shardRepository.reduce(productId, shardNo, quantity)) {
+                return ShardResult.REDUCED;
+            }
+        }
+        return reduceWithRebalance(productId, quantity);
+    }
+
+    /**
+     * Hoàn tồn kho vào 1 shard ngẫu nhiên, false nếu sản phẩm không chia shard
+     */
+    public boolean restore(Long productId, int quantity) {
+        Integer shardCount = shardCounts.get(productId);
+        int shardNo = shardCount != null ? ThreadLocalRandom.current().nextInt(shardCount) : 0;
+        return shardRepository.restore(productId, shardNo, quantity);
+    }
+
+    /**
+     * Tổng tồn kho thực của các sản phẩm hot trong danh sách
+     */
+    public Map<Long, Integer> totalQuantities(List<Long> productIds) {
+        List<Long> sharded = productIds.stream().filter(this::isSharded).toList();
+        return sharded.isEmpty() ? Map.of() : shardRepository.sumQuantities(sharded);
+    }
+
+    /**
+     * Khóa các shard và trả về tổng tồn kho
+     */
+    public int lockTotal(Long productId) {
+        return shardRepository.findByProductIdForUpdate(productId).stream()
+                .mapToInt(InventoryShard::getQuantity)
+                .sum();
+    }
+
+    /**
+     * Tạo lại shard cho sản phẩm: chia đều total vào shardCount shard
+     * (shardCount = 0 thì chỉ xóa shard). Caller phải giữ lock dòng inventories.
+     */
+    public void reset(Long productId, int shardCount, int total) {
+        shardRepository.deleteByProductId(productId);
+        if (shardCount > 0) {
+            List<InventoryShard> shards = new ArrayList<>(shardCount);
+            for (int shardNo = 0; shardNo < shardCount; shardNo++) {
+                shards.add(InventoryShard.builder()
+                        .productId(productId)
+                        .shardNo(shardNo)
+                        .quantity(evenShare(total, shardCount, shardNo))
+                        .build());
+            }
+            shardRepository.saveAll(shards);
+        }
+        AfterCommit.run(() -> register(productId, shardCount));
+    }
+
+    /**
+     * Làm mới danh sách sản phẩm hot và snapshot quantity trên inventories
+     */
+    @Scheduled(fixedDelayString = "${inventory.hot-sku.refresh-ms:5000}")
+    @Transactional
+    public void refresh() {
+        Map<Long, Integer> counts = inventoryRepository.findShardCounts();
+        shardCounts = Map.copyOf(counts);
+        if (counts.isEmpty()) {
+            return;
+        }
+        shardRepository.sumQuantities(new ArrayList<>(counts.keySet()))
+                .forEach(inventoryRepository::updateShardedQuantitySnapshot);
+    }
+
+    private ShardResult reduceWithRebalance(Long productId, int quantity) {
+        List<InventoryShard> shards = shardRepository.findByProductIdForUpdate(productId);
+        if (shards.isEmpty()) {
+            return ShardResult.NOT_SHARDED;
+        }
+
+        int total = shards.stream().mapToInt(InventoryShard::getQuantity).sum();
+        if (total < quantity) {
+            return ShardResult.INSUFFICIENT;
+        }
+
+        int remaining = total - quantity;
+        for (InventoryShard shard : shards) {
+            int target = evenShare(remaining, shards.size(), shard.getShardNo());
+            if (shard.getQuantity() != target) {
+                shardRepository.updateQuantity(productId, shard.getShardNo(), target);
+            }
+        }
+        log.debug("Rebalanced {} shards for product {}: {} units left", shards.size(), productId, remaining);
+        return ShardResult.REDUCED;
+    }
+
+    private static int evenShare(int total, int shardCount, int shardNo) {
+        return total / shardCount + (shardNo < total % shardCount ? 1 : 0);
+    }
+
+    private void register(Long productId, int shardCount) {
+        Map<Long, Integer> updated = new HashMap<>(shardCounts);
+        if (shardCount > 0) {
+            updated.put(productId, shardCount);
+        } else {
+            updated.remove(productId);
+        }
+        shardCounts = Map.copyOf(updated);
+    }
+}
@@ -20,6 +20,8 @@ import java.time.Instant;
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 public class Inventory {
 
+    public static final int DEFAULT_LOW_STOCK_THRESHOLD = 10;
+
     @EqualsAndHashCode.Include
     private Long id;
 
@@ -29,6 +31,12 @@ public class Inventory {
 
     private Long version;
 
+    // > 0: sản phẩm hot, tồn kho nằm trong các shard (quantity chỉ là snapshot)
+    private Integer shardCount;
+
+    // quantity < ngưỡng này thì sản phẩm ở trạng thái LOW_STOCK
+    private Integer lowStockThreshold;
+
     private Instant createdAt;
 
     private Instant updatedAt;
@@ -38,6 +46,15 @@ public class Inventory {
     // BUSINESS METHODS
     // ═════════════════════════════════════════════════════════════════════
 
+    public boolean isSharded() {
+        return shardCount != null && shardCount > 0;
+    }
+
+    public StockStatus getStockStatus() {
+        return StockStatus.of(quantity,
+                lowStockThreshold != null ? lowStockThreshold : DEFAULT_LOW_STOCK_THRESHOLD);
+    }
+
     public boolean hasStock(Integer requestedQuantity) {
         if (requestedQuantity == null || requestedQuantity <= 0) {
             throw new IllegalArgumentException("Requested quantity must be positive");
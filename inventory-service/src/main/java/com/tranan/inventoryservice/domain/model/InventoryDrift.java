@@ -0,0 +1,22 @@
+package com.tranan.inventoryservice.domain.model;
+
+import lombok.*;
+
+/**
+ * Domain Model - Sản phẩm có tồn kho thực tế lệch với tồn kho tính từ ledger
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class InventoryDrift {
+
+    private Long productId;
+
+    private Integer actualQuantity;
+
+    // Snapshot gần nhất + tổng delta sau snapshot
+    private Integer ledgerQuantity;
+}
@@ -0,0 +1,23 @@
+package com.tranan.inventoryservice.domain.model;
+
+import lombok.*;
+
+/**
+ * Domain Model - Tồn kho của sản phẩm tại một kho hàng.
+ * Với sản phẩm quản lý theo kho, inventories.quantity luôn bằng tổng quantity
+ * các dòng này (được cập nhật cùng transaction).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class InventoryLocation {
+
+    private Long productId;
+
+    private Long locationId;
+
+    private Integer quantity;
+}
@@ -0,0 +1,32 @@
+package com.tranan.inventoryservice.domain.model;
+
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Domain Model - Một dòng ledger biến động tồn kho (append-only).
+ * quantity của sản phẩm = snapshot gần nhất + tổng delta sau snapshot đó.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class InventoryMovement {
+
+    private Long id;
+
+    private Long productId;
+
+    private MovementType type;
+
+    // Âm khi trừ kho, dương khi cộng kho
+    private Integer delta;
+
+    // null nếu biến động không gắn với đơn hàng (admin, import, hoàn kho gộp)
+    private Long orderId;
+
+    private Instant createdAt;
+}
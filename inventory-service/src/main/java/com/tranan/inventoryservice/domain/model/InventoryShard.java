@@ -0,0 +1,22 @@
+package com.tranan.inventoryservice.domain.model;
+
+import lombok.*;
+
+/**
+ * Domain Model - Một phần (shard) tồn kho của sản phẩm hot.
+ * Tổng quantity của các shard là tồn kho thực của sản phẩm.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class InventoryShard {
+
+    private Long productId;
+
+    private Integer shardNo;
+
+    private Integer quantity;
+}
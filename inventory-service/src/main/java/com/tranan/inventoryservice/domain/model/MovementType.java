@@ -0,0 +1,13 @@
+package com.tranan.inventoryservice.domain.model;
+
+/**
+ * Loại biến động tồn kho trong ledger inventory_movements
+ */
+public enum MovementType {
+    // Trừ kho: đặt hàng / commit reservation (delta âm)
+    REDUCE,
+    // Hoàn kho: hủy đơn / thanh toán thất bại (delta dương)
+    RESTORE,
+    // Admin tạo / cập nhật / xóa kho, import hàng loạt
+    ADJUST
+}
@@ -0,0 +1,27 @@
+package com.tranan.inventoryservice.domain.model;
+
+import lombok.*;
+
+/**
+ * Domain Model - Kho hàng (warehouse).
+ * priority nhỏ hơn được ưu tiên lấy hàng trước (kho chính / gần trung tâm),
+ * region dùng để chọn kho gần địa chỉ giao hàng.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class StockLocation {
+
+    private Long id;
+
+    private String code;
+
+    private String name;
+
+    private String region;
+
+    private Integer priority;
+}
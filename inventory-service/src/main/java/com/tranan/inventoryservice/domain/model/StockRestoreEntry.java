@@ -0,0 +1,25 @@
+package com.tranan.inventoryservice.domain.model;
+
+import lombok.*;
+
+/**
+ * Domain Model - Một lần hoàn tồn kho đã ghi log nhưng chưa cộng vào
+ * inventories. Các entry được gộp theo productId và áp dụng theo batch.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class StockRestoreEntry {
+
+    private Long id;
+
+    private Long productId;
+
+    private Integer quantity;
+
+    // Đơn hàng được hoàn kho, null với hoàn kho không gắn đơn (admin)
+    private Long orderId;
+}
@@ -0,0 +1,19 @@
+package com.tranan.inventoryservice.domain.model;
+
+/**
+ * Trạng thái tồn kho, lưu sẵn ở cột generated inventories.stock_status để lọc /
+ * đếm theo index
+ */
+public enum StockStatus {
+    OUT_OF_STOCK,
+    LOW_STOCK,
+    IN_STOCK;
+
+    // Cùng điều kiện với biểu thức của cột stock_status
+    public static StockStatus of(int quantity, int lowStockThreshold) {
+        if (quantity <= 0) {
+            return OUT_OF_STOCK;
+        }
+        return quantity < lowStockThreshold ? LOW_STOCK : IN_STOCK;
+    }
+}
@@ -0,0 +1,30 @@
+package com.tranan.inventoryservice.domain.repository;
+
+import com.tranan.inventoryservice.domain.model.InventoryLocation;
+
+import java.util.List;
+
+/**
+ * Repository Interface cho tồn kho theo từng kho hàng
+ * Implementation ở Infrastructure layer
+ */
+public interface InventoryLocationRepository {
+
+    // Khóa các dòng tồn kho theo kho của các sản phẩm (theo thứ tự productId, locationId)
+    List<InventoryLocation> findByProductIdInForUpdate(List<Long> productIds);
+
+    List<InventoryLocation> findByProductId(Long productId);
+
+    // Cộng delta (có dấu) vào từng dòng bằng 1 JDBC batch
+    void addQuantities(List<InventoryLocation> deltas);
+
+    void upsert(InventoryLocation inventoryLocation);
+
+    // productId trong danh sách có tồn kho theo kho
+    List<Long> findProductIdsWithLocations(List<Long> productIds);
+
+    // Tất cả productId có tồn kho theo kho
+    List<Long> findAllProductIds();
+
+    void deleteByProductId(Long productId);
+}
@@ -0,0 +1,25 @@
+package com.tranan.inventoryservice.domain.repository;
+
+import com.tranan.inventoryservice.domain.model.InventoryDrift;
+import com.tranan.inventoryservice.domain.model.InventoryMovement;
+
+import java.time.Duration;
+import java.util.List;
+
+public interface InventoryMovementRepository {
+
+    // Ghi ledger bằng 1 JDBC batch insert trong transaction của caller
+    void appendAll(List<InventoryMovement> movements);
+
+    List<InventoryMovement> findByOrderId(Long orderId);
+
+    // Gộp các movement cũ hơn settleDelay vào inventory_snapshots, trả về số
+    // sản phẩm được cập nhật snapshot
+    int takeSnapshots(Duration settleDelay);
+
+    // Snapshot ban đầu cho sản phẩm chưa có snapshot lẫn movement (tạo trước khi có ledger)
+    int seedMissingSnapshots();
+
+    // Sản phẩm có quantity khác snapshot + tổng delta sau snapshot
+    List<InventoryDrift> findDrift();
+}
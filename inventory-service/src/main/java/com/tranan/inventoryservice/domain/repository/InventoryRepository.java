@@ -1,12 +1,16 @@
 package com.tranan.inventoryservice.domain.repository;
 
 import com.tranan.inventoryservice.domain.model.Inventory;
+import com.tranan.inventoryservice.domain.model.StockStatus;
 import com.tranan.inventoryservice.infrastructure.client.dto.InventoryQuantityResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Repository Interface - Định nghĩa contract
@@ -36,25 +40,45 @@ public interface InventoryRepository {
 
     Page<Inventory> findAllByProductIdIn(List<Long> productIds, Pageable pageable);
 
+    // Tìm theo tên sản phẩm trong projection product_names (không gọi Product Service)
+    Page<Inventory> searchByProductName(String keyword, Pageable pageable);
+
     Integer getQuantityByProductId(Long productId);
 
     List<InventoryQuantityResponse> getQuantitiesByProductIds(List<Long> productIds);
 
-    void reduceStockByProductId(Long productId, Integer quantity);
+    // false nếu không đủ hàng, không tồn tại hoặc đang chia shard
+    boolean reduceStockByProductId(Long productId, Integer quantity);
 
-    void restoreStockByProductId(Long productId, Integer quantity);
+    // Giảm tồn kho có điều kiện (quantity >= yêu cầu, không chia shard) cho cả
+    // batch trong 1 câu lệnh; dòng được cập nhật có updatedAt = updatedAt. Trả về
+    // số dòng đã cập nhật.
+    int reduceStockBatch(Map<Long, Integer> productQuantities, Instant updatedAt);
 
-    // Thống kê
-    long countTotal();
+    // false nếu không tồn tại hoặc đang chia shard
+    boolean restoreStockByProductId(Long productId, Integer quantity);
 
-    long countLowStock();
+    // Hoàn tồn kho cho cả batch trong 1 câu lệnh (bỏ qua sản phẩm đang chia
+    // shard), trả về số dòng đã cập nhật
+    int restoreStockBatch(Map<Long, Integer> productQuantities);
 
-    long countOutOfStock();
+    // Import hàng loạt: khóa các dòng đã tồn tại trong batch
+    List<Inventory> findByProductIdInForUpdate(List<Long> productIds);
 
-    // Lọc theo trạng thái tồn kho
-    Page<Inventory> findOutOfStock(Pageable pageable);
+    // Import hàng loạt: insert hoặc cập nhật quantity / lowStockThreshold (JDBC batch)
+    void upsertBatch(List<Inventory> inventories);
+
+    // Export: đọc tuần tự toàn bộ bảng bằng cursor phía server, không nạp hết vào bộ nhớ
+    void streamAll(Consumer<Inventory> consumer);
 
-    Page<Inventory> findLowStock(Pageable pageable);
+    // Sản phẩm hot: productId -> shardCount
+    Map<Long, Integer> findShardCounts();
 
-    Page<Inventory> findInStock(Pageable pageable);
+    void updateShardedQuantitySnapshot(Long productId, Integer quantity);
+
+    // Thống kê: trạng thái tồn kho -> số sản phẩm (trạng thái không có sản phẩm nào không có trong map)
+    Map<StockStatus, Long> countByStockStatus();
+
+    // Lọc theo trạng thái tồn kho
+    Page<Inventory> findByStockStatus(StockStatus stockStatus, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.tranan.inventoryservice.domain.repository;
+
+import com.tranan.inventoryservice.domain.model.InventoryShard;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repository Interface cho tồn kho chia shard (sản phẩm hot)
+ * Implementation ở Infrastructure layer
+ */
+public interface InventoryShardRepository {
+
+    // Giảm có điều kiện trên 1 shard, false nếu shard không đủ hàng
+    boolean reduce(Long productId, int shardNo, int quantity);
+
+    // false nếu shard không tồn tại
+    boolean restore(Long productId, int shardNo, int quantity);
+
+    // Khóa toàn bộ shard của sản phẩm (theo thứ tự shardNo)
+    List<InventoryShard> findByProductIdForUpdate(Long productId);
+
+    void updateQuantity(Long productId, int shardNo, int quantity);
+
+    void saveAll(List<InventoryShard> shards);
+
+    void deleteByProductId(Long productId);
+
+    // productId -> tổng quantity các shard
+    Map<Long, Integer> sumQuantities(List<Long> productIds);
+}
@@ -0,0 +1,29 @@
+package com.tranan.inventoryservice.domain.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Projection tên sản phẩm (product_names) dùng cho tìm kiếm / hiển thị tên
+ * trong Inventory Service mà không gọi sang Product Service
+ */
+public interface ProductNameRepository {
+
+    // Ghi tên nếu updatedAt không cũ hơn bản đang lưu (bỏ qua event đến trễ)
+    void upsertIfNewer(Long productId, String name, Instant updatedAt);
+
+    void deleteByProductId(Long productId);
+
+    Map<Long, String> findNamesByProductIds(Collection<Long> productIds);
+
+    // Thêm tên cho sản phẩm chưa có trong projection, không ghi đè bản đã có
+    void insertIfAbsent(Map<Long, String> names, Instant updatedAt);
+
+    // productId có inventory nhưng chưa có tên, theo thứ tự productId (keyset)
+    List<Long> findInventoryProductIdsWithoutName(Long afterProductId, int limit);
+
+    // Tạo FULLTEXT index (ngram parser) cho cột name nếu chưa có
+    void ensureFullTextIndex();
+}
@@ -0,0 +1,24 @@
+package com.tranan.inventoryservice.domain.repository;
+
+import com.tranan.inventoryservice.domain.model.StockLocation;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository Interface cho danh mục kho hàng
+ * Implementation ở Infrastructure layer
+ */
+public interface StockLocationRepository {
+
+    StockLocation save(StockLocation location);
+
+    Optional<StockLocation> findById(Long id);
+
+    List<StockLocation> findAllById(Collection<Long> ids);
+
+    List<StockLocation> findAll();
+
+    boolean existsByCode(String code);
+}
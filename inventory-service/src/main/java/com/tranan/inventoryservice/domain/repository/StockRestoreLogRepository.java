@@ -0,0 +1,16 @@
+package com.tranan.inventoryservice.domain.repository;
+
+import com.tranan.inventoryservice.domain.model.StockRestoreEntry;
+
+import java.util.List;
+
+public interface StockRestoreLogRepository {
+
+    // Ghi log hoàn kho (id bỏ qua) trong transaction của caller
+    void append(List<StockRestoreEntry> entries);
+
+    // Lấy và khóa các entry chưa áp dụng, bỏ qua entry đang bị instance khác khóa
+    List<StockRestoreEntry> lockPending(int limit);
+
+    void deleteByIds(List<Long> ids);
+}
@@ -0,0 +1,20 @@
+package com.tranan.inventoryservice.infrastructure.client.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryMovementResponse {
+    private Long productId;
+    private String type;
+    private Integer delta;
+    private Long orderId;
+    private Instant createdAt;
+}
@@ -2,7 +2,10 @@ package com.tranan.inventoryservice.infrastructure.client.internal;
 
 import com.tranan.inventoryservice.annotation.ApiMessage;
 import com.tranan.inventoryservice.application.dto.request.ReduceStockRequest;
+import com.tranan.inventoryservice.application.usecase.InventoryLedgerService;
 import com.tranan.inventoryservice.application.usecase.InventoryService;
+import com.tranan.inventoryservice.domain.model.StockRestoreEntry;
+import com.tranan.inventoryservice.infrastructure.client.dto.InventoryMovementResponse;
 import com.tranan.inventoryservice.infrastructure.client.dto.InventoryQuantityResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -10,6 +13,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 
@@ -25,6 +29,7 @@ import java.util.Map;
 public class InternalInventoryController {
 
     private final InventoryService inventoryService;
+    private final InventoryLedgerService ledgerService;
 
     /**
      * Lấy số lượng tồn kho của một sản phẩm theo productId
@@ -67,18 +72,71 @@ public class InternalInventoryController {
 
     /**
      * Giảm tồn kho cho nhiều sản phẩm cùng lúc
-     * POST /api/internal/inventories/reduce-multiple
+     * POST /api/internal/inventories/reduce-multiple?region=HN
      * Body: [{ "productId": 1, "quantity": 5 }, { "productId": 2, "quantity": 3 }]
+     * region (tùy chọn): khu vực giao hàng, sản phẩm nhiều kho lấy từ kho gần nhất.
+     * Order Service hiện không gửi region (đơn hàng chưa có địa chỉ giao hàng) nên
+     * kho được chọn theo priority
      */
     @PostMapping("/reduce-multiple")
     @ApiMessage(value = "Giảm tồn kho cho nhiều sản phẩm")
-    public ResponseEntity<Void> reduceMultipleStock(@RequestBody List<ReduceStockRequest> requests) {
+    public ResponseEntity<Void> reduceMultipleStock(@RequestBody List<ReduceStockRequest> requests,
+            @RequestParam(required = false) String region) {
         log.info("Internal call: Reducing stock for {} products", requests.size());
-        Map<Long, Integer> productQuantities = new java.util.HashMap<>();
+        // Gộp các dòng trùng productId thay vì ghi đè
+        Map<Long, Integer> productQuantities = new java.util.LinkedHashMap<>();
         for (ReduceStockRequest request : requests) {
-            productQuantities.put(request.getProductId(), request.getQuantity());
+            productQuantities.merge(request.getProductId(), request.getQuantity(), Integer::sum);
         }
-        inventoryService.reduceMultipleStock(productQuantities);
+        inventoryService.reduceMultipleStock(productQuantities, region);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Giữ tồn kho cho đơn hàng (Redis, tự trả lại khi hết hạn)
+     * POST /api/internal/inventories/reservations/{orderId}?ttlMinutes=1500
+     * Body: [{ "productId": 1, "quantity": 5 }, { "productId": 2, "quantity": 3 }]
+     * ttlMinutes: thời gian giữ, không truyền thì dùng inventory.reservation.ttl-minutes
+     */
+    @PostMapping("/reservations/{orderId}")
+    @ApiMessage(value = "Giữ tồn kho cho đơn hàng")
+    public ResponseEntity<Void> reserveStock(
+            @PathVariable Long orderId,
+            @RequestBody List<ReduceStockRequest> requests,
+            @RequestParam(required = false) Long ttlMinutes) {
+        log.info("Internal call: Reserving stock for order {} ({} products)", orderId, requests.size());
+        inventoryService.reserveStock(orderId, toQuantityMap(requests),
+                ttlMinutes != null ? Duration.ofMinutes(ttlMinutes) : null);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Commit tồn kho đã giữ khi đơn hàng thanh toán thành công
+     * POST /api/internal/inventories/reservations/{orderId}/commit?region=HN
+     * Body: items của đơn hàng (dùng khi hold đã hết hạn)
+     * region: như reduce-multiple, Order Service hiện không gửi
+     */
+    @PostMapping("/reservations/{orderId}/commit")
+    @ApiMessage(value = "Commit tồn kho đã giữ")
+    public ResponseEntity<Void> commitReservation(
+            @PathVariable Long orderId,
+            @RequestBody List<ReduceStockRequest> requests,
+            @RequestParam(required = false) String region) {
+        log.info("Internal call: Committing stock reservation for order {}", orderId);
+        inventoryService.commitReservation(orderId, toQuantityMap(requests), region);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Trả lại tồn kho đang giữ của các đơn hàng (hủy đơn / hết hạn)
+     * POST /api/internal/inventories/reservations/release
+     * Body: [101, 102]
+     */
+    @PostMapping("/reservations/release")
+    @ApiMessage(value = "Trả lại tồn kho đã giữ")
+    public ResponseEntity<Void> releaseReservations(@RequestBody List<Long> orderIds) {
+        log.info("Internal call: Releasing stock reservations for {} orders", orderIds.size());
+        inventoryService.releaseReservations(orderIds);
         return ResponseEntity.noContent().build();
     }
 
@@ -93,27 +151,29 @@ public class InternalInventoryController {
             @PathVariable Long productId,
             @RequestBody RestoreStockRequest request) {
         log.info("Internal call: Restoring stock for productId {} by {} units", productId, request.getQuantity());
-        inventoryService.restoreStock(productId, request.getQuantity());
+        inventoryService.restoreStock(productId, request.getQuantity(), request.getOrderId());
         return ResponseEntity.noContent().build();
     }
 
     /**
      * Restore tồn kho cho nhiều sản phẩm (dùng khi thanh toán thất bại)
      * POST /api/internal/inventories/restore-multiple
-     * Body: [{ "productId": 1, "quantity": 5 }, { "productId": 2, "quantity": 3 }]
-     * FIX N+1: Batch restore thay vì loop
+     * Body: [{ "productId": 1, "quantity": 5, "orderId": 10 }, { "productId": 2, "quantity": 3, "orderId": 10 }]
+     * FIX N+1: Batch restore thay vì loop. orderId (có thể null) được ghi vào ledger
      */
     @PostMapping("/restore-multiple")
     @ApiMessage(value = "Restore tồn kho cho nhiều sản phẩm")
     public ResponseEntity<Void> restoreMultipleStock(@RequestBody List<RestoreStockRequest> requests) {
         log.info("Internal call: Restoring stock for {} products", requests.size());
         
-        // FIX N+1: Convert to Map và gọi batch method
-        Map<Long, Integer> productQuantities = new java.util.HashMap<>();
-        for (RestoreStockRequest request : requests) {
-            productQuantities.put(request.getProductId(), request.getQuantity());
-        }
-        inventoryService.restoreMultipleStock(productQuantities);
+        // FIX N+1: gọi batch method, giữ orderId của từng dòng cho ledger
+        inventoryService.restoreMultipleStock(requests.stream()
+                .map(request -> StockRestoreEntry.builder()
+                        .productId(request.getProductId())
+                        .quantity(request.getQuantity())
+                        .orderId(request.getOrderId())
+                        .build())
+                .toList());
         
         log.info("Internal call: Successfully restored stock for {} products", requests.size());
         return ResponseEntity.noContent().build();
@@ -182,4 +242,31 @@ public class InternalInventoryController {
         
         return ResponseEntity.ok(responses);
     }
-}
\ No newline at end of file
+
+    /**
+     * Biến động tồn kho (ledger) của một đơn hàng, dùng để đối soát với Order Service
+     * GET /api/internal/inventories/movements?orderId=123
+     */
+    @GetMapping("/movements")
+    @ApiMessage(value = "Lấy biến động tồn kho của đơn hàng")
+    public ResponseEntity<List<InventoryMovementResponse>> getMovementsByOrder(@RequestParam Long orderId) {
+        List<InventoryMovementResponse> movements = ledgerService.findByOrderId(orderId).stream()
+                .map(movement -> InventoryMovementResponse.builder()
+                        .productId(movement.getProductId())
+                        .type(movement.getType().name())
+                        .delta(movement.getDelta())
+                        .orderId(movement.getOrderId())
+                        .createdAt(movement.getCreatedAt())
+                        .build())
+                .toList();
+        return ResponseEntity.ok(movements);
+    }
+
+    private Map<Long, Integer> toQuantityMap(List<ReduceStockRequest> requests) {
+        Map<Long, Integer> productQuantities = new java.util.LinkedHashMap<>();
+        for (ReduceStockRequest request : requests) {
+            productQuantities.merge(request.getProductId(), request.getQuantity(), Integer::sum);
+        }
+        return productQuantities;
+    }
+}
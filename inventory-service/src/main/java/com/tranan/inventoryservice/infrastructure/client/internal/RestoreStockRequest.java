@@ -12,4 +12,7 @@ import lombok.NoArgsConstructor;
 public class RestoreStockRequest {
     private Long productId;
     private Integer quantity;
+
+    // Đơn hàng được hoàn kho (ghi vào ledger inventory_movements), có thể null
+    private Long orderId;
 }
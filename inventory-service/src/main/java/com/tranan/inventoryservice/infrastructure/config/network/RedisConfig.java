@@ -1,5 +1,6 @@
 package com.tranan.inventoryservice.infrastructure.config.network;
 
+import com.tranan.inventoryservice.application.usecase.InventoryQuantityCache;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
@@ -10,7 +11,10 @@ import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisPassword;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 
 @Configuration
@@ -54,4 +58,17 @@ public class RedisConfig {
                 .transactionAware()
                 .build();
     }
+
+    // Nhận inventory-changed từ mọi replica để xóa near-cache quantity
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(
+            RedisConnectionFactory factory,
+            InventoryQuantityCache quantityCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(factory);
+        container.addMessageListener(
+                (message, pattern) -> quantityCache.onChanged(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(InventoryQuantityCache.CHANNEL));
+        return container;
+    }
 }
@@ -2,6 +2,7 @@ package com.tranan.inventoryservice.infrastructure.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import com.tranan.inventoryservice.domain.model.StockStatus;
 import lombok.experimental.SuperBuilder;
 
 import java.time.LocalDateTime;
@@ -11,7 +12,7 @@ import java.time.LocalDateTime;
  * Chỉ dùng để map với database, KHÔNG có business logic
  */
 @Entity
-@Table(name = "inventories")
+@Table(name = "inventories", indexes = @Index(name = "idx_inventories_stock_status", columnList = "stock_status"))
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
@@ -29,6 +30,21 @@ public class InventoryEntity extends  BaseEntity {
     @Column(name = "quantity", nullable = false)
     private Integer quantity = 0;
 
+    // Số shard tồn kho (0 = không chia shard)
+    @Column(name = "shard_count", nullable = false, columnDefinition = "int not null default 0")
+    private Integer shardCount = 0;
+
+    @Column(name = "low_stock_threshold", nullable = false, columnDefinition = "int not null default 10")
+    private Integer lowStockThreshold = 10;
+
+    // Cột generated (MySQL tự tính lại mỗi khi quantity / ngưỡng thay đổi, kể cả
+    // các câu UPDATE native), chỉ dùng để lọc / đếm
+    @Enumerated(EnumType.STRING)
+    @Column(name = "stock_status", insertable = false, updatable = false,
+            columnDefinition = "varchar(16) generated always as (case when quantity <= 0 then 'OUT_OF_STOCK' "
+                    + "when quantity < low_stock_threshold then 'LOW_STOCK' else 'IN_STOCK' end) stored")
+    private StockStatus stockStatus;
+
     // Optimistic Locking
     @Version
     @Column(name = "version")
@@ -0,0 +1,32 @@
+package com.tranan.inventoryservice.infrastructure.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * JPA Entity - Tồn kho của sản phẩm tại một kho hàng
+ * Unique (product_id, location_id) cũng là index cho các truy vấn theo productId
+ */
+@Entity
+@Table(name = "inventory_locations", uniqueConstraints = @UniqueConstraint(
+        name = "uk_inventory_locations_product_location", columnNames = {"product_id", "location_id"}))
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class InventoryLocationEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "location_id", nullable = false)
+    private Long locationId;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+}
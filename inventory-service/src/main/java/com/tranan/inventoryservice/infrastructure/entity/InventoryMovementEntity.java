@@ -0,0 +1,43 @@
+package com.tranan.inventoryservice.infrastructure.entity;
+
+import com.tranan.inventoryservice.domain.model.MovementType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * JPA Entity - Ledger biến động tồn kho (append-only, chỉ insert bằng JDBC batch)
+ */
+@Entity
+@Table(name = "inventory_movements", indexes = {
+        @Index(name = "idx_inventory_movements_product", columnList = "product_id, id"),
+        @Index(name = "idx_inventory_movements_order", columnList = "order_id")
+})
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class InventoryMovementEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "movement_type", nullable = false, length = 16)
+    private MovementType type;
+
+    @Column(name = "delta", nullable = false)
+    private Integer delta;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,32 @@
+package com.tranan.inventoryservice.infrastructure.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * JPA Entity - Shard tồn kho của sản phẩm hot
+ * Mỗi sản phẩm hot có N dòng (shard_no 0..N-1), mỗi lần giảm kho chỉ khóa 1 dòng
+ */
+@Entity
+@Table(name = "inventory_shards", uniqueConstraints = @UniqueConstraint(
+        name = "uk_inventory_shards_product_shard", columnNames = {"product_id", "shard_no"}))
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class InventoryShardEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "shard_no", nullable = false)
+    private Integer shardNo;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+}
@@ -0,0 +1,33 @@
+package com.tranan.inventoryservice.infrastructure.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * JPA Entity - Snapshot tồn kho theo ledger: quantity sau khi áp dụng mọi
+ * movement có id <= last_movement_id
+ */
+@Entity
+@Table(name = "inventory_snapshots")
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class InventorySnapshotEntity {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    @Column(name = "last_movement_id", nullable = false)
+    private Long lastMovementId;
+
+    @Column(name = "taken_at", nullable = false)
+    private Instant takenAt;
+}
@@ -0,0 +1,35 @@
+package com.tranan.inventoryservice.infrastructure.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * JPA Entity - Projection tên sản phẩm từ product-events.
+ *
+ * Index B-tree trên name phục vụ tìm theo tiền tố (keyword 1 ký tự); FULLTEXT
+ * index ngram (ft_product_names_name) được tạo lúc khởi động vì Hibernate không
+ * sinh được index FULLTEXT WITH PARSER.
+ */
+@Entity
+@Table(name = "product_names", indexes = {
+        @Index(name = "idx_product_names_name", columnList = "name")
+})
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class ProductNameEntity {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
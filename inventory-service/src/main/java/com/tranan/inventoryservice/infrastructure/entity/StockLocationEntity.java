@@ -0,0 +1,33 @@
+package com.tranan.inventoryservice.infrastructure.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * JPA Entity - Kho hàng
+ */
+@Entity
+@Table(name = "stock_locations")
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class StockLocationEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "code", nullable = false, unique = true, length = 50)
+    private String code;
+
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    @Column(name = "region", length = 50)
+    private String region;
+
+    @Column(name = "priority", nullable = false)
+    private Integer priority;
+}
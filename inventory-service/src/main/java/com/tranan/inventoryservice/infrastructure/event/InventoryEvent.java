@@ -0,0 +1,28 @@
+package com.tranan.inventoryservice.infrastructure.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Event tồn kho thay đổi (topic inventory-events) để các service khác xóa
+ * snapshot tồn kho đang cache. Chỉ mang productId, consumer tự lấy lại quantity.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryEvent implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final String STOCK_CHANGED = "STOCK_CHANGED";
+
+    private String eventType;
+    private List<Long> productIds;
+    private Instant timestamp;
+}
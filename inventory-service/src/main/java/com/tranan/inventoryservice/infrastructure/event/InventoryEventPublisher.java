@@ -0,0 +1,44 @@
+package com.tranan.inventoryservice.infrastructure.event;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Publish InventoryEvent, gọi sau khi transaction thay đổi tồn kho đã commit
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InventoryEventPublisher {
+
+    public static final String TOPIC = "inventory-events";
+    private static final int MAX_PRODUCTS_PER_EVENT = 500;
+
+    private final KafkaTemplate<String, InventoryEvent> kafkaTemplate;
+
+    public void publishStockChanged(List<Long> productIds) {
+        Instant now = Instant.now();
+        // Import hàng loạt: chia nhỏ để message không quá lớn
+        for (int from = 0; from < productIds.size(); from += MAX_PRODUCTS_PER_EVENT) {
+            List<Long> chunk = List.copyOf(productIds.subList(from,
+                    Math.min(from + MAX_PRODUCTS_PER_EVENT, productIds.size())));
+            InventoryEvent event = InventoryEvent.builder()
+                    .eventType(InventoryEvent.STOCK_CHANGED)
+                    .productIds(chunk)
+                    .timestamp(now)
+                    .build();
+            kafkaTemplate.send(TOPIC, event)
+                    .whenComplete((result, ex) -> {
+                        if (ex != null) {
+                            log.warn("Failed to publish {} for {} products: {}", event.getEventType(),
+                                    chunk.size(), ex.getMessage());
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.tranan.inventoryservice.infrastructure.listener;
+
+import com.tranan.inventoryservice.application.usecase.ProductNameProjection;
+import com.tranan.inventoryservice.infrastructure.event.ProductEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+
+/**
+ * Cập nhật projection tên sản phẩm từ product-events. Event được key theo
+ * productId nên các thay đổi của cùng một sản phẩm đến theo thứ tự.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductEventListener {
+
+    private final ProductNameProjection productNameProjection;
+
+    @KafkaListener(topics = "product-events", groupId = "inventory-service-group", containerFactory = "productEventListenerContainerFactory")
+    public void handle(ProductEvent event) {
+        log.debug("Received product event: type={}, productId={}", event.getEventType(), event.getProductId());
+        Instant changedAt = event.getTimestamp() != null ? event.getTimestamp() : Instant.now();
+
+        switch (event.getEventType()) {
+            case ProductEvent.PRODUCT_UPSERTED ->
+                    productNameProjection.upsert(event.getProductId(), event.getName(), changedAt);
+            case ProductEvent.PRODUCT_DELETED -> productNameProjection.delete(event.getProductId());
+            default -> log.warn("Unknown product event type: {}", event.getEventType());
+        }
+    }
+}
@@ -23,6 +23,8 @@ public class InventoryMapper {
                 .productId(entity.getProductId())
                 .quantity(entity.getQuantity())
                 .version(entity.getVersion())
+                .shardCount(entity.getShardCount())
+                .lowStockThreshold(entity.getLowStockThreshold())
                 // ✅ Map audit fields từ BaseEntity
                 .createdAt(entity.getCreatedAt())
                 .updatedAt(entity.getUpdatedAt())
@@ -45,6 +47,10 @@ public class InventoryMapper {
                 .productId(domain.getProductId())
                 .quantity(domain.getQuantity())
                 .version(domain.getVersion())
+                .shardCount(domain.getShardCount() != null ? domain.getShardCount() : 0)
+                .lowStockThreshold(domain.getLowStockThreshold() != null
+                        ? domain.getLowStockThreshold()
+                        : Inventory.DEFAULT_LOW_STOCK_THRESHOLD)
                 // ✅ KHÔNG set createdAt, updatedAt, createdBy, modifiedBy
                 // JPA Auditing sẽ tự động set!
                 .createdAt(domain.getCreatedAt())
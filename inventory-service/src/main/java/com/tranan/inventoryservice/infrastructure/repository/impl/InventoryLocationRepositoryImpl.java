@@ -0,0 +1,87 @@
+package com.tranan.inventoryservice.infrastructure.repository.impl;
+
+import com.tranan.inventoryservice.domain.model.InventoryLocation;
+import com.tranan.inventoryservice.domain.repository.InventoryLocationRepository;
+import com.tranan.inventoryservice.infrastructure.entity.InventoryLocationEntity;
+import com.tranan.inventoryservice.infrastructure.repository.jpa.InventoryLocationJpaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class InventoryLocationRepositoryImpl implements InventoryLocationRepository {
+
+    private static final String ADD_SQL = "UPDATE inventory_locations SET quantity = quantity + ? "
+            + "WHERE product_id = ? AND location_id = ?";
+
+    private static final String UPSERT_SQL = "INSERT INTO inventory_locations (product_id, location_id, quantity) "
+            + "VALUES (?, ?, ?) AS new ON DUPLICATE KEY UPDATE quantity = new.quantity";
+
+    private final InventoryLocationJpaRepository jpaRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<InventoryLocation> findByProductIdInForUpdate(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        return jpaRepository.findByProductIdInForUpdate(productIds).stream()
+                .map(InventoryLocationRepositoryImpl::toDomain)
+                .toList();
+    }
+
+    @Override
+    public List<InventoryLocation> findByProductId(Long productId) {
+        return jpaRepository.findByProductIdOrderByLocationId(productId).stream()
+                .map(InventoryLocationRepositoryImpl::toDomain)
+                .toList();
+    }
+
+    @Override
+    public void addQuantities(List<InventoryLocation> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        for (InventoryLocation delta : deltas) {
+            args.add(new Object[] { delta.getQuantity(), delta.getProductId(), delta.getLocationId() });
+        }
+        jdbcTemplate.batchUpdate(ADD_SQL, args);
+    }
+
+    @Override
+    public void upsert(InventoryLocation inventoryLocation) {
+        jdbcTemplate.update(UPSERT_SQL, inventoryLocation.getProductId(), inventoryLocation.getLocationId(),
+                inventoryLocation.getQuantity());
+    }
+
+    @Override
+    public List<Long> findProductIdsWithLocations(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        return jpaRepository.findProductIdsWithLocations(productIds);
+    }
+
+    @Override
+    public List<Long> findAllProductIds() {
+        return jpaRepository.findAllProductIds();
+    }
+
+    @Override
+    public void deleteByProductId(Long productId) {
+        jpaRepository.deleteByProductId(productId);
+    }
+
+    private static InventoryLocation toDomain(InventoryLocationEntity entity) {
+        return InventoryLocation.builder()
+                .productId(entity.getProductId())
+                .locationId(entity.getLocationId())
+                .quantity(entity.getQuantity())
+                .build();
+    }
+}
@@ -0,0 +1,115 @@
+package com.tranan.inventoryservice.infrastructure.repository.impl;
+
+import com.tranan.inventoryservice.domain.model.InventoryDrift;
+import com.tranan.inventoryservice.domain.model.InventoryMovement;
+import com.tranan.inventoryservice.domain.repository.InventoryMovementRepository;
+import com.tranan.inventoryservice.infrastructure.repository.jpa.InventoryMovementJpaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class InventoryMovementRepositoryImpl implements InventoryMovementRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO inventory_movements "
+            + "(product_id, movement_type, delta, order_id, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    // Tồn kho thực: sản phẩm hot lấy tổng shard (inventories.quantity chỉ là snapshot)
+    private static final String ACTUAL_QUANTITY = "CASE WHEN i.shard_count > 0 THEN COALESCE("
+            + "(SELECT SUM(sh.quantity) FROM inventory_shards sh WHERE sh.product_id = i.product_id), 0) "
+            + "ELSE i.quantity END";
+
+    // Chỉ quét movement sau snapshot mới nhất: mọi movement có id <= max(last_movement_id)
+    // đã được gộp vào snapshot của sản phẩm tương ứng
+    private static final String SNAPSHOT_SQL = "INSERT INTO inventory_snapshots "
+            + "(product_id, quantity, last_movement_id, taken_at) "
+            + "SELECT d.product_id, d.quantity, d.last_movement_id, d.taken_at FROM ("
+            + "SELECT m.product_id, COALESCE(s.quantity, 0) + SUM(m.delta) AS quantity, "
+            + "? AS last_movement_id, ? AS taken_at "
+            + "FROM inventory_movements m LEFT JOIN inventory_snapshots s ON s.product_id = m.product_id "
+            + "WHERE m.id > ? AND m.id <= ? AND m.id > COALESCE(s.last_movement_id, 0) "
+            + "GROUP BY m.product_id, s.quantity) d "
+            + "ON DUPLICATE KEY UPDATE quantity = d.quantity, last_movement_id = d.last_movement_id, "
+            + "taken_at = d.taken_at";
+
+    private static final String SEED_SQL = "INSERT INTO inventory_snapshots "
+            + "(product_id, quantity, last_movement_id, taken_at) "
+            + "SELECT i.product_id, " + ACTUAL_QUANTITY + ", 0, ? FROM inventories i "
+            + "WHERE NOT EXISTS (SELECT 1 FROM inventory_snapshots s WHERE s.product_id = i.product_id) "
+            + "AND NOT EXISTS (SELECT 1 FROM inventory_movements m WHERE m.product_id = i.product_id)";
+
+    // Một câu lệnh nên mọi bảng được đọc trên cùng consistent snapshot của InnoDB
+    private static final String DRIFT_SQL = "SELECT i.product_id, " + ACTUAL_QUANTITY + " AS actual, "
+            + "COALESCE(s.quantity, 0) + COALESCE((SELECT SUM(m.delta) FROM inventory_movements m "
+            + "WHERE m.product_id = i.product_id AND m.id > COALESCE(s.last_movement_id, 0)), 0) AS ledger "
+            + "FROM inventories i LEFT JOIN inventory_snapshots s ON s.product_id = i.product_id "
+            + "HAVING actual <> ledger";
+
+    private final InventoryMovementJpaRepository jpaRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void appendAll(List<InventoryMovement> movements) {
+        if (movements.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, movements, movements.size(), (ps, movement) -> {
+            ps.setLong(1, movement.getProductId());
+            ps.setString(2, movement.getType().name());
+            ps.setInt(3, movement.getDelta());
+            ps.setObject(4, movement.getOrderId(), Types.BIGINT);
+            ps.setTimestamp(5, now);
+        });
+    }
+
+    @Override
+    public List<InventoryMovement> findByOrderId(Long orderId) {
+        return jpaRepository.findByOrderIdOrderById(orderId).stream()
+                .map(entity -> InventoryMovement.builder()
+                        .id(entity.getId())
+                        .productId(entity.getProductId())
+                        .type(entity.getType())
+                        .delta(entity.getDelta())
+                        .orderId(entity.getOrderId())
+                        .createdAt(entity.getCreatedAt())
+                        .build())
+                .toList();
+    }
+
+    @Override
+    public int takeSnapshots(Duration settleDelay) {
+        // Movement mới có thể thuộc transaction chưa commit (id đã cấp nhưng chưa
+        // thấy được), chỉ gộp các movement đủ cũ
+        Long maxId = jdbcTemplate.queryForObject(
+                "SELECT MAX(id) FROM inventory_movements WHERE created_at < ?", Long.class,
+                Timestamp.from(Instant.now().minus(settleDelay)));
+        Long floorId = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(last_movement_id), 0) FROM inventory_snapshots", Long.class);
+        if (maxId == null || maxId <= floorId) {
+            return 0;
+        }
+        return jdbcTemplate.update(SNAPSHOT_SQL, maxId, Timestamp.from(Instant.now()), floorId, maxId);
+    }
+
+    @Override
+    public int seedMissingSnapshots() {
+        return jdbcTemplate.update(SEED_SQL, Timestamp.from(Instant.now()));
+    }
+
+    @Override
+    public List<InventoryDrift> findDrift() {
+        return jdbcTemplate.query(DRIFT_SQL, (rs, rowNum) -> InventoryDrift.builder()
+                .productId(rs.getLong("product_id"))
+                .actualQuantity(rs.getInt("actual"))
+                .ledgerQuantity(rs.getInt("ledger"))
+                .build());
+    }
+}
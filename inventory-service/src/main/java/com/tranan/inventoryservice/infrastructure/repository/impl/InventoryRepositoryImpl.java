@@ -2,6 +2,7 @@
 package com.tranan.inventoryservice.infrastructure.repository.impl;
 
 import com.tranan.inventoryservice.domain.model.Inventory;
+import com.tranan.inventoryservice.domain.model.StockStatus;
 import com.tranan.inventoryservice.domain.repository.InventoryRepository;
 import com.tranan.inventoryservice.infrastructure.client.dto.InventoryQuantityResponse;
 import com.tranan.inventoryservice.infrastructure.entity.InventoryEntity;
@@ -9,11 +10,21 @@ import com.tranan.inventoryservice.infrastructure.mapper.InventoryMapper;
 import com.tranan.inventoryservice.infrastructure.repository.jpa.InventoryJpaRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -23,8 +34,19 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor // ✅ THÊM annotation này!
 public class InventoryRepositoryImpl implements InventoryRepository {
 
+    // MySQL row alias (8.0.19+): new.* là giá trị của dòng đang insert
+    private static final String UPSERT_SQL = "INSERT INTO inventories "
+            + "(product_id, quantity, low_stock_threshold, shard_count, version, created_at, updated_at) "
+            + "VALUES (?, ?, ?, 0, 0, ?, ?) AS new "
+            + "ON DUPLICATE KEY UPDATE quantity = new.quantity, low_stock_threshold = new.low_stock_threshold, "
+            + "version = inventories.version + 1, updated_at = new.updated_at";
+
+    private static final String STREAM_SQL = "SELECT id, product_id, quantity, low_stock_threshold, shard_count, "
+            + "version, created_at, updated_at FROM inventories ORDER BY product_id";
+
     private final InventoryJpaRepository jpaRepository;
     private final InventoryMapper mapper;
+    private final JdbcTemplate jdbcTemplate;
 
     @Override
     public Inventory save(Inventory inventory) {
@@ -96,6 +118,21 @@ public class InventoryRepositoryImpl implements InventoryRepository {
                 .map(mapper::toDomain);
     }
 
+    @Override
+    public Page<Inventory> searchByProductName(String keyword, Pageable pageable) {
+        // Dấu " kết thúc cụm từ trong boolean mode nên bỏ đi
+        String term = keyword.replace("\"", "").trim();
+        if (term.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        // Native query sắp xếp cố định theo id, Sort theo tên field của entity không áp dụng được
+        Pageable page = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        Page<InventoryEntity> entities = term.codePointCount(0, term.length()) >= 2
+                ? jpaRepository.searchByProductNamePhrase("\"" + term + "\"", page)
+                : jpaRepository.searchByProductNamePrefix(escapeLike(term) + "%", page);
+        return entities.map(mapper::toDomain);
+    }
+
     @Override
     public Integer getQuantityByProductId(Long productId) {
         return jpaRepository.findByProductId(productId)
@@ -111,45 +148,102 @@ public class InventoryRepositoryImpl implements InventoryRepository {
     }
 
     @Override
-    public void reduceStockByProductId(Long productId, Integer quantity) {
-        jpaRepository.reduceStockByProductId(productId, quantity);
+    public boolean reduceStockByProductId(Long productId, Integer quantity) {
+        return jpaRepository.reduceStockByProductId(productId, quantity) > 0;
     }
 
     @Override
-    public void restoreStockByProductId(Long productId, Integer quantity) {
-        jpaRepository.restoreStockByProductId(productId, quantity);
+    public int reduceStockBatch(Map<Long, Integer> productQuantities, Instant updatedAt) {
+        return jpaRepository.reduceStockBatch(toItemsJson(productQuantities), updatedAt);
     }
 
     @Override
-    public long countTotal() {
-        return jpaRepository.countTotal();
+    public boolean restoreStockByProductId(Long productId, Integer quantity) {
+        return jpaRepository.restoreStockByProductId(productId, quantity) > 0;
     }
 
     @Override
-    public long countLowStock() {
-        return jpaRepository.countLowStock();
+    public int restoreStockBatch(Map<Long, Integer> productQuantities) {
+        return jpaRepository.restoreStockBatch(toItemsJson(productQuantities));
     }
 
     @Override
-    public long countOutOfStock() {
-        return jpaRepository.countOutOfStock();
+    public List<Inventory> findByProductIdInForUpdate(List<Long> productIds) {
+        return jpaRepository.findByProductIdInForUpdate(productIds).stream()
+                .map(mapper::toDomain)
+                .toList();
     }
 
     @Override
-    public Page<Inventory> findOutOfStock(Pageable pageable) {
-        return jpaRepository.findOutOfStock(pageable)
-                .map(mapper::toDomain);
+    public void upsertBatch(List<Inventory> inventories) {
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(UPSERT_SQL, inventories, inventories.size(), (ps, inventory) -> {
+            ps.setLong(1, inventory.getProductId());
+            ps.setInt(2, inventory.getQuantity());
+            ps.setInt(3, inventory.getLowStockThreshold());
+            ps.setTimestamp(4, now);
+            ps.setTimestamp(5, now);
+        });
     }
 
     @Override
-    public Page<Inventory> findLowStock(Pageable pageable) {
-        return jpaRepository.findLowStock(pageable)
-                .map(mapper::toDomain);
+    public void streamAll(Consumer<Inventory> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(STREAM_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // Connector/J: fetch size MIN_VALUE = stream từng dòng từ server
+            ps.setFetchSize(Integer.MIN_VALUE);
+            return ps;
+        }, rs -> {
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            Timestamp updatedAt = rs.getTimestamp("updated_at");
+            consumer.accept(Inventory.builder()
+                    .id(rs.getLong("id"))
+                    .productId(rs.getLong("product_id"))
+                    .quantity(rs.getInt("quantity"))
+                    .lowStockThreshold(rs.getInt("low_stock_threshold"))
+                    .shardCount(rs.getInt("shard_count"))
+                    .version(rs.getLong("version"))
+                    .createdAt(createdAt != null ? createdAt.toInstant() : null)
+                    .updatedAt(updatedAt != null ? updatedAt.toInstant() : null)
+                    .build());
+        });
+    }
+
+    @Override
+    public Map<Long, Integer> findShardCounts() {
+        return jpaRepository.findShardCounts().stream()
+                .collect(Collectors.toMap(row -> (Long) row[0], row -> (Integer) row[1]));
+    }
+
+    @Override
+    public void updateShardedQuantitySnapshot(Long productId, Integer quantity) {
+        jpaRepository.updateShardedQuantitySnapshot(productId, quantity);
     }
 
     @Override
-    public Page<Inventory> findInStock(Pageable pageable) {
-        return jpaRepository.findInStock(pageable)
+    public Map<StockStatus, Long> countByStockStatus() {
+        Map<StockStatus, Long> counts = new EnumMap<>(StockStatus.class);
+        for (Object[] row : jpaRepository.countGroupByStockStatus()) {
+            counts.put((StockStatus) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
+    @Override
+    public Page<Inventory> findByStockStatus(StockStatus stockStatus, Pageable pageable) {
+        return jpaRepository.findByStockStatus(stockStatus, pageable)
                 .map(mapper::toDomain);
     }
-}
\ No newline at end of file
+
+    // [[productId, quantity], ...] cho các câu UPDATE batch dùng JSON_TABLE
+    private static String toItemsJson(Map<Long, Integer> productQuantities) {
+        StringJoiner items = new StringJoiner(",", "[", "]");
+        productQuantities.forEach((productId, quantity) -> items.add("[" + productId + "," + quantity + "]"));
+        return items.toString();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
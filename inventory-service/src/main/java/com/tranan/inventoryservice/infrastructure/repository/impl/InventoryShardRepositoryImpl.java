@@ -0,0 +1,73 @@
+package com.tranan.inventoryservice.infrastructure.repository.impl;
+
+import com.tranan.inventoryservice.domain.model.InventoryShard;
+import com.tranan.inventoryservice.domain.repository.InventoryShardRepository;
+import com.tranan.inventoryservice.infrastructure.entity.InventoryShardEntity;
+import com.tranan.inventoryservice.infrastructure.repository.jpa.InventoryShardJpaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class InventoryShardRepositoryImpl implements InventoryShardRepository {
+
+    private final InventoryShardJpaRepository jpaRepository;
+
+    @Override
+    public boolean reduce(Long productId, int shardNo, int quantity) {
+        return jpaRepository.reduce(productId, shardNo, quantity) > 0;
+    }
+
+    @Override
+    public boolean restore(Long productId, int shardNo, int quantity) {
+        return jpaRepository.restore(productId, shardNo, quantity) > 0;
+    }
+
+    @Override
+    public List<InventoryShard> findByProductIdForUpdate(Long productId) {
+        return jpaRepository.findByProductIdForUpdate(productId).stream()
+                .map(entity -> InventoryShard.builder()
+                        .productId(entity.getProductId())
+                        .shardNo(entity.getShardNo())
+                        .quantity(entity.getQuantity())
+                        .build())
+                .toList();
+    }
+
+    @Override
+    public void updateQuantity(Long productId, int shardNo, int quantity) {
+        jpaRepository.updateQuantity(productId, shardNo, quantity);
+    }
+
+    @Override
+    public void saveAll(List<InventoryShard> shards) {
+        jpaRepository.saveAll(shards.stream()
+                .map(shard -> InventoryShardEntity.builder()
+                        .productId(shard.getProductId())
+                        .shardNo(shard.getShardNo())
+                        .quantity(shard.getQuantity())
+                        .build())
+                .toList());
+    }
+
+    @Override
+    public void deleteByProductId(Long productId) {
+        jpaRepository.deleteByProductId(productId);
+    }
+
+    @Override
+    public Map<Long, Integer> sumQuantities(List<Long> productIds) {
+        Map<Long, Integer> totals = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return totals;
+        }
+        for (Object[] row : jpaRepository.sumQuantities(productIds)) {
+            totals.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,103 @@
+package com.tranan.inventoryservice.infrastructure.repository.impl;
+
+import com.tranan.inventoryservice.domain.repository.ProductNameRepository;
+import com.tranan.inventoryservice.infrastructure.entity.ProductNameEntity;
+import com.tranan.inventoryservice.infrastructure.repository.jpa.ProductNameJpaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class ProductNameRepositoryImpl implements ProductNameRepository {
+
+    // name được gán trước updated_at nên so sánh với updated_at cũ
+    private static final String UPSERT_SQL = "INSERT INTO product_names (product_id, name, updated_at) "
+            + "VALUES (?, ?, ?) AS new ON DUPLICATE KEY UPDATE "
+            + "name = IF(new.updated_at >= product_names.updated_at, new.name, product_names.name), "
+            + "updated_at = GREATEST(product_names.updated_at, new.updated_at)";
+
+    private static final String INSERT_IF_ABSENT_SQL = "INSERT INTO product_names (product_id, name, updated_at) "
+            + "VALUES (?, ?, ?) AS new ON DUPLICATE KEY UPDATE product_id = product_names.product_id";
+
+    private static final String MISSING_NAMES_SQL = "SELECT i.product_id FROM inventories i "
+            + "LEFT JOIN product_names p ON p.product_id = i.product_id "
+            + "WHERE p.product_id IS NULL AND i.product_id > ? ORDER BY i.product_id LIMIT ?";
+
+    private static final String FULLTEXT_INDEX_EXISTS_SQL = "SELECT COUNT(*) FROM information_schema.statistics "
+            + "WHERE table_schema = DATABASE() AND table_name = 'product_names' "
+            + "AND index_name = 'ft_product_names_name'";
+
+    private final ProductNameJpaRepository jpaRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void upsertIfNewer(Long productId, String name, Instant updatedAt) {
+        jdbcTemplate.update(UPSERT_SQL, productId, name, Timestamp.from(updatedAt));
+    }
+
+    @Override
+    public void deleteByProductId(Long productId) {
+        jpaRepository.deleteById(productId);
+    }
+
+    @Override
+    public Map<Long, String> findNamesByProductIds(Collection<Long> productIds) {
+        Map<Long, String> names = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return names;
+        }
+        for (ProductNameEntity entity : jpaRepository.findAllById(productIds)) {
+            names.put(entity.getProductId(), entity.getName());
+        }
+        return names;
+    }
+
+    @Override
+    public void insertIfAbsent(Map<Long, String> names, Instant updatedAt) {
+        if (names.isEmpty()) {
+            return;
+        }
+        Timestamp timestamp = Timestamp.from(updatedAt);
+        List<Object[]> args = new ArrayList<>(names.size());
+        names.forEach((productId, name) -> args.add(new Object[] { productId, name, timestamp }));
+        jdbcTemplate.batchUpdate(INSERT_IF_ABSENT_SQL, args);
+    }
+
+    @Override
+    public List<Long> findInventoryProductIdsWithoutName(Long afterProductId, int limit) {
+        return jdbcTemplate.queryForList(MISSING_NAMES_SQL, Long.class, afterProductId, limit);
+    }
+
+    @Override
+    public void ensureFullTextIndex() {
+        Integer existing = jdbcTemplate.queryForObject(FULLTEXT_INDEX_EXISTS_SQL, Integer.class);
+        if (existing != null && existing > 0) {
+            return;
+        }
+        // Stopword list mặc định của InnoDB có "a", "i"... mà ngram parser bỏ mọi
+        // token chứa stopword, nên tắt stopword trên chính connection tạo index
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET SESSION innodb_ft_enable_stopword = OFF");
+                try {
+                    statement.execute("CREATE FULLTEXT INDEX ft_product_names_name "
+                            + "ON product_names (name) WITH PARSER ngram");
+                } finally {
+                    statement.execute("SET SESSION innodb_ft_enable_stopword = ON");
+                }
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,65 @@
+package com.tranan.inventoryservice.infrastructure.repository.impl;
+
+import com.tranan.inventoryservice.domain.model.StockLocation;
+import com.tranan.inventoryservice.domain.repository.StockLocationRepository;
+import com.tranan.inventoryservice.infrastructure.entity.StockLocationEntity;
+import com.tranan.inventoryservice.infrastructure.repository.jpa.StockLocationJpaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class StockLocationRepositoryImpl implements StockLocationRepository {
+
+    private final StockLocationJpaRepository jpaRepository;
+
+    @Override
+    public StockLocation save(StockLocation location) {
+        StockLocationEntity saved = jpaRepository.save(StockLocationEntity.builder()
+                .id(location.getId())
+                .code(location.getCode())
+                .name(location.getName())
+                .region(location.getRegion())
+                .priority(location.getPriority())
+                .build());
+        return toDomain(saved);
+    }
+
+    @Override
+    public Optional<StockLocation> findById(Long id) {
+        return jpaRepository.findById(id).map(StockLocationRepositoryImpl::toDomain);
+    }
+
+    @Override
+    public List<StockLocation> findAllById(Collection<Long> ids) {
+        return jpaRepository.findAllById(ids).stream()
+                .map(StockLocationRepositoryImpl::toDomain)
+                .toList();
+    }
+
+    @Override
+    public List<StockLocation> findAll() {
+        return jpaRepository.findAll().stream()
+                .map(StockLocationRepositoryImpl::toDomain)
+                .toList();
+    }
+
+    @Override
+    public boolean existsByCode(String code) {
+        return jpaRepository.existsByCode(code);
+    }
+
+    private static StockLocation toDomain(StockLocationEntity entity) {
+        return StockLocation.builder()
+                .id(entity.getId())
+                .code(entity.getCode())
+                .name(entity.getName())
+                .region(entity.getRegion())
+                .priority(entity.getPriority())
+                .build();
+    }
+}
@@ -0,0 +1,58 @@
+package com.tranan.inventoryservice.infrastructure.repository.impl;
+
+import com.tranan.inventoryservice.domain.model.StockRestoreEntry;
+import com.tranan.inventoryservice.domain.repository.StockRestoreLogRepository;
+import com.tranan.inventoryservice.infrastructure.repository.jpa.StockRestoreLogJpaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class StockRestoreLogRepositoryImpl implements StockRestoreLogRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO stock_restore_log "
+            + "(product_id, quantity, order_id, created_at) VALUES (?, ?, ?, ?)";
+
+    private final StockRestoreLogJpaRepository jpaRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void append(List<StockRestoreEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        // JDBC batch: saveAll với id IDENTITY không batch được, mỗi entry một câu INSERT
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, entries.size(), (ps, entry) -> {
+            ps.setLong(1, entry.getProductId());
+            ps.setInt(2, entry.getQuantity());
+            ps.setObject(3, entry.getOrderId(), Types.BIGINT);
+            ps.setTimestamp(4, now);
+        });
+    }
+
+    @Override
+    public List<StockRestoreEntry> lockPending(int limit) {
+        return jpaRepository.lockPending(limit).stream()
+                .map(entity -> StockRestoreEntry.builder()
+                        .id(entity.getId())
+                        .productId(entity.getProductId())
+                        .quantity(entity.getQuantity())
+                        .orderId(entity.getOrderId())
+                        .build())
+                .toList();
+    }
+
+    @Override
+    public void deleteByIds(List<Long> ids) {
+        if (!ids.isEmpty()) {
+            jpaRepository.deleteByIds(ids);
+        }
+    }
+}
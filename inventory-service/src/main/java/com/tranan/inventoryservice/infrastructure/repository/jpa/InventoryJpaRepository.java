@@ -1,5 +1,6 @@
 package com.tranan.inventoryservice.infrastructure.repository.jpa;
 
+import com.tranan.inventoryservice.domain.model.StockStatus;
 import com.tranan.inventoryservice.infrastructure.entity.InventoryEntity;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
@@ -12,6 +13,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -48,38 +50,75 @@ public interface InventoryJpaRepository extends
     // ✅ THÊM: Pagination theo danh sách productIds
     Page<InventoryEntity> findAllByProductIdIn(List<Long> productIds, Pageable pageable);
 
-    // ✅ THÊM: Batch reduce stock (FIX N+1)
+    // Các câu UPDATE trực tiếp quantity đều tăng version để entity đang đọc
+    // (@Version) không ghi đè số lượng đã bị trừ / hoàn.
+
+    // Giảm tồn kho có điều kiện: trả về 0 nếu không đủ hàng, không tồn tại hoặc
+    // sản phẩm đang chia shard
+    @Modifying
+    @Query("UPDATE InventoryEntity i SET i.quantity = i.quantity - :quantity, i.version = i.version + 1 "
+            + "WHERE i.productId = :productId AND i.quantity >= :quantity AND i.shardCount = 0")
+    int reduceStockByProductId(@Param("productId") Long productId, @Param("quantity") Integer quantity);
+
+    // Giảm tồn kho có điều kiện cho cả batch trong 1 câu lệnh (MySQL JSON_TABLE),
+    // items có dạng [[productId, quantity], ...]. Bỏ qua sản phẩm không đủ hàng
+    // hoặc đang chia shard; dòng được cập nhật có updated_at = :updatedAt. Trả về
+    // số dòng đã cập nhật.
     @Modifying
-    @Query("UPDATE InventoryEntity i SET i.quantity = i.quantity - :quantity WHERE i.productId = :productId")
-    void reduceStockByProductId(@Param("productId") Long productId, @Param("quantity") Integer quantity);
+    @Query(value = "UPDATE inventories i JOIN JSON_TABLE(:items, '$[*]' COLUMNS ("
+            + "product_id BIGINT PATH '$[0]', quantity INT PATH '$[1]')) r "
+            + "ON i.product_id = r.product_id AND i.shard_count = 0 AND i.quantity >= r.quantity "
+            + "SET i.quantity = i.quantity - r.quantity, i.version = i.version + 1, "
+            + "i.updated_at = :updatedAt", nativeQuery = true)
+    int reduceStockBatch(@Param("items") String items, @Param("updatedAt") Instant updatedAt);
 
     // ✅ THÊM: Batch restore stock (FIX N+1)
     @Modifying
-    @Query("UPDATE InventoryEntity i SET i.quantity = i.quantity + :quantity WHERE i.productId = :productId")
-    void restoreStockByProductId(@Param("productId") Long productId, @Param("quantity") Integer quantity);
-
-    // ✅ THÊM: Thống kê - Đếm sản phẩm sắp hết hàng (0 < quantity < 10)
-    @Query("SELECT COUNT(i) FROM InventoryEntity i WHERE i.quantity > 0 AND i.quantity < 10")
-    long countLowStock();
+    @Query("UPDATE InventoryEntity i SET i.quantity = i.quantity + :quantity, i.version = i.version + 1 "
+            + "WHERE i.productId = :productId AND i.shardCount = 0")
+    int restoreStockByProductId(@Param("productId") Long productId, @Param("quantity") Integer quantity);
 
-    // ✅ THÊM: Thống kê - Đếm sản phẩm hết hàng (quantity = 0)
-    @Query("SELECT COUNT(i) FROM InventoryEntity i WHERE i.quantity = 0")
-    long countOutOfStock();
-
-    // ✅ THÊM: Đếm tổng số sản phẩm
-    @Query("SELECT COUNT(i) FROM InventoryEntity i")
-    long countTotal();
+    // Hoàn tồn kho cho cả batch trong 1 câu lệnh, cùng định dạng items với
+    // reduceStockBatch
+    @Modifying
+    @Query(value = "UPDATE inventories i JOIN JSON_TABLE(:items, '$[*]' COLUMNS ("
+            + "product_id BIGINT PATH '$[0]', quantity INT PATH '$[1]')) r "
+            + "ON i.product_id = r.product_id AND i.shard_count = 0 "
+            + "SET i.quantity = i.quantity + r.quantity, i.version = i.version + 1", nativeQuery = true)
+    int restoreStockBatch(@Param("items") String items);
 
-    // ✅ LỌC THEO TRẠNG THÁI TỒN KHO
-    // Hết hàng (quantity = 0)
-    @Query("SELECT i FROM InventoryEntity i WHERE i.quantity = 0")
-    Page<InventoryEntity> findOutOfStock(Pageable pageable);
+    @Query(value = "SELECT * FROM inventories WHERE product_id IN (:productIds) FOR UPDATE", nativeQuery = true)
+    List<InventoryEntity> findByProductIdInForUpdate(@Param("productIds") List<Long> productIds);
 
-    // Sắp hết hàng (0 < quantity < 10)
-    @Query("SELECT i FROM InventoryEntity i WHERE i.quantity > 0 AND i.quantity < 10")
-    Page<InventoryEntity> findLowStock(Pageable pageable);
+    // Sản phẩm hot: productId, shardCount
+    @Query("SELECT i.productId, i.shardCount FROM InventoryEntity i WHERE i.shardCount > 0")
+    List<Object[]> findShardCounts();
 
-    // Còn hàng (quantity >= 10)
-    @Query("SELECT i FROM InventoryEntity i WHERE i.quantity >= 10")
-    Page<InventoryEntity> findInStock(Pageable pageable);
+    // Cập nhật snapshot quantity (tổng các shard) cho sản phẩm hot
+    @Modifying
+    @Query("UPDATE InventoryEntity i SET i.quantity = :quantity, i.version = i.version + 1 WHERE i.productId = :productId AND i.shardCount > 0")
+    void updateShardedQuantitySnapshot(@Param("productId") Long productId, @Param("quantity") Integer quantity);
+
+    // Thống kê: số sản phẩm theo từng trạng thái tồn kho (1 lần quét index stock_status)
+    @Query("SELECT i.stockStatus, COUNT(i) FROM InventoryEntity i GROUP BY i.stockStatus")
+    List<Object[]> countGroupByStockStatus();
+
+    // ✅ LỌC THEO TRẠNG THÁI TỒN KHO (cột generated stock_status có index)
+    Page<InventoryEntity> findByStockStatus(StockStatus stockStatus, Pageable pageable);
+
+    // Tìm theo tên sản phẩm: cụm từ trên FULLTEXT index ngram (keyword >= 2 ký tự)
+    @Query(value = "SELECT i.* FROM inventories i JOIN product_names p ON p.product_id = i.product_id "
+            + "WHERE MATCH(p.name) AGAINST(:phrase IN BOOLEAN MODE) ORDER BY i.id",
+            countQuery = "SELECT COUNT(*) FROM inventories i JOIN product_names p ON p.product_id = i.product_id "
+                    + "WHERE MATCH(p.name) AGAINST(:phrase IN BOOLEAN MODE)",
+            nativeQuery = true)
+    Page<InventoryEntity> searchByProductNamePhrase(@Param("phrase") String phrase, Pageable pageable);
+
+    // Tìm theo tiền tố tên sản phẩm trên index idx_product_names_name (keyword 1 ký tự)
+    @Query(value = "SELECT i.* FROM inventories i JOIN product_names p ON p.product_id = i.product_id "
+            + "WHERE p.name LIKE :prefix ORDER BY i.id",
+            countQuery = "SELECT COUNT(*) FROM inventories i JOIN product_names p ON p.product_id = i.product_id "
+                    + "WHERE p.name LIKE :prefix",
+            nativeQuery = true)
+    Page<InventoryEntity> searchByProductNamePrefix(@Param("prefix") String prefix, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.tranan.inventoryservice.infrastructure.repository.jpa;
+
+import com.tranan.inventoryservice.infrastructure.entity.InventoryLocationEntity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface InventoryLocationJpaRepository extends JpaRepository<InventoryLocationEntity, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM InventoryLocationEntity l WHERE l.productId IN :productIds "
+            + "ORDER BY l.productId, l.locationId")
+    List<InventoryLocationEntity> findByProductIdInForUpdate(@Param("productIds") List<Long> productIds);
+
+    List<InventoryLocationEntity> findByProductIdOrderByLocationId(Long productId);
+
+    @Query("SELECT DISTINCT l.productId FROM InventoryLocationEntity l WHERE l.productId IN :productIds")
+    List<Long> findProductIdsWithLocations(@Param("productIds") List<Long> productIds);
+
+    @Query("SELECT DISTINCT l.productId FROM InventoryLocationEntity l")
+    List<Long> findAllProductIds();
+
+    @Modifying
+    @Query("DELETE FROM InventoryLocationEntity l WHERE l.productId = :productId")
+    void deleteByProductId(@Param("productId") Long productId);
+}
@@ -0,0 +1,13 @@
+package com.tranan.inventoryservice.infrastructure.repository.jpa;
+
+import com.tranan.inventoryservice.infrastructure.entity.InventoryMovementEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface InventoryMovementJpaRepository extends JpaRepository<InventoryMovementEntity, Long> {
+
+    List<InventoryMovementEntity> findByOrderIdOrderById(Long orderId);
+}
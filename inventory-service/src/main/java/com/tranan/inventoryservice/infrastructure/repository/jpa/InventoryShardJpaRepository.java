@@ -0,0 +1,47 @@
+package com.tranan.inventoryservice.infrastructure.repository.jpa;
+
+import com.tranan.inventoryservice.infrastructure.entity.InventoryShardEntity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface InventoryShardJpaRepository extends JpaRepository<InventoryShardEntity, Long> {
+
+    // Giảm có điều kiện trên 1 shard: trả về 0 nếu shard không đủ hàng
+    @Modifying
+    @Query("UPDATE InventoryShardEntity s SET s.quantity = s.quantity - :quantity "
+            + "WHERE s.productId = :productId AND s.shardNo = :shardNo AND s.quantity >= :quantity")
+    int reduce(@Param("productId") Long productId, @Param("shardNo") int shardNo,
+            @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("UPDATE InventoryShardEntity s SET s.quantity = s.quantity + :quantity "
+            + "WHERE s.productId = :productId AND s.shardNo = :shardNo")
+    int restore(@Param("productId") Long productId, @Param("shardNo") int shardNo,
+            @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("UPDATE InventoryShardEntity s SET s.quantity = :quantity "
+            + "WHERE s.productId = :productId AND s.shardNo = :shardNo")
+    void updateQuantity(@Param("productId") Long productId, @Param("shardNo") int shardNo,
+            @Param("quantity") int quantity);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM InventoryShardEntity s WHERE s.productId = :productId ORDER BY s.shardNo")
+    List<InventoryShardEntity> findByProductIdForUpdate(@Param("productId") Long productId);
+
+    @Modifying
+    @Query("DELETE FROM InventoryShardEntity s WHERE s.productId = :productId")
+    void deleteByProductId(@Param("productId") Long productId);
+
+    @Query("SELECT s.productId, SUM(s.quantity) FROM InventoryShardEntity s "
+            + "WHERE s.productId IN :productIds GROUP BY s.productId")
+    List<Object[]> sumQuantities(@Param("productIds") List<Long> productIds);
+}
@@ -0,0 +1,9 @@
+package com.tranan.inventoryservice.infrastructure.repository.jpa;
+
+import com.tranan.inventoryservice.infrastructure.entity.ProductNameEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ProductNameJpaRepository extends JpaRepository<ProductNameEntity, Long> {
+}
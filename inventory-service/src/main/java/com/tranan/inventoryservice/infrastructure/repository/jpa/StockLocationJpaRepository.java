@@ -0,0 +1,11 @@
+package com.tranan.inventoryservice.infrastructure.repository.jpa;
+
+import com.tranan.inventoryservice.infrastructure.entity.StockLocationEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StockLocationJpaRepository extends JpaRepository<StockLocationEntity, Long> {
+
+    boolean existsByCode(String code);
+}
@@ -0,0 +1,22 @@
+package com.tranan.inventoryservice.infrastructure.repository.jpa;
+
+import com.tranan.inventoryservice.infrastructure.entity.StockRestoreLogEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StockRestoreLogJpaRepository extends JpaRepository<StockRestoreLogEntity, Long> {
+
+    @Query(value = "SELECT * FROM stock_restore_log ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<StockRestoreLogEntity> lockPending(@Param("limit") int limit);
+
+    @Modifying
+    @Query("DELETE FROM StockRestoreLogEntity l WHERE l.id IN :ids")
+    void deleteByIds(@Param("ids") List<Long> ids);
+}
@@ -24,6 +24,7 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.servlet.resource.NoResourceFoundException;
 
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestControllerAdvice
@@ -308,7 +309,8 @@ public class GlobalExceptionHandler {
                 .status(HttpStatus.CONFLICT)
                 .body(new ApiResponse<>(
                         message,
-                        "INSUFFICIENT_STOCK"
+                        "INSUFFICIENT_STOCK",
+                        Map.of("productIds", ex.getProductIds())
                 ));
     }
 
@@ -1,8 +1,22 @@
 package com.tranan.inventoryservice.presentation.advice.exception;
 
+import java.util.List;
 
 public class InsufficientStockException extends RuntimeException {
+
+    // Các sản phẩm không đủ hàng (hoặc không có trong kho)
+    private final List<Long> productIds;
+
     public InsufficientStockException(String message) {
+        this(message, List.of());
+    }
+
+    public InsufficientStockException(String message, List<Long> productIds) {
         super(message);
+        this.productIds = productIds;
+    }
+
+    public List<Long> getProductIds() {
+        return productIds;
     }
-}
\ No newline at end of file
+}
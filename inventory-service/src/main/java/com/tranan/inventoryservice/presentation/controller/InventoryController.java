@@ -2,22 +2,33 @@ package com.tranan.inventoryservice.presentation.controller;
 
 import com.tranan.inventoryservice.annotation.ApiMessage;
 import com.tranan.inventoryservice.application.dto.request.CreateInventoryRequest;
+import com.tranan.inventoryservice.application.dto.request.CreateStockLocationRequest;
+import com.tranan.inventoryservice.application.dto.request.LocationQuantityRequest;
 import com.tranan.inventoryservice.application.dto.request.UpdateInventoryRequest;
+import com.tranan.inventoryservice.application.dto.response.BulkImportResponse;
+import com.tranan.inventoryservice.application.dto.response.InventoryLocationResponse;
 import com.tranan.inventoryservice.application.dto.response.InventoryResponse;
 import com.tranan.inventoryservice.application.dto.response.PageResponseDto;
+import com.tranan.inventoryservice.application.dto.response.StockLocationResponse;
+import com.tranan.inventoryservice.application.usecase.InventoryBulkService;
 import com.tranan.inventoryservice.application.usecase.InventoryService;
 import io.swagger.v3.oas.annotations.Operation;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -33,6 +44,7 @@ import java.util.stream.Collectors;
 public class InventoryController {
 
         private final InventoryService inventoryService;
+        private final InventoryBulkService inventoryBulkService;
 
         // ========================================================================
         // 1. TẠO KHO (ADMIN)
@@ -119,6 +131,111 @@ public class InventoryController {
                 return ResponseEntity.ok(response);
         }
 
+        // ========================================================================
+        // 4.1. CHIA SHARD TỒN KHO CHO SẢN PHẨM HOT (ADMIN)
+        // URL: PUT /api/inventory/101/shards?count=8 (count=0 để tắt)
+        // ========================================================================
+        @PutMapping("/{productId}/shards")
+        @PreAuthorize("hasAuthority('PUT /api/inventory/{productId}')")
+        @ApiMessage("Cấu hình shard tồn kho")
+        @Operation(summary = "Cấu hình shard tồn kho cho sản phẩm hot", description = "Yêu cầu quyền: <b>PUT /api/inventory/{productId}</b>. count = 0 để gộp tồn kho về 1 dòng.")
+        public ResponseEntity<InventoryResponse> configureShards(
+                        @PathVariable Long productId,
+                        @RequestParam int count) {
+
+                log.info("Configuring {} stock shards for product {}", count, productId);
+                return ResponseEntity.ok(inventoryService.configureShards(productId, count));
+        }
+
+        // ========================================================================
+        // 4.2. KHO HÀNG (ADMIN)
+        // URL: GET/POST /api/inventory/locations
+        // ========================================================================
+        @GetMapping("/locations")
+        @PreAuthorize("hasAuthority('GET /api/inventory')")
+        @ApiMessage("Lấy danh sách kho hàng")
+        @Operation(summary = "Lấy danh sách kho hàng (warehouse)", description = "Yêu cầu quyền: <b>GET /api/inventory</b>")
+        public ResponseEntity<List<StockLocationResponse>> getLocations() {
+                return ResponseEntity.ok(inventoryService.getLocations());
+        }
+
+        @PostMapping("/locations")
+        @PreAuthorize("hasAuthority('PUT /api/inventory/{productId}')")
+        @ApiMessage("Tạo kho hàng")
+        @Operation(summary = "Tạo kho hàng (warehouse)", description = "Yêu cầu quyền: <b>PUT /api/inventory/{productId}</b>. priority nhỏ hơn được ưu tiên lấy hàng trước.")
+        public ResponseEntity<StockLocationResponse> createLocation(
+                        @Valid @RequestBody CreateStockLocationRequest request) {
+                log.info("Creating stock location {}", request.getCode());
+                return ResponseEntity.status(HttpStatus.CREATED).body(inventoryService.createLocation(request));
+        }
+
+        // ========================================================================
+        // 4.3. TỒN KHO THEO KHO HÀNG (ADMIN)
+        // URL: GET /api/inventory/101/locations
+        // URL: PUT /api/inventory/101/locations/2 (body: { "quantity": 50 })
+        // ========================================================================
+        @GetMapping("/{productId}/locations")
+        @PreAuthorize("hasAuthority('GET /api/inventory')")
+        @ApiMessage("Lấy tồn kho theo kho hàng")
+        @Operation(summary = "Tồn kho của sản phẩm theo từng kho", description = "Yêu cầu quyền: <b>GET /api/inventory</b>")
+        public ResponseEntity<List<InventoryLocationResponse>> getInventoryLocations(@PathVariable Long productId) {
+                return ResponseEntity.ok(inventoryService.getInventoryLocations(productId));
+        }
+
+        @PutMapping("/{productId}/locations/{locationId}")
+        @PreAuthorize("hasAuthority('PUT /api/inventory/{productId}')")
+        @ApiMessage("Cập nhật tồn kho tại kho hàng")
+        @Operation(summary = "Đặt số lượng của sản phẩm tại một kho", description = "Yêu cầu quyền: <b>PUT /api/inventory/{productId}</b>. Lần đầu gán kho, tổng tồn kho của sản phẩm = tổng các kho.")
+        public ResponseEntity<InventoryResponse> setLocationQuantity(
+                        @PathVariable Long productId,
+                        @PathVariable Long locationId,
+                        @Valid @RequestBody LocationQuantityRequest request) {
+                log.info("Setting stock of product {} at location {} to {}", productId, locationId,
+                                request.getQuantity());
+                return ResponseEntity.ok(inventoryService.setLocationQuantity(productId, locationId,
+                                request.getQuantity()));
+        }
+
+        // ========================================================================
+        // 4.4. IMPORT TỒN KHO HÀNG LOẠT (ADMIN)
+        // URL: POST /api/inventory/bulk (Content-Type: text/csv | application/x-ndjson)
+        // CSV: productId,quantity[,lowStockThreshold] (dòng header tùy chọn)
+        // ========================================================================
+        @PostMapping(value = "/bulk", consumes = { "text/csv", "application/x-ndjson" })
+        @PreAuthorize("hasAuthority('PUT /api/inventory/{productId}')")
+        @ApiMessage("Import tồn kho hàng loạt")
+        @Operation(summary = "Import tồn kho hàng loạt (CSV / NDJSON)", description = "Yêu cầu quyền: <b>PUT /api/inventory/{productId}</b>. Body được đọc dạng stream, trả về báo cáo lỗi theo từng dòng.")
+        public ResponseEntity<BulkImportResponse> bulkImport(HttpServletRequest request) throws IOException {
+                InventoryBulkService.Format format = request.getContentType().startsWith("text/csv")
+                                ? InventoryBulkService.Format.CSV
+                                : InventoryBulkService.Format.NDJSON;
+                log.info("Bulk importing inventories ({})", format);
+                return ResponseEntity.ok(inventoryBulkService.importInventories(request.getInputStream(), format));
+        }
+
+        // ========================================================================
+        // 4.5. EXPORT TỒN KHO (ADMIN)
+        // URL: GET /api/inventory/export?format=csv|ndjson
+        // ========================================================================
+        @GetMapping("/export")
+        @PreAuthorize("hasAuthority('GET /api/inventory')")
+        @Operation(summary = "Export toàn bộ tồn kho (CSV / NDJSON)", description = "Yêu cầu quyền: <b>GET /api/inventory</b>. Dữ liệu được stream từ DB.")
+        public ResponseEntity<StreamingResponseBody> exportInventories(
+                        @RequestParam(defaultValue = "csv") String format) {
+                InventoryBulkService.Format exportFormat = "ndjson".equalsIgnoreCase(format)
+                                ? InventoryBulkService.Format.NDJSON
+                                : InventoryBulkService.Format.CSV;
+                String extension = exportFormat == InventoryBulkService.Format.CSV ? "csv" : "ndjson";
+                StreamingResponseBody body = output -> inventoryBulkService.exportInventories(output, exportFormat);
+                return ResponseEntity.ok()
+                                .contentType(exportFormat == InventoryBulkService.Format.CSV
+                                                ? MediaType.parseMediaType("text/csv")
+                                                : MediaType.parseMediaType("application/x-ndjson"))
+                                .header(HttpHeaders.CONTENT_DISPOSITION,
+                                                "attachment; filename=\"inventories." + extension + "\"")
+                                .body(body);
+        }
+
         // ========================================================================
         // 5. XÓA KHO (ADMIN)
         // URL: DELETE /api/inventory/101
@@ -154,7 +271,8 @@ public class InventoryController {
         @PostMapping("/reduce-multiple")
         @Operation(summary = "Giảm tồn kho cho nhiều sản phẩm (Internal API)", description = "Public API - Không yêu cầu quyền")
         public ResponseEntity<Void> reduceMultipleStock(
-                        @Valid @RequestBody List<com.tranan.inventoryservice.application.dto.request.ReduceStockRequest> requests) {
+                        @Valid @RequestBody List<com.tranan.inventoryservice.application.dto.request.ReduceStockRequest> requests,
+                        @RequestParam(required = false) String region) {
                 log.info("Reducing stock for {} products", requests.size());
 
                 Map<Long, Integer> productQuantities = requests.stream()
@@ -162,7 +280,7 @@ public class InventoryController {
                                                 com.tranan.inventoryservice.application.dto.request.ReduceStockRequest::getProductId,
                                                 com.tranan.inventoryservice.application.dto.request.ReduceStockRequest::getQuantity));
 
-                inventoryService.reduceMultipleStock(productQuantities);
+                inventoryService.reduceMultipleStock(productQuantities, region);
                 return ResponseEntity.noContent().build();
         }
 
@@ -176,7 +294,7 @@ public class InventoryController {
                         @PathVariable Long productId,
                         @RequestParam Integer quantity) {
                 log.info("Restoring {} units for product {}", quantity, productId);
-                inventoryService.restoreStock(productId, quantity);
+                inventoryService.restoreStock(productId, quantity, null);
                 return ResponseEntity.noContent().build();
         }
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+-- Điều chỉnh số lượng có thể giữ khi tồn kho trong DB thay đổi ngoài luồng giữ hàng
+-- KEYS[1] = available key, ARGV[1] = delta
+-- Key chưa có thì bỏ qua: lần giữ hàng tiếp theo sẽ nạp lại từ DB
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    return redis.call('INCRBY', KEYS[1], ARGV[1])
+end
+return nil
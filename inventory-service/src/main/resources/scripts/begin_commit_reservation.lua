@@ -0,0 +1,17 @@
+-- Bắt đầu commit hold của đơn hàng: chuyển hold từ zset hạn giữ sang set đang
+-- commit (không bị release do hết hạn nữa) và trả về các cặp productId, quantity
+-- KEYS[1] = hold hash của đơn, KEYS[2] = zset hạn giữ, KEYS[3] = marker đã commit,
+-- KEYS[4] = set đang commit
+-- ARGV[1] = orderId
+-- Trả về {'COMMITTED'}, {'NONE'} hoặc {'HELD', productId, quantity, ...}
+if redis.call('EXISTS', KEYS[3]) == 1 then
+    return {'COMMITTED'}
+end
+
+redis.call('ZREM', KEYS[2], ARGV[1])
+local items = redis.call('HGETALL', KEYS[1])
+if #items == 0 then
+    return {'NONE'}
+end
+redis.call('SADD', KEYS[4], ARGV[1])
+return {'HELD', unpack(items)}
@@ -0,0 +1,12 @@
+-- Kết thúc commit hold sau khi transaction DB (trừ tồn kho) đã commit
+-- KEYS[1] = hold hash của đơn, KEYS[2] = marker đã commit, KEYS[3] = set đang commit
+-- ARGV[1] = orderId, ARGV[2] = thời gian giữ marker (giây)
+-- Hold đã được trừ vào tồn kho DB nên không còn tính trong inventory:held
+redis.call('SET', KEYS[2], '1', 'EX', ARGV[2])
+local items = redis.call('HGETALL', KEYS[1])
+for i = 1, #items, 2 do
+    redis.call('HINCRBY', 'inventory:held', items[i], -tonumber(items[i + 1]))
+end
+redis.call('DEL', KEYS[1])
+redis.call('SREM', KEYS[3], ARGV[1])
+return #items / 2
@@ -0,0 +1,32 @@
+-- Tính lại inventory:held từ các hold còn hiệu lực (trong zset hạn giữ hoặc
+-- đang commit), sửa lệch do lần kết thúc commit / release bị lỗi giữa chừng
+-- KEYS[1] = zset hạn giữ, KEYS[2] = set đang commit, KEYS[3] = hash inventory:held
+-- Duyệt toàn bộ hold nên chỉ chạy định kỳ, không dùng trên luồng request
+local held = {}
+local function add(orderId)
+    local items = redis.call('HGETALL', 'inventory:hold:' .. orderId)
+    for i = 1, #items, 2 do
+        held[items[i]] = (held[items[i]] or 0) + tonumber(items[i + 1])
+    end
+    return #items
+end
+
+for _, orderId in ipairs(redis.call('ZRANGE', KEYS[1], 0, -1)) do
+    add(orderId)
+end
+-- Hold đang commit đã hết hạn (lần kết thúc commit bị lỗi) thì bỏ khỏi set
+for _, orderId in ipairs(redis.call('SMEMBERS', KEYS[2])) do
+    if add(orderId) == 0 then
+        redis.call('SREM', KEYS[2], orderId)
+    end
+end
+
+redis.call('DEL', KEYS[3])
+local products = 0
+for productId, quantity in pairs(held) do
+    if quantity > 0 then
+        redis.call('HSET', KEYS[3], productId, quantity)
+        products = products + 1
+    end
+end
+return products
@@ -0,0 +1,18 @@
+-- Trả lại tồn kho đang giữ của một đơn hàng (hủy đơn / hết hạn)
+-- KEYS[1] = hold hash của đơn, KEYS[2] = zset hạn giữ
+-- ARGV[1] = orderId
+-- Chỉ release hold còn trong zset: hold đang commit đã bị lấy ra khỏi zset
+if redis.call('ZREM', KEYS[2], ARGV[1]) == 0 then
+    return 0
+end
+
+local items = redis.call('HGETALL', KEYS[1])
+for i = 1, #items, 2 do
+    local key = 'inventory:available:' .. items[i]
+    if redis.call('EXISTS', key) == 1 then
+        redis.call('INCRBY', key, items[i + 1])
+    end
+    redis.call('HINCRBY', 'inventory:held', items[i], -tonumber(items[i + 1]))
+end
+redis.call('DEL', KEYS[1])
+return #items / 2
@@ -0,0 +1,36 @@
+-- Giữ tồn kho cho một đơn hàng (all-or-nothing)
+-- KEYS[1] = hold hash của đơn, KEYS[2] = zset hạn giữ, KEYS[3..] = available key từng sản phẩm
+-- ARGV[1] = orderId, ARGV[2] = thời điểm hết hạn (epoch ms), ARGV[3] = TTL hold hash (giây),
+-- ARGV[4..] = số lượng tương ứng với KEYS[3..]
+-- Trả về {'OK'}, {'MISSING', i...} hoặc {'INSUFFICIENT', i...} (i: vị trí sản phẩm, bắt đầu từ 1)
+-- inventory:held (productId -> tổng số lượng đang giữ) được cộng theo hold mới
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    return {'OK'}
+end
+
+local missing = {}
+local insufficient = {}
+for i = 3, #KEYS do
+    local available = redis.call('GET', KEYS[i])
+    if not available then
+        table.insert(missing, tostring(i - 2))
+    elseif tonumber(available) < tonumber(ARGV[i + 1]) then
+        table.insert(insufficient, tostring(i - 2))
+    end
+end
+if #missing > 0 then
+    return {'MISSING', unpack(missing)}
+end
+if #insufficient > 0 then
+    return {'INSUFFICIENT', unpack(insufficient)}
+end
+
+for i = 3, #KEYS do
+    local productId = string.sub(KEYS[i], string.len('inventory:available:') + 1)
+    redis.call('DECRBY', KEYS[i], ARGV[i + 1])
+    redis.call('HSET', KEYS[1], productId, ARGV[i + 1])
+    redis.call('HINCRBY', 'inventory:held', productId, ARGV[i + 1])
+end
+redis.call('EXPIRE', KEYS[1], ARGV[3])
+redis.call('ZADD', KEYS[2], ARGV[2], ARGV[1])
+return {'OK'}
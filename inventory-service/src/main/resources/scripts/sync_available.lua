@@ -0,0 +1,20 @@
+-- Đặt số lượng có thể giữ = tồn kho DB - số lượng đang giữ (inventory:held)
+-- KEYS[1] = hash inventory:held
+-- ARGV[1] = 'SEED' (chỉ đặt khi key chưa có) hoặc 'RESET' (chỉ sửa key đã có),
+-- ARGV[2..] = cặp productId, tồn kho DB
+-- Trả về productId có giá trị bị sửa (RESET)
+local changed = {}
+for i = 2, #ARGV, 2 do
+    local key = 'inventory:available:' .. ARGV[i]
+    local available = tonumber(ARGV[i + 1]) - tonumber(redis.call('HGET', KEYS[1], ARGV[i]) or 0)
+    if ARGV[1] == 'SEED' then
+        redis.call('SET', key, available, 'NX')
+    else
+        local current = redis.call('GET', key)
+        if current and tonumber(current) ~= available then
+            redis.call('SET', key, available)
+            table.insert(changed, ARGV[i])
+        end
+    end
+end
+return changed
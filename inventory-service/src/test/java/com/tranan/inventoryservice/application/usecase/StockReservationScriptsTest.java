@@ -0,0 +1,344 @@
+package com.tranan.inventoryservice.application.usecase;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.luaj.vm2.Globals;
+import org.luaj.vm2.LuaInteger;
+import org.luaj.vm2.LuaTable;
+import org.luaj.vm2.LuaValue;
+import org.luaj.vm2.Varargs;
+import org.luaj.vm2.lib.VarArgFunction;
+import org.luaj.vm2.lib.jse.JsePlatform;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests cho các script Lua giữ tồn kho (reserve / release / commit).
+ * Script chạy bằng LuaJ với redis.call giả lập trên các Map trong bộ nhớ,
+ * không cần Redis thật.
+ */
+class StockReservationScriptsTest {
+
+    private static final String ORDER_ID = "100";
+    private static final String HOLD_KEY = "inventory:hold:" + ORDER_ID;
+    private static final String EXPIRY_KEY = "inventory:hold:expiry";
+    private static final String COMMITTED_KEY = "inventory:hold:committed:" + ORDER_ID;
+    private static final String COMMITTING_KEY = "inventory:hold:committing";
+    private static final String HELD_KEY = "inventory:held";
+
+    private FakeRedis redis;
+
+    @BeforeEach
+    void setUp() {
+        redis = new FakeRedis();
+        redis.strings.put("inventory:available:1", "10");
+        redis.strings.put("inventory:available:2", "5");
+    }
+
+    @Test
+    void testReserve_DecrementsAvailableAndRecordsHold() {
+        // Act
+        List<Object> result = reserve(ORDER_ID, Map.of(1L, 3, 2L, 5));
+
+        // Assert
+        assertEquals(List.of("OK"), result);
+        assertEquals("7", redis.strings.get("inventory:available:1"));
+        assertEquals("0", redis.strings.get("inventory:available:2"));
+        assertEquals(Map.of("1", "3", "2", "5"), redis.hashes.get(HOLD_KEY));
+        assertEquals(Map.of("1", "3", "2", "5"), redis.hashes.get(HELD_KEY));
+        assertTrue(redis.zsets.get(EXPIRY_KEY).containsKey(ORDER_ID));
+    }
+
+    @Test
+    void testReserve_SameOrderTwice_IsIdempotent() {
+        // Arrange
+        reserve(ORDER_ID, Map.of(1L, 3));
+
+        // Act
+        List<Object> result = reserve(ORDER_ID, Map.of(1L, 3));
+
+        // Assert - lần gọi lại (retry) không trừ thêm
+        assertEquals(List.of("OK"), result);
+        assertEquals("7", redis.strings.get("inventory:available:1"));
+        assertEquals("3", redis.hashes.get(HELD_KEY).get("1"));
+    }
+
+    @Test
+    void testReserve_Insufficient_ChangesNothing() {
+        // Act
+        List<Object> result = reserve(ORDER_ID, Map.of(1L, 3, 2L, 6));
+
+        // Assert - all-or-nothing: sản phẩm 1 đủ hàng cũng không bị trừ
+        assertEquals(List.of("INSUFFICIENT", "2"), result);
+        assertEquals("10", redis.strings.get("inventory:available:1"));
+        assertEquals("5", redis.strings.get("inventory:available:2"));
+        assertFalse(redis.hashes.containsKey(HOLD_KEY));
+        assertFalse(redis.hashes.containsKey(HELD_KEY));
+    }
+
+    @Test
+    void testReserve_MissingAvailableKey_ReturnsMissing() {
+        // Act
+        List<Object> result = reserve(ORDER_ID, Map.of(1L, 1, 3L, 1));
+
+        // Assert
+        assertEquals(List.of("MISSING", "2"), result);
+        assertEquals("10", redis.strings.get("inventory:available:1"));
+        assertFalse(redis.hashes.containsKey(HOLD_KEY));
+    }
+
+    @Test
+    void testRelease_ReturnsStockOnce() {
+        // Arrange
+        reserve(ORDER_ID, Map.of(1L, 3, 2L, 5));
+
+        // Act
+        Object first = release(ORDER_ID);
+        Object second = release(ORDER_ID);
+
+        // Assert - release lần hai (hết hạn + hủy đơn cùng lúc) không cộng lại lần nữa
+        assertEquals(2L, first);
+        assertEquals(0L, second);
+        assertEquals("10", redis.strings.get("inventory:available:1"));
+        assertEquals("5", redis.strings.get("inventory:available:2"));
+        assertEquals(Map.of("1", "0", "2", "0"), redis.hashes.get(HELD_KEY));
+        assertFalse(redis.hashes.containsKey(HOLD_KEY));
+        assertFalse(redis.zsets.get(EXPIRY_KEY).containsKey(ORDER_ID));
+    }
+
+    @Test
+    void testBeginCommit_ReturnsHeldItemsAndBlocksRelease() {
+        // Arrange
+        reserve(ORDER_ID, Map.of(1L, 3));
+
+        // Act
+        List<Object> result = beginCommit(ORDER_ID);
+        Object released = release(ORDER_ID);
+
+        // Assert - hold đang commit không bị release khi hết hạn
+        assertEquals(List.of("HELD", "1", "3"), result);
+        assertEquals(0L, released);
+        assertEquals("7", redis.strings.get("inventory:available:1"));
+        assertTrue(redis.sets.get(COMMITTING_KEY).contains(ORDER_ID));
+        assertFalse(redis.zsets.get(EXPIRY_KEY).containsKey(ORDER_ID));
+    }
+
+    @Test
+    void testCompleteCommit_ClearsHoldAndMakesCommitIdempotent() {
+        // Arrange
+        reserve(ORDER_ID, Map.of(1L, 3));
+        beginCommit(ORDER_ID);
+
+        // Act
+        Object completed = completeCommit(ORDER_ID);
+        List<Object> retry = beginCommit(ORDER_ID);
+
+        // Assert - commit lại (retry từ Order Service) thấy marker và không trừ lần nữa
+        assertEquals(1L, completed);
+        assertEquals(List.of("COMMITTED"), retry);
+        assertEquals("1", redis.strings.get(COMMITTED_KEY));
+        assertEquals("0", redis.hashes.get(HELD_KEY).get("1"));
+        assertFalse(redis.hashes.containsKey(HOLD_KEY));
+        assertFalse(redis.sets.get(COMMITTING_KEY).contains(ORDER_ID));
+        assertEquals("7", redis.strings.get("inventory:available:1"));
+    }
+
+    @Test
+    void testBeginCommit_UnknownOrder_ReturnsNone() {
+        // Act
+        List<Object> result = beginCommit("999");
+
+        // Assert
+        assertEquals(List.of("NONE"), result);
+        assertFalse(redis.sets.containsKey(COMMITTING_KEY));
+    }
+
+    private List<Object> reserve(String orderId, Map<Long, Integer> quantities) {
+        List<String> keys = new ArrayList<>(List.of("inventory:hold:" + orderId, EXPIRY_KEY));
+        List<String> args = new ArrayList<>(List.of(orderId, String.valueOf(System.currentTimeMillis() + 60_000), "60"));
+        new TreeMap<>(quantities).forEach((productId, quantity) -> {
+            keys.add("inventory:available:" + productId);
+            args.add(String.valueOf(quantity));
+        });
+        return asList(redis.eval("reserve_stock", keys, args));
+    }
+
+    private Object release(String orderId) {
+        return redis.eval("release_reservation", List.of("inventory:hold:" + orderId, EXPIRY_KEY), List.of(orderId));
+    }
+
+    private List<Object> beginCommit(String orderId) {
+        return asList(redis.eval("begin_commit_reservation",
+                List.of("inventory:hold:" + orderId, EXPIRY_KEY, "inventory:hold:committed:" + orderId, COMMITTING_KEY),
+                List.of(orderId)));
+    }
+
+    private Object completeCommit(String orderId) {
+        return redis.eval("complete_commit_reservation",
+                List.of("inventory:hold:" + orderId, "inventory:hold:committed:" + orderId, COMMITTING_KEY),
+                List.of(orderId, "86400"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> asList(Object result) {
+        return (List<Object>) result;
+    }
+
+    /**
+     * Redis giả lập đủ các lệnh mà script reservation dùng
+     */
+    private static class FakeRedis {
+
+        final Map<String, String> strings = new HashMap<>();
+        final Map<String, Map<String, String>> hashes = new HashMap<>();
+        final Map<String, Map<String, Double>> zsets = new HashMap<>();
+        final Map<String, Set<String>> sets = new HashMap<>();
+        final Map<String, Long> ttls = new HashMap<>();
+
+        Object eval(String script, List<String> keys, List<String> args) {
+            Globals globals = JsePlatform.standardGlobals();
+            // Redis chạy Lua 5.1 (unpack là hàm global), LuaJ là Lua 5.2
+            globals.set("unpack", globals.get("table").get("unpack"));
+            LuaTable redisTable = new LuaTable();
+            redisTable.set("call", new VarArgFunction() {
+                @Override
+                public Varargs invoke(Varargs varargs) {
+                    List<String> command = new ArrayList<>();
+                    for (int i = 1; i <= varargs.narg(); i++) {
+                        command.add(varargs.arg(i).tojstring());
+                    }
+                    return execute(command);
+                }
+            });
+            globals.set("redis", redisTable);
+            globals.set("KEYS", toTable(keys));
+            globals.set("ARGV", toTable(args));
+            return fromLua(globals.load(load(script), script).call());
+        }
+
+        private LuaValue execute(List<String> command) {
+            String key = command.get(1);
+            switch (command.get(0).toUpperCase()) {
+                case "EXISTS":
+                    return LuaValue.valueOf(exists(key) ? 1 : 0);
+                case "GET":
+                    return strings.containsKey(key) ? LuaValue.valueOf(strings.get(key)) : LuaValue.FALSE;
+                case "SET":
+                    strings.put(key, command.get(2));
+                    if (command.size() > 4 && "EX".equalsIgnoreCase(command.get(3))) {
+                        ttls.put(key, Long.parseLong(command.get(4)));
+                    }
+                    LuaTable ok = new LuaTable();
+                    ok.set("ok", "OK");
+                    return ok;
+                case "INCRBY":
+                    return incr(key, Long.parseLong(command.get(2)));
+                case "DECRBY":
+                    return incr(key, -Long.parseLong(command.get(2)));
+                case "DEL": {
+                    int deleted = 0;
+                    for (String k : command.subList(1, command.size())) {
+                        deleted += exists(k) ? 1 : 0;
+                        strings.remove(k);
+                        hashes.remove(k);
+                        zsets.remove(k);
+                        sets.remove(k);
+                        ttls.remove(k);
+                    }
+                    return LuaValue.valueOf(deleted);
+                }
+                case "EXPIRE":
+                    if (!exists(key)) {
+                        return LuaValue.valueOf(0);
+                    }
+                    ttls.put(key, Long.parseLong(command.get(2)));
+                    return LuaValue.valueOf(1);
+                case "HSET":
+                    return LuaValue.valueOf(hash(key).put(command.get(2), command.get(3)) == null ? 1 : 0);
+                case "HINCRBY": {
+                    long value = Long.parseLong(hash(key).getOrDefault(command.get(2), "0"))
+                            + Long.parseLong(command.get(3));
+                    hash(key).put(command.get(2), String.valueOf(value));
+                    return LuaInteger.valueOf(value);
+                }
+                case "HGETALL": {
+                    List<String> flat = new ArrayList<>();
+                    hashes.getOrDefault(key, Map.of()).forEach((field, value) -> {
+                        flat.add(field);
+                        flat.add(value);
+                    });
+                    return toTable(flat);
+                }
+                case "ZADD":
+                    return LuaValue.valueOf(zsets.computeIfAbsent(key, k -> new LinkedHashMap<>())
+                            .put(command.get(3), Double.parseDouble(command.get(2))) == null ? 1 : 0);
+                case "ZREM":
+                    return LuaValue.valueOf(zsets.getOrDefault(key, new HashMap<>()).remove(command.get(2)) != null ? 1 : 0);
+                case "SADD":
+                    return LuaValue.valueOf(sets.computeIfAbsent(key, k -> new HashSet<>()).add(command.get(2)) ? 1 : 0);
+                case "SREM":
+                    return LuaValue.valueOf(sets.getOrDefault(key, new HashSet<>()).remove(command.get(2)) ? 1 : 0);
+                default:
+                    throw new UnsupportedOperationException("Lệnh chưa giả lập: " + command.get(0));
+            }
+        }
+
+        private boolean exists(String key) {
+            return strings.containsKey(key) || hashes.containsKey(key) || zsets.containsKey(key)
+                    || sets.containsKey(key);
+        }
+
+        private Map<String, String> hash(String key) {
+            return hashes.computeIfAbsent(key, k -> new LinkedHashMap<>());
+        }
+
+        private LuaValue incr(String key, long delta) {
+            long value = Long.parseLong(strings.getOrDefault(key, "0")) + delta;
+            strings.put(key, String.valueOf(value));
+            return LuaInteger.valueOf(value);
+        }
+
+        private static LuaTable toTable(List<String> values) {
+            LuaTable table = new LuaTable();
+            for (int i = 0; i < values.size(); i++) {
+                table.set(i + 1, LuaValue.valueOf(values.get(i)));
+            }
+            return table;
+        }
+
+        // Chuyển kết quả về kiểu Java như Redis: số -> Long, bảng -> List
+        private static Object fromLua(LuaValue value) {
+            if (value.istable()) {
+                List<Object> list = new ArrayList<>();
+                for (int i = 1; i <= value.length(); i++) {
+                    list.add(fromLua(value.get(i)));
+                }
+                return list;
+            }
+            if (value.type() == LuaValue.TNUMBER) {
+                return value.tolong();
+            }
+            return value.isnil() ? null : value.tojstring();
+        }
+
+        private static String load(String script) {
+            try (InputStream in = StockReservationScriptsTest.class.getResourceAsStream("/scripts/" + script + ".lua")) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
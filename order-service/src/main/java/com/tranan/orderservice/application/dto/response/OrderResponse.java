@@ -21,5 +21,8 @@ public class OrderResponse {
     private Integer totalItems;
     private BigDecimal totalAmount;
     private String status;
+    private String failureReason;
+    private Boolean stockReserved;
+    private String thumbnail;
     private Instant createdAt;
 }
@@ -11,6 +11,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class OrderStatsResponse {
     private long total;
+    private long processing;
     private long pendingPayment;
     private long paid;
     private long shipping;
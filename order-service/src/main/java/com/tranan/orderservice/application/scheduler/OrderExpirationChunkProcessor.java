@@ -0,0 +1,68 @@
+package com.tranan.orderservice.application.scheduler;
+
+import com.tranan.orderservice.application.usecase.OrderInventoryService;
+import com.tranan.orderservice.application.usecase.OrderStatsCounter;
+import com.tranan.orderservice.domain.model.Order;
+import com.tranan.orderservice.domain.model.OrderStatus;
+import com.tranan.orderservice.domain.repository.OrderRepository;
+import com.tranan.orderservice.infrastructure.event.OrderEventPublisher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Hủy một chunk đơn hàng quá hạn trong một transaction riêng.
+ *
+ * Workflow cho mỗi chunk:
+ * 1. Load + khóa các đơn hàng vẫn còn PENDING_PAYMENT (đơn đã được thanh toán
+ * trong lúc chờ sẽ bị bỏ qua)
+ * 2. Cập nhật status sang CANCELLED
+ * 3. Trả lại tồn kho cho cả chunk: release các hold (đơn cũ thì
+ * restore-multiple)
+ * 4. Ghi event thông báo cho user vào outbox
+ *
+ * Nếu restore thất bại, transaction của chunk rollback và các đơn hàng sẽ được
+ * xử lý lại ở lần quét sau.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderExpirationChunkProcessor {
+
+    private final OrderRepository orderRepository;
+    private final OrderInventoryService orderInventoryService;
+    private final OrderEventPublisher orderEventPublisher;
+    private final OrderStatsCounter orderStatsCounter;
+
+    /**
+     * @return số đơn hàng đã hủy trong chunk
+     */
+    @Transactional
+    public int cancelExpiredOrders(List<Long> orderIds) {
+        List<Order> orders = orderRepository.findByIdInAndStatusForUpdate(orderIds, OrderStatus.PENDING_PAYMENT);
+        if (orders.isEmpty()) {
+            return 0;
+        }
+
+        for (Order order : orders) {
+            log.info("Cancelling expired order: {} (orderId: {}, userId: {}, createdAt: {})",
+                    order.getOrderCode(), order.getId(), order.getUserId(), order.getCreatedAt());
+            order.cancel(); // Sử dụng domain method để transition
+            orderRepository.save(order);
+            orderStatsCounter.recordTransition(OrderStatus.PENDING_PAYMENT, OrderStatus.CANCELLED);
+        }
+
+        // Release hold (hoặc restore với đơn cũ) cho cả chunk trong 1-2 lần gọi
+        orderInventoryService.releaseOrRestore(orders);
+
+        for (Order order : orders) {
+            orderEventPublisher.publish(order, "ORDER_EXPIRED");
+        }
+
+        log.info("Cancelled {} expired orders in chunk (requested: {})", orders.size(), orderIds.size());
+        return orders.size();
+    }
+}
@@ -1,53 +1,76 @@
 package com.tranan.orderservice.application.scheduler;
 
-import com.tranan.orderservice.domain.model.Order;
-import com.tranan.orderservice.domain.model.OrderItem;
 import com.tranan.orderservice.domain.model.OrderStatus;
 import com.tranan.orderservice.domain.repository.OrderRepository;
-import com.tranan.orderservice.infrastructure.client.client.InventoryServiceClient;
-import com.tranan.orderservice.infrastructure.client.dto.ReduceStockRequest;
-import com.tranan.orderservice.infrastructure.event.OrderEvent;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Scheduler để tự động hủy các đơn hàng PENDING_PAYMENT quá thời hạn thanh
  * toán.
- * 
+ *
  * Workflow:
- * 1. Tìm tất cả đơn hàng PENDING_PAYMENT có createdAt > timeout hours
- * 2. Với mỗi đơn hàng quá hạn:
- * - Restore inventory (hoàn lại số lượng tồn kho)
- * - Cập nhật status sang CANCELLED
- * - Gửi event thông báo cho user
+ * 1. Duyệt id các đơn hàng PENDING_PAYMENT có createdAt > timeout hours theo
+ * keyset pagination (order.expiration.chunk-size đơn mỗi chunk)
+ * 2. Mỗi chunk được xử lý trên worker pool giới hạn
+ * (order.expiration.workers), trong transaction riêng, xem
+ * {@link OrderExpirationChunkProcessor}
+ *
+ * Metrics: order.expiration.chunk (thời gian xử lý mỗi chunk),
+ * order.expiration.backlog (số đơn quá hạn còn chờ xử lý)
  */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class OrderExpirationScheduler {
 
     private final OrderRepository orderRepository;
-    private final InventoryServiceClient inventoryServiceClient;
-    private final KafkaTemplate<String, OrderEvent> kafkaTemplate;
+    private final OrderExpirationChunkProcessor chunkProcessor;
+    private final ExecutorService expirationExecutor;
+    private final Timer chunkTimer;
+    private final AtomicLong backlog = new AtomicLong();
 
     @Value("${order.payment.timeout-hours:24}")
     private int timeoutHours;
 
+    @Value("${order.expiration.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${order.expiration.workers:4}")
+    private int workers;
+
+    public OrderExpirationScheduler(OrderRepository orderRepository,
+            OrderExpirationChunkProcessor chunkProcessor,
+            ExecutorService expirationExecutor,
+            MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.chunkProcessor = chunkProcessor;
+        this.expirationExecutor = expirationExecutor;
+        this.chunkTimer = Timer.builder("order.expiration.chunk")
+                .description("Thời gian hủy một chunk đơn hàng quá hạn")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        meterRegistry.gauge("order.expiration.backlog", backlog);
+    }
+
     /**
      * Job chạy định kỳ để kiểm tra và hủy đơn hàng quá hạn.
      * Mặc định chạy mỗi 30 phút.
      */
     @Scheduled(cron = "${order.expiration.cron:0 */30 * * * *}")
-    @Transactional
     public void cancelExpiredOrders() {
         log.info("=== Starting Order Expiration Check ===");
 
@@ -56,103 +79,68 @@ public class OrderExpirationScheduler {
         log.info("Looking for PENDING_PAYMENT orders created before: {} (timeout: {} hours)",
                 cutoffTime, timeoutHours);
 
-        // Tìm các đơn hàng quá hạn
-        List<Order> expiredOrders = orderRepository.findByStatusAndCreatedAtBefore(
-                OrderStatus.PENDING_PAYMENT, cutoffTime);
+        long expiredCount = orderRepository.countByStatusAndCreatedAtBefore(OrderStatus.PENDING_PAYMENT, cutoffTime);
+        backlog.set(expiredCount);
 
-        if (expiredOrders.isEmpty()) {
+        if (expiredCount == 0) {
             log.info("No expired orders found. Job completed.");
             return;
         }
 
-        log.info("Found {} expired orders. Processing cancellation...", expiredOrders.size());
+        log.info("Found {} expired orders. Processing cancellation in chunks of {}...", expiredCount, chunkSize);
 
-        int successCount = 0;
-        int failCount = 0;
+        AtomicInteger successCount = new AtomicInteger();
+        AtomicInteger failCount = new AtomicInteger();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        // Giới hạn số chunk đang chờ/chạy để không load toàn bộ id vào bộ nhớ
+        Semaphore inFlight = new Semaphore(workers * 2);
 
-        for (Order order : expiredOrders) {
-            try {
-                cancelExpiredOrder(order);
-                successCount++;
-            } catch (Exception e) {
-                failCount++;
-                log.error("Failed to cancel expired order {}: {}", order.getId(), e.getMessage(), e);
+        Long lastId = 0L;
+        try {
+            while (true) {
+                List<Long> orderIds = orderRepository.findIdsByStatusAndCreatedAtBefore(
+                        OrderStatus.PENDING_PAYMENT, cutoffTime, lastId, chunkSize);
+                if (orderIds.isEmpty()) {
+                    break;
+                }
+                lastId = orderIds.get(orderIds.size() - 1);
+
+                inFlight.acquire();
+                futures.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        processChunk(orderIds, successCount, failCount);
+                    } finally {
+                        inFlight.release();
+                    }
+                }, expirationExecutor));
+
+                if (orderIds.size() < chunkSize) {
+                    break;
+                }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Order expiration check interrupted");
         }
 
-        log.info("=== Order Expiration Check Completed ===");
-        log.info("Successfully cancelled: {}, Failed: {}", successCount, failCount);
-    }
-
-    /**
-     * Hủy một đơn hàng quá hạn.
-     */
-    private void cancelExpiredOrder(Order order) {
-        log.info("Cancelling expired order: {} (orderId: {}, userId: {}, createdAt: {})",
-                order.getOrderCode(), order.getId(), order.getUserId(), order.getCreatedAt());
-
-        // 1. Restore inventory
-        restoreInventoryForOrder(order);
-
-        // 2. Cập nhật status
-        order.cancel(); // Sử dụng domain method để transition
-        orderRepository.save(order);
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
 
-        // 3. Publish event
-        publishOrderExpiredEvent(order);
-
-        log.info("Order {} cancelled successfully due to payment timeout", order.getOrderCode());
-    }
-
-    /**
-     * Hoàn lại inventory cho các items trong đơn hàng.
-     */
-    private void restoreInventoryForOrder(Order order) {
-        for (OrderItem item : order.getItems()) {
-            try {
-                log.info("Restoring inventory for product {} (quantity: {})",
-                        item.getProductId(), item.getQuantity());
-                inventoryServiceClient.restoreStock(
-                        item.getProductId(),
-                        ReduceStockRequest.builder()
-                                .productId(item.getProductId())
-                                .quantity(item.getQuantity())
-                                .build());
-            } catch (Exception e) {
-                log.error("Failed to restore inventory for product {}: {}",
-                        item.getProductId(), e.getMessage());
-                // Tiếp tục xử lý các item khác, log lỗi để xử lý manual nếu cần
-            }
-        }
+        log.info("=== Order Expiration Check Completed ===");
+        log.info("Successfully cancelled: {}, Failed: {}", successCount.get(), failCount.get());
     }
 
-    /**
-     * Publish event thông báo đơn hàng đã bị hủy do quá hạn thanh toán.
-     */
-    private void publishOrderExpiredEvent(Order order) {
+    private void processChunk(List<Long> orderIds, AtomicInteger successCount, AtomicInteger failCount) {
+        Timer.Sample sample = Timer.start();
         try {
-            OrderEvent event = OrderEvent.builder()
-                    .eventType("ORDER_EXPIRED")
-                    .orderId(order.getId())
-                    .userId(order.getUserId())
-                    .totalAmount(order.getTotalAmount())
-                    .status(order.getStatus().name())
-                    .timestamp(Instant.now())
-                    .build();
-
-            kafkaTemplate.send("order-events", String.valueOf(order.getId()), event)
-                    .whenComplete((result, ex) -> {
-                        if (ex == null) {
-                            log.debug("Order expired event published for orderId: {}", order.getId());
-                        } else {
-                            log.error("Failed to publish order expired event for orderId: {}", order.getId(), ex);
-                        }
-                    });
-
-            log.info("Published OrderExpiredEvent for expired order {}", order.getId());
+            int cancelled = chunkProcessor.cancelExpiredOrders(orderIds);
+            successCount.addAndGet(cancelled);
         } catch (Exception e) {
-            log.error("Failed to publish OrderExpiredEvent for order {}: {}",
-                    order.getId(), e.getMessage());
+            failCount.addAndGet(orderIds.size());
+            log.error("Failed to cancel expired order chunk {}..{}: {}",
+                    orderIds.get(0), orderIds.get(orderIds.size() - 1), e.getMessage(), e);
+        } finally {
+            sample.stop(chunkTimer);
+            backlog.addAndGet(-orderIds.size());
         }
     }
 }
@@ -0,0 +1,148 @@
+package com.tranan.orderservice.application.scheduler;
+
+import com.tranan.orderservice.domain.model.OrderStatus;
+import com.tranan.orderservice.domain.repository.OrderRepository;
+import com.tranan.orderservice.infrastructure.transaction.AfterCommit;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Hủy đơn hàng PENDING_PAYMENT ngay khi hết hạn thanh toán (sai lệch cỡ một
+ * tick, mặc định 1 giây) thay vì chờ lần quét cron kế tiếp.
+ *
+ * Deadline (createdAt + order.payment.timeout-hours) được đưa vào
+ * {@link TimerWheel} khi tạo đơn hàng, bỏ ra khi đơn được thanh toán/hủy, và
+ * được dựng lại lúc khởi động từ các đơn PENDING_PAYMENT. Việc hủy dùng chung
+ * {@link OrderExpirationChunkProcessor} nên nếu nhiều replica cùng giữ một đơn
+ * thì chỉ replica đầu tiên thực sự hủy. {@link OrderExpirationScheduler} vẫn
+ * chạy như lưới an toàn cho các đơn tạo trên replica đã dừng.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderExpiryTimer {
+
+    private final OrderRepository orderRepository;
+    private final OrderExpirationChunkProcessor chunkProcessor;
+    private final ExecutorService expirationExecutor;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${order.payment.timeout-hours:24}")
+    private int timeoutHours;
+
+    @Value("${order.expiration.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${order.expiration.timer.enabled:true}")
+    private boolean enabled;
+
+    @Value("${order.expiration.timer.tick-ms:1000}")
+    private long tickMillis;
+
+    @Value("${order.expiration.timer.wheel-size:512}")
+    private int wheelSize;
+
+    private TimerWheel<Long> wheel;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        wheel = new TimerWheel<>("order-expiry-timer", tickMillis, wheelSize, this::onExpired);
+        wheel.start();
+        meterRegistry.gauge("order.expiration.timer.pending", wheel, TimerWheel::size);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (wheel != null) {
+            wheel.stop();
+        }
+    }
+
+    /**
+     * Dựng lại các deadline từ DB khi service khởi động xong
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        long lastId = 0L;
+        int count = 0;
+        while (true) {
+            Map<Long, Instant> page = orderRepository.findCreatedAtByStatus(
+                    OrderStatus.PENDING_PAYMENT, lastId, chunkSize);
+            if (page.isEmpty()) {
+                break;
+            }
+            for (Map.Entry<Long, Instant> entry : page.entrySet()) {
+                wheel.schedule(entry.getKey(), deadlineOf(entry.getValue()));
+                lastId = entry.getKey();
+            }
+            count += page.size();
+            if (page.size() < chunkSize) {
+                break;
+            }
+        }
+        log.info("Rebuilt order expiry timer with {} pending orders", count);
+    }
+
+    /**
+     * Đăng ký deadline cho đơn hàng mới (sau khi transaction commit)
+     */
+    public void schedule(Long orderId, Instant createdAt) {
+        if (!enabled) {
+            return;
+        }
+        Instant deadline = deadlineOf(createdAt != null ? createdAt : Instant.now());
+        AfterCommit.run(() -> wheel.schedule(orderId, deadline));
+    }
+
+    /**
+     * Bỏ deadline khi đơn hàng không còn chờ thanh toán (đã thanh toán/hủy)
+     */
+    public void cancel(Long orderId) {
+        if (!enabled) {
+            return;
+        }
+        AfterCommit.run(() -> wheel.cancel(orderId));
+    }
+
+    private Instant deadlineOf(Instant createdAt) {
+        return createdAt.plus(timeoutHours, ChronoUnit.HOURS);
+    }
+
+    /**
+     * Chạy trên thread của wheel: chỉ chia chunk và đẩy sang worker pool
+     */
+    private void onExpired(List<Long> orderIds) {
+        log.info("{} orders reached payment deadline", orderIds.size());
+        for (int i = 0; i < orderIds.size(); i += chunkSize) {
+            List<Long> chunk = new ArrayList<>(orderIds.subList(i, Math.min(i + chunkSize, orderIds.size())));
+            expirationExecutor.execute(() -> {
+                try {
+                    chunkProcessor.cancelExpiredOrders(chunk);
+                } catch (Exception e) {
+                    log.error("Failed to cancel expired orders {}: {}", chunk, e.getMessage(), e);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.tranan.orderservice.application.scheduler;
+
+import com.tranan.orderservice.application.usecase.OrderInventoryService;
+import com.tranan.orderservice.domain.model.Order;
+import com.tranan.orderservice.domain.model.PendingStockCommit;
+import com.tranan.orderservice.domain.repository.OrderRepository;
+import com.tranan.orderservice.domain.repository.PendingStockCommitRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Thử lại commit tồn kho cho các đơn đã thanh toán mà lần commit ngay sau
+ * thanh toán bị lỗi (xem {@link OrderInventoryService#commitAfterPayment}).
+ *
+ * Mỗi lần chạy lấy các record đến hạn (FOR UPDATE SKIP LOCKED, nhiều replica
+ * chạy song song không commit trùng), commit thành công thì xóa record, lỗi
+ * thì hẹn lại với backoff tăng gấp đôi (tối đa max-backoff-ms). Record không
+ * bao giờ bị bỏ: đơn đã thanh toán phải được trừ kho, từ alert-attempts lần lỗi
+ * trở đi mỗi lần lỗi đều log error để xử lý tay.
+ */
+@Slf4j
+@Component
+public class StockCommitRetryScheduler {
+
+    private final PendingStockCommitRepository pendingStockCommitRepository;
+    private final OrderRepository orderRepository;
+    private final OrderInventoryService orderInventoryService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long backoffMs;
+    private final long maxBackoffMs;
+    private final int alertAttempts;
+
+    public StockCommitRetryScheduler(PendingStockCommitRepository pendingStockCommitRepository,
+            OrderRepository orderRepository,
+            OrderInventoryService orderInventoryService,
+            PlatformTransactionManager transactionManager,
+            @Value("${order.inventory.commit-retry.batch-size:100}") int batchSize,
+            @Value("${order.inventory.commit-retry.backoff-ms:30000}") long backoffMs,
+            @Value("${order.inventory.commit-retry.max-backoff-ms:1800000}") long maxBackoffMs,
+            @Value("${order.inventory.commit-retry.alert-attempts:10}") int alertAttempts) {
+        this.pendingStockCommitRepository = pendingStockCommitRepository;
+        this.orderRepository = orderRepository;
+        this.orderInventoryService = orderInventoryService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.backoffMs = backoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.alertAttempts = alertAttempts;
+    }
+
+    @Scheduled(fixedDelayString = "${order.inventory.commit-retry.interval-ms:30000}")
+    public void retryPendingCommits() {
+        Integer retried = transactionTemplate.execute(status -> retryBatch());
+        if (retried != null && retried > 0) {
+            log.info("Retried inventory commit for {} paid orders", retried);
+        }
+    }
+
+    private int retryBatch() {
+        Instant now = Instant.now();
+        List<PendingStockCommit> due = pendingStockCommitRepository.findDueForUpdate(now, batchSize);
+        for (PendingStockCommit pending : due) {
+            Long orderId = pending.getOrderId();
+            Optional<Order> order = orderRepository.findById(orderId).filter(Order::isStockReserved);
+            if (order.isEmpty()) {
+                log.warn("Dropping pending inventory commit for order {}: order missing or not reserved", orderId);
+                pendingStockCommitRepository.remove(orderId);
+                continue;
+            }
+
+            try {
+                orderInventoryService.commit(order.get());
+                pendingStockCommitRepository.remove(orderId);
+            } catch (Exception e) {
+                reschedule(pending, now, e);
+            }
+        }
+        return due.size();
+    }
+
+    private void reschedule(PendingStockCommit pending, Instant now, Exception e) {
+        int attempts = pending.getAttempts() + 1;
+        long delayMs = Math.min(backoffMs << Math.min(attempts - 1, 20), maxBackoffMs);
+        String error = String.valueOf(e.getMessage());
+        pendingStockCommitRepository.reschedule(pending.getOrderId(), attempts, now.plusMillis(delayMs),
+                error.length() > 500 ? error.substring(0, 500) : error);
+
+        if (attempts >= alertAttempts) {
+            log.error("Inventory commit for paid order {} still failing after {} attempts, needs reconciliation: {}",
+                    pending.getOrderId(), attempts, error);
+        } else {
+            log.warn("Inventory commit for paid order {} failed (attempt {}), retrying in {} ms: {}",
+                    pending.getOrderId(), attempts, delayMs, error);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.tranan.orderservice.application.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Timer wheel 2 tầng (hierarchical).
+ *
+ * Tầng dưới có wheelSize bucket, mỗi bucket là một tick, chứa các key đến hạn
+ * trong vòng quay hiện tại (wheelSize tick kế tiếp). Tầng overflow có wheelSize
+ * bucket, mỗi bucket là một vòng quay của tầng dưới; đầu mỗi vòng quay, bucket
+ * overflow của vòng đó được chuyển (cascade) xuống tầng dưới. Với tick 1 giây và
+ * wheelSize 512, key có deadline 24h chỉ được chạm tới 2 lần (cascade + hết hạn)
+ * thay vì bị duyệt lại ở mỗi vòng quay; deadline xa hơn wheelSize² tick mới
+ * phải nằm lại trong overflow qua nhiều vòng.
+ *
+ * schedule / cancel và bước tick của worker chạy dưới cùng một lock nên key
+ * không thể rơi vào bucket vừa được xử lý. Key được xếp vào tick làm tròn lên
+ * của deadline nên không bao giờ hết hạn sớm. Các key đến hạn trong một tick
+ * được gom lại và giao cho expiryHandler ngoài lock (trên thread của wheel,
+ * handler không nên block).
+ */
+@Slf4j
+public class TimerWheel<K> {
+
+    // Vị trí của key: tầng (overflow hay không) và bucket
+    private record Slot(boolean overflow, int index) {
+    }
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final int mask;
+    private final List<Map<K, Long>> buckets;
+    private final List<Map<K, Long>> overflowBuckets;
+    private final Map<K, Slot> slots = new HashMap<>();
+    private final Object lock = new Object();
+    private final Consumer<List<K>> expiryHandler;
+    private final Thread worker;
+
+    // Tick cuối cùng đã xử lý, chỉ đọc / ghi dưới lock
+    private long processedTick;
+    private volatile boolean running = true;
+
+    public TimerWheel(String name, long tickMillis, int wheelSize, Consumer<List<K>> expiryHandler) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize phải là lũy thừa của 2: " + wheelSize);
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.mask = wheelSize - 1;
+        this.expiryHandler = expiryHandler;
+        this.buckets = new ArrayList<>(wheelSize);
+        this.overflowBuckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new HashMap<>());
+            overflowBuckets.add(new HashMap<>());
+        }
+        this.processedTick = currentTick();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+    }
+
+    public void start() {
+        worker.start();
+    }
+
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    /**
+     * Đặt (hoặc đặt lại) deadline cho key. Deadline đã qua sẽ được xử lý ở tick
+     * kế tiếp.
+     */
+    public void schedule(K key, Instant deadline) {
+        long deadlineMillis = deadline.toEpochMilli();
+        synchronized (lock) {
+            remove(key);
+            place(key, deadlineMillis);
+        }
+    }
+
+    public void cancel(K key) {
+        synchronized (lock) {
+            remove(key);
+        }
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return slots.size();
+        }
+    }
+
+    private long currentTick() {
+        return System.currentTimeMillis() / tickMillis;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                long sleepMillis;
+                synchronized (lock) {
+                    sleepMillis = (processedTick + 1) * tickMillis - System.currentTimeMillis();
+                }
+                if (sleepMillis > 0) {
+                    Thread.sleep(sleepMillis);
+                }
+                long now = currentTick();
+                while (true) {
+                    List<K> expired;
+                    synchronized (lock) {
+                        if (processedTick >= now) {
+                            break;
+                        }
+                        expired = advance();
+                    }
+                    if (!expired.isEmpty()) {
+                        expiryHandler.accept(expired);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Timer wheel tick failed", e);
+            }
+        }
+    }
+
+    /**
+     * Xử lý tick kế tiếp (dưới lock): cascade overflow khi sang vòng quay mới,
+     * rồi lấy toàn bộ key của bucket
+     */
+    private List<K> advance() {
+        long tick = processedTick + 1;
+        if ((tick & mask) == 0) {
+            cascade(tick);
+        }
+        processedTick = tick;
+
+        int index = (int) (tick & mask);
+        Map<K, Long> bucket = buckets.get(index);
+        List<K> expired = new ArrayList<>(bucket.keySet());
+        bucket.clear();
+        expired.forEach(slots::remove);
+        return expired;
+    }
+
+    /**
+     * Chuyển các key của vòng quay bắt đầu từ firstTick xuống tầng dưới; key
+     * của các vòng quay xa hơn (quá wheelSize² tick) nằm lại chờ vòng sau
+     */
+    private void cascade(long firstTick) {
+        Map<K, Long> overflow = overflowBuckets.get((int) ((firstTick / wheelSize) & mask));
+        Iterator<Map.Entry<K, Long>> iterator = overflow.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, Long> entry = iterator.next();
+            if (deadlineTick(entry.getValue()) < firstTick + wheelSize) {
+                iterator.remove();
+                place(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void place(K key, long deadlineMillis) {
+        long tick = deadlineTick(deadlineMillis);
+        if (tick <= processedTick + wheelSize) {
+            int index = (int) (tick & mask);
+            buckets.get(index).put(key, deadlineMillis);
+            slots.put(key, new Slot(false, index));
+        } else {
+            int index = (int) ((tick / wheelSize) & mask);
+            overflowBuckets.get(index).put(key, deadlineMillis);
+            slots.put(key, new Slot(true, index));
+        }
+    }
+
+    private void remove(K key) {
+        Slot slot = slots.remove(key);
+        if (slot != null) {
+            (slot.overflow() ? overflowBuckets : buckets).get(slot.index()).remove(key);
+        }
+    }
+
+    // Tick làm tròn lên của deadline, không sớm hơn tick kế tiếp
+    private long deadlineTick(long deadlineMillis) {
+        return Math.max((deadlineMillis + tickMillis - 1) / tickMillis, processedTick + 1);
+    }
+}
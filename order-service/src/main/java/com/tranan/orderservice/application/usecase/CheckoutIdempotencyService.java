@@ -0,0 +1,146 @@
+package com.tranan.orderservice.application.usecase;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tranan.orderservice.application.dto.response.OrderResponse;
+import com.tranan.orderservice.domain.model.IdempotencyRecord;
+import com.tranan.orderservice.domain.repository.IdempotencyKeyRepository;
+import com.tranan.orderservice.infrastructure.transaction.AfterCommit;
+import com.tranan.orderservice.presentation.advice.exception.InvalidOrderOperationException;
+import com.tranan.orderservice.presentation.advice.exception.ResourceAlreadyExistsException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+/**
+ * Chống tạo trùng đơn hàng khi client/gateway gửi lại request checkout với
+ * cùng Idempotency-Key.
+ *
+ * Key được giữ trong bảng order_idempotency_keys, chung transaction với việc
+ * tạo đơn hàng: nếu checkout lỗi thì key cũng rollback và client có thể thử
+ * lại; request trùng chạy song song sẽ chờ request đầu commit rồi nhận lại
+ * response của nó. Response đã hoàn tất được giữ thêm trong cache local
+ * (Caffeine) nên request lặp lại thường không cần chạm tới DB, và không bao
+ * giờ gọi lại cart/product/inventory.
+ */
+@Slf4j
+@Service
+public class CheckoutIdempotencyService {
+
+    public static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Cache<String, IdempotencyRecord> completedCache;
+
+    public CheckoutIdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository,
+            ObjectMapper objectMapper,
+            @Value("${order.idempotency.ttl-hours:24}") long ttlHours,
+            @Value("${order.idempotency.local-cache.ttl-minutes:10}") long localTtlMinutes,
+            @Value("${order.idempotency.local-cache.max-size:10000}") long localMaxSize) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.completedCache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(Math.min(localTtlMinutes, ttl.toMinutes())))
+                .maximumSize(localMaxSize)
+                .build();
+    }
+
+    /**
+     * Chạy checkout đúng một lần cho mỗi (userId, idempotencyKey).
+     *
+     * @param requestFingerprint mô tả nội dung request; cùng key nhưng khác nội
+     *                           dung sẽ bị từ chối
+     */
+    @Transactional
+    public OrderResponse execute(Long userId, String idempotencyKey, String requestFingerprint,
+            Supplier<OrderResponse> checkout) {
+        validateKey(idempotencyKey);
+        String requestHash = DigestUtils.sha256Hex(requestFingerprint);
+        String cacheKey = userId + ":" + idempotencyKey;
+
+        // 1. Cache local
+        IdempotencyRecord cached = completedCache.getIfPresent(cacheKey);
+        if (cached != null) {
+            log.info("Idempotent checkout replay (cache) - userId: {}, key: {}", userId, idempotencyKey);
+            return replay(cached, requestHash);
+        }
+
+        // 2. Giữ key trong DB; key đã tồn tại thì trả về response cũ
+        Instant expiresAt = Instant.now().plus(ttl);
+        if (!idempotencyKeyRepository.claim(userId, idempotencyKey, requestHash, expiresAt)) {
+            IdempotencyRecord existing = idempotencyKeyRepository.find(userId, idempotencyKey)
+                    .filter(IdempotencyRecord::isCompleted)
+                    .orElseThrow(() -> new ResourceAlreadyExistsException(
+                            "Yêu cầu với Idempotency-Key này đang được xử lý"));
+            completedCache.put(cacheKey, existing);
+            log.info("Idempotent checkout replay (db) - userId: {}, key: {}", userId, idempotencyKey);
+            return replay(existing, requestHash);
+        }
+
+        // 3. Lần đầu: chạy checkout và lưu response trong cùng transaction
+        OrderResponse response = checkout.get();
+        String payload = serialize(response);
+        idempotencyKeyRepository.complete(userId, idempotencyKey, response.getOrderId(), payload);
+
+        IdempotencyRecord record = IdempotencyRecord.builder()
+                .userId(userId)
+                .idempotencyKey(idempotencyKey)
+                .requestHash(requestHash)
+                .orderId(response.getOrderId())
+                .responsePayload(payload)
+                .expiresAt(expiresAt)
+                .build();
+        AfterCommit.run(() -> completedCache.put(cacheKey, record));
+        return response;
+    }
+
+    /**
+     * Xóa các key đã hết hạn
+     */
+    @Scheduled(cron = "${order.idempotency.cleanup.cron:0 15 * * * *}")
+    public void cleanupExpiredKeys() {
+        int deleted = idempotencyKeyRepository.deleteExpired(Instant.now());
+        if (deleted > 0) {
+            log.info("Deleted {} expired idempotency keys", deleted);
+        }
+    }
+
+    private void validateKey(String idempotencyKey) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(
+                    "Idempotency-Key không hợp lệ (tối đa " + MAX_KEY_LENGTH + " ký tự)");
+        }
+    }
+
+    private OrderResponse replay(IdempotencyRecord record, String requestHash) {
+        if (!record.getRequestHash().equals(requestHash)) {
+            throw new InvalidOrderOperationException(
+                    "Idempotency-Key đã được sử dụng cho một yêu cầu checkout khác");
+        }
+        try {
+            return objectMapper.readValue(record.getResponsePayload(), OrderResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Không thể đọc response đã lưu cho Idempotency-Key", e);
+        }
+    }
+
+    private String serialize(OrderResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Không thể lưu response cho Idempotency-Key", e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.tranan.orderservice.application.usecase;
+
+import com.tranan.orderservice.domain.repository.OrderCodeSequenceRepository;
+import com.tranan.orderservice.domain.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Sinh mã đơn hàng dạng ORD-YYYYMMDD-NNNN.
+ *
+ * Mỗi node xin trước một block số thứ tự (order.code.block-size) từ bảng
+ * order_code_sequences rồi cấp phát dần trong bộ nhớ, nên checkout không phải
+ * chạy COUNT trên bảng orders và mã luôn duy nhất giữa các replica. Mã có thể
+ * không liên tục (block chưa dùng hết khi restart sẽ bị bỏ qua).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderCodeGenerator {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final OrderCodeSequenceRepository sequenceRepository;
+    private final OrderRepository orderRepository;
+
+    @Value("${order.code.block-size:50}")
+    private int blockSize;
+
+    private LocalDate currentDate;
+    private long nextValue;
+    private long maxValue;
+
+    public synchronized String nextOrderCode() {
+        LocalDate today = LocalDate.now();
+
+        if (!today.equals(currentDate)) {
+            ensureSequenceExists(today);
+            currentDate = today;
+            nextValue = 1;
+            maxValue = 0;
+        }
+
+        if (nextValue > maxValue) {
+            maxValue = sequenceRepository.allocateBlock(today, blockSize);
+            nextValue = maxValue - blockSize + 1;
+            log.debug("Allocated order code block [{}..{}] for {}", nextValue, maxValue, today);
+        }
+
+        return String.format("ORD-%s-%04d", today.format(DATE_FORMAT), nextValue++);
+    }
+
+    /**
+     * Bộ đếm của ngày mới được seed từ số đơn đã có trong ngày (chỉ chạy một lần
+     * mỗi ngày mỗi node) để không trùng với mã sinh theo cách cũ.
+     */
+    private void ensureSequenceExists(LocalDate date) {
+        if (!sequenceRepository.exists(date)) {
+            sequenceRepository.initialize(date, orderRepository.countOrdersByDate(date));
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.tranan.orderservice.application.usecase;
+
+import com.tranan.orderservice.domain.model.Order;
+import com.tranan.orderservice.domain.model.OrderItem;
+import com.tranan.orderservice.domain.repository.PendingStockCommitRepository;
+import com.tranan.orderservice.infrastructure.client.client.InventoryServiceClient;
+import com.tranan.orderservice.infrastructure.client.dto.ReduceStockRequest;
+import com.tranan.orderservice.infrastructure.transaction.AfterCommit;
+import com.tranan.orderservice.presentation.advice.exception.RemoteServiceException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Giữ / commit / trả tồn kho của đơn hàng qua Inventory Service.
+ *
+ * Checkout chỉ giữ hàng (reservation có hạn trên Redis của Inventory Service),
+ * tồn kho thật chỉ bị trừ khi thanh toán thành công. Hold được giữ lâu hơn hạn
+ * thanh toán (order.payment.timeout-hours + order.inventory.hold-grace-minutes)
+ * để không hết hạn khi đơn còn thanh toán được; đơn quá hạn được hủy và trả hold
+ * bởi OrderExpiryTimer / OrderExpirationScheduler. Đơn tạo trước khi có
+ * reservation (stockReserved = false) đã bị trừ kho trực tiếp nên khi hủy phải
+ * restore thay vì release.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderInventoryService {
+
+    private static final int COMMIT_ATTEMPTS = 3;
+
+    private final InventoryServiceClient inventoryServiceClient;
+    private final PendingStockCommitRepository pendingStockCommitRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${order.payment.timeout-hours:24}")
+    private int paymentTimeoutHours;
+
+    @Value("${order.inventory.hold-grace-minutes:60}")
+    private long holdGraceMinutes;
+
+    @Value("${order.inventory.commit-retry.backoff-ms:30000}")
+    private long commitRetryBackoffMs;
+
+    /**
+     * Giữ tồn kho cho items của đơn hàng đã có id. Nếu transaction tạo đơn
+     * rollback thì hold được trả lại ngay thay vì chờ hết hạn.
+     *
+     * Không đủ hàng (4xx) ném IllegalArgumentException; lỗi tạm thời (timeout,
+     * 5xx) ném RemoteServiceException sau khi trả hold, vì Inventory Service có
+     * thể đã giữ hàng dù response không về tới.
+     */
+    public void reserve(Order order) {
+        Long orderId = order.getId();
+        try {
+            inventoryServiceClient.reserveStock(orderId, toRequests(List.of(order)),
+                    paymentTimeoutHours * 60L + holdGraceMinutes);
+        } catch (Exception e) {
+            log.error("Failed to reserve inventory for order {}", orderId, e);
+            if (RemoteServiceException.isTransient(e)) {
+                releaseQuietly(List.of(orderId));
+                throw new RemoteServiceException("Không thể giữ tồn kho. Vui lòng thử lại.", e);
+            }
+            throw new IllegalArgumentException("Không thể giữ tồn kho. Đơn hàng đã bị hủy.");
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        releaseQuietly(List.of(orderId));
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Trả lại tồn kho của các đơn bị hủy / hết hạn: release hold với đơn dùng
+     * reservation, restore (gộp theo productId) với đơn cũ
+     */
+    public void releaseOrRestore(List<Order> orders) {
+        List<Long> reservedOrderIds = orders.stream()
+                .filter(Order::isStockReserved)
+                .map(Order::getId)
+                .toList();
+        List<Order> legacyOrders = orders.stream()
+                .filter(order -> !order.isStockReserved())
+                .toList();
+
+        try {
+            if (!reservedOrderIds.isEmpty()) {
+                inventoryServiceClient.releaseReservations(reservedOrderIds);
+            }
+            if (!legacyOrders.isEmpty()) {
+                inventoryServiceClient.restoreMultipleStock(toRestoreRequests(legacyOrders));
+            }
+        } catch (Exception e) {
+            log.error("Failed to return inventory for orders {}", orders.stream().map(Order::getId).toList(), e);
+            throw new IllegalArgumentException("Không thể hoàn trả tồn kho. Vui lòng liên hệ hỗ trợ.");
+        }
+        log.info("Returned inventory for {} orders ({} reservations released)",
+                orders.size(), reservedOrderIds.size());
+    }
+
+    /**
+     * Commit tồn kho đã giữ sau khi đơn được đánh dấu đã thanh toán (sau commit
+     * transaction). Inventory Service xử lý idempotent nên có thể thử lại.
+     *
+     * Đơn được ghi vào order_pending_stock_commits trong cùng transaction với
+     * trạng thái PAID và chỉ bị xóa khi commit thành công; commit lỗi (hoặc
+     * service dừng giữa chừng) sẽ được StockCommitRetryScheduler thử lại.
+     */
+    public void commitAfterPayment(Order order) {
+        if (!order.isStockReserved()) {
+            return;
+        }
+        Long orderId = order.getId();
+        pendingStockCommitRepository.add(orderId, Instant.now().plusMillis(commitRetryBackoffMs));
+        Runnable commit = () -> {
+            if (commitWithRetry(orderId, toRequests(List.of(order)))) {
+                // Transaction đã commit: xóa record trong transaction mới
+                TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+                transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+                transactionTemplate.executeWithoutResult(status -> pendingStockCommitRepository.remove(orderId));
+            }
+        };
+        AfterCommit.run(commit);
+    }
+
+    /**
+     * Commit tồn kho của đơn đã thanh toán (một lần gọi, dùng cho job thử lại)
+     */
+    public void commit(Order order) {
+        inventoryServiceClient.commitReservation(order.getId(), toRequests(List.of(order)));
+        log.info("Committed inventory reservation for order {}", order.getId());
+    }
+
+    private boolean commitWithRetry(Long orderId, List<ReduceStockRequest> requests) {
+        for (int attempt = 1; attempt <= COMMIT_ATTEMPTS; attempt++) {
+            try {
+                inventoryServiceClient.commitReservation(orderId, requests);
+                log.info("Committed inventory reservation for order {}", orderId);
+                return true;
+            } catch (Exception e) {
+                log.warn("Failed to commit inventory reservation for order {} (attempt {}/{}): {}",
+                        orderId, attempt, COMMIT_ATTEMPTS, e.getMessage());
+            }
+        }
+        log.error("Failed to commit inventory reservation for paid order {}, left for retry job", orderId);
+        return false;
+    }
+
+    private void releaseQuietly(List<Long> orderIds) {
+        try {
+            inventoryServiceClient.releaseReservations(orderIds);
+        } catch (Exception e) {
+            log.warn("Failed to release inventory reservations {}, they will expire: {}", orderIds, e.getMessage());
+        }
+    }
+
+    /**
+     * Gộp số lượng theo productId cho danh sách đơn hàng
+     */
+    private List<ReduceStockRequest> toRequests(List<Order> orders) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (Order order : orders) {
+            for (OrderItem item : order.getItems()) {
+                quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+            }
+        }
+        return quantities.entrySet().stream()
+                .map(entry -> ReduceStockRequest.builder()
+                        .productId(entry.getKey())
+                        .quantity(entry.getValue())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Gộp số lượng theo productId trong từng đơn, giữ orderId để Inventory
+     * Service ghi ledger hoàn kho theo đơn
+     */
+    private List<ReduceStockRequest> toRestoreRequests(List<Order> orders) {
+        return orders.stream()
+                .flatMap(order -> toRequests(List.of(order)).stream()
+                        .peek(request -> request.setOrderId(order.getId())))
+                .toList();
+    }
+}
@@ -2,27 +2,34 @@ package com.tranan.orderservice.application.usecase;
 
 import com.tranan.orderservice.application.dto.response.OrderItemResponse;
 import com.tranan.orderservice.application.dto.response.OrderResponse;
+import com.tranan.orderservice.application.scheduler.OrderExpiryTimer;
 import com.tranan.orderservice.domain.model.Order;
 import com.tranan.orderservice.domain.model.OrderItem;
 import com.tranan.orderservice.domain.model.OrderStatus;
+import com.tranan.orderservice.domain.model.OrderSummary;
 import com.tranan.orderservice.domain.repository.OrderRepository;
+import com.tranan.orderservice.domain.repository.OrderSummaryRepository;
 import com.tranan.orderservice.infrastructure.client.client.CartServiceClient;
 import com.tranan.orderservice.infrastructure.client.client.InventoryServiceClient;
 import com.tranan.orderservice.infrastructure.client.client.ProductServiceClient;
 import com.tranan.orderservice.infrastructure.client.dto.*;
-import com.tranan.orderservice.infrastructure.event.OrderEvent;
+import com.tranan.orderservice.infrastructure.event.CheckoutSagaMessage;
+import com.tranan.orderservice.infrastructure.event.OrderEventPublisher;
+import com.tranan.orderservice.presentation.advice.exception.RemoteServiceException;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.Instant;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -31,22 +38,36 @@ import java.util.stream.Collectors;
 public class OrderService {
 
     private final OrderRepository orderRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final OrderCodeGenerator orderCodeGenerator;
+    private final OrderStatsCounter orderStatsCounter;
+    private final OrderExpiryTimer orderExpiryTimer;
     private final CartServiceClient cartServiceClient;
     private final ProductServiceClient productServiceClient;
     private final InventoryServiceClient inventoryServiceClient;
-    private final KafkaTemplate<String, OrderEvent> kafkaTemplate;
+    private final OrderInventoryService orderInventoryService;
+    private final OrderEventPublisher orderEventPublisher;
+    private final ExecutorService checkoutExecutor;
+    private final MeterRegistry meterRegistry;
+
+    private static final String CHECKOUT_STAGE_METRIC = "order.checkout.stage";
+    private static final String STAGE_CART_FETCH = "cart_fetch";
+    private static final String STAGE_PRODUCT_VALIDATION = "product_validation";
+    private static final String STAGE_STOCK_CHECK = "stock_check";
+    private static final String STAGE_RESERVATION = "reservation";
+    private static final String STAGE_PERSISTENCE = "persistence";
 
     /**
      * Tạo đơn hàng từ giỏ hàng của user (tất cả items)
-     * Flow: Get Cart → Validate Products → Check Inventory → Reduce Stock → Create
-     * Order → Clear Cart
+     * Flow: Get Cart → Validate Products → Check Inventory → Create Order →
+     * Reserve Stock → Clear Cart
      */
     @Transactional
     public OrderResponse createOrder(Long userId) {
         log.info("Starting order creation for userId: {}", userId);
 
         // 1. Lấy giỏ hàng từ Cart Service
-        CartResponse cart = getCart(userId);
+        CartResponse cart = timed(STAGE_CART_FETCH, () -> getCart(userId));
         if (cart.getItems() == null || cart.getItems().isEmpty()) {
             throw new IllegalArgumentException("Giỏ hàng trống. Không thể tạo đơn hàng.");
         }
@@ -57,24 +78,25 @@ public class OrderService {
                 .map(CartItemResponse::getProductId)
                 .collect(Collectors.toList());
 
-        // 3. Validate giá sản phẩm mới nhất từ Product Service (batch)
-        Map<Long, ProductDTO> productMap = validateProducts(productIds);
-        log.info("Validated {} products from Product Service", productMap.size());
-
-        // 4. Kiểm tra tồn kho từ Inventory Service (batch)
-        Map<Long, Integer> inventoryMap = checkInventory(productIds);
-        log.info("Checked inventory for {} products", inventoryMap.size());
+        // 3 + 4. Validate sản phẩm (Product Service) và kiểm tra tồn kho (Inventory
+        // Service) song song
+        CheckoutLookup lookup = lookupProductsAndInventory(productIds);
+        Map<Long, ProductDTO> productMap = lookup.productMap();
+        Map<Long, Integer> inventoryMap = lookup.inventoryMap();
+        log.info("Validated {} products and checked inventory for {} products",
+                productMap.size(), inventoryMap.size());
 
         // 5. Validate giá và tồn kho cho từng item trong giỏ
         validateCartItems(cart.getItems(), productMap, inventoryMap);
 
-        // 6. Giảm tồn kho (với pessimistic lock)
-        reduceInventory(cart.getItems());
-        log.info("Successfully reduced inventory for {} items", cart.getItems().size());
+        // 6. Tạo đơn hàng
+        Order order = timed(STAGE_PERSISTENCE, () -> orderRepository.save(buildOrder(userId, cart, productMap)));
 
-        // 7. Tạo đơn hàng
-        Order order = buildOrder(userId, cart, productMap);
-        order = orderRepository.save(order);
+        // 7. Giữ tồn kho cho đơn hàng (trừ kho thật khi thanh toán thành công)
+        timed(STAGE_RESERVATION, () -> orderInventoryService.reserve(order));
+        log.info("Successfully reserved inventory for {} items", cart.getItems().size());
+        orderStatsCounter.recordTransition(null, order.getStatus());
+        orderExpiryTimer.schedule(order.getId(), order.getCreatedAt());
         log.info("Created order with orderCode: {} for userId: {}", order.getOrderCode(), userId);
 
         // 8. Clear giỏ hàng
@@ -82,7 +104,7 @@ public class OrderService {
         log.info("Cleared cart for userId: {}", userId);
 
         // 9. Publish order created event
-        publishOrderCreatedEvent(order);
+        orderEventPublisher.publish(order, "ORDER_CREATED");
 
         return mapToOrderResponse(order);
     }
@@ -90,7 +112,7 @@ public class OrderService {
     /**
      * Tạo đơn hàng từ giỏ hàng với items được chọn
      * Flow: Get Cart → Filter Selected Items → Validate Products → Check Inventory
-     * → Reduce Stock → Create Order → Remove Selected Items from Cart
+     * → Create Order → Reserve Stock → Remove Selected Items from Cart
      */
     @Transactional
     public OrderResponse createOrderWithSelectedItems(Long userId, List<Long> selectedProductIds) {
@@ -102,7 +124,7 @@ public class OrderService {
         }
 
         // 1. Lấy giỏ hàng từ Cart Service
-        CartResponse cart = getCart(userId);
+        CartResponse cart = timed(STAGE_CART_FETCH, () -> getCart(userId));
         if (cart.getItems() == null || cart.getItems().isEmpty()) {
             throw new IllegalArgumentException("Giỏ hàng trống. Không thể tạo đơn hàng.");
         }
@@ -123,24 +145,26 @@ public class OrderService {
                 .map(CartItemResponse::getProductId)
                 .collect(Collectors.toList());
 
-        // 4. Validate giá sản phẩm mới nhất từ Product Service (batch)
-        Map<Long, ProductDTO> productMap = validateProducts(productIds);
-        log.info("Validated {} products from Product Service", productMap.size());
-
-        // 5. Kiểm tra tồn kho từ Inventory Service (batch)
-        Map<Long, Integer> inventoryMap = checkInventory(productIds);
-        log.info("Checked inventory for {} products", inventoryMap.size());
+        // 4 + 5. Validate sản phẩm (Product Service) và kiểm tra tồn kho (Inventory
+        // Service) song song
+        CheckoutLookup lookup = lookupProductsAndInventory(productIds);
+        Map<Long, ProductDTO> productMap = lookup.productMap();
+        Map<Long, Integer> inventoryMap = lookup.inventoryMap();
+        log.info("Validated {} products and checked inventory for {} products",
+                productMap.size(), inventoryMap.size());
 
         // 6. Validate giá và tồn kho cho từng item được chọn
         validateCartItems(selectedItems, productMap, inventoryMap);
 
-        // 7. Giảm tồn kho (với pessimistic lock)
-        reduceInventory(selectedItems);
-        log.info("Successfully reduced inventory for {} items", selectedItems.size());
-
-        // 8. Tạo đơn hàng
-        Order order = buildOrder(userId, selectedItems, productMap);
-        order = orderRepository.save(order);
+        // 7. Tạo đơn hàng
+        Order order = timed(STAGE_PERSISTENCE,
+                () -> orderRepository.save(buildOrder(userId, selectedItems, productMap)));
+
+        // 8. Giữ tồn kho cho đơn hàng (trừ kho thật khi thanh toán thành công)
+        timed(STAGE_RESERVATION, () -> orderInventoryService.reserve(order));
+        log.info("Successfully reserved inventory for {} items", selectedItems.size());
+        orderStatsCounter.recordTransition(null, order.getStatus());
+        orderExpiryTimer.schedule(order.getId(), order.getCreatedAt());
         log.info("Created order with orderCode: {} for userId: {}", order.getOrderCode(), userId);
 
         // 9. Remove selected items từ giỏ hàng
@@ -148,11 +172,179 @@ public class OrderService {
         log.info("Removed {} selected items from cart for userId: {}", selectedItems.size(), userId);
 
         // 10. Publish order created event
-        publishOrderCreatedEvent(order);
+        orderEventPublisher.publish(order, "ORDER_CREATED");
+
+        return mapToOrderResponse(order);
+    }
+
+    // ═════════════════════════════════════════════════════════════════════
+    // ASYNC CHECKOUT (SAGA)
+    // ═════════════════════════════════════════════════════════════════════
+
+    /**
+     * Checkout bất đồng bộ: chỉ tạo đơn hàng PROCESSING và ghi command
+     * RESERVE_STOCK vào outbox, các bước còn lại do checkout saga xử lý qua
+     * Kafka. Client theo dõi kết quả qua GET /api/orders/{orderId}.
+     *
+     * @param selectedProductIds null nếu checkout toàn bộ giỏ hàng
+     */
+    @Transactional
+    public OrderResponse submitCheckout(Long userId, List<Long> selectedProductIds) {
+        if (selectedProductIds != null && selectedProductIds.isEmpty()) {
+            throw new IllegalArgumentException("Vui lòng chọn ít nhất một sản phẩm.");
+        }
+
+        Instant now = Instant.now();
+        Order order = timed(STAGE_PERSISTENCE, () -> orderRepository.save(Order.builder()
+                .userId(userId)
+                .orderCode(orderCodeGenerator.nextOrderCode())
+                .status(OrderStatus.PROCESSING)
+                .totalAmount(BigDecimal.ZERO)
+                .createdAt(now)
+                .updatedAt(now)
+                .build()));
+        orderStatsCounter.recordTransition(null, OrderStatus.PROCESSING);
+
+        orderEventPublisher.publishCheckoutCommand(CheckoutSagaMessage.builder()
+                .type(CheckoutSagaMessage.RESERVE_STOCK)
+                .orderId(order.getId())
+                .userId(userId)
+                .selectedProductIds(selectedProductIds)
+                .build());
+        log.info("Accepted async checkout with orderCode: {} for userId: {}", order.getOrderCode(), userId);
 
         return mapToOrderResponse(order);
     }
 
+    /**
+     * Saga bước 1 (RESERVE_STOCK): lấy giỏ hàng, validate sản phẩm và tồn kho,
+     * lưu items vào đơn hàng, giữ tồn kho rồi gửi reply STOCK_RESERVED.
+     * Lỗi nghiệp vụ (giỏ trống, hết hàng, giá thay đổi...) sẽ hủy đơn kèm lý do.
+     * Lỗi tạm thời khi gọi service khác (RemoteServiceException) không hủy đơn
+     * mà được ném lại: transaction rollback, hold được trả lại và error handler
+     * của listener gửi lại command.
+     */
+    @Transactional
+    public void reserveStockForCheckout(CheckoutSagaMessage command) {
+        Order order = findProcessingOrder(command.getOrderId());
+        if (order == null || !order.getItems().isEmpty()) {
+            log.info("Skipping {} for order {}: already handled", command.getType(), command.getOrderId());
+            return;
+        }
+
+        try {
+            CheckoutReservation reservation = lookupCheckoutItems(order.getUserId(), command.getSelectedProductIds());
+            addItems(order, reservation.items(), reservation.productMap());
+            order.setStockReserved(true);
+            timed(STAGE_RESERVATION, () -> orderInventoryService.reserve(order));
+        } catch (IllegalArgumentException e) {
+            order.getItems().clear();
+            order.setTotalAmount(BigDecimal.ZERO);
+            order.setStockReserved(false);
+            rejectCheckout(order, e.getMessage());
+            return;
+        }
+
+        Order savedOrder = timed(STAGE_PERSISTENCE, () -> orderRepository.save(order));
+        orderEventPublisher.publishCheckoutCommand(CheckoutSagaMessage.builder()
+                .type(CheckoutSagaMessage.STOCK_RESERVED)
+                .orderId(savedOrder.getId())
+                .userId(savedOrder.getUserId())
+                .selectedProductIds(command.getSelectedProductIds())
+                .build());
+        log.info("Reserved stock for {} items of order {}", savedOrder.getItems().size(), savedOrder.getId());
+    }
+
+    /**
+     * Saga bước 2 (STOCK_RESERVED): chuyển đơn sang PENDING_PAYMENT, dọn giỏ
+     * hàng và publish ORDER_CREATED
+     */
+    @Transactional
+    public void completeCheckout(CheckoutSagaMessage reply) {
+        Order order = findProcessingOrder(reply.getOrderId());
+        if (order == null) {
+            log.info("Skipping {} for order {}: already handled", reply.getType(), reply.getOrderId());
+            return;
+        }
+
+        order.transitionTo(OrderStatus.PENDING_PAYMENT);
+        order = orderRepository.save(order);
+        orderStatsCounter.recordTransition(OrderStatus.PROCESSING, OrderStatus.PENDING_PAYMENT);
+        orderExpiryTimer.schedule(order.getId(), order.getCreatedAt());
+        log.info("Created order with orderCode: {} for userId: {}", order.getOrderCode(), order.getUserId());
+
+        if (reply.getSelectedProductIds() == null) {
+            clearCart(order.getUserId());
+        } else {
+            removeSelectedItemsFromCart(order.getUserId(), reply.getSelectedProductIds());
+        }
+
+        orderEventPublisher.publish(order, "ORDER_CREATED");
+    }
+
+    /**
+     * Checkout saga hết lượt retry (service khác lỗi quá lâu): hủy đơn PROCESSING
+     * chưa giữ hàng. Đơn đã giữ hàng (lỗi ở bước STOCK_RESERVED) chỉ được log
+     * để xử lý tay vì hold đã thuộc về đơn.
+     */
+    @Transactional
+    public void abandonCheckout(CheckoutSagaMessage message, Exception cause) {
+        Order order = findProcessingOrder(message.getOrderId());
+        if (order == null || !order.getItems().isEmpty()) {
+            log.error("Giving up checkout saga message {} for order {}: {}",
+                    message.getType(), message.getOrderId(), cause.getMessage());
+            return;
+        }
+        rejectCheckout(order, "Hệ thống đang bận, không thể hoàn tất đặt hàng. Vui lòng thử lại.");
+    }
+
+    private Order findProcessingOrder(Long orderId) {
+        return orderRepository.findById(orderId)
+                .filter(Order::isProcessing)
+                .orElse(null);
+    }
+
+    /**
+     * Lấy items cần checkout từ giỏ hàng và validate (dùng chung các bước của
+     * checkout đồng bộ)
+     */
+    private CheckoutReservation lookupCheckoutItems(Long userId, List<Long> selectedProductIds) {
+        CartResponse cart = timed(STAGE_CART_FETCH, () -> getCart(userId));
+        if (cart.getItems() == null || cart.getItems().isEmpty()) {
+            throw new IllegalArgumentException("Giỏ hàng trống. Không thể tạo đơn hàng.");
+        }
+
+        List<CartItemResponse> items = selectedProductIds == null
+                ? cart.getItems()
+                : cart.getItems().stream()
+                        .filter(item -> selectedProductIds.contains(item.getProductId()))
+                        .collect(Collectors.toList());
+        if (items.isEmpty()) {
+            throw new IllegalArgumentException("Không tìm thấy items được chọn trong giỏ hàng.");
+        }
+
+        List<Long> productIds = items.stream()
+                .map(CartItemResponse::getProductId)
+                .collect(Collectors.toList());
+        CheckoutLookup lookup = lookupProductsAndInventory(productIds);
+        validateCartItems(items, lookup.productMap(), lookup.inventoryMap());
+        return new CheckoutReservation(items, lookup.productMap());
+    }
+
+    /**
+     * Hủy đơn PROCESSING khi checkout saga thất bại (chưa giữ tồn kho)
+     */
+    private void rejectCheckout(Order order, String reason) {
+        log.warn("Async checkout for order {} rejected: {}", order.getId(), reason);
+        order.reject(reason);
+        Order savedOrder = orderRepository.save(order);
+        orderStatsCounter.recordTransition(OrderStatus.PROCESSING, OrderStatus.CANCELLED);
+        orderEventPublisher.publish(savedOrder, "ORDER_CHECKOUT_FAILED");
+    }
+
+    private record CheckoutReservation(List<CartItemResponse> items, Map<Long, ProductDTO> productMap) {
+    }
+
     /**
      * Lấy giỏ hàng từ Cart Service
      */
@@ -161,10 +353,55 @@ public class OrderService {
             return cartServiceClient.getCartByUserId(userId);
         } catch (Exception e) {
             log.error("Failed to get cart for userId: {}", userId, e);
-            throw new IllegalArgumentException("Không thể lấy giỏ hàng. Vui lòng thử lại.");
+            throw RemoteServiceException.of("Không thể lấy giỏ hàng. Vui lòng thử lại.", e);
         }
     }
 
+    /**
+     * Gọi Product Service và Inventory Service song song (hai call độc lập).
+     * Nếu cả hai cùng lỗi, lỗi của bước validate sản phẩm được ưu tiên giống như
+     * khi chạy tuần tự.
+     */
+    private CheckoutLookup lookupProductsAndInventory(List<Long> productIds) {
+        CompletableFuture<Map<Long, ProductDTO>> productFuture = CompletableFuture.supplyAsync(
+                () -> timed(STAGE_PRODUCT_VALIDATION, () -> validateProducts(productIds)), checkoutExecutor);
+        CompletableFuture<Map<Long, Integer>> inventoryFuture = CompletableFuture.supplyAsync(
+                () -> timed(STAGE_STOCK_CHECK, () -> checkInventory(productIds)), checkoutExecutor);
+
+        Map<Long, ProductDTO> productMap = join(productFuture);
+        Map<Long, Integer> inventoryMap = join(inventoryFuture);
+        return new CheckoutLookup(productMap, inventoryMap);
+    }
+
+    /**
+     * Chờ kết quả của future và ném lại exception gốc (không bọc
+     * CompletionException) để giữ nguyên error semantics
+     */
+    private <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Đo thời gian từng bước checkout (metric: order.checkout.stage, tag stage)
+     */
+    private <T> T timed(String stage, Supplier<T> supplier) {
+        return meterRegistry.timer(CHECKOUT_STAGE_METRIC, "stage", stage).record(supplier);
+    }
+
+    private void timed(String stage, Runnable runnable) {
+        meterRegistry.timer(CHECKOUT_STAGE_METRIC, "stage", stage).record(runnable);
+    }
+
+    private record CheckoutLookup(Map<Long, ProductDTO> productMap, Map<Long, Integer> inventoryMap) {
+    }
+
     /**
      * Validate sản phẩm từ Product Service
      * Kiểm tra giá và availability
@@ -192,9 +429,11 @@ public class OrderService {
 
             return products.stream()
                     .collect(Collectors.toMap(ProductDTO::getId, p -> p));
+        } catch (IllegalArgumentException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Failed to validate products", e);
-            throw new IllegalArgumentException("Không thể xác thực sản phẩm. Vui lòng thử lại.");
+            throw RemoteServiceException.of("Không thể xác thực sản phẩm. Vui lòng thử lại.", e);
         }
     }
 
@@ -211,7 +450,7 @@ public class OrderService {
                             inv -> inv.getQuantity() != null ? inv.getQuantity() : 0));
         } catch (Exception e) {
             log.error("Failed to check inventory", e);
-            throw new IllegalArgumentException("Không thể kiểm tra tồn kho. Vui lòng thử lại.");
+            throw RemoteServiceException.of("Không thể kiểm tra tồn kho. Vui lòng thử lại.", e);
         }
     }
 
@@ -246,25 +485,6 @@ public class OrderService {
         }
     }
 
-    /**
-     * Giảm tồn kho cho tất cả items (với pessimistic lock)
-     */
-    private void reduceInventory(List<CartItemResponse> cartItems) {
-        try {
-            List<ReduceStockRequest> requests = cartItems.stream()
-                    .map(item -> ReduceStockRequest.builder()
-                            .productId(item.getProductId())
-                            .quantity(item.getQuantity())
-                            .build())
-                    .collect(Collectors.toList());
-
-            inventoryServiceClient.reduceMultipleStock(requests);
-        } catch (Exception e) {
-            log.error("Failed to reduce inventory", e);
-            throw new IllegalArgumentException("Không thể giảm tồn kho. Đơn hàng đã bị hủy.");
-        }
-    }
-
     /**
      * Remove selected items từ giỏ hàng
      */
@@ -281,63 +501,37 @@ public class OrderService {
      * Build Order domain model từ cart và product data
      */
     private Order buildOrder(Long userId, CartResponse cart, Map<Long, ProductDTO> productMap) {
-        String orderCode = generateOrderCode();
-        Instant now = Instant.now();
-
-        Order order = Order.builder()
-                .userId(userId)
-                .orderCode(orderCode)
-                .status(OrderStatus.PENDING_PAYMENT)
-                .createdAt(now)
-                .updatedAt(now)
-                .build();
-
-        BigDecimal totalAmount = BigDecimal.ZERO;
-
-        for (CartItemResponse cartItem : cart.getItems()) {
-            ProductDTO product = productMap.get(cartItem.getProductId());
-            BigDecimal effectivePrice = product.getDiscountPrice() != null
-                    ? product.getDiscountPrice()
-                    : product.getPrice();
-            BigDecimal subtotal = effectivePrice.multiply(BigDecimal.valueOf(cartItem.getQuantity()));
-
-            OrderItem orderItem = OrderItem.builder()
-                    .productId(cartItem.getProductId())
-                    .productName(product.getName())
-                    .productDescription(product.getDescription())
-                    .productImage(product.getThumbnail())
-                    .price(product.getPrice())
-                    .discountPrice(product.getDiscountPrice())
-                    .quantity(cartItem.getQuantity())
-                    .subtotal(subtotal)
-                    .build();
-
-            order.addItem(orderItem);
-            totalAmount = totalAmount.add(subtotal);
-        }
-
-        order.setTotalAmount(totalAmount);
-        return order;
+        return buildOrder(userId, cart.getItems(), productMap);
     }
 
     /**
      * Build Order domain model từ selected items và product data
      */
     private Order buildOrder(Long userId, List<CartItemResponse> selectedItems, Map<Long, ProductDTO> productMap) {
-        String orderCode = generateOrderCode();
+        String orderCode = orderCodeGenerator.nextOrderCode();
         Instant now = Instant.now();
 
         Order order = Order.builder()
                 .userId(userId)
                 .orderCode(orderCode)
                 .status(OrderStatus.PENDING_PAYMENT)
+                .stockReserved(true)
                 .createdAt(now)
                 .updatedAt(now)
                 .build();
 
+        addItems(order, selectedItems, productMap);
+        return order;
+    }
+
+    /**
+     * Thêm items (snapshot giá và thông tin sản phẩm) vào đơn hàng và tính tổng
+     * tiền
+     */
+    private void addItems(Order order, List<CartItemResponse> cartItems, Map<Long, ProductDTO> productMap) {
         BigDecimal totalAmount = BigDecimal.ZERO;
 
-        for (CartItemResponse cartItem : selectedItems) {
+        for (CartItemResponse cartItem : cartItems) {
             ProductDTO product = productMap.get(cartItem.getProductId());
             BigDecimal effectivePrice = product.getDiscountPrice() != null
                     ? product.getDiscountPrice()
@@ -360,20 +554,6 @@ public class OrderService {
         }
 
         order.setTotalAmount(totalAmount);
-        return order;
-    }
-
-    /**
-     * Generate order code: ORD-YYYYMMDD-0001
-     */
-    private String generateOrderCode() {
-        LocalDate today = LocalDate.now();
-        String dateStr = today.format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-
-        int orderCount = orderRepository.countOrdersByDate(today);
-        String sequence = String.format("%04d", orderCount + 1);
-
-        return String.format("ORD-%s-%s", dateStr, sequence);
     }
 
     /**
@@ -413,18 +593,21 @@ public class OrderService {
                             order.getStatus()));
         }
 
-        // 4. Restore inventory
-        restoreInventoryForOrder(order);
-        log.info("Restored inventory for order {}", orderId);
+        // 4. Trả lại tồn kho (release hold hoặc restore với đơn cũ)
+        orderInventoryService.releaseOrRestore(List.of(order));
+        log.info("Returned inventory for order {}", orderId);
 
         // 5. Update order status
+        OrderStatus previousStatus = order.getStatus();
         order.cancel();
         order = orderRepository.save(order);
+        orderStatsCounter.recordTransition(previousStatus, order.getStatus());
+        orderExpiryTimer.cancel(orderId);
 
         log.info("Order {} cancelled successfully", orderId);
 
         // 6. Publish order cancelled event
-        publishOrderCancelledEvent(order);
+        orderEventPublisher.publish(order, "ORDER_CANCELLED");
 
         return mapToOrderResponse(order);
     }
@@ -453,8 +636,7 @@ public class OrderService {
             org.springframework.data.domain.Pageable pageable) {
         log.info("Getting order history for userId: {}", userId);
 
-        return orderRepository.findByUserId(userId, pageable)
-                .map(this::mapToOrderResponse);
+        return mapToOrderResponses(orderRepository.findByUserId(userId, pageable));
     }
 
     /**
@@ -469,8 +651,7 @@ public class OrderService {
             throw new IllegalArgumentException("Trạng thái không hợp lệ: " + status);
         }
 
-        return orderRepository.findByUserIdAndStatus(userId, orderStatus, pageable)
-                .map(this::mapToOrderResponse);
+        return mapToOrderResponses(orderRepository.findByUserIdAndStatus(userId, orderStatus, pageable));
     }
 
     /**
@@ -486,8 +667,7 @@ public class OrderService {
             throw new IllegalArgumentException("Trạng thái không hợp lệ: " + status);
         }
 
-        return orderRepository.findByStatus(orderStatus, pageable)
-                .map(this::mapToOrderResponse);
+        return orderSummaryRepository.findByStatus(orderStatus, pageable).map(this::mapSummaryToOrderResponse);
     }
 
     /**
@@ -498,8 +678,7 @@ public class OrderService {
             org.springframework.data.domain.Pageable pageable) {
         log.info("Admin: Getting all orders");
 
-        return orderRepository.findAll(pageable)
-                .map(this::mapToOrderResponse);
+        return orderSummaryRepository.findAll(pageable).map(this::mapSummaryToOrderResponse);
     }
 
     /**
@@ -510,8 +689,8 @@ public class OrderService {
             org.springframework.data.domain.Pageable pageable) {
         log.info("Admin: Searching orders with keyword: {}", keyword);
 
-        return orderRepository.searchByOrderCode(keyword, pageable)
-                .map(this::mapToOrderResponse);
+        return orderSummaryRepository.searchByOrderCode(keyword, null, pageable)
+                .map(this::mapSummaryToOrderResponse);
     }
 
     /**
@@ -527,93 +706,44 @@ public class OrderService {
             throw new IllegalArgumentException("Trạng thái không hợp lệ: " + status);
         }
 
-        return orderRepository.searchByOrderCodeAndStatus(keyword, orderStatus, pageable)
-                .map(this::mapToOrderResponse);
+        return orderSummaryRepository.searchByOrderCode(keyword, orderStatus, pageable)
+                .map(this::mapSummaryToOrderResponse);
     }
 
     /**
-     * Restore inventory khi hủy đơn hàng
-     */
-    private void restoreInventoryForOrder(Order order) {
-        try {
-            for (OrderItem item : order.getItems()) {
-                inventoryServiceClient.restoreStock(item.getProductId(),
-                        ReduceStockRequest.builder()
-                                .productId(item.getProductId())
-                                .quantity(item.getQuantity())
-                                .build());
-                log.info("Restored {} units for product {}", item.getQuantity(), item.getProductId());
-            }
-        } catch (Exception e) {
-            log.error("Failed to restore inventory for order {}", order.getId(), e);
-            throw new IllegalArgumentException("Không thể hoàn trả tồn kho. Vui lòng liên hệ hỗ trợ.");
-        }
-    }
-
-    /**
-     * Publish order created event to Kafka
+     * Map Order domain model to OrderResponse DTO
      */
-    private void publishOrderCreatedEvent(Order order) {
-        try {
-            OrderEvent event = OrderEvent.builder()
-                    .eventType("ORDER_CREATED")
-                    .orderId(order.getId())
-                    .userId(order.getUserId())
-                    .totalAmount(order.getTotalAmount())
-                    .status(order.getStatus().name())
-                    .timestamp(Instant.now())
-                    .build();
-
-            kafkaTemplate.send("order-events", String.valueOf(order.getId()), event)
-                    .whenComplete((result, ex) -> {
-                        if (ex == null) {
-                            log.debug("Order created event published for orderId: {}", order.getId());
-                        } else {
-                            log.error("Failed to publish order created event for orderId: {}", order.getId(), ex);
-                        }
-                    });
-        } catch (Exception e) {
-            log.error("Error publishing order created event for orderId: {}", order.getId(), e);
-        }
+    private OrderResponse mapToOrderResponse(Order order) {
+        return mapToOrderResponse(order, fetchProductMap(List.of(order)));
     }
 
     /**
-     * Publish order cancelled event to Kafka
+     * Map cả trang đơn hàng: gom productIds của mọi đơn trong trang và gọi
+     * Product Service đúng một lần, thay vì một lần cho mỗi đơn
      */
-    private void publishOrderCancelledEvent(Order order) {
-        try {
-            OrderEvent event = OrderEvent.builder()
-                    .eventType("ORDER_CANCELLED")
-                    .orderId(order.getId())
-                    .userId(order.getUserId())
-                    .totalAmount(order.getTotalAmount())
-                    .status(order.getStatus().name())
-                    .timestamp(Instant.now())
-                    .build();
-
-            kafkaTemplate.send("order-events", String.valueOf(order.getId()), event)
-                    .whenComplete((result, ex) -> {
-                        if (ex == null) {
-                            log.debug("Order cancelled event published for orderId: {}", order.getId());
-                        } else {
-                            log.error("Failed to publish order cancelled event for orderId: {}", order.getId(), ex);
-                        }
-                    });
-        } catch (Exception e) {
-            log.error("Error publishing order cancelled event for orderId: {}", order.getId(), e);
-        }
+    private org.springframework.data.domain.Page<OrderResponse> mapToOrderResponses(
+            org.springframework.data.domain.Page<Order> orders) {
+        Map<Long, ProductDTO> productMap = fetchProductMap(orders.getContent());
+        return orders.map(order -> mapToOrderResponse(order, productMap));
     }
 
     /**
-     * Map Order domain model to OrderResponse DTO
+     * Lấy description và image mới nhất từ Product Service cho các items của
+     * danh sách đơn hàng (1 batch call). Lỗi chỉ log warning, response sẽ dùng dữ
+     * liệu snapshot trong đơn hàng.
      */
-    private OrderResponse mapToOrderResponse(Order order) {
-        // Enrich order items với description và image từ Product Service
-        List<Long> productIds = order.getItems().stream()
+    private Map<Long, ProductDTO> fetchProductMap(List<Order> orders) {
+        List<Long> productIds = orders.stream()
+                .flatMap(order -> order.getItems().stream())
                 .map(OrderItem::getProductId)
+                .distinct()
                 .collect(Collectors.toList());
 
         Map<Long, ProductDTO> productMap = new java.util.HashMap<>();
+        if (productIds.isEmpty()) {
+            return productMap;
+        }
+
         try {
             List<ProductDTO> products = productServiceClient.getProductsByIds(productIds);
             for (ProductDTO product : products) {
@@ -622,7 +752,10 @@ public class OrderService {
         } catch (Exception e) {
             log.warn("Failed to enrich order items with product data: {}", e.getMessage());
         }
+        return productMap;
+    }
 
+    private OrderResponse mapToOrderResponse(Order order, Map<Long, ProductDTO> productMap) {
         List<OrderItemResponse> itemResponses = order.getItems().stream()
                 .map(item -> {
                     ProductDTO product = productMap.get(item.getProductId());
@@ -648,10 +781,30 @@ public class OrderService {
                 .totalItems(order.getTotalItemCount())
                 .totalAmount(order.getTotalAmount())
                 .status(order.getStatus().name())
+                .failureReason(order.getFailureReason())
+                .stockReserved(order.isStockReserved())
                 .createdAt(order.getCreatedAt())
                 .build();
     }
 
+    /**
+     * Map read model order_summary sang OrderResponse cho danh sách Admin (không
+     * có items, chi tiết lấy qua getOrderById)
+     */
+    private OrderResponse mapSummaryToOrderResponse(OrderSummary summary) {
+        return OrderResponse.builder()
+                .orderId(summary.getOrderId())
+                .userId(summary.getUserId())
+                .orderCode(summary.getOrderCode())
+                .items(List.of())
+                .totalItems(summary.getItemCount())
+                .totalAmount(summary.getTotalAmount())
+                .status(summary.getStatus().name())
+                .thumbnail(summary.getThumbnail())
+                .createdAt(summary.getCreatedAt())
+                .build();
+    }
+
     // ═════════════════════════════════════════════════════════════════════
     // INTERNAL API METHODS (Dùng cho các service khác gọi)
     // ═════════════════════════════════════════════════════════════════════
@@ -675,8 +828,9 @@ public class OrderService {
     public List<OrderResponse> getOrdersByUserId(Long userId) {
         log.info("Internal call: Getting orders for userId: {}", userId);
         List<Order> orders = orderRepository.findByUserId(userId);
+        Map<Long, ProductDTO> productMap = fetchProductMap(orders);
         return orders.stream()
-                .map(this::mapToOrderResponse)
+                .map(order -> mapToOrderResponse(order, productMap))
                 .collect(Collectors.toList());
     }
 
@@ -695,15 +849,30 @@ public class OrderService {
         if (targetStatus == null) {
             throw new IllegalArgumentException("Trạng thái không hợp lệ: " + newStatus);
         }
+        if (order.isProcessing()) {
+            throw new IllegalStateException("Đơn hàng đang được xử lý, vui lòng thử lại sau");
+        }
 
         // Validate transition using domain logic
+        OrderStatus previousStatus = order.getStatus();
         order.transitionTo(targetStatus);
         order = orderRepository.save(order);
+        orderStatsCounter.recordTransition(previousStatus, targetStatus);
+        orderExpiryTimer.cancel(orderId);
+
+        // Tồn kho đang giữ: commit khi thanh toán, trả lại khi hủy
+        if (previousStatus == OrderStatus.PENDING_PAYMENT && order.isStockReserved()) {
+            if (targetStatus == OrderStatus.PAID) {
+                orderInventoryService.commitAfterPayment(order);
+            } else if (targetStatus == OrderStatus.CANCELLED) {
+                orderInventoryService.releaseOrRestore(List.of(order));
+            }
+        }
 
         log.info("Order {} status updated to: {}", orderId, newStatus);
 
         // Publish order status updated event
-        publishOrderStatusUpdatedEvent(order);
+        orderEventPublisher.publish(order, "ORDER_STATUS_UPDATED");
 
         return mapToOrderResponse(order);
     }
@@ -724,9 +893,12 @@ public class OrderService {
         if (order.getStatus() == OrderStatus.PENDING_PAYMENT) {
             order.markAsPaid();
             order = orderRepository.save(order);
+            orderStatsCounter.recordTransition(OrderStatus.PENDING_PAYMENT, OrderStatus.PAID);
+            orderExpiryTimer.cancel(orderId);
+            orderInventoryService.commitAfterPayment(order);
 
             log.info("Order {} status updated to: PAID", orderId);
-            publishOrderStatusUpdatedEvent(order);
+            orderEventPublisher.publish(order, "ORDER_STATUS_UPDATED");
         } else {
             // Log warning nhưng không throw exception để tránh retry vô hạn từ Kafka
             log.warn("Order {} payment confirmed but status is {}. Skipping status update.",
@@ -759,55 +931,27 @@ public class OrderService {
                 .build();
     }
 
-    /**
-     * Publish order status updated event to Kafka
-     */
-    private void publishOrderStatusUpdatedEvent(Order order) {
-        try {
-            OrderEvent event = OrderEvent.builder()
-                    .eventType("ORDER_STATUS_UPDATED")
-                    .orderId(order.getId())
-                    .userId(order.getUserId())
-                    .totalAmount(order.getTotalAmount())
-                    .status(order.getStatus().name())
-                    .timestamp(Instant.now())
-                    .build();
-
-            kafkaTemplate.send("order-events", String.valueOf(order.getId()), event)
-                    .whenComplete((result, ex) -> {
-                        if (ex == null) {
-                            log.debug("Order status updated event published for orderId: {}", order.getId());
-                        } else {
-                            log.error("Failed to publish order status updated event for orderId: {}", order.getId(),
-                                    ex);
-                        }
-                    });
-        } catch (Exception e) {
-            log.error("Error publishing order status updated event for orderId: {}", order.getId(), e);
-        }
-    }
-
     /**
      * Lấy thống kê đơn hàng tổng hợp (Admin)
+     * Đọc từ bộ đếm in-memory nếu được bật, ngược lại dùng 1 query GROUP BY status
      */
     @Transactional(readOnly = true)
     public com.tranan.orderservice.application.dto.response.OrderStatsResponse getStats() {
-        long total = orderRepository.countTotal();
-        long pendingPayment = orderRepository.countByStatus(OrderStatus.PENDING_PAYMENT);
-        long paid = orderRepository.countByStatus(OrderStatus.PAID);
-        long shipping = orderRepository.countByStatus(OrderStatus.SHIPPING);
-        long delivered = orderRepository.countByStatus(OrderStatus.DELIVERED);
-        long completed = orderRepository.countByStatus(OrderStatus.COMPLETED);
-        long cancelled = orderRepository.countByStatus(OrderStatus.CANCELLED);
+        Map<OrderStatus, Long> counts = orderStatsCounter.isEnabled()
+                ? orderStatsCounter.snapshot()
+                : orderRepository.countGroupByStatus();
+
+        long total = counts.values().stream().mapToLong(Long::longValue).sum();
 
         return com.tranan.orderservice.application.dto.response.OrderStatsResponse.builder()
                 .total(total)
-                .pendingPayment(pendingPayment)
-                .paid(paid)
-                .shipping(shipping)
-                .delivered(delivered)
-                .completed(completed)
-                .cancelled(cancelled)
+                .processing(counts.getOrDefault(OrderStatus.PROCESSING, 0L))
+                .pendingPayment(counts.getOrDefault(OrderStatus.PENDING_PAYMENT, 0L))
+                .paid(counts.getOrDefault(OrderStatus.PAID, 0L))
+                .shipping(counts.getOrDefault(OrderStatus.SHIPPING, 0L))
+                .delivered(counts.getOrDefault(OrderStatus.DELIVERED, 0L))
+                .completed(counts.getOrDefault(OrderStatus.COMPLETED, 0L))
+                .cancelled(counts.getOrDefault(OrderStatus.CANCELLED, 0L))
                 .build();
     }
 }
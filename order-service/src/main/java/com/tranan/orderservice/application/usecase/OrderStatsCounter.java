@@ -0,0 +1,97 @@
+package com.tranan.orderservice.application.usecase;
+
+import com.tranan.orderservice.domain.model.OrderStatus;
+import com.tranan.orderservice.domain.repository.OrderRepository;
+import com.tranan.orderservice.infrastructure.transaction.AfterCommit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bộ đếm số đơn hàng theo trạng thái giữ trong bộ nhớ (tùy chọn, bật bằng
+ * order.stats.in-memory.enabled).
+ *
+ * Được cập nhật sau khi transaction chuyển trạng thái commit thành công, và
+ * đồng bộ lại định kỳ từ DB (order.stats.in-memory.resync-ms) vì mỗi replica
+ * chỉ thấy các chuyển trạng thái của chính nó.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderStatsCounter {
+
+    private final OrderRepository orderRepository;
+
+    @Value("${order.stats.in-memory.enabled:false}")
+    private boolean enabled;
+
+    private final Map<OrderStatus, AtomicLong> counters = new EnumMap<>(OrderStatus.class);
+    private volatile boolean initialized = false;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Ghi nhận chuyển trạng thái. from = null nghĩa là đơn hàng mới được tạo.
+     */
+    public void recordTransition(OrderStatus from, OrderStatus to) {
+        if (!enabled) {
+            return;
+        }
+        AfterCommit.run(() -> apply(from, to));
+    }
+
+    /**
+     * Snapshot số đơn hàng theo trạng thái (khởi tạo từ DB ở lần gọi đầu tiên)
+     */
+    public Map<OrderStatus, Long> snapshot() {
+        if (!initialized) {
+            resync();
+        }
+
+        Map<OrderStatus, Long> result = new EnumMap<>(OrderStatus.class);
+        synchronized (counters) {
+            counters.forEach((status, count) -> result.put(status, count.get()));
+        }
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${order.stats.in-memory.resync-ms:60000}")
+    public void scheduledResync() {
+        if (enabled) {
+            resync();
+        }
+    }
+
+    private void resync() {
+        Map<OrderStatus, Long> counts = orderRepository.countGroupByStatus();
+        synchronized (counters) {
+            for (OrderStatus status : OrderStatus.values()) {
+                counters.computeIfAbsent(status, s -> new AtomicLong())
+                        .set(counts.getOrDefault(status, 0L));
+            }
+            initialized = true;
+        }
+        log.debug("Resynced in-memory order stats: {}", counts);
+    }
+
+    private void apply(OrderStatus from, OrderStatus to) {
+        if (!initialized) {
+            // Chưa có snapshot từ DB, lần đọc đầu tiên sẽ lấy số liệu đầy đủ
+            return;
+        }
+        synchronized (counters) {
+            if (from != null) {
+                counters.get(from).decrementAndGet();
+            }
+            counters.get(to).incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.tranan.orderservice.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Kết quả đã lưu của một request checkout có Idempotency-Key
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    private Long userId;
+    private String idempotencyKey;
+    private String requestHash;
+    private Long orderId;
+    private String responsePayload;
+    private Instant expiresAt;
+
+    public boolean isCompleted() {
+        return responsePayload != null;
+    }
+}
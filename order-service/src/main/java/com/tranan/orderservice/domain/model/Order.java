@@ -24,6 +24,10 @@ public class Order {
 
     private BigDecimal totalAmount;
     private OrderStatus status;
+    private String failureReason;
+    // true: tồn kho được giữ bằng reservation (commit khi thanh toán, release khi
+    // hủy); false: đơn cũ đã trừ kho trực tiếp
+    private boolean stockReserved;
     private Instant createdAt;
     private Instant updatedAt;
 
@@ -94,10 +98,27 @@ public class Order {
     }
 
     /**
-     * Kiểm tra có thể hủy đơn hàng không
+     * Hủy đơn hàng checkout bất đồng bộ không thành công, kèm lý do
+     */
+    public void reject(String reason) {
+        transitionTo(OrderStatus.CANCELLED);
+        this.failureReason = reason;
+    }
+
+    /**
+     * Kiểm tra có thể hủy đơn hàng không.
+     * Đơn đang PROCESSING chỉ được hủy bởi checkout saga.
      */
     public boolean canBeCancelled() {
-        return this.status != null && this.status.canTransitionTo(OrderStatus.CANCELLED);
+        return this.status != null && this.status != OrderStatus.PROCESSING
+                && this.status.canTransitionTo(OrderStatus.CANCELLED);
+    }
+
+    /**
+     * Đơn hàng đang chờ checkout saga xử lý
+     */
+    public boolean isProcessing() {
+        return this.status == OrderStatus.PROCESSING;
     }
 
     /**
@@ -8,6 +8,7 @@ import java.util.List;
  */
 public enum OrderStatus {
 
+    PROCESSING("Đang xử lý"),
     PENDING_PAYMENT("Chờ thanh toán"),
     PAID("Đã thanh toán"),
     SHIPPING("Đang giao hàng"),
@@ -42,6 +43,7 @@ public enum OrderStatus {
      */
     public List<OrderStatus> getValidTransitions() {
         return switch (this) {
+            case PROCESSING -> Arrays.asList(PENDING_PAYMENT, CANCELLED);
             case PENDING_PAYMENT -> Arrays.asList(PAID, CANCELLED);
             case PAID -> Arrays.asList(SHIPPING, CANCELLED);
             case SHIPPING -> Arrays.asList(DELIVERED);
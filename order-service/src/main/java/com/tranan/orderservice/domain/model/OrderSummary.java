@@ -0,0 +1,29 @@
+package com.tranan.orderservice.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Bản tóm tắt đơn hàng (read model) dùng cho danh sách/tìm kiếm của Admin,
+ * không chứa items
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummary {
+    private Long orderId;
+    private String orderCode;
+    private Long userId;
+    private OrderStatus status;
+    private BigDecimal totalAmount;
+    private Integer itemCount;
+    private String thumbnail;
+    private Instant createdAt;
+    private Instant updatedAt;
+}
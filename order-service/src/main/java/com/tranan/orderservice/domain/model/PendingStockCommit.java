@@ -0,0 +1,24 @@
+package com.tranan.orderservice.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Đơn hàng đã thanh toán nhưng chưa commit được tồn kho đang giữ sang Inventory
+ * Service, chờ job thử lại
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingStockCommit {
+    private Long orderId;
+    private int attempts;
+    private Instant nextAttemptAt;
+    private String lastError;
+    private Instant createdAt;
+}
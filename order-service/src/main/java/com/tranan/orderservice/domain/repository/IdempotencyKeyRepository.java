@@ -0,0 +1,19 @@
+package com.tranan.orderservice.domain.repository;
+
+import com.tranan.orderservice.domain.model.IdempotencyRecord;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface IdempotencyKeyRepository {
+
+    // Giữ key cho request hiện tại; false nếu key đã được dùng và chưa hết hạn
+    boolean claim(Long userId, String idempotencyKey, String requestHash, Instant expiresAt);
+
+    Optional<IdempotencyRecord> find(Long userId, String idempotencyKey);
+
+    // Lưu response của request đã xử lý xong
+    void complete(Long userId, String idempotencyKey, Long orderId, String responsePayload);
+
+    int deleteExpired(Instant now);
+}
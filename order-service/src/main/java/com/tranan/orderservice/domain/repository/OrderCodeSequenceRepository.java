@@ -0,0 +1,14 @@
+package com.tranan.orderservice.domain.repository;
+
+import java.time.LocalDate;
+
+public interface OrderCodeSequenceRepository {
+
+    boolean exists(LocalDate date);
+
+    // Tạo bộ đếm cho ngày nếu chưa có, bắt đầu từ initialValue
+    void initialize(LocalDate date, long initialValue);
+
+    // Cấp phát blockSize số thứ tự liên tiếp, trả về số lớn nhất của block
+    long allocateBlock(LocalDate date, int blockSize);
+}
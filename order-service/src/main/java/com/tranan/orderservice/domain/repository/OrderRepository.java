@@ -8,6 +8,7 @@ import org.springframework.data.domain.Pageable;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface OrderRepository {
@@ -39,13 +40,17 @@ public interface OrderRepository {
 
     long countByStatus(OrderStatus status);
 
-    // Tìm đơn hàng theo status và createdAt trước thời điểm cutoff (đơn hàng quá
-    // hạn)
-    List<Order> findByStatusAndCreatedAtBefore(OrderStatus status, Instant cutoffTime);
+    // Số đơn hàng theo từng trạng thái (1 query GROUP BY)
+    Map<OrderStatus, Long> countGroupByStatus();
 
-    // Tìm kiếm đơn hàng theo orderCode
-    Page<Order> searchByOrderCode(String keyword, Pageable pageable);
+    // Keyset pagination: id các đơn hàng quá hạn có id > afterId (tối đa limit)
+    List<Long> findIdsByStatusAndCreatedAtBefore(OrderStatus status, Instant cutoffTime, Long afterId, int limit);
 
-    // Tìm kiếm đơn hàng theo orderCode và status
-    Page<Order> searchByOrderCodeAndStatus(String keyword, OrderStatus status, Pageable pageable);
+    long countByStatusAndCreatedAtBefore(OrderStatus status, Instant cutoffTime);
+
+    // Keyset pagination: orderId -> createdAt của các đơn hàng theo status có id > afterId
+    Map<Long, Instant> findCreatedAtByStatus(OrderStatus status, Long afterId, int limit);
+
+    // Load các đơn hàng (kèm items) vẫn còn ở status và khóa để cập nhật
+    List<Order> findByIdInAndStatusForUpdate(List<Long> ids, OrderStatus status);
 }
@@ -0,0 +1,19 @@
+package com.tranan.orderservice.domain.repository;
+
+import com.tranan.orderservice.domain.model.OrderStatus;
+import com.tranan.orderservice.domain.model.OrderSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface OrderSummaryRepository {
+
+    Page<OrderSummary> findAll(Pageable pageable);
+
+    Page<OrderSummary> findByStatus(OrderStatus status, Pageable pageable);
+
+    // Tìm kiếm theo orderCode, status = null nghĩa là tất cả trạng thái
+    Page<OrderSummary> searchByOrderCode(String keyword, OrderStatus status, Pageable pageable);
+
+    // Tạo summary cho các đơn hàng chưa có (đơn tạo trước khi có read model)
+    int backfillMissing();
+}
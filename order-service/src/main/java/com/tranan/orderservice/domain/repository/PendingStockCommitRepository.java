@@ -0,0 +1,19 @@
+package com.tranan.orderservice.domain.repository;
+
+import com.tranan.orderservice.domain.model.PendingStockCommit;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface PendingStockCommitRepository {
+
+    // Ghi nhận đơn cần commit tồn kho (trong transaction đánh dấu đơn đã thanh toán)
+    void add(Long orderId, Instant nextAttemptAt);
+
+    void remove(Long orderId);
+
+    // Các đơn đến hạn thử lại, khóa để replica khác bỏ qua
+    List<PendingStockCommit> findDueForUpdate(Instant now, int limit);
+
+    void reschedule(Long orderId, int attempts, Instant nextAttemptAt, String lastError);
+}
@@ -16,6 +16,19 @@ public interface InventoryServiceClient {
     @PostMapping("/api/internal/inventories/reduce-multiple")
     void reduceMultipleStock(@RequestBody List<ReduceStockRequest> requests);
 
+    @PostMapping("/api/internal/inventories/restore-multiple")
+    void restoreMultipleStock(@RequestBody List<ReduceStockRequest> requests);
+
+    @PostMapping("/api/internal/inventories/reservations/{orderId}")
+    void reserveStock(@PathVariable("orderId") Long orderId, @RequestBody List<ReduceStockRequest> requests,
+            @RequestParam("ttlMinutes") long ttlMinutes);
+
+    @PostMapping("/api/internal/inventories/reservations/{orderId}/commit")
+    void commitReservation(@PathVariable("orderId") Long orderId, @RequestBody List<ReduceStockRequest> requests);
+
+    @PostMapping("/api/internal/inventories/reservations/release")
+    void releaseReservations(@RequestBody List<Long> orderIds);
+
     @PostMapping("/api/internal/inventories/{productId}/restore")
     void restoreStock(@PathVariable("productId") Long productId, @RequestBody ReduceStockRequest request);
 }
@@ -12,4 +12,7 @@ import lombok.NoArgsConstructor;
 public class ReduceStockRequest {
     private Long productId;
     private Integer quantity;
+
+    // Chỉ dùng khi hoàn kho: Inventory Service ghi orderId vào ledger
+    private Long orderId;
 }
@@ -0,0 +1,31 @@
+package com.tranan.orderservice.infrastructure.config.async;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class AsyncConfiguration {
+
+    /**
+     * Executor dùng để gọi song song các service khác trong luồng checkout
+     * (Product Service + Inventory Service). Dùng virtual thread vì các task
+     * chủ yếu chờ I/O (Feign call).
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService checkoutExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * Worker pool giới hạn số chunk đơn hàng quá hạn được xử lý đồng thời, mỗi
+     * chunk giữ một DB connection trong suốt transaction của nó.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService expirationExecutor(@Value("${order.expiration.workers:4}") int workers) {
+        return Executors.newFixedThreadPool(workers);
+    }
+}
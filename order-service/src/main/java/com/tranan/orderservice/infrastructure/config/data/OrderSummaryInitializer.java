@@ -0,0 +1,53 @@
+package com.tranan.orderservice.infrastructure.config.data;
+
+import com.tranan.orderservice.domain.repository.OrderSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Chuẩn bị read model order_summary khi service khởi động:
+ * - Tạo index trigram (pg_trgm) và index tiền tố trên LOWER(order_code), hai
+ * loại index mà ddl-auto không tạo được
+ * - Backfill summary cho các đơn hàng tạo trước khi có read model
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderSummaryInitializer {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OrderSummaryRepository orderSummaryRepository;
+
+    @Value("${order.summary.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        execute("CREATE INDEX IF NOT EXISTS idx_order_summary_code_prefix "
+                + "ON order_summary (LOWER(order_code) text_pattern_ops)");
+        if (execute("CREATE EXTENSION IF NOT EXISTS pg_trgm")) {
+            execute("CREATE INDEX IF NOT EXISTS idx_order_summary_code_trgm "
+                    + "ON order_summary USING gin (LOWER(order_code) gin_trgm_ops)");
+        }
+
+        if (backfillOnStartup) {
+            int inserted = orderSummaryRepository.backfillMissing();
+            log.info("Backfilled {} order summaries", inserted);
+        }
+    }
+
+    private boolean execute(String sql) {
+        try {
+            jdbcTemplate.execute(sql);
+            return true;
+        } catch (Exception e) {
+            log.warn("Could not prepare order_summary ({}): {}", sql, e.getMessage());
+            return false;
+        }
+    }
+}
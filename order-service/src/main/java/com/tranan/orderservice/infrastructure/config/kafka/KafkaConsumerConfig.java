@@ -1,5 +1,7 @@
 package com.tranan.orderservice.infrastructure.config.kafka;
 
+import com.tranan.orderservice.application.usecase.OrderService;
+import com.tranan.orderservice.infrastructure.event.CheckoutSagaMessage;
 import com.tranan.orderservice.infrastructure.event.PaymentEvent;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
@@ -12,7 +14,9 @@ import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.listener.ContainerProperties.AckMode;
+import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.util.backoff.ExponentialBackOff;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -61,4 +65,49 @@ public class KafkaConsumerConfig {
 
         return factory;
     }
+
+    /**
+     * Consumer cho checkout saga: ack theo từng record sau khi xử lý xong, lỗi
+     * hạ tầng (DB, network, service khác tạm lỗi) được retry với backoff tăng dần
+     * trong tối đa retry-max-elapsed-ms; hết lượt thì đơn chưa giữ hàng bị hủy
+     * thay vì kẹt ở PROCESSING
+     */
+    @Bean
+    public ConsumerFactory<String, CheckoutSagaMessage> checkoutSagaConsumerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        configProps.put(JsonDeserializer.VALUE_DEFAULT_TYPE, CheckoutSagaMessage.class.getName());
+        configProps.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
+        configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        configProps.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, 30000);
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 100);
+
+        return new DefaultKafkaConsumerFactory<>(configProps);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, CheckoutSagaMessage> checkoutSagaListenerContainerFactory(
+            @Value("${order.checkout.saga.concurrency:3}") int concurrency,
+            @Value("${order.checkout.saga.retry-max-elapsed-ms:300000}") long retryMaxElapsedMs,
+            OrderService orderService) {
+        ConcurrentKafkaListenerContainerFactory<String, CheckoutSagaMessage> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        ExponentialBackOff backOff = new ExponentialBackOff(1000L, 2.0);
+        backOff.setMaxInterval(30000L);
+        backOff.setMaxElapsedTime(retryMaxElapsedMs);
+        factory.setCommonErrorHandler(new DefaultErrorHandler((record, exception) -> {
+            if (record.value() instanceof CheckoutSagaMessage message) {
+                orderService.abandonCheckout(message, exception);
+            }
+        }, backOff));
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(AckMode.RECORD);
+        factory.setConsumerFactory(checkoutSagaConsumerFactory());
+
+        return factory;
+    }
 }
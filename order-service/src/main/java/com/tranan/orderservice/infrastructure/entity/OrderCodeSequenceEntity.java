@@ -0,0 +1,32 @@
+package com.tranan.orderservice.infrastructure.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Bộ đếm mã đơn hàng theo ngày.
+ * next_value = số thứ tự lớn nhất đã được cấp phát cho ngày đó.
+ */
+@Entity
+@Table(name = "order_code_sequences")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderCodeSequenceEntity {
+
+    @Id
+    @Column(name = "order_date", nullable = false)
+    private LocalDate orderDate;
+
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+}
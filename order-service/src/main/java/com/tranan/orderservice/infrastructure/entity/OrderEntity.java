@@ -12,7 +12,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_status_created_at", columnList = "status, created_at")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -40,6 +42,12 @@ public class OrderEntity extends BaseEntity {
     @Column(name = "status", nullable = false, length = 50)
     private OrderStatus status;
 
+    @Column(name = "failure_reason", length = 500)
+    private String failureReason;
+
+    @Column(name = "stock_reserved")
+    private Boolean stockReserved;
+
     public void addItem(OrderItemEntity item) {
         items.add(item);
         item.setOrder(this);
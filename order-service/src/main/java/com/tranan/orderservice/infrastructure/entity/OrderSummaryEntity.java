@@ -0,0 +1,58 @@
+package com.tranan.orderservice.infrastructure.entity;
+
+import com.tranan.orderservice.domain.model.OrderStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Read model phi chuẩn hóa của bảng orders cho danh sách/tìm kiếm Admin.
+ * Được cập nhật cùng transaction với mỗi lần lưu đơn hàng
+ * (OrderRepositoryImpl.save). Index trigram/prefix trên order_code được tạo
+ * bởi OrderSummaryInitializer.
+ */
+@Entity
+@Table(name = "order_summary", indexes = {
+        @Index(name = "idx_order_summary_created_at", columnList = "created_at"),
+        @Index(name = "idx_order_summary_status_created_at", columnList = "status, created_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryEntity {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "order_code", nullable = false, length = 50)
+    private String orderCode;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 50)
+    private OrderStatus status;
+
+    @Column(name = "total_amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Column(name = "item_count", nullable = false)
+    private Integer itemCount;
+
+    @Column(name = "thumbnail", length = 1024)
+    private String thumbnail;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+}
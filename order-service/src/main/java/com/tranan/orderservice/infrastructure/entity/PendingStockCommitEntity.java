@@ -0,0 +1,42 @@
+package com.tranan.orderservice.infrastructure.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Đơn hàng đã thanh toán chờ commit tồn kho sang Inventory Service.
+ * Row được ghi cùng transaction với trạng thái PAID và chỉ bị xóa khi commit
+ * thành công, nên lỗi mạng hay restart giữa chừng không làm mất việc commit.
+ */
+@Entity
+@Table(name = "order_pending_stock_commits", indexes = {
+        @Index(name = "idx_order_pending_stock_commits_next_attempt_at", columnList = "next_attempt_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingStockCommitEntity {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,44 @@
+package com.tranan.orderservice.infrastructure.event;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Command/reply của checkout saga (topic order-checkout-saga, key = orderId).
+ *
+ * RESERVE_STOCK: đọc giỏ hàng, validate và giữ tồn kho cho đơn PROCESSING
+ * STOCK_RESERVED: tồn kho đã được giữ, hoàn tất đơn hàng và dọn giỏ hàng
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutSagaMessage implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final String RESERVE_STOCK = "RESERVE_STOCK";
+    public static final String STOCK_RESERVED = "STOCK_RESERVED";
+
+    @JsonProperty("type")
+    private String type;
+
+    @JsonProperty("orderId")
+    private Long orderId;
+
+    @JsonProperty("userId")
+    private Long userId;
+
+    // null = checkout toàn bộ giỏ hàng
+    @JsonProperty("selectedProductIds")
+    private List<Long> selectedProductIds;
+
+    @JsonProperty("timestamp")
+    private Instant timestamp;
+}
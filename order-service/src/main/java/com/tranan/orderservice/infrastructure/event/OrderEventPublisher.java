@@ -0,0 +1,72 @@
+package com.tranan.orderservice.infrastructure.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tranan.orderservice.domain.model.Order;
+import com.tranan.orderservice.infrastructure.entity.OrderOutboxEntity;
+import com.tranan.orderservice.infrastructure.repository.jpa.OrderOutboxJpaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Ghi order event (và command của checkout saga) vào bảng order_outbox trong
+ * transaction hiện tại.
+ * Event chỉ tồn tại nếu thay đổi đơn hàng commit thành công, và được
+ * {@link OrderOutboxRelay} gửi lên Kafka sau đó.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderEventPublisher {
+
+    public static final String ORDER_EVENTS_TOPIC = "order-events";
+    public static final String CHECKOUT_SAGA_TOPIC = "order-checkout-saga";
+
+    private final OrderOutboxJpaRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(Order order, String eventType) {
+        OrderEvent event = OrderEvent.builder()
+                .eventType(eventType)
+                .orderId(order.getId())
+                .userId(order.getUserId())
+                .totalAmount(order.getTotalAmount())
+                .status(order.getStatus().name())
+                .timestamp(Instant.now())
+                .build();
+
+        enqueue(ORDER_EVENTS_TOPIC, order.getId(), eventType, event);
+    }
+
+    /**
+     * Ghi command/reply của checkout saga vào outbox
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishCheckoutCommand(CheckoutSagaMessage message) {
+        if (message.getTimestamp() == null) {
+            message.setTimestamp(Instant.now());
+        }
+        enqueue(CHECKOUT_SAGA_TOPIC, message.getOrderId(), message.getType(), message);
+    }
+
+    private void enqueue(String topic, Long orderId, String eventType, Object message) {
+        try {
+            outboxRepository.save(OrderOutboxEntity.builder()
+                    .topic(topic)
+                    .eventKey(String.valueOf(orderId))
+                    .eventType(eventType)
+                    .payload(objectMapper.writeValueAsString(message))
+                    .createdAt(Instant.now())
+                    .build());
+            log.debug("Queued {} message on {} in outbox for orderId: {}", eventType, topic, orderId);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Không thể serialize message " + eventType + " cho orderId: " + orderId, e);
+        }
+    }
+}
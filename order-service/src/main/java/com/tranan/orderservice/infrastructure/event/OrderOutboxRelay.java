@@ -0,0 +1,200 @@
+package com.tranan.orderservice.infrastructure.event;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tranan.orderservice.infrastructure.entity.OrderOutboxEntity;
+import com.tranan.orderservice.infrastructure.repository.jpa.OrderOutboxJpaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Relay đọc bảng order_outbox theo batch và gửi lên Kafka.
+ *
+ * Mỗi batch: lock các dòng chưa publish (FOR UPDATE SKIP LOCKED, nên nhiều
+ * replica có thể chạy song song), gửi tất cả record liền nhau rồi mới chờ ack
+ * (producer tự gom thành batch), sau đó đánh dấu published_at cho các record
+ * gửi thành công (at-least-once).
+ *
+ * Record lỗi được hẹn gửi lại sau next_attempt_at với backoff tăng gấp đôi (tối
+ * đa max-backoff-ms), nên record lỗi không chiếm chỗ đầu batch của các event
+ * mới. Sau max-attempts lần lỗi record bị chuyển sang dead-letter
+ * (dead_lettered_at) và không gửi nữa. Mỗi batch chỉ lấy event đầu tiên còn chờ
+ * của mỗi key, nên event sau của cùng đơn hàng không vượt lên trước event đang
+ * chờ gửi lại; chuỗi event của một key được gửi dần qua các batch liên tiếp.
+ *
+ * Metrics: order.outbox.published, order.outbox.failed,
+ * order.outbox.dead_lettered, order.outbox.batch, order.outbox.lag (giây, tuổi
+ * của event chưa publish lâu nhất, không tính dead-letter)
+ */
+@Slf4j
+@Component
+public class OrderOutboxRelay {
+
+    private final OrderOutboxJpaRepository outboxRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long sendTimeoutMs;
+    private final long retentionDays;
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final long maxBackoffMs;
+
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+    private final Counter deadLetteredCounter;
+    private final Timer batchTimer;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public OrderOutboxRelay(OrderOutboxJpaRepository outboxRepository,
+            KafkaTemplate<String, Object> kafkaTemplate,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${order.outbox.relay.batch-size:200}") int batchSize,
+            @Value("${order.outbox.relay.send-timeout-ms:10000}") long sendTimeoutMs,
+            @Value("${order.outbox.retention-days:7}") long retentionDays,
+            @Value("${order.outbox.relay.max-attempts:10}") int maxAttempts,
+            @Value("${order.outbox.relay.backoff-ms:1000}") long backoffMs,
+            @Value("${order.outbox.relay.max-backoff-ms:300000}") long maxBackoffMs) {
+        this.outboxRepository = outboxRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.retentionDays = retentionDays;
+        this.maxAttempts = maxAttempts;
+        this.backoffMs = backoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.publishedCounter = meterRegistry.counter("order.outbox.published");
+        this.failedCounter = meterRegistry.counter("order.outbox.failed");
+        this.deadLetteredCounter = meterRegistry.counter("order.outbox.dead_lettered");
+        this.batchTimer = meterRegistry.timer("order.outbox.batch");
+        meterRegistry.gauge("order.outbox.lag", lagSeconds);
+    }
+
+    @Scheduled(fixedDelayString = "${order.outbox.relay.interval-ms:500}")
+    public void relay() {
+        Integer sent;
+        do {
+            Timer.Sample sample = Timer.start();
+            sent = transactionTemplate.execute(status -> relayBatch());
+            sample.stop(batchTimer);
+            // Còn publish được thì đọc tiếp ngay: event kế tiếp của các key vừa gửi đã tới lượt
+        } while (sent != null && sent > 0);
+
+        Instant oldest = outboxRepository.findOldestUnpublishedCreatedAt();
+        lagSeconds.set(oldest != null ? Duration.between(oldest, Instant.now()).toSeconds() : 0);
+    }
+
+    /**
+     * Xóa các event đã publish quá order.outbox.retention-days ngày
+     */
+    @Scheduled(cron = "${order.outbox.cleanup.cron:0 0 3 * * *}")
+    public void cleanup() {
+        Instant cutoff = Instant.now().minus(Duration.ofDays(retentionDays));
+        Integer deleted = transactionTemplate.execute(status -> outboxRepository.deletePublishedBefore(cutoff));
+        log.info("Deleted {} published outbox events older than {}", deleted, cutoff);
+    }
+
+    /**
+     * @return số record publish thành công (có record publish thì đọc tiếp batch
+     *         sau ngay)
+     */
+    private int relayBatch() {
+        Instant now = Instant.now();
+        List<OrderOutboxEntity> batch = outboxRepository.findUnpublishedForUpdate(now, batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // 1. Gửi tất cả record (không chờ từng ack)
+        List<CompletableFuture<SendResult<String, Object>>> futures = new ArrayList<>(batch.size());
+        for (OrderOutboxEntity entry : batch) {
+            futures.add(send(entry));
+        }
+
+        // 2. Chờ ack và đánh dấu các record đã publish
+        int published = 0;
+        int deadLettered = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            OrderOutboxEntity entry = batch.get(i);
+            try {
+                futures.get(i).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+                entry.setPublishedAt(Instant.now());
+                entry.setNextAttemptAt(null);
+                published++;
+            } catch (Exception e) {
+                if (markFailed(entry, e)) {
+                    deadLettered++;
+                }
+            }
+        }
+        outboxRepository.saveAll(batch);
+
+        publishedCounter.increment(published);
+        failedCounter.increment(batch.size() - published);
+        deadLetteredCounter.increment(deadLettered);
+        log.debug("Relayed outbox batch: {} published, {} failed", published, batch.size() - published);
+        return published;
+    }
+
+    /**
+     * Hẹn gửi lại record lỗi sau backoff, hoặc chuyển sang dead-letter khi đã
+     * lỗi max-attempts lần
+     *
+     * @return true nếu record bị chuyển sang dead-letter
+     */
+    private boolean markFailed(OrderOutboxEntity entry, Exception e) {
+        Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+        String error = String.valueOf(cause.getMessage());
+        int attempts = entry.getAttempts() + 1;
+        Instant now = Instant.now();
+        entry.setAttempts(attempts);
+        entry.setLastError(error.length() > 500 ? error.substring(0, 500) : error);
+
+        if (attempts >= maxAttempts) {
+            entry.setDeadLetteredAt(now);
+            entry.setNextAttemptAt(null);
+            log.error("Outbox event {} ({}) for key {} dead-lettered after {} attempts: {}",
+                    entry.getId(), entry.getEventType(), entry.getEventKey(), attempts, error);
+            return true;
+        }
+
+        long delayMs = Math.min(backoffMs << Math.min(attempts - 1, 20), maxBackoffMs);
+        entry.setNextAttemptAt(now.plusMillis(delayMs));
+        log.error("Failed to publish outbox event {} ({}) for key {} (attempt {}/{}), retrying in {} ms: {}",
+                entry.getId(), entry.getEventType(), entry.getEventKey(), attempts, maxAttempts, delayMs, error);
+        return false;
+    }
+
+    private CompletableFuture<SendResult<String, Object>> send(OrderOutboxEntity entry) {
+        try {
+            // Payload đã là JSON, gửi nguyên dạng cây để không phụ thuộc kiểu message
+            JsonNode message = objectMapper.readTree(entry.getPayload());
+            return kafkaTemplate.send(entry.getTopic(), entry.getEventKey(), message);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.tranan.orderservice.infrastructure.listener;
+
+import com.tranan.orderservice.application.usecase.OrderService;
+import com.tranan.orderservice.infrastructure.event.CheckoutSagaMessage;
+import com.tranan.orderservice.infrastructure.event.OrderEventPublisher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Điều phối checkout saga: mỗi command/reply trên topic order-checkout-saga
+ * chạy đúng một bước của OrderService. Message được key theo orderId nên các
+ * bước của cùng một đơn hàng luôn chạy tuần tự; mỗi bước bỏ qua đơn hàng không
+ * còn ở trạng thái phù hợp nên xử lý lặp lại (redelivery) là an toàn.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CheckoutSagaListener {
+
+    private final OrderService orderService;
+
+    @KafkaListener(topics = OrderEventPublisher.CHECKOUT_SAGA_TOPIC, groupId = "order-service-checkout-saga", containerFactory = "checkoutSagaListenerContainerFactory")
+    public void handle(CheckoutSagaMessage message) {
+        log.info("Received checkout saga message: type={}, orderId={}", message.getType(), message.getOrderId());
+
+        switch (message.getType()) {
+            case CheckoutSagaMessage.RESERVE_STOCK -> orderService.reserveStockForCheckout(message);
+            case CheckoutSagaMessage.STOCK_RESERVED -> orderService.completeCheckout(message);
+            default -> log.warn("Unknown checkout saga message type: {}", message.getType());
+        }
+    }
+}
@@ -22,6 +22,8 @@ public class OrderMapper {
                 .orderCode(order.getOrderCode())
                 .totalAmount(order.getTotalAmount())
                 .status(order.getStatus())
+                .failureReason(order.getFailureReason())
+                .stockReserved(order.isStockReserved())
                 .build();
 
         if (order.getItems() != null) {
@@ -48,6 +50,8 @@ public class OrderMapper {
                         .collect(Collectors.toList()))
                 .totalAmount(entity.getTotalAmount())
                 .status(entity.getStatus())
+                .failureReason(entity.getFailureReason())
+                .stockReserved(Boolean.TRUE.equals(entity.getStockReserved()))
                 .createdAt(entity.getCreatedAt())
                 .updatedAt(entity.getUpdatedAt())
                 .build();
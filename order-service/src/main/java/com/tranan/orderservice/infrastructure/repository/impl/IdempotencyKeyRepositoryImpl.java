@@ -0,0 +1,54 @@
+package com.tranan.orderservice.infrastructure.repository.impl;
+
+import com.tranan.orderservice.domain.model.IdempotencyRecord;
+import com.tranan.orderservice.domain.repository.IdempotencyKeyRepository;
+import com.tranan.orderservice.infrastructure.entity.IdempotencyKeyEntity;
+import com.tranan.orderservice.infrastructure.repository.jpa.IdempotencyKeyJpaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class IdempotencyKeyRepositoryImpl implements IdempotencyKeyRepository {
+
+    private final IdempotencyKeyJpaRepository jpaRepository;
+
+    @Override
+    @Transactional
+    public boolean claim(Long userId, String idempotencyKey, String requestHash, Instant expiresAt) {
+        return jpaRepository.claim(userId, idempotencyKey, requestHash, Instant.now(), expiresAt) > 0;
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> find(Long userId, String idempotencyKey) {
+        return jpaRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                .map(this::toDomain);
+    }
+
+    @Override
+    @Transactional
+    public void complete(Long userId, String idempotencyKey, Long orderId, String responsePayload) {
+        jpaRepository.complete(userId, idempotencyKey, orderId, responsePayload);
+    }
+
+    @Override
+    @Transactional
+    public int deleteExpired(Instant now) {
+        return jpaRepository.deleteExpired(now);
+    }
+
+    private IdempotencyRecord toDomain(IdempotencyKeyEntity entity) {
+        return IdempotencyRecord.builder()
+                .userId(entity.getUserId())
+                .idempotencyKey(entity.getIdempotencyKey())
+                .requestHash(entity.getRequestHash())
+                .orderId(entity.getOrderId())
+                .responsePayload(entity.getResponse())
+                .expiresAt(entity.getExpiresAt())
+                .build();
+    }
+}
@@ -0,0 +1,42 @@
+package com.tranan.orderservice.infrastructure.repository.impl;
+
+import com.tranan.orderservice.domain.repository.OrderCodeSequenceRepository;
+import com.tranan.orderservice.infrastructure.repository.jpa.OrderCodeSequenceJpaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+/**
+ * Các thao tác chạy trong transaction riêng (REQUIRES_NEW) để row lock của bộ
+ * đếm được nhả ngay, không bị giữ suốt transaction checkout.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderCodeSequenceRepositoryImpl implements OrderCodeSequenceRepository {
+
+    private final OrderCodeSequenceJpaRepository jpaRepository;
+
+    @Override
+    public boolean exists(LocalDate date) {
+        return jpaRepository.existsById(date);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void initialize(LocalDate date, long initialValue) {
+        jpaRepository.initialize(date, initialValue);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public long allocateBlock(LocalDate date, int blockSize) {
+        Long upperBound = jpaRepository.allocateBlock(date, blockSize);
+        if (upperBound == null) {
+            throw new IllegalStateException("Không tìm thấy bộ đếm mã đơn hàng cho ngày " + date);
+        }
+        return upperBound;
+    }
+}
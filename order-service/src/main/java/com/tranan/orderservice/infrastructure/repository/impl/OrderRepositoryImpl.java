@@ -6,8 +6,10 @@ import com.tranan.orderservice.domain.repository.OrderRepository;
 import com.tranan.orderservice.infrastructure.entity.OrderEntity;
 import com.tranan.orderservice.infrastructure.mapper.OrderMapper;
 import com.tranan.orderservice.infrastructure.repository.jpa.OrderJpaRepository;
+import com.tranan.orderservice.infrastructure.repository.jpa.OrderSummaryJpaRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 
@@ -15,7 +17,10 @@ import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
@@ -23,13 +28,33 @@ import java.util.Optional;
 public class OrderRepositoryImpl implements OrderRepository {
 
     private final OrderJpaRepository jpaRepository;
+    private final OrderSummaryJpaRepository summaryJpaRepository;
     private final OrderMapper mapper;
 
     @Override
     public Order save(Order order) {
         OrderEntity entity = mapper.toEntity(order);
         OrderEntity savedEntity = jpaRepository.save(entity);
-        return mapper.toDomain(savedEntity);
+        Order saved = mapper.toDomain(savedEntity);
+        updateSummary(saved);
+        return saved;
+    }
+
+    /**
+     * Đồng bộ read model order_summary trong cùng transaction với đơn hàng
+     */
+    private void updateSummary(Order order) {
+        String thumbnail = order.getItems().isEmpty() ? null : order.getItems().get(0).getProductImage();
+        summaryJpaRepository.upsert(
+                order.getId(),
+                order.getOrderCode(),
+                order.getUserId(),
+                order.getStatus().name(),
+                order.getTotalAmount(),
+                order.getTotalItemCount(),
+                thumbnail,
+                order.getCreatedAt() != null ? order.getCreatedAt() : Instant.now(),
+                order.getUpdatedAt() != null ? order.getUpdatedAt() : Instant.now());
     }
 
     @Override
@@ -93,21 +118,39 @@ public class OrderRepositoryImpl implements OrderRepository {
     }
 
     @Override
-    public List<Order> findByStatusAndCreatedAtBefore(OrderStatus status, Instant cutoffTime) {
-        return jpaRepository.findByStatusAndCreatedAtBefore(status, cutoffTime).stream()
-                .map(mapper::toDomain)
-                .toList();
+    public Map<OrderStatus, Long> countGroupByStatus() {
+        Map<OrderStatus, Long> counts = new EnumMap<>(OrderStatus.class);
+        for (Object[] row : jpaRepository.countGroupByStatus()) {
+            counts.put((OrderStatus) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
     }
 
     @Override
-    public Page<Order> searchByOrderCode(String keyword, Pageable pageable) {
-        return jpaRepository.searchByOrderCode(keyword, pageable)
-                .map(mapper::toDomain);
+    public List<Long> findIdsByStatusAndCreatedAtBefore(OrderStatus status, Instant cutoffTime, Long afterId,
+            int limit) {
+        return jpaRepository.findIdsByStatusAndCreatedAtBefore(status, cutoffTime, afterId,
+                PageRequest.of(0, limit));
     }
 
     @Override
-    public Page<Order> searchByOrderCodeAndStatus(String keyword, OrderStatus status, Pageable pageable) {
-        return jpaRepository.searchByOrderCodeAndStatus(keyword, status, pageable)
-                .map(mapper::toDomain);
+    public long countByStatusAndCreatedAtBefore(OrderStatus status, Instant cutoffTime) {
+        return jpaRepository.countByStatusAndCreatedAtBefore(status, cutoffTime);
+    }
+
+    @Override
+    public Map<Long, Instant> findCreatedAtByStatus(OrderStatus status, Long afterId, int limit) {
+        Map<Long, Instant> result = new LinkedHashMap<>();
+        for (Object[] row : jpaRepository.findCreatedAtByStatus(status, afterId, PageRequest.of(0, limit))) {
+            result.put((Long) row[0], (Instant) row[1]);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Order> findByIdInAndStatusForUpdate(List<Long> ids, OrderStatus status) {
+        return jpaRepository.findByIdInAndStatusForUpdate(ids, status).stream()
+                .map(mapper::toDomain)
+                .toList();
     }
 }
@@ -0,0 +1,75 @@
+package com.tranan.orderservice.infrastructure.repository.impl;
+
+import com.tranan.orderservice.domain.model.OrderStatus;
+import com.tranan.orderservice.domain.model.OrderSummary;
+import com.tranan.orderservice.domain.repository.OrderSummaryRepository;
+import com.tranan.orderservice.infrastructure.entity.OrderSummaryEntity;
+import com.tranan.orderservice.infrastructure.repository.jpa.OrderSummaryJpaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Locale;
+
+@Repository
+@RequiredArgsConstructor
+public class OrderSummaryRepositoryImpl implements OrderSummaryRepository {
+
+    // Mã đơn hàng có dạng ORD-YYYYMMDD-NNNN
+    private static final String ORDER_CODE_PREFIX = "ord-";
+
+    private final OrderSummaryJpaRepository jpaRepository;
+
+    @Override
+    public Page<OrderSummary> findAll(Pageable pageable) {
+        return jpaRepository.findAllByOrderByCreatedAtDesc(pageable)
+                .map(this::toDomain);
+    }
+
+    @Override
+    public Page<OrderSummary> findByStatus(OrderStatus status, Pageable pageable) {
+        return jpaRepository.findByStatusOrderByCreatedAtDesc(status, pageable)
+                .map(this::toDomain);
+    }
+
+    /**
+     * Keyword bắt đầu bằng "ORD-" được tìm theo tiền tố (index btree), các
+     * keyword khác tìm theo chuỗi con (index trigram)
+     */
+    @Override
+    public Page<OrderSummary> searchByOrderCode(String keyword, OrderStatus status, Pageable pageable) {
+        String normalized = keyword.toLowerCase(Locale.ROOT);
+        String escaped = escapeLike(normalized);
+        Page<OrderSummaryEntity> page = normalized.startsWith(ORDER_CODE_PREFIX)
+                ? jpaRepository.searchByOrderCodePrefix(escaped + "%", status, pageable)
+                : jpaRepository.searchByOrderCodeContaining("%" + escaped + "%", status, pageable);
+        return page.map(this::toDomain);
+    }
+
+    @Override
+    @Transactional
+    public int backfillMissing() {
+        return jpaRepository.backfillMissing();
+    }
+
+    private OrderSummary toDomain(OrderSummaryEntity entity) {
+        return OrderSummary.builder()
+                .orderId(entity.getOrderId())
+                .orderCode(entity.getOrderCode())
+                .userId(entity.getUserId())
+                .status(entity.getStatus())
+                .totalAmount(entity.getTotalAmount())
+                .itemCount(entity.getItemCount())
+                .thumbnail(entity.getThumbnail())
+                .createdAt(entity.getCreatedAt())
+                .updatedAt(entity.getUpdatedAt())
+                .build();
+    }
+
+    // Escape ký tự đại diện của LIKE trong input người dùng (ESCAPE '\')
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
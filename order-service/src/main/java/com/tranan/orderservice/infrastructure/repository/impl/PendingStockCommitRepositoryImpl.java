@@ -0,0 +1,54 @@
+package com.tranan.orderservice.infrastructure.repository.impl;
+
+import com.tranan.orderservice.domain.model.PendingStockCommit;
+import com.tranan.orderservice.domain.repository.PendingStockCommitRepository;
+import com.tranan.orderservice.infrastructure.entity.PendingStockCommitEntity;
+import com.tranan.orderservice.infrastructure.repository.jpa.PendingStockCommitJpaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class PendingStockCommitRepositoryImpl implements PendingStockCommitRepository {
+
+    private final PendingStockCommitJpaRepository jpaRepository;
+
+    @Override
+    @Transactional
+    public void add(Long orderId, Instant nextAttemptAt) {
+        jpaRepository.insertIfAbsent(orderId, nextAttemptAt, Instant.now());
+    }
+
+    @Override
+    @Transactional
+    public void remove(Long orderId) {
+        jpaRepository.deleteByOrderId(orderId);
+    }
+
+    @Override
+    public List<PendingStockCommit> findDueForUpdate(Instant now, int limit) {
+        return jpaRepository.findDueForUpdate(now, limit).stream()
+                .map(this::toDomain)
+                .toList();
+    }
+
+    @Override
+    @Transactional
+    public void reschedule(Long orderId, int attempts, Instant nextAttemptAt, String lastError) {
+        jpaRepository.reschedule(orderId, attempts, nextAttemptAt, lastError);
+    }
+
+    private PendingStockCommit toDomain(PendingStockCommitEntity entity) {
+        return PendingStockCommit.builder()
+                .orderId(entity.getOrderId())
+                .attempts(entity.getAttempts())
+                .nextAttemptAt(entity.getNextAttemptAt())
+                .lastError(entity.getLastError())
+                .createdAt(entity.getCreatedAt())
+                .build();
+    }
+}
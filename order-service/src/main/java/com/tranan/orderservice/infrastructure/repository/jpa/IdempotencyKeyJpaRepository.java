@@ -0,0 +1,43 @@
+package com.tranan.orderservice.infrastructure.repository.jpa;
+
+import com.tranan.orderservice.infrastructure.entity.IdempotencyKeyEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyKeyJpaRepository extends JpaRepository<IdempotencyKeyEntity, Long> {
+
+    // Insert key mới, hoặc chiếm lại key đã hết hạn. Trả về 0 nếu key còn hiệu lực.
+    // Request trùng chạy song song sẽ chờ row lock của request đầu tiên tới khi nó commit/rollback.
+    @Modifying
+    @Query(value = "INSERT INTO order_idempotency_keys (user_id, idempotency_key, request_hash, created_at, expires_at) "
+            + "VALUES (:userId, :idempotencyKey, :requestHash, :now, :expiresAt) "
+            + "ON CONFLICT (user_id, idempotency_key) DO UPDATE SET request_hash = EXCLUDED.request_hash, "
+            + "order_id = NULL, response = NULL, created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at "
+            + "WHERE order_idempotency_keys.expires_at < EXCLUDED.created_at", nativeQuery = true)
+    int claim(@Param("userId") Long userId,
+            @Param("idempotencyKey") String idempotencyKey,
+            @Param("requestHash") String requestHash,
+            @Param("now") Instant now,
+            @Param("expiresAt") Instant expiresAt);
+
+    Optional<IdempotencyKeyEntity> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    @Modifying
+    @Query("UPDATE IdempotencyKeyEntity k SET k.orderId = :orderId, k.response = :response "
+            + "WHERE k.userId = :userId AND k.idempotencyKey = :idempotencyKey")
+    int complete(@Param("userId") Long userId,
+            @Param("idempotencyKey") String idempotencyKey,
+            @Param("orderId") Long orderId,
+            @Param("response") String response);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKeyEntity k WHERE k.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
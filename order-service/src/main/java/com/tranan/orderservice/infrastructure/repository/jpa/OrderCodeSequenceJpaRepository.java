@@ -0,0 +1,25 @@
+package com.tranan.orderservice.infrastructure.repository.jpa;
+
+import com.tranan.orderservice.infrastructure.entity.OrderCodeSequenceEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+@Repository
+public interface OrderCodeSequenceJpaRepository extends JpaRepository<OrderCodeSequenceEntity, LocalDate> {
+
+    // Khởi tạo bộ đếm cho ngày mới (bỏ qua nếu node khác đã tạo trước)
+    @Modifying
+    @Query(value = "INSERT INTO order_code_sequences (order_date, next_value) VALUES (:orderDate, :initialValue) "
+            + "ON CONFLICT (order_date) DO NOTHING", nativeQuery = true)
+    void initialize(@Param("orderDate") LocalDate orderDate, @Param("initialValue") long initialValue);
+
+    // Cấp phát một block số thứ tự, trả về số lớn nhất của block (atomic nhờ row lock của UPDATE)
+    @Query(value = "UPDATE order_code_sequences SET next_value = next_value + :blockSize "
+            + "WHERE order_date = :orderDate RETURNING next_value", nativeQuery = true)
+    Long allocateBlock(@Param("orderDate") LocalDate orderDate, @Param("blockSize") int blockSize);
+}
@@ -4,7 +4,9 @@ import com.tranan.orderservice.domain.model.OrderStatus;
 import com.tranan.orderservice.infrastructure.entity.OrderEntity;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -54,23 +56,38 @@ public interface OrderJpaRepository extends JpaRepository<OrderEntity, Long> {
     @Query("SELECT COUNT(o) FROM OrderEntity o WHERE o.status = :status")
     long countByStatus(@Param("status") OrderStatus status);
 
-    // ✅ Tìm đơn hàng PENDING_PAYMENT quá hạn (createdAt trước thời điểm cutoff)
-    @Query("SELECT o FROM OrderEntity o WHERE o.status = :status AND o.createdAt < :cutoffTime")
-    List<OrderEntity> findByStatusAndCreatedAtBefore(
+    // ✅ Đếm số đơn hàng của tất cả trạng thái trong 1 query (mỗi dòng: [status, count])
+    @Query("SELECT o.status, COUNT(o) FROM OrderEntity o GROUP BY o.status")
+    List<Object[]> countGroupByStatus();
+
+    // ✅ Keyset pagination: lấy id các đơn hàng quá hạn sau lastId (theo từng chunk)
+    @Query("SELECT o.id FROM OrderEntity o WHERE o.status = :status AND o.createdAt < :cutoffTime AND o.id > :lastId ORDER BY o.id ASC")
+    List<Long> findIdsByStatusAndCreatedAtBefore(
+            @Param("status") OrderStatus status,
+            @Param("cutoffTime") Instant cutoffTime,
+            @Param("lastId") Long lastId,
+            Pageable pageable);
+
+    // ✅ Keyset pagination: [id, createdAt] của các đơn hàng theo status (dùng để dựng lại timer hết hạn)
+    @Query("SELECT o.id, o.createdAt FROM OrderEntity o WHERE o.status = :status AND o.id > :lastId ORDER BY o.id ASC")
+    List<Object[]> findCreatedAtByStatus(
+            @Param("status") OrderStatus status,
+            @Param("lastId") Long lastId,
+            Pageable pageable);
+
+    @Query("SELECT COUNT(o) FROM OrderEntity o WHERE o.status = :status AND o.createdAt < :cutoffTime")
+    long countByStatusAndCreatedAtBefore(
             @Param("status") OrderStatus status,
             @Param("cutoffTime") Instant cutoffTime);
 
+    // ✅ Load một chunk đơn hàng kèm items và khóa các dòng (tránh tranh chấp với xác nhận thanh toán).
+    // Không dùng DISTINCT: Postgres không cho FOR UPDATE đi cùng DISTINCT, Hibernate 6 tự gộp root trùng
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM OrderEntity o JOIN FETCH o.items WHERE o.id IN :ids AND o.status = :status")
+    List<OrderEntity> findByIdInAndStatusForUpdate(
+            @Param("ids") List<Long> ids,
+            @Param("status") OrderStatus status);
+
     // ✅ Lấy tất cả đơn hàng (Admin) - sắp xếp theo ngày tạo mới nhất
     Page<OrderEntity> findAllByOrderByCreatedAtDesc(Pageable pageable);
-
-    // ✅ Tìm kiếm đơn hàng theo orderCode (Admin)
-    @Query("SELECT o FROM OrderEntity o WHERE LOWER(o.orderCode) LIKE LOWER(CONCAT('%', :keyword, '%')) ORDER BY o.createdAt DESC")
-    Page<OrderEntity> searchByOrderCode(@Param("keyword") String keyword, Pageable pageable);
-
-    // ✅ Tìm kiếm đơn hàng theo orderCode và status (Admin)
-    @Query("SELECT o FROM OrderEntity o WHERE LOWER(o.orderCode) LIKE LOWER(CONCAT('%', :keyword, '%')) AND o.status = :status ORDER BY o.createdAt DESC")
-    Page<OrderEntity> searchByOrderCodeAndStatus(
-            @Param("keyword") String keyword,
-            @Param("status") OrderStatus status,
-            Pageable pageable);
 }
@@ -0,0 +1,64 @@
+package com.tranan.orderservice.infrastructure.repository.jpa;
+
+import com.tranan.orderservice.domain.model.OrderStatus;
+import com.tranan.orderservice.infrastructure.entity.OrderSummaryEntity;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Repository
+public interface OrderSummaryJpaRepository extends JpaRepository<OrderSummaryEntity, Long> {
+
+    // Insert hoặc cập nhật summary của một đơn hàng (giữ nguyên created_at đã có)
+    @Modifying
+    @Query(value = "INSERT INTO order_summary (order_id, order_code, user_id, status, total_amount, item_count, "
+            + "thumbnail, created_at, updated_at) "
+            + "VALUES (:orderId, :orderCode, :userId, :status, :totalAmount, :itemCount, :thumbnail, "
+            + ":createdAt, :updatedAt) "
+            + "ON CONFLICT (order_id) DO UPDATE SET status = EXCLUDED.status, total_amount = EXCLUDED.total_amount, "
+            + "item_count = EXCLUDED.item_count, thumbnail = EXCLUDED.thumbnail, updated_at = EXCLUDED.updated_at",
+            nativeQuery = true)
+    void upsert(@Param("orderId") Long orderId,
+            @Param("orderCode") String orderCode,
+            @Param("userId") Long userId,
+            @Param("status") String status,
+            @Param("totalAmount") BigDecimal totalAmount,
+            @Param("itemCount") int itemCount,
+            @Param("thumbnail") String thumbnail,
+            @Param("createdAt") Instant createdAt,
+            @Param("updatedAt") Instant updatedAt);
+
+    @Modifying
+    @Query(value = "INSERT INTO order_summary (order_id, order_code, user_id, status, total_amount, item_count, "
+            + "thumbnail, created_at, updated_at) "
+            + "SELECT o.id, o.order_code, o.user_id, o.status, o.total_amount, "
+            + "COALESCE((SELECT SUM(i.quantity) FROM order_items i WHERE i.order_id = o.id), 0), "
+            + "(SELECT i.product_image FROM order_items i WHERE i.order_id = o.id ORDER BY i.id LIMIT 1), "
+            + "COALESCE(o.created_at, now()), o.updated_at "
+            + "FROM orders o WHERE NOT EXISTS (SELECT 1 FROM order_summary s WHERE s.order_id = o.id) "
+            + "ON CONFLICT (order_id) DO NOTHING", nativeQuery = true)
+    int backfillMissing();
+
+    Page<OrderSummaryEntity> findAllByOrderByCreatedAtDesc(Pageable pageable);
+
+    Page<OrderSummaryEntity> findByStatusOrderByCreatedAtDesc(OrderStatus status, Pageable pageable);
+
+    // Tìm theo tiền tố mã đơn hàng (dùng index text_pattern_ops), pattern đã escape
+    @Query("SELECT s FROM OrderSummaryEntity s WHERE LOWER(s.orderCode) LIKE :pattern ESCAPE '\\' "
+            + "AND (:status IS NULL OR s.status = :status) ORDER BY s.createdAt DESC")
+    Page<OrderSummaryEntity> searchByOrderCodePrefix(@Param("pattern") String pattern,
+            @Param("status") OrderStatus status, Pageable pageable);
+
+    // Tìm theo chuỗi con của mã đơn hàng (dùng index trigram), pattern đã escape
+    @Query("SELECT s FROM OrderSummaryEntity s WHERE LOWER(s.orderCode) LIKE :pattern ESCAPE '\\' "
+            + "AND (:status IS NULL OR s.status = :status) ORDER BY s.createdAt DESC")
+    Page<OrderSummaryEntity> searchByOrderCodeContaining(@Param("pattern") String pattern,
+            @Param("status") OrderStatus status, Pageable pageable);
+}
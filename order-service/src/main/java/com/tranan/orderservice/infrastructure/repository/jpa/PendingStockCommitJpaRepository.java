@@ -0,0 +1,39 @@
+package com.tranan.orderservice.infrastructure.repository.jpa;
+
+import com.tranan.orderservice.infrastructure.entity.PendingStockCommitEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface PendingStockCommitJpaRepository extends JpaRepository<PendingStockCommitEntity, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO order_pending_stock_commits (order_id, attempts, next_attempt_at, created_at) "
+            + "VALUES (:orderId, 0, :nextAttemptAt, :now) ON CONFLICT (order_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("orderId") Long orderId,
+            @Param("nextAttemptAt") Instant nextAttemptAt,
+            @Param("now") Instant now);
+
+    @Modifying
+    @Query("DELETE FROM PendingStockCommitEntity p WHERE p.orderId = :orderId")
+    int deleteByOrderId(@Param("orderId") Long orderId);
+
+    // Bỏ qua các dòng replica khác đang thử lại
+    @Query(value = "SELECT * FROM order_pending_stock_commits WHERE next_attempt_at <= :now "
+            + "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<PendingStockCommitEntity> findDueForUpdate(@Param("now") Instant now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE PendingStockCommitEntity p SET p.attempts = :attempts, p.nextAttemptAt = :nextAttemptAt, "
+            + "p.lastError = :lastError WHERE p.orderId = :orderId")
+    int reschedule(@Param("orderId") Long orderId,
+            @Param("attempts") int attempts,
+            @Param("nextAttemptAt") Instant nextAttemptAt,
+            @Param("lastError") String lastError);
+}
@@ -0,0 +1,52 @@
+package com.tranan.orderservice.infrastructure.transaction;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Chạy tác vụ phụ (Redis, Kafka, cache trong bộ nhớ...) sau khi transaction
+ * hiện tại commit, chạy ngay nếu không có transaction.
+ *
+ * Lỗi của tác vụ chỉ được log, không ném ra: Spring ném lỗi trong afterCommit về
+ * cho caller dù DB đã commit, caller thử lại sẽ ghi lần hai. onFailure dùng để
+ * đưa trạng thái phụ về chỗ tự sửa được (ví dụ xóa key để nạp lại từ DB).
+ */
+@Slf4j
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    public static void run(Runnable action) {
+        run(action, null);
+    }
+
+    public static void run(Runnable action, Runnable onFailure) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    runQuietly(action, onFailure);
+                }
+            });
+        } else {
+            runQuietly(action, onFailure);
+        }
+    }
+
+    private static void runQuietly(Runnable action, Runnable onFailure) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            log.error("After-commit action failed", e);
+            if (onFailure != null) {
+                try {
+                    onFailure.run();
+                } catch (RuntimeException failure) {
+                    log.error("After-commit failure handler failed", failure);
+                }
+            }
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.tranan.orderservice.application.dto.response.ApiResponse;
 import com.tranan.orderservice.presentation.advice.exception.InvalidOrderOperationException;
 import com.tranan.orderservice.presentation.advice.exception.OutOfStockException;
 import com.tranan.orderservice.presentation.advice.exception.PaymentFailedException;
+import com.tranan.orderservice.presentation.advice.exception.RemoteServiceException;
 import com.tranan.orderservice.presentation.advice.exception.ResourceAlreadyExistsException;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.ConstraintViolation;
@@ -92,6 +93,17 @@ public class GlobalExceptionHandler {
                 ));
     }
 
+    // Lỗi tạm thời khi gọi service khác (timeout, 5xx): client có thể thử lại
+    @ExceptionHandler(RemoteServiceException.class)
+    public ResponseEntity<ApiResponse<?>> handleRemoteServiceException(RemoteServiceException ex) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new ApiResponse<>(
+                        ex.getMessage(),
+                        "SERVICE_UNAVAILABLE"
+                ));
+    }
+
     // --- 3. VALIDATION & DATA INTEGRITY ---
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
@@ -0,0 +1,27 @@
+package com.tranan.orderservice.presentation.advice.exception;
+
+import feign.FeignException;
+
+/**
+ * Lỗi tạm thời khi gọi service khác (timeout, mất kết nối, 5xx): thao tác có
+ * thể thử lại, không được coi là lỗi nghiệp vụ của đơn hàng
+ */
+public class RemoteServiceException extends RuntimeException {
+    public RemoteServiceException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * Phân loại lỗi khi gọi service khác: service trả về 4xx (hết hàng, không
+     * tìm thấy...) là lỗi nghiệp vụ (IllegalArgumentException), còn lại là lỗi
+     * tạm thời (RemoteServiceException)
+     */
+    public static RuntimeException of(String message, Exception cause) {
+        return isTransient(cause) ? new RemoteServiceException(message, cause) : new IllegalArgumentException(message);
+    }
+
+    public static boolean isTransient(Exception cause) {
+        return !(cause instanceof FeignException feignException
+                && feignException.status() >= 400 && feignException.status() < 500);
+    }
+}
@@ -2,6 +2,7 @@ package com.tranan.orderservice.presentation.controller;
 
 import com.tranan.orderservice.annotation.ApiMessage;
 import com.tranan.orderservice.application.dto.response.OrderResponse;
+import com.tranan.orderservice.application.usecase.CheckoutIdempotencyService;
 import com.tranan.orderservice.application.usecase.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -16,6 +17,10 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
+import java.util.List;
+import java.util.function.Supplier;
+
 @Slf4j
 @RestController
 @RequestMapping("/api/orders")
@@ -23,7 +28,10 @@ import org.springframework.web.bind.annotation.*;
 @Tag(name = "Order", description = "Quản lý đơn hàng")
 public class OrderController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final OrderService orderService;
+    private final CheckoutIdempotencyService checkoutIdempotencyService;
 
     /**
      * Lấy userId từ JWT token claims
@@ -57,32 +65,78 @@ public class OrderController {
     /**
      * Tạo đơn hàng từ giỏ hàng (tất cả items)
      * POST /api/orders/checkout
+     * Header (tùy chọn): Idempotency-Key - gửi lại cùng key sẽ nhận lại đơn hàng
+     * đã tạo thay vì tạo đơn mới
+     * async=true: trả về 202 với đơn hàng PROCESSING, kết quả xem qua
+     * GET /api/orders/{orderId}
      */
     @PostMapping("/checkout")
     @ApiMessage("Tạo đơn hàng từ giỏ hàng")
     @Operation(summary = "Tạo đơn hàng từ tất cả items trong giỏ hàng")
-    public ResponseEntity<OrderResponse> checkout() {
+    public ResponseEntity<OrderResponse> checkout(
+            @RequestParam(defaultValue = "false") boolean async,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         Long userId = getCurrentUserId();
-        log.info("Request: CHECKOUT - userId: {}", userId);
+        log.info("Request: CHECKOUT - userId: {}, async: {}, idempotencyKey: {}", userId, async, idempotencyKey);
 
-        OrderResponse response = orderService.createOrder(userId);
-        return ResponseEntity.ok(response);
+        Supplier<OrderResponse> checkout = async
+                ? () -> orderService.submitCheckout(userId, null)
+                : () -> orderService.createOrder(userId);
+        OrderResponse response = idempotencyKey == null
+                ? checkout.get()
+                : checkoutIdempotencyService.execute(userId, idempotencyKey, checkoutFingerprint(async, null),
+                        checkout);
+        return checkoutResponse(async, response);
     }
 
     /**
      * Tạo đơn hàng từ giỏ hàng (chọn items cụ thể)
      * POST /api/orders/checkout-selected
      * Body: { "productIds": [1, 2, 3] }
+     * Header (tùy chọn): Idempotency-Key
+     * async=true: trả về 202 với đơn hàng PROCESSING
      */
     @PostMapping("/checkout-selected")
     @ApiMessage("Tạo đơn hàng từ items được chọn")
     @Operation(summary = "Tạo đơn hàng từ các items được chọn trong giỏ hàng")
-    public ResponseEntity<OrderResponse> checkoutSelected(@RequestBody CheckoutSelectedRequest request) {
+    public ResponseEntity<OrderResponse> checkoutSelected(
+            @RequestBody CheckoutSelectedRequest request,
+            @RequestParam(defaultValue = "false") boolean async,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         Long userId = getCurrentUserId();
-        log.info("Request: CHECKOUT_SELECTED - userId: {}, productIds: {}", userId, request.getProductIds());
+        List<Long> productIds = request.getProductIds() != null ? request.getProductIds() : List.of();
+        log.info("Request: CHECKOUT_SELECTED - userId: {}, productIds: {}, async: {}, idempotencyKey: {}", userId,
+                productIds, async, idempotencyKey);
 
-        OrderResponse response = orderService.createOrderWithSelectedItems(userId, request.getProductIds());
-        return ResponseEntity.ok(response);
+        Supplier<OrderResponse> checkout = async
+                ? () -> orderService.submitCheckout(userId, productIds)
+                : () -> orderService.createOrderWithSelectedItems(userId, productIds);
+        OrderResponse response = idempotencyKey == null
+                ? checkout.get()
+                : checkoutIdempotencyService.execute(userId, idempotencyKey, checkoutFingerprint(async, productIds),
+                        checkout);
+        return checkoutResponse(async, response);
+    }
+
+    private String checkoutFingerprint(boolean async, List<Long> productIds) {
+        String mode = async ? "ASYNC" : "SYNC";
+        if (productIds == null) {
+            return "CHECKOUT:" + mode;
+        }
+        return "CHECKOUT_SELECTED:" + mode + ":" + productIds.stream().distinct().sorted().toList();
+    }
+
+    /**
+     * Checkout đồng bộ trả về 200, bất đồng bộ trả về 202 kèm Location của đơn
+     * hàng để client polling
+     */
+    private ResponseEntity<OrderResponse> checkoutResponse(boolean async, OrderResponse response) {
+        if (!async) {
+            return ResponseEntity.ok(response);
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/orders/" + response.getOrderId()))
+                .body(response);
     }
 
     /**
@@ -212,6 +266,20 @@ public class OrderController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Lấy chi tiết đơn hàng kèm items (Admin)
+     * GET /api/orders/admin/{orderId}
+     * Danh sách Admin chỉ trả về bản tóm tắt, items được tải ở đây
+     */
+    @GetMapping("/admin/{orderId}")
+    @ApiMessage("Lấy chi tiết đơn hàng (Admin)")
+    @PreAuthorize("hasAuthority('GET /api/orders/admin/all')")
+    @Operation(summary = "Lấy chi tiết đơn hàng", description = "Yêu cầu quyền: <b>GET /api/orders/admin/all</b>")
+    public ResponseEntity<OrderResponse> getOrderAdmin(@PathVariable Long orderId) {
+        log.info("Request: GET order {} (Admin)", orderId);
+        return ResponseEntity.ok(orderService.getOrderById(orderId));
+    }
+
     /**
      * Lấy thống kê đơn hàng (Admin)
      * GET /api/orders/admin/stats
@@ -0,0 +1,151 @@
+package com.tranan.orderservice.application.scheduler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TimerWheel.
+ * Dùng tick ngắn (10ms) và wheel nhỏ để key đi qua tầng overflow trong vài
+ * trăm ms; thời điểm hết hạn được ghi lại qua expiryHandler (mock).
+ */
+@ExtendWith(MockitoExtension.class)
+class TimerWheelTest {
+
+    private static final long TICK_MILLIS = 10;
+    private static final int WHEEL_SIZE = 4;
+    private static final long TIMEOUT_MILLIS = 2000;
+
+    @Mock
+    private Consumer<List<Long>> expiryHandler;
+
+    private final Map<Long, Long> expiredAt = new ConcurrentHashMap<>();
+    private TimerWheel<Long> wheel;
+
+    @AfterEach
+    void tearDown() {
+        if (wheel != null) {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    void testSchedule_ExpiresKeyNotBeforeDeadline() {
+        // Arrange
+        wheel = startWheel();
+        Instant deadline = Instant.now().plusMillis(30);
+
+        // Act
+        wheel.schedule(1L, deadline);
+
+        // Assert
+        verify(expiryHandler, timeout(TIMEOUT_MILLIS)).accept(List.of(1L));
+        assertTrue(expiredAt.get(1L) >= deadline.toEpochMilli());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testSchedule_DeadlineBeyondOneRotation_CascadesFromOverflow() {
+        // Arrange - 1 vòng quay = WHEEL_SIZE * TICK_MILLIS = 40ms, deadline nằm ở tầng overflow
+        wheel = startWheel();
+        Instant deadline = Instant.now().plusMillis(150);
+
+        // Act
+        wheel.schedule(1L, deadline);
+
+        // Assert
+        verify(expiryHandler, timeout(TIMEOUT_MILLIS)).accept(List.of(1L));
+        assertTrue(expiredAt.get(1L) >= deadline.toEpochMilli());
+    }
+
+    @Test
+    void testSchedule_PastDeadline_ExpiresOnNextTick() {
+        // Arrange
+        wheel = startWheel();
+
+        // Act
+        wheel.schedule(1L, Instant.now().minusSeconds(60));
+
+        // Assert
+        verify(expiryHandler, timeout(TIMEOUT_MILLIS)).accept(List.of(1L));
+    }
+
+    @Test
+    void testCancel_KeyNeverExpires() {
+        // Arrange
+        wheel = startWheel();
+        wheel.schedule(1L, Instant.now().plusMillis(30));
+
+        // Act
+        wheel.cancel(1L);
+
+        // Assert
+        assertEquals(0, wheel.size());
+        verify(expiryHandler, after(200).never()).accept(any());
+    }
+
+    @Test
+    void testSchedule_Reschedule_ExpiresOnceAtNewDeadline() {
+        // Arrange
+        wheel = startWheel();
+        wheel.schedule(1L, Instant.now().plusMillis(20));
+        Instant newDeadline = Instant.now().plusMillis(150);
+
+        // Act
+        wheel.schedule(1L, newDeadline);
+
+        // Assert
+        assertEquals(1, wheel.size());
+        verify(expiryHandler, timeout(TIMEOUT_MILLIS)).accept(List.of(1L));
+        assertTrue(expiredAt.get(1L) >= newDeadline.toEpochMilli());
+        verify(expiryHandler, after(100).times(1)).accept(any());
+    }
+
+    @Test
+    void testSchedule_KeysInSameTick_AreHandledInOneBatch() {
+        // Arrange - wheel chưa chạy nên cả 2 key chắc chắn nằm cùng bucket khi tick tới
+        wheel = new TimerWheel<>("timer-wheel-test", TICK_MILLIS, WHEEL_SIZE, expiryHandler);
+        Instant deadline = Instant.now().plusMillis(30);
+        wheel.schedule(1L, deadline);
+        wheel.schedule(2L, deadline);
+
+        // Act
+        wheel.start();
+
+        // Assert
+        verify(expiryHandler, timeout(TIMEOUT_MILLIS)).accept(argThat(keys ->
+                keys.size() == 2 && keys.containsAll(List.of(1L, 2L))));
+    }
+
+    @Test
+    void testConstructor_WheelSizeNotPowerOfTwo_Throws() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> new TimerWheel<Long>("timer-wheel-test", TICK_MILLIS, 6, expiryHandler));
+    }
+
+    private TimerWheel<Long> startWheel() {
+        lenient().doAnswer(invocation -> {
+            List<Long> keys = invocation.getArgument(0);
+            long now = System.currentTimeMillis();
+            keys.forEach(key -> expiredAt.put(key, now));
+            return null;
+        }).when(expiryHandler).accept(any());
+
+        TimerWheel<Long> timerWheel = new TimerWheel<>("timer-wheel-test", TICK_MILLIS, WHEEL_SIZE, expiryHandler);
+        timerWheel.start();
+        return timerWheel;
+    }
+}
@@ -0,0 +1,178 @@
+package com.tranan.orderservice.infrastructure.event;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tranan.orderservice.infrastructure.entity.OrderOutboxEntity;
+import com.tranan.orderservice.infrastructure.repository.jpa.OrderOutboxJpaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.mock.MockProducerFactory;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for OrderOutboxRelay.
+ * Dùng MockProducer của Kafka thay cho broker thật.
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderOutboxRelayTest {
+
+    private static final int BATCH_SIZE = 200;
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Mock
+    private OrderOutboxJpaRepository outboxRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ObjectMapper objectMapper;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testRelay_PublishesBatchAndMarksRowsPublished() throws Exception {
+        // Arrange
+        MockProducer<String, Object> producer =
+                new MockProducer<>(true, new StringSerializer(), new JsonSerializer<>());
+        OrderOutboxRelay relay = createRelay(producer);
+
+        OrderOutboxEntity created = outboxEntry(1L, 10L, "ORDER_CREATED");
+        OrderOutboxEntity cancelled = outboxEntry(2L, 11L, "ORDER_CANCELLED");
+        when(outboxRepository.findUnpublishedForUpdate(any(Instant.class), anyInt()))
+                .thenReturn(List.of(created, cancelled), List.of());
+
+        // Act
+        relay.relay();
+
+        // Assert
+        List<ProducerRecord<String, Object>> sent = producer.history();
+        assertEquals(2, sent.size());
+        assertEquals("order-events", sent.get(0).topic());
+        assertEquals("10", sent.get(0).key());
+        assertEquals("ORDER_CREATED", eventType(sent.get(0)));
+        assertEquals("11", sent.get(1).key());
+        assertEquals("ORDER_CANCELLED", eventType(sent.get(1)));
+
+        assertNotNull(created.getPublishedAt());
+        assertNotNull(cancelled.getPublishedAt());
+        verify(outboxRepository).saveAll(List.of(created, cancelled));
+        assertEquals(2.0, meterRegistry.counter("order.outbox.published").count());
+    }
+
+    @Test
+    void testRelay_UnacknowledgedSendIsKeptForRetry() throws Exception {
+        // Arrange - producer không bao giờ ack
+        MockProducer<String, Object> producer =
+                new MockProducer<>(false, new StringSerializer(), new JsonSerializer<>());
+        OrderOutboxRelay relay = createRelay(producer);
+
+        OrderOutboxEntity entry = outboxEntry(1L, 10L, "ORDER_CREATED");
+        when(outboxRepository.findUnpublishedForUpdate(any(Instant.class), anyInt())).thenReturn(List.of(entry));
+
+        // Act
+        relay.relay();
+
+        // Assert
+        assertNull(entry.getPublishedAt());
+        assertEquals(1, entry.getAttempts());
+        assertNotNull(entry.getNextAttemptAt());
+        assertTrue(entry.getNextAttemptAt().isAfter(Instant.now()));
+        assertNull(entry.getDeadLetteredAt());
+        verify(outboxRepository, times(1)).findUnpublishedForUpdate(any(Instant.class), eq(BATCH_SIZE));
+        assertEquals(1.0, meterRegistry.counter("order.outbox.failed").count());
+    }
+
+    @Test
+    void testRelay_DeadLettersAfterMaxAttempts() throws Exception {
+        // Arrange - record đã lỗi MAX_ATTEMPTS - 1 lần, producer không bao giờ ack
+        MockProducer<String, Object> producer =
+                new MockProducer<>(false, new StringSerializer(), new JsonSerializer<>());
+        OrderOutboxRelay relay = createRelay(producer);
+
+        OrderOutboxEntity entry = outboxEntry(1L, 10L, "ORDER_CREATED");
+        entry.setAttempts(MAX_ATTEMPTS - 1);
+        when(outboxRepository.findUnpublishedForUpdate(any(Instant.class), anyInt())).thenReturn(List.of(entry));
+
+        // Act
+        relay.relay();
+
+        // Assert
+        assertNull(entry.getPublishedAt());
+        assertEquals(MAX_ATTEMPTS, entry.getAttempts());
+        assertNotNull(entry.getDeadLetteredAt());
+        assertNull(entry.getNextAttemptAt());
+        verify(outboxRepository).saveAll(List.of(entry));
+        assertEquals(1.0, meterRegistry.counter("order.outbox.dead_lettered").count());
+    }
+
+    @Test
+    void testRelay_EmptyOutbox_SendsNothing() {
+        // Arrange
+        MockProducer<String, Object> producer =
+                new MockProducer<>(true, new StringSerializer(), new JsonSerializer<>());
+        OrderOutboxRelay relay = createRelay(producer);
+        when(outboxRepository.findUnpublishedForUpdate(any(Instant.class), anyInt())).thenReturn(List.of());
+
+        // Act
+        relay.relay();
+
+        // Assert
+        assertTrue(producer.history().isEmpty());
+        verify(outboxRepository, never()).saveAll(any());
+    }
+
+    private String eventType(ProducerRecord<String, Object> record) {
+        return ((JsonNode) record.value()).get("eventType").asText();
+    }
+
+    private OrderOutboxRelay createRelay(MockProducer<String, Object> producer) {
+        KafkaTemplate<String, Object> kafkaTemplate = new KafkaTemplate<>(new MockProducerFactory<>(() -> producer));
+        return new OrderOutboxRelay(outboxRepository, kafkaTemplate, objectMapper, transactionManager,
+                meterRegistry, BATCH_SIZE, 50, 7, MAX_ATTEMPTS, 1000, 300000);
+    }
+
+    private OrderOutboxEntity outboxEntry(Long id, Long orderId, String eventType) throws Exception {
+        OrderEvent event = OrderEvent.builder()
+                .eventType(eventType)
+                .orderId(orderId)
+                .userId(1L)
+                .totalAmount(new BigDecimal("100000"))
+                .status("PENDING_PAYMENT")
+                .timestamp(Instant.now())
+                .build();
+
+        return OrderOutboxEntity.builder()
+                .id(id)
+                .topic("order-events")
+                .eventKey(String.valueOf(orderId))
+                .eventType(eventType)
+                .payload(objectMapper.writeValueAsString(event))
+                .createdAt(Instant.now())
+                .build();
+    }
+}
@@ -277,20 +277,32 @@ public class PaymentService {
             throw new ServiceCommunicationException("Order Service", e.getMessage());
         }
 
-        // 3. Restore inventory for all items
-        List<RestoreStockRequest> requests = order.getItems().stream()
-                .map(item -> RestoreStockRequest.builder()
-                        .productId(item.getProductId())
-                        .quantity(item.getQuantity())
-                        .build())
-                .collect(Collectors.toList());
-
-        try {
-            inventoryServiceClient.restoreMultipleStock(requests);
-            log.info("[PaymentService] Restored inventory for {} products", requests.size());
-        } catch (Exception e) {
-            log.error("[PaymentService] Failed to restore inventory: {}", e.getMessage());
-            throw new ServiceCommunicationException("Inventory Service", e.getMessage());
+        // 3. Trả lại tồn kho: đơn dùng reservation thì release hold (tồn kho DB
+        // chưa bị trừ), đơn cũ thì restore từng item
+        if (Boolean.TRUE.equals(order.getStockReserved())) {
+            try {
+                inventoryServiceClient.releaseReservations(List.of(orderId));
+                log.info("[PaymentService] Released inventory reservation for orderId: {}", orderId);
+            } catch (Exception e) {
+                log.error("[PaymentService] Failed to release inventory reservation: {}", e.getMessage());
+                throw new ServiceCommunicationException("Inventory Service", e.getMessage());
+            }
+        } else {
+            List<RestoreStockRequest> requests = order.getItems().stream()
+                    .map(item -> RestoreStockRequest.builder()
+                            .productId(item.getProductId())
+                            .quantity(item.getQuantity())
+                            .orderId(orderId)
+                            .build())
+                    .collect(Collectors.toList());
+
+            try {
+                inventoryServiceClient.restoreMultipleStock(requests);
+                log.info("[PaymentService] Restored inventory for {} products", requests.size());
+            } catch (Exception e) {
+                log.error("[PaymentService] Failed to restore inventory: {}", e.getMessage());
+                throw new ServiceCommunicationException("Inventory Service", e.getMessage());
+            }
         }
 
         // 4. Publish PaymentEvent to notification-service
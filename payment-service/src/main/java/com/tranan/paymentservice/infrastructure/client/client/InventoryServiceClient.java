@@ -12,4 +12,7 @@ public interface InventoryServiceClient {
 
     @PostMapping("/restore-multiple")
     void restoreMultipleStock(@RequestBody List<RestoreStockRequest> requests);
+
+    @PostMapping("/reservations/release")
+    void releaseReservations(@RequestBody List<Long> orderIds);
 }
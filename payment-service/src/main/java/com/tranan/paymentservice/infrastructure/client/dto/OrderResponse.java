@@ -21,5 +21,6 @@ public class OrderResponse {
     private Integer totalItems;
     private BigDecimal totalAmount;
     private String status;
+    private Boolean stockReserved;
     private Instant createdAt;
 }
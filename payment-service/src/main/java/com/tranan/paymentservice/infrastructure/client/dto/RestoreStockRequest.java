@@ -12,4 +12,7 @@ import lombok.NoArgsConstructor;
 public class RestoreStockRequest {
     private Long productId;
     private Integer quantity;
+
+    // Inventory Service ghi orderId vào ledger khi hoàn kho
+    private Long orderId;
 }
@@ -8,6 +8,7 @@ import com.tranan.productservice.domain.model.Product;
 import com.tranan.productservice.domain.repository.CategoryRepository;
 import com.tranan.productservice.domain.repository.ProductRepository;
 import com.tranan.productservice.infrastructure.config.network.S3Service;
+import com.tranan.productservice.infrastructure.event.ProductEventPublisher;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -30,6 +31,7 @@ public class ProductService {
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final S3Service s3Service;
+    private final ProductEventPublisher productEventPublisher;
 
     // =========================================================================
     // CREATE - Với file upload
@@ -73,6 +75,7 @@ public class ProductService {
 
         // 6. Save and return
         Product savedProduct = productRepository.save(product);
+        productEventPublisher.publishUpserted(savedProduct);
         log.info("Product created with ID: {}", savedProduct.getId());
 
         return mapToResponse(savedProduct, categories);
@@ -160,6 +163,7 @@ public class ProductService {
 
         // 6. Save
         Product updatedProduct = productRepository.save(product);
+        productEventPublisher.publishUpserted(updatedProduct);
 
         // 7. Cleanup old thumbnail if changed
         if (thumbnailFile != null && !thumbnailFile.isEmpty()) {
@@ -321,6 +325,7 @@ public class ProductService {
         List<String> oldImages = new ArrayList<>(product.getImages());
 
         productRepository.deleteById(id);
+        productEventPublisher.publishDeleted(id);
 
         cleanupOldImagesAsync(oldThumbnail, oldImages, null);
         log.info("Product deleted with ID: {}", id);
@@ -0,0 +1,61 @@
+package com.tranan.productservice.infrastructure.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * ProductEvent chờ publish lên Kafka (transactional outbox).
+ * Được ghi trong cùng transaction với thay đổi sản phẩm, relay sẽ gửi và đánh
+ * dấu published_at. Gửi lỗi thì thử lại sau next_attempt_at (backoff), quá số
+ * lần thử thì chuyển sang dead-letter (dead_lettered_at) chờ xử lý thủ công.
+ */
+@Entity
+@Table(name = "product_outbox", indexes = {
+        @Index(name = "idx_product_outbox_published_at_id", columnList = "published_at, id"),
+        @Index(name = "idx_product_outbox_key_id", columnList = "event_key, id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductOutboxEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_key", nullable = false, length = 100)
+    private String eventKey;
+
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "published_at")
+    private Instant publishedAt;
+
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    // Lần gửi lại sớm nhất sau khi lỗi (null: gửi ngay)
+    @Column(name = "next_attempt_at")
+    private Instant nextAttemptAt;
+
+    // Quá số lần thử: không gửi nữa, chờ xử lý thủ công
+    @Column(name = "dead_lettered_at")
+    private Instant deadLetteredAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+}
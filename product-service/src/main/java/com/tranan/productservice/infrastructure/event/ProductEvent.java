@@ -0,0 +1,34 @@
+package com.tranan.productservice.infrastructure.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Event thay đổi sản phẩm (topic product-events, key = productId) để các
+ * service khác giữ projection local thay vì gọi Product Service
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductEvent implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final String PRODUCT_UPSERTED = "PRODUCT_UPSERTED";
+    public static final String PRODUCT_DELETED = "PRODUCT_DELETED";
+
+    private String eventType;
+    private Long productId;
+    private String name;
+    private BigDecimal price;
+    private BigDecimal discountPrice;
+    private String thumbnail;
+    // Thời điểm thay đổi, consumer dùng để bỏ qua event cũ
+    private Instant timestamp;
+}
@@ -0,0 +1,68 @@
+package com.tranan.productservice.infrastructure.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tranan.productservice.domain.model.Product;
+import com.tranan.productservice.infrastructure.entity.ProductOutboxEntity;
+import com.tranan.productservice.infrastructure.repository.jpa.ProductOutboxJpaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Ghi ProductEvent vào bảng product_outbox trong transaction hiện tại.
+ * Event chỉ tồn tại nếu thay đổi sản phẩm commit thành công, và được
+ * {@link ProductOutboxRelay} gửi lên Kafka sau đó (at-least-once), nên
+ * projection ở các service khác không bị lệch vĩnh viễn khi Kafka lỗi.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductEventPublisher {
+
+    public static final String TOPIC = "product-events";
+
+    private final ProductOutboxJpaRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishUpserted(Product product) {
+        enqueue(ProductEvent.builder()
+                .eventType(ProductEvent.PRODUCT_UPSERTED)
+                .productId(product.getId())
+                .name(product.getName())
+                .price(product.getPrice())
+                .discountPrice(product.getDiscountPrice())
+                .thumbnail(product.getThumbnail())
+                .timestamp(Instant.now())
+                .build());
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishDeleted(Long productId) {
+        enqueue(ProductEvent.builder()
+                .eventType(ProductEvent.PRODUCT_DELETED)
+                .productId(productId)
+                .timestamp(Instant.now())
+                .build());
+    }
+
+    private void enqueue(ProductEvent event) {
+        try {
+            outboxRepository.save(ProductOutboxEntity.builder()
+                    .eventKey(String.valueOf(event.getProductId()))
+                    .eventType(event.getEventType())
+                    .payload(objectMapper.writeValueAsString(event))
+                    .createdAt(Instant.now())
+                    .build());
+            log.debug("Queued {} in outbox for productId: {}", event.getEventType(), event.getProductId());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(
+                    "Không thể serialize event " + event.getEventType() + " cho productId: " + event.getProductId(), e);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.tranan.productservice.infrastructure.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tranan.productservice.infrastructure.entity.ProductOutboxEntity;
+import com.tranan.productservice.infrastructure.repository.jpa.ProductOutboxJpaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Relay đọc bảng product_outbox theo batch và gửi lên topic product-events.
+ *
+ * Giống OrderOutboxRelay của Order Service: lock các dòng chưa publish (FOR
+ * UPDATE SKIP LOCKED), gửi cả batch rồi mới chờ ack, đánh dấu published_at cho
+ * record gửi thành công. Record lỗi được gửi lại với backoff tăng gấp đôi, quá
+ * max-attempts thì chuyển sang dead-letter. Mỗi batch chỉ lấy event đầu tiên
+ * còn chờ của mỗi sản phẩm nên PRODUCT_DELETED không vượt lên trước
+ * PRODUCT_UPSERTED đang chờ gửi lại.
+ *
+ * Metrics: product.outbox.published, product.outbox.failed,
+ * product.outbox.dead_lettered, product.outbox.lag (giây)
+ */
+@Slf4j
+@Component
+public class ProductOutboxRelay {
+
+    private final ProductOutboxJpaRepository outboxRepository;
+    private final KafkaTemplate<String, ProductEvent> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long sendTimeoutMs;
+    private final long retentionDays;
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final long maxBackoffMs;
+
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+    private final Counter deadLetteredCounter;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public ProductOutboxRelay(ProductOutboxJpaRepository outboxRepository,
+            KafkaTemplate<String, ProductEvent> kafkaTemplate,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${product.outbox.relay.batch-size:200}") int batchSize,
+            @Value("${product.outbox.relay.send-timeout-ms:10000}") long sendTimeoutMs,
+            @Value("${product.outbox.retention-days:7}") long retentionDays,
+            @Value("${product.outbox.relay.max-attempts:10}") int maxAttempts,
+            @Value("${product.outbox.relay.backoff-ms:1000}") long backoffMs,
+            @Value("${product.outbox.relay.max-backoff-ms:300000}") long maxBackoffMs) {
+        this.outboxRepository = outboxRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.retentionDays = retentionDays;
+        this.maxAttempts = maxAttempts;
+        this.backoffMs = backoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.publishedCounter = meterRegistry.counter("product.outbox.published");
+        this.failedCounter = meterRegistry.counter("product.outbox.failed");
+        this.deadLetteredCounter = meterRegistry.counter("product.outbox.dead_lettered");
+        meterRegistry.gauge("product.outbox.lag", lagSeconds);
+    }
+
+    @Scheduled(fixedDelayString = "${product.outbox.relay.interval-ms:500}")
+    public void relay() {
+        Integer sent;
+        do {
+            sent = transactionTemplate.execute(status -> relayBatch());
+            // Còn publish được thì đọc tiếp ngay: event kế tiếp của các sản phẩm vừa gửi đã tới lượt
+        } while (sent != null && sent > 0);
+
+        Instant oldest = outboxRepository.findOldestUnpublishedCreatedAt();
+        lagSeconds.set(oldest != null ? Duration.between(oldest, Instant.now()).toSeconds() : 0);
+    }
+
+    /**
+     * Xóa các event đã publish quá product.outbox.retention-days ngày
+     */
+    @Scheduled(cron = "${product.outbox.cleanup.cron:0 0 3 * * *}")
+    public void cleanup() {
+        Instant cutoff = Instant.now().minus(Duration.ofDays(retentionDays));
+        Integer deleted = transactionTemplate.execute(status -> outboxRepository.deletePublishedBefore(cutoff));
+        log.info("Deleted {} published product outbox events older than {}", deleted, cutoff);
+    }
+
+    /**
+     * @return số record publish thành công
+     */
+    private int relayBatch() {
+        List<ProductOutboxEntity> batch = outboxRepository.findUnpublishedForUpdate(Instant.now(), batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // 1. Gửi tất cả record (không chờ từng ack)
+        List<CompletableFuture<SendResult<String, ProductEvent>>> futures = new ArrayList<>(batch.size());
+        for (ProductOutboxEntity entry : batch) {
+            futures.add(send(entry));
+        }
+
+        // 2. Chờ ack và đánh dấu các record đã publish
+        int published = 0;
+        int deadLettered = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            ProductOutboxEntity entry = batch.get(i);
+            try {
+                futures.get(i).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+                entry.setPublishedAt(Instant.now());
+                entry.setNextAttemptAt(null);
+                published++;
+            } catch (Exception e) {
+                if (markFailed(entry, e)) {
+                    deadLettered++;
+                }
+            }
+        }
+        outboxRepository.saveAll(batch);
+
+        publishedCounter.increment(published);
+        failedCounter.increment(batch.size() - published);
+        deadLetteredCounter.increment(deadLettered);
+        log.debug("Relayed product outbox batch: {} published, {} failed", published, batch.size() - published);
+        return published;
+    }
+
+    /**
+     * Hẹn gửi lại record lỗi sau backoff, hoặc chuyển sang dead-letter khi đã
+     * lỗi max-attempts lần
+     *
+     * @return true nếu record bị chuyển sang dead-letter
+     */
+    private boolean markFailed(ProductOutboxEntity entry, Exception e) {
+        Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+        String error = String.valueOf(cause.getMessage());
+        int attempts = entry.getAttempts() + 1;
+        Instant now = Instant.now();
+        entry.setAttempts(attempts);
+        entry.setLastError(error.length() > 500 ? error.substring(0, 500) : error);
+
+        if (attempts >= maxAttempts) {
+            entry.setDeadLetteredAt(now);
+            entry.setNextAttemptAt(null);
+            log.error("Product outbox event {} ({}) for productId {} dead-lettered after {} attempts: {}",
+                    entry.getId(), entry.getEventType(), entry.getEventKey(), attempts, error);
+            return true;
+        }
+
+        long delayMs = Math.min(backoffMs << Math.min(attempts - 1, 20), maxBackoffMs);
+        entry.setNextAttemptAt(now.plusMillis(delayMs));
+        log.error("Failed to publish product outbox event {} ({}) for productId {} (attempt {}/{}), retrying in {} ms: {}",
+                entry.getId(), entry.getEventType(), entry.getEventKey(), attempts, maxAttempts, delayMs, error);
+        return false;
+    }
+
+    private CompletableFuture<SendResult<String, ProductEvent>> send(ProductOutboxEntity entry) {
+        try {
+            ProductEvent event = objectMapper.readValue(entry.getPayload(), ProductEvent.class);
+            return kafkaTemplate.send(ProductEventPublisher.TOPIC, entry.getEventKey(), event);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.tranan.productservice.infrastructure.repository.jpa;
+
+import com.tranan.productservice.infrastructure.entity.ProductOutboxEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface ProductOutboxJpaRepository extends JpaRepository<ProductOutboxEntity, Long> {
+
+    // Lấy một batch event đã tới lượt gửi, bỏ qua các dòng replica khác đang xử lý.
+    // Chỉ lấy event đầu tiên còn chờ của mỗi productId: event sau không được gửi
+    // trước khi event trước của cùng sản phẩm publish hoặc dead-letter.
+    @Query(value = "SELECT * FROM product_outbox o WHERE o.published_at IS NULL AND o.dead_lettered_at IS NULL "
+            + "AND (o.next_attempt_at IS NULL OR o.next_attempt_at <= :now) "
+            + "AND NOT EXISTS (SELECT 1 FROM product_outbox p WHERE p.event_key = o.event_key "
+            + "AND p.id < o.id AND p.published_at IS NULL AND p.dead_lettered_at IS NULL) "
+            + "ORDER BY o.id LIMIT :limit FOR UPDATE OF o SKIP LOCKED", nativeQuery = true)
+    List<ProductOutboxEntity> findUnpublishedForUpdate(@Param("now") Instant now, @Param("limit") int limit);
+
+    // Thời điểm tạo của event chưa publish lâu nhất, không tính dead-letter (null nếu không còn)
+    @Query("SELECT MIN(o.createdAt) FROM ProductOutboxEntity o WHERE o.publishedAt IS NULL AND o.deadLetteredAt IS NULL")
+    Instant findOldestUnpublishedCreatedAt();
+
+    @Modifying
+    @Query("DELETE FROM ProductOutboxEntity o WHERE o.publishedAt IS NOT NULL AND o.publishedAt < :cutoff")
+    int deletePublishedBefore(@Param("cutoff") Instant cutoff);
+}
@@ -16,6 +16,7 @@ import { Badge } from "@/components/ui/badge";
 import { toast } from "sonner";
 import {
     getAllOrders,
+    getAdminOrder,
     updateOrderStatus,
     getOrderStats
 } from "@/services/orderApi";
@@ -149,6 +150,18 @@ export default function OrderManagementPage() {
         void fetchOrders(currentPage, itemsPerPage, statusFilter, searchKeyword || undefined);
     }, [currentPage]);
 
+    // Danh sách chỉ có bản tóm tắt, tải chi tiết (items) khi mở đơn hàng
+    const handleViewDetail = async (orderId: number) => {
+        try {
+            const res = (await getAdminOrder(orderId)).data.data;
+            if (res) {
+                setSelectedOrder(res);
+            }
+        } catch (error) {
+            toast.error(getErrorMessage(error, "Không thể tải chi tiết đơn hàng"));
+        }
+    };
+
     const handleUpdateStatus = async (orderId: number, newStatus: string) => {
         try {
             await updateOrderStatus(orderId, newStatus);
@@ -336,7 +349,7 @@ export default function OrderManagementPage() {
                                                     <Button
                                                         variant="ghost"
                                                         className="text-blue-600 hover:text-blue-700 hover:bg-blue-50 font-medium text-sm"
-                                                        onClick={() => setSelectedOrder(order)}
+                                                        onClick={() => void handleViewDetail(order.orderId)}
                                                     >
                                                         Xem chi tiết
                                                     </Button>
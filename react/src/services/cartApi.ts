@@ -2,6 +2,7 @@ import axiosClient from "@/lib/axiosClient";
 import type { ApiResponse } from "@/types/apiResponse.d.ts";
 import type {
     AddToCartRequest,
+    MergeCartRequest,
     UpdateCartItemRequest,
     CartResponse,
 } from "@/types/cart.d.ts";
@@ -17,6 +18,13 @@ export const addToCart = (data: AddToCartRequest) => {
     );
 };
 
+export const mergeCart = (data: MergeCartRequest) => {
+    return axiosClient.post<ApiResponse<CartResponse>>(
+        "/carts/my/merge",
+        data
+    );
+};
+
 export const updateCartItem = (data: UpdateCartItemRequest) => {
     return axiosClient.put<ApiResponse<CartResponse>>(
         "/carts/my/items",
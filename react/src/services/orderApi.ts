@@ -64,6 +64,13 @@ export const getAllOrders = (page: number = 0, size: number = 10, keyword?: stri
     );
 };
 
+// Admin - Lấy chi tiết đơn hàng (kèm danh sách sản phẩm)
+export const getAdminOrder = (orderId: number) => {
+    return axiosClient.get<ApiResponse<OrderResponse>>(
+        `/orders/admin/${orderId}`
+    );
+};
+
 export const getAdminOrdersByStatus = (status: string, page: number = 0, size: number = 10) => {
     return axiosClient.get<ApiResponse<PageResponseDto<OrderResponse>>>(
         `/orders/admin/status/${status}?page=${page}&size=${size}`
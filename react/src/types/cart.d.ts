@@ -8,6 +8,13 @@ export interface AddToCartRequest {
     quantity: number;  // Integer -> number
 }
 
+/**
+ * Yêu cầu gộp giỏ hàng khách sau khi đăng nhập (MergeCartRequest)
+ */
+export interface MergeCartRequest {
+    items: AddToCartRequest[];
+}
+
 /**
  * Yêu cầu cập nhật hoặc xóa item trong giỏ hàng (UpdateCartItemRequest)
  */
@@ -36,6 +36,7 @@ export interface OrderResponse {
     totalItems: number;      // Integer -> number
     totalAmount: number;     // BigDecimal -> number
     status: string;          // "PENDING_PAYMENT" | "PAID" | "CANCELLED" | "COMPLETED" | "SHIPPING" | "DELIVERED"
+    thumbnail?: string;      // ảnh sản phẩm đầu tiên (danh sách Admin)
     createdAt: string;       // Instant -> ISO 8601 string
 }
 
@@ -0,0 +1,69 @@
+// Load test thêm sản phẩm vào giỏ hàng (k6), dùng để so sánh throughput giữa
+// 2 chế độ lưu giỏ hàng của Cart Service:
+//
+//   CART_STORAGE=jpa   -> chạy Cart Service, rồi: k6 run scripts/load/cart-add-to-cart.js
+//   CART_STORAGE=redis -> khởi động lại Cart Service, chạy lại script
+//
+// So sánh http_reqs (req/s) và http_req_duration (p95, p99) của 2 lần chạy.
+//
+// Biến môi trường:
+//   BASE_URL     Cart Service hoặc API Gateway (mặc định http://localhost:8083)
+//   TOKENS       danh sách JWT cách nhau bởi dấu phẩy, mỗi VU dùng 1 user
+//   PRODUCT_IDS  danh sách productId còn nhiều hàng, đủ cho cả lần chạy (mặc định 1,2,3,4,5)
+//   VUS          số virtual user (mặc định 50)
+//   DURATION     thời gian chạy (mặc định 1m)
+
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8083';
+const TOKENS = (__ENV.TOKENS || '').split(',').filter((token) => token.length > 0);
+const PRODUCT_IDS = (__ENV.PRODUCT_IDS || '1,2,3,4,5').split(',').map(Number);
+
+export const options = {
+    scenarios: {
+        add_to_cart: {
+            executor: 'constant-vus',
+            vus: Number(__ENV.VUS || 50),
+            duration: __ENV.DURATION || '1m',
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+    },
+    summaryTrendStats: ['avg', 'med', 'p(95)', 'p(99)', 'max'],
+};
+
+export function setup() {
+    if (TOKENS.length === 0) {
+        throw new Error('TOKENS is required (comma separated JWTs)');
+    }
+}
+
+export default function () {
+    const token = TOKENS[(__VU - 1) % TOKENS.length];
+    const productId = PRODUCT_IDS[Math.floor(Math.random() * PRODUCT_IDS.length)];
+
+    const res = http.post(`${BASE_URL}/api/carts/my/items`,
+        JSON.stringify({ productId: productId, quantity: 1 }),
+        {
+            headers: {
+                'Content-Type': 'application/json',
+                Authorization: `Bearer ${token}`,
+            },
+            tags: { name: 'add-to-cart' },
+        });
+
+    check(res, {
+        'status is 2xx': (r) => r.status >= 200 && r.status < 300,
+    });
+}
+
+// Xóa giỏ hàng sau khi chạy để lần chạy sau (chế độ còn lại) bắt đầu như nhau
+export function teardown() {
+    for (const token of TOKENS) {
+        http.del(`${BASE_URL}/api/carts/my`, null, {
+            headers: { Authorization: `Bearer ${token}` },
+        });
+    }
+}
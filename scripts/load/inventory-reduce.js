@@ -0,0 +1,84 @@
+// Load test giảm tồn kho của 1 sản phẩm hot (k6), dùng để so sánh throughput
+// giữa tồn kho 1 dòng và tồn kho chia shard của Inventory Service:
+//
+//   SHARD_COUNT=0 k6 run scripts/load/inventory-reduce.js   -> 1 dòng inventories
+//   SHARD_COUNT=8 k6 run scripts/load/inventory-reduce.js   -> 8 shard
+//
+// setup() đặt lại tồn kho của sản phẩm (STOCK) rồi cấu hình số shard qua API
+// admin, nên 2 lần chạy bắt đầu như nhau. So sánh http_reqs (req/s),
+// http_req_duration (p95, p99) và tỷ lệ lỗi của 2 lần chạy.
+//
+// Biến môi trường:
+//   BASE_URL     Inventory Service (mặc định http://localhost:8084)
+//   ADMIN_TOKEN  JWT có quyền PUT /api/inventory/{productId}
+//   PRODUCT_ID   sản phẩm dùng để test, phải đã có inventory (mặc định 1)
+//   SHARD_COUNT  số shard, 0 để gộp về 1 dòng (mặc định 0)
+//   STOCK        tồn kho đặt lại trước khi chạy, đủ cho cả lần chạy (mặc định 10000000)
+//   VUS          số virtual user (mặc định 50)
+//   DURATION     thời gian chạy (mặc định 1m)
+
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8084';
+const ADMIN_TOKEN = __ENV.ADMIN_TOKEN || '';
+const PRODUCT_ID = Number(__ENV.PRODUCT_ID || 1);
+const SHARD_COUNT = Number(__ENV.SHARD_COUNT || 0);
+const STOCK = Number(__ENV.STOCK || 10000000);
+
+export const options = {
+    scenarios: {
+        reduce: {
+            executor: 'constant-vus',
+            vus: Number(__ENV.VUS || 50),
+            duration: __ENV.DURATION || '1m',
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+    },
+    summaryTrendStats: ['avg', 'med', 'p(95)', 'p(99)', 'max'],
+};
+
+function adminPut(url, body) {
+    const res = http.put(url, body, {
+        headers: {
+            'Content-Type': 'application/json',
+            Authorization: `Bearer ${ADMIN_TOKEN}`,
+        },
+        tags: { name: 'setup' },
+    });
+    if (res.status < 200 || res.status >= 300) {
+        throw new Error(`PUT ${url} failed: ${res.status} ${res.body}`);
+    }
+}
+
+export function setup() {
+    if (ADMIN_TOKEN.length === 0) {
+        throw new Error('ADMIN_TOKEN is required to reset stock and configure shards');
+    }
+    // Gộp shard trước để đặt lại tồn kho trên 1 dòng, sau đó mới chia lại
+    adminPut(`${BASE_URL}/api/inventory/${PRODUCT_ID}/shards?count=0`, null);
+    adminPut(`${BASE_URL}/api/inventory/${PRODUCT_ID}`, JSON.stringify({ quantity: STOCK }));
+    if (SHARD_COUNT > 0) {
+        adminPut(`${BASE_URL}/api/inventory/${PRODUCT_ID}/shards?count=${SHARD_COUNT}`, null);
+    }
+}
+
+export default function () {
+    const res = http.post(`${BASE_URL}/api/internal/inventories/${PRODUCT_ID}/reduce`,
+        JSON.stringify({ productId: PRODUCT_ID, quantity: 1 }),
+        {
+            headers: { 'Content-Type': 'application/json' },
+            tags: { name: 'reduce', shards: String(SHARD_COUNT) },
+        });
+
+    check(res, {
+        'status is 2xx': (r) => r.status >= 200 && r.status < 300,
+    });
+}
+
+// Trả tồn kho về 1 dòng sau khi chạy
+export function teardown() {
+    adminPut(`${BASE_URL}/api/inventory/${PRODUCT_ID}/shards?count=0`, null);
+}